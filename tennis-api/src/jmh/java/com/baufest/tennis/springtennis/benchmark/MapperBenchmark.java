@@ -0,0 +1,61 @@
+package com.baufest.tennis.springtennis.benchmark;
+
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.mapper.CanchaMapperImpl;
+import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
+import com.baufest.tennis.springtennis.mapper.PartidoMapper;
+import com.baufest.tennis.springtennis.mapper.PartidoMapperImpl;
+import com.baufest.tennis.springtennis.model.Cancha;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.model.Partido;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmark de PartidoMapperImpl</p>
+ * Mide la conversion de un partido completo (jugadores y cancha incluidos) de entidad a DTO y de DTO a entidad.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperBenchmark {
+
+    PartidoMapper mapper;
+    Partido partido;
+    PartidoDTO partidoDTO;
+
+    @Setup
+    public void setUp() {
+        mapper = new PartidoMapperImpl(new JugadorMapperImpl(), new CanchaMapperImpl());
+        partido = new Partido(1L, new Date(), Estado.EN_CURSO, new Jugador(1L, "Federer", 10),
+                new Jugador(2L, "Nadal", 10), 2, 3, 1, 2);
+        partido.setCancha(new Cancha(1L, "Estadio Monumental", "Av. Rio de la Plata 521"));
+        partido.setVersion(42L);
+        partidoDTO = mapper.toDTO(partido);
+    }
+
+    @Benchmark
+    public PartidoDTO toDTO() {
+        return mapper.toDTO(partido);
+    }
+
+    @Benchmark
+    public Partido fromDTO() {
+        return mapper.fromDTO(partidoDTO);
+    }
+}
@@ -0,0 +1,84 @@
+package com.baufest.tennis.springtennis.benchmark;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.service.MarcadorPartido;
+import com.baufest.tennis.springtennis.service.MotorMarcador;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmark del calculo de un punto</p>
+ * Mide MotorMarcador.sumarPunto y MarcadorPartido.sumarPunto, la maquina de estados que usa sumarPuntos, partiendo de distintos
+ * estados del partido: un punto comun, un punto en iguales, uno que saca la ventaja y uno que cierra el partido.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MarcadorBenchmark {
+
+    /* Estados de partida: puntaje y games de cada jugador */
+    public enum EstadoPartido {
+        INICIO(0, 0, 0, 0),
+        IGUALES_EN_40(3, 3, 2, 2),
+        VENTAJA_VISITANTE(3, 4, 3, 3),
+        PUNTO_DE_PARTIDO(3, 0, 5, 4);
+
+        private final int scoreLocal;
+        private final int scoreVisitante;
+        private final int gamesLocal;
+        private final int gamesVisitante;
+
+        EstadoPartido(int scoreLocal, int scoreVisitante, int gamesLocal, int gamesVisitante) {
+            this.scoreLocal = scoreLocal;
+            this.scoreVisitante = scoreVisitante;
+            this.gamesLocal = gamesLocal;
+            this.gamesVisitante = gamesVisitante;
+        }
+    }
+
+    @Param
+    EstadoPartido estado;
+
+    MarcadorPartido marcador;
+    long puntaje;
+
+    @Setup
+    public void setUp() {
+        marcador = new MarcadorPartido(estado.scoreLocal, estado.scoreVisitante, estado.gamesLocal, estado.gamesVisitante,
+                Estado.EN_CURSO, 0L);
+        puntaje = MotorMarcador.empaquetar(estado.scoreLocal, estado.scoreVisitante, estado.gamesLocal, estado.gamesVisitante,
+                Estado.EN_CURSO);
+    }
+
+    /* Solo el motor sobre el marcador empaquetado, sin crear objetos */
+    @Benchmark
+    public long sumarPuntoEmpaquetado() {
+        return MotorMarcador.sumarPunto(puntaje, ModoJugador.LOCAL);
+    }
+
+    @Benchmark
+    public MarcadorPartido sumarPuntoLocal() {
+        return marcador.sumarPunto(ModoJugador.LOCAL);
+    }
+
+    /* Incluye la traduccion de los puntos a texto que se hace al devolver el partido */
+    @Benchmark
+    public String sumarPuntoLocalYTraducir() {
+        return marcador.sumarPunto(ModoJugador.LOCAL).getPuntosGameActualLocal();
+    }
+}
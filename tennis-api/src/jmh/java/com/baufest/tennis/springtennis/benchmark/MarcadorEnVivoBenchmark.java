@@ -0,0 +1,157 @@
+package com.baufest.tennis.springtennis.benchmark;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.PoliticaConflicto;
+import com.baufest.tennis.springtennis.mapper.CanchaMapperImpl;
+import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
+import com.baufest.tennis.springtennis.mapper.PartidoMapperImpl;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.model.Partido;
+import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import com.baufest.tennis.springtennis.repository.PuntoPartidoRepository;
+import com.baufest.tennis.springtennis.service.EjecutorPorPartido;
+import com.baufest.tennis.springtennis.service.HistorialPuntos;
+import com.baufest.tennis.springtennis.service.MarcadorEnVivo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Benchmark de sumar un punto a un partido en curso</p>
+ * Mide el camino de PartidoServiceImpl.sumarPuntos con el partido ya en memoria: pasaje al hilo del partido,
+ * calculo del marcador, alta del punto en el historial (contra repositorios que no van a la base, asi se mide el
+ * costo propio y no el de la base), armado del DTO de respuesta y publicacion del evento. Los puntos se alternan
+ * entre los dos jugadores para que el partido nunca termine, y cada FLUSH_CADA puntos se guarda la foto del
+ * marcador (el costo del flush queda incluido, como en produccion).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarcadorEnVivoBenchmark {
+
+    private static final int FLUSH_CADA = 1024;
+
+    EjecutorPorPartido ejecutor;
+
+    MarcadorEnVivo marcadorEnVivo;
+
+    /* Contador de puntos de cada hilo, decide a quien se le suma el punto y cuando se hace el flush */
+    @State(Scope.Thread)
+    public static class Puntos {
+        int cantidad;
+        long idPartido = 1L;
+    }
+
+    /* Igual que Puntos pero cada hilo juega su propio partido */
+    @State(Scope.Thread)
+    public static class PuntosPropios extends Puntos {
+        private static final AtomicLong IDS = new AtomicLong(1L);
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            idPartido = IDS.incrementAndGet();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        PartidoRepository partidoRepository = sinBase(PartidoRepository.class);
+        ejecutor = new EjecutorPorPartido(0);
+        marcadorEnVivo = new MarcadorEnVivo(partidoRepository, new PartidoMapperImpl(new JugadorMapperImpl(), new CanchaMapperImpl()),
+                new HistorialPuntos(partidoRepository, sinBase(PuntoPartidoRepository.class)), evento -> { }, ejecutor,
+                PoliticaConflicto.REINTENTAR, 3);
+        this.iniciarPartido(1L);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        ejecutor.cerrar();
+    }
+
+    private void iniciarPartido(long id) {
+        Partido partido = new Partido(id, new Date(), Estado.EN_CURSO, new Jugador(1L, "Federer", 10),
+                new Jugador(2L, "Nadal", 10), 0, 0, 0, 0);
+        partido.setVersion(0L);
+        marcadorEnVivo.iniciar(partido);
+    }
+
+    @Benchmark
+    public Object sumarPunto(Puntos puntos) {
+        return this.sumar(puntos);
+    }
+
+    /* Cuatro hilos sumando puntos al mismo partido, todos los puntos se encolan en el mismo hilo del ejecutor */
+    @Benchmark
+    @Threads(4)
+    public Object sumarPuntoConcurrente(Puntos puntos) {
+        return this.sumar(puntos);
+    }
+
+    /* Cuatro hilos sumando puntos cada uno a su partido, los partidos se reparten entre los hilos del ejecutor */
+    @Benchmark
+    @Threads(4)
+    public Object sumarPuntoEnDistintosPartidos(PuntosPropios puntos) {
+        return this.sumar(puntos);
+    }
+
+    /*
+     * Con varios hilos los puntos de cada jugador no quedan alternados y el partido puede terminar (y salir de
+     * memoria con el flush), en ese caso se lo vuelve a iniciar y se sigue midiendo
+     */
+    private Object sumar(Puntos puntos) {
+        int punto = puntos.cantidad++;
+        if (punto % FLUSH_CADA == 0) {
+            marcadorEnVivo.flush();
+        }
+        try {
+            return marcadorEnVivo.sumarPunto(puntos.idPartido, punto % 2 == 0 ? ModoJugador.LOCAL : ModoJugador.VISITANTE, null, null);
+        } catch (IllegalArgumentException | NoSuchElementException e) {
+            this.iniciarPartido(puntos.idPartido);
+            return e;
+        }
+    }
+
+    /*
+     * Repositorio que no va a la base: saveAll devuelve lo recibido, actualizarMarcador siempre encuentra la fila
+     * y las busquedas no encuentran nada
+     */
+    private static <T> T sinBase(Class<T> tipo) {
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+            switch (metodo.getName()) {
+                case "saveAll":
+                    return args[0];
+                case "actualizarMarcador":
+                    return 1;
+                default:
+                    if (metodo.getReturnType() == Optional.class) {
+                        return Optional.empty();
+                    }
+                    if (metodo.getReturnType() == int.class) {
+                        return 0;
+                    }
+                    return metodo.getReturnType() == boolean.class ? Boolean.FALSE : null;
+            }
+        }));
+    }
+}
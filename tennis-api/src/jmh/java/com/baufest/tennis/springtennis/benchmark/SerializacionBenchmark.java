@@ -0,0 +1,97 @@
+package com.baufest.tennis.springtennis.benchmark;
+
+import com.baufest.tennis.springtennis.dto.CanchaDTO;
+import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.MarcadorCompactoDTO;
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.service.MarcadorPartido;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmark de la serializacion JSON</p>
+ * Mide con Jackson la escritura del partido completo que devuelve sumar-punto, la del marcador que se envia
+ * a los clientes en vivo, la del marcador compacto en JSON y en CBOR y la lectura del partido que llega en
+ * los POST y PUT.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializacionBenchmark {
+
+    ObjectWriter partidoWriter;
+    ObjectWriter marcadorWriter;
+    ObjectWriter compactoWriter;
+    ObjectWriter compactoCborWriter;
+    ObjectReader partidoReader;
+    PartidoDTO partido;
+    MarcadorDTO marcador;
+    MarcadorCompactoDTO compacto;
+    byte[] partidoJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        partidoWriter = objectMapper.writerFor(PartidoDTO.class);
+        marcadorWriter = objectMapper.writerFor(MarcadorDTO.class);
+        partidoReader = objectMapper.readerFor(PartidoDTO.class);
+        compactoWriter = objectMapper.writerFor(MarcadorCompactoDTO.class);
+        compactoCborWriter = new ObjectMapper(new CBORFactory()).writerFor(MarcadorCompactoDTO.class);
+
+        partido = new PartidoDTO(1L, new Date(), Estado.EN_CURSO, new JugadorDTO(1L, "Federer", 10),
+                new JugadorDTO(2L, "Nadal", 10), 2, 3, 1, 2);
+        partido.setCancha(new CanchaDTO(1L, "Estadio Monumental", "Av. Rio de la Plata 521"));
+        partido.setPuntosGameActualLocal("30");
+        partido.setPuntosGameActualVisitante("15");
+        partido.setVersion(42L);
+        marcador = MarcadorDTO.de(partido);
+        compacto = MarcadorPartido.compacto(marcador);
+        partidoJson = partidoWriter.writeValueAsBytes(partido);
+    }
+
+    @Benchmark
+    public byte[] escribirPartido() throws IOException {
+        return partidoWriter.writeValueAsBytes(partido);
+    }
+
+    @Benchmark
+    public byte[] escribirMarcador() throws IOException {
+        return marcadorWriter.writeValueAsBytes(marcador);
+    }
+
+    @Benchmark
+    public byte[] escribirMarcadorCompacto() throws IOException {
+        return compactoWriter.writeValueAsBytes(compacto);
+    }
+
+    @Benchmark
+    public byte[] escribirMarcadorCompactoCbor() throws IOException {
+        return compactoCborWriter.writeValueAsBytes(compacto);
+    }
+
+    @Benchmark
+    public PartidoDTO leerPartido() throws IOException {
+        return partidoReader.readValue(partidoJson);
+    }
+}
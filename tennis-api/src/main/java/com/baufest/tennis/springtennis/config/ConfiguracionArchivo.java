@@ -0,0 +1,22 @@
+package com.baufest.tennis.springtennis.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * <p>Archivo de partidos particionado</p>
+ * Con springtennis.archivo.particionado=true (postgres) la tabla partido_archivado la crea ParticionesArchivo, y
+ * se le indica a Hibernate que no la cree ni la borre con ddl-auto. Sin particionado es una tabla mas de Hibernate.
+ */
+@Configuration
+@ConditionalOnProperty("springtennis.archivo.particionado")
+public class ConfiguracionArchivo {
+
+    @Bean
+    public HibernatePropertiesCustomizer filtroEsquemaArchivo() {
+        return propiedades -> propiedades.put(AvailableSettings.HBM2DDL_FILTER_PROVIDER, new FiltroEsquemaArchivo());
+    }
+}
@@ -0,0 +1,70 @@
+package com.baufest.tennis.springtennis.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Datasources con replicas de lectura</p>
+ * Solo se activa si se configura springtennis.datasource.replicas (urls separadas por coma). La primaria es el
+ * datasource de spring.datasource, cada replica tiene su propio pool de solo lectura con el mismo usuario, clave y
+ * configuracion de spring.datasource.hikari que la primaria. Sin replicas se usa el datasource unico que arma
+ * Spring Boot.
+ * <p>
+ * Los pools no se registran como beans: Spring Boot inicializa cada DataSource del contexto y el unico que tiene
+ * que ver es el de las rutas.
+ */
+@Configuration
+@ConditionalOnProperty("springtennis.datasource.replicas")
+public class ConfiguracionDatasource {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties propiedades, Environment environment,
+                                 @Value("${springtennis.datasource.replicas}") String[] urls,
+                                 @Value("${springtennis.datasource.lag-maximo-ms:2000}") long lagMaximoMs) {
+        HikariDataSource primaria = pool(propiedades, environment, propiedades.determineUrl(), "primaria");
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = pool(propiedades, environment, url.trim(), "replica-" + replicas.size());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        RutaDatasource rutaDatasource = new RutaDatasource(primaria, replicas, lagMaximoMs, System::currentTimeMillis);
+        rutaDatasource.afterPropertiesSet();
+        return new DatasourceConReplicas(rutaDatasource);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties propiedades, Environment environment, String url, String nombre) {
+        HikariDataSource pool = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(nombre);
+        return pool;
+    }
+
+    /* Al cerrar el contexto cierra los pools de la primaria y de las replicas */
+    static class DatasourceConReplicas extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final RutaDatasource rutaDatasource;
+
+        DatasourceConReplicas(RutaDatasource rutaDatasource) {
+            super(rutaDatasource);
+            this.rutaDatasource = rutaDatasource;
+        }
+
+        @Override
+        public void close() throws Exception {
+            rutaDatasource.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.baufest.tennis.springtennis.config;
+
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+
+/**
+ * <p>Tablas que no administra Hibernate</p>
+ * Con la tabla de partidos archivados particionada (springtennis.archivo.particionado=true, ver ParticionesArchivo)
+ * Hibernate no la crea ni la borra con ddl-auto: la tabla la crea la api con las particiones, y la borra cuando
+ * ddl-auto recrea las demas tablas. Lo registra ConfiguracionArchivo.
+ */
+public class FiltroEsquemaArchivo implements SchemaFilterProvider, SchemaFilter {
+
+    static final String TABLA_ARCHIVO = "partido_archivado";
+
+    @Override
+    public boolean includeNamespace(Namespace namespace) {
+        return true;
+    }
+
+    @Override
+    public boolean includeTable(Table table) {
+        return !TABLA_ARCHIVO.equalsIgnoreCase(table.getName());
+    }
+
+    @Override
+    public boolean includeSequence(Sequence sequence) {
+        return true;
+    }
+
+    @Override
+    public SchemaFilter getCreateFilter() {
+        return this;
+    }
+
+    @Override
+    public SchemaFilter getDropFilter() {
+        return this;
+    }
+
+    @Override
+    public SchemaFilter getMigrateFilter() {
+        return this;
+    }
+
+    @Override
+    public SchemaFilter getValidateFilter() {
+        return this;
+    }
+}
@@ -0,0 +1,144 @@
+package com.baufest.tennis.springtennis.config;
+
+import com.baufest.tennis.springtennis.SpringtennisApplication;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Ruteo entre la base primaria y las replicas de lectura</p>
+ * Las transacciones @Transactional(readOnly = true) declaradas en la api (los listados y consultas de los services)
+ * leen de una replica, todo lo demas va a la primaria: las escrituras, lo que se ejecuta sin transaccion y las
+ * transacciones de solo lectura que Spring Data abre por defecto en los metodos heredados de JpaRepository, que
+ * los services usan antes de escribir (existsById, findById) y tienen que ver lo ultimo de la primaria.
+ * <p>
+ * Cada hilo lee siempre de la misma replica, asi dos consultas seguidas de un mismo request (la version para el
+ * ETag y despues el recurso) no ven replicas con distinto atraso. Para que quien escribio lea lo que escribio aunque
+ * las replicas esten atrasadas, la respuesta de un request que escribio lleva el momento del commit en el header
+ * X-Ultima-Escritura; el cliente lo reenvia en sus requests siguientes y durante springtennis.datasource.lag-maximo-ms
+ * solo sus lecturas van a la primaria. Los demas clientes siguen leyendo de las replicas, y las escrituras de los
+ * hilos de fondo (el flush de los marcadores, la asignacion de puntos) no desvian ninguna lectura.
+ * <p>
+ * La conexion se elige al ejecutar la primera sentencia, por eso se usa detras de un LazyConnectionDataSourceProxy:
+ * al abrir la transaccion todavia no se sabe si es de solo lectura.
+ */
+public class RutaDatasource extends AbstractRoutingDataSource {
+
+    //Momento de la ultima escritura del cliente, lo devuelve la respuesta y lo reenvia el cliente
+    public static final String HEADER_ESCRITURA = "X-Ultima-Escritura";
+
+    private static final String PRIMARIA = "primaria";
+
+    //Solo las transacciones de metodos de la api van a las replicas
+    private static final String PAQUETE = SpringtennisApplication.class.getPackage().getName() + ".";
+
+    private final DataSource primaria;
+    private final List<DataSource> replicas;
+    private final long lagMaximoMs;
+    private final LongSupplier reloj;
+
+    public RutaDatasource(DataSource primaria, List<DataSource> replicas, long lagMaximoMs, LongSupplier reloj) {
+        this.primaria = primaria;
+        this.replicas = replicas;
+        this.lagMaximoMs = lagMaximoMs;
+        this.reloj = reloj;
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIA, primaria);
+        for (int i = 0; i < replicas.size(); i++) {
+            destinos.put(i, replicas.get(i));
+        }
+        this.setTargetDataSources(destinos);
+        this.setDefaultTargetDataSource(primaria);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            this.registrarEscritura();
+            return PRIMARIA;
+        }
+        String transaccion = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (replicas.isEmpty() || transaccion == null || !transaccion.startsWith(PAQUETE)
+                || this.escribioHaceMenosDelLag()) {
+            return PRIMARIA;
+        }
+        return (int) Math.floorMod(Thread.currentThread().getId(), (long) replicas.size());
+    }
+
+    /*
+     * Si la transaccion es de un request, al hacer commit guarda el momento en el request (lo ven las lecturas que
+     * siguen en el mismo request) y lo devuelve al cliente en el header de la respuesta
+     */
+    private void registrarEscritura() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (TransactionSynchronizationManager.isSynchronizationActive() && atributos instanceof ServletRequestAttributes) {
+            ServletRequestAttributes request = (ServletRequestAttributes) atributos;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    long momento = reloj.getAsLong();
+                    request.getRequest().setAttribute(HEADER_ESCRITURA, momento);
+                    HttpServletResponse response = request.getResponse();
+                    if (response != null && !response.isCommitted()) {
+                        response.setHeader(HEADER_ESCRITURA, String.valueOf(momento));
+                    }
+                }
+            });
+        }
+    }
+
+    /*
+     * Si el cliente del request actual escribio dentro de la ventana de atraso. Se tolera la misma diferencia hacia
+     * adelante por los relojes de las distintas instancias; un valor invalido o mas en el futuro se ignora, asi un
+     * cliente no puede quedar leyendo de la primaria para siempre
+     */
+    private boolean escribioHaceMenosDelLag() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (!(atributos instanceof ServletRequestAttributes)) {
+            return false;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) atributos).getRequest();
+        Object escrituraDelRequest = request.getAttribute(HEADER_ESCRITURA);
+        long escritura;
+        if (escrituraDelRequest instanceof Long) {
+            escritura = (Long) escrituraDelRequest;
+        } else {
+            try {
+                String header = request.getHeader(HEADER_ESCRITURA);
+                if (header == null) {
+                    return false;
+                }
+                escritura = Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        long ahora = reloj.getAsLong();
+        return escritura > ahora - lagMaximoMs && escritura <= ahora + lagMaximoMs;
+    }
+
+    /* Cierra los pools de la primaria y de las replicas */
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            cerrar(replica);
+        }
+        cerrar(primaria);
+    }
+
+    private static void cerrar(DataSource dataSource) throws Exception {
+        if (dataSource instanceof AutoCloseable) {
+            ((AutoCloseable) dataSource).close();
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package com.baufest.tennis.springtennis.controller;
 
+import com.baufest.tennis.springtennis.config.RutaDatasource;
 import com.baufest.tennis.springtennis.dto.CanchaDTO;
+import com.baufest.tennis.springtennis.dto.DisponibilidadCanchaDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.dto.ResultadoImportacionDTO;
+import com.baufest.tennis.springtennis.enums.FormatoImportacion;
 import com.baufest.tennis.springtennis.service.CanchaService;
+import com.baufest.tennis.springtennis.service.ImportacionRegistros;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -16,14 +27,20 @@ import java.util.List;
  * o postman
  */
 @RestController //Se indica por medio de Springboot Annotation que es un RestController
-@CrossOrigin //Esta anotacion permite llamadas desde cualquier origen, si no estuviera este deberia ser indicado en property
+@CrossOrigin(exposedHeaders = {Paginas.HEADER_SIGUIENTE, HttpHeaders.LINK, HttpHeaders.ETAG, RutaDatasource.HEADER_ESCRITURA}) //Esta anotacion permite llamadas desde cualquier origen, si no estuviera este deberia ser indicado en property
 @RequestMapping("springtennis/api/v1/canchas") //El path por el cual se accede a este controller
 public class CanchaController {
 
+    //Duracion por defecto de un partido en la busqueda de disponibilidad, en minutos (4 horas)
+    private static final String DURACION_DEFECTO = "240";
+
     //Esta sera la property final en la cual se aloje la memoria instanciada del cancha service
     //se pone final para que no pueda ser modificada una vez instanciada
     private final CanchaService canchaService;
 
+    //Carga masiva de canchas desde archivos CSV o NDJSON
+    private final ImportacionRegistros importacionRegistros;
+
     /*
     Aca se utiliza la anotacion Autowired, esta anotacion de springboot se encarga de enlazar todos los componentes,
     va ligada a la inyeccion de dependencias, en este caso como se usa por constructor se declara el Spring Prototype
@@ -33,30 +50,56 @@ public class CanchaController {
     of control, No nos llames; nosotros te llamaremos
      */
     @Autowired
-    public CanchaController(CanchaService canchaService) {
+    public CanchaController(CanchaService canchaService, ImportacionRegistros importacionRegistros) {
         this.canchaService = canchaService;
+        this.importacionRegistros = importacionRegistros;
     }
 
     /*
      * Aca se esta exponiendo por medio del controller un metodo del service, en este caso particular llamado
-     * listAll que devuelve todos los canchaes, se le indica por medio del annotation de springboot GetMapping
+     * listAll que devuelve una pagina de canchaes, se le indica por medio del annotation de springboot GetMapping
      * que se va a llamar por medio de un request del tipo Get al path definido en el componente RequestMapping,
-     * en este caso no tiene parametros de entrada ni por path (link) ni por body, de retorno indica que deberia dar
-     * un ResponseEntity que contiene una lista de canchaes, en cual se construye al momento del retorno del service
-     * por medio del ResponseEntity.ok() con un HttpStatus.Ok (200)*/
+     * recibe por query params el cursor (id del ultimo elemento de la pagina anterior) y el tamaño de pagina,
+     * de retorno indica que deberia dar un ResponseEntity que contiene la lista de canchaes de la pagina, el cursor
+     * de la pagina siguiente se devuelve en los headers X-Next-Cursor y Link, con un HttpStatus.Ok (200)*/
     @GetMapping
-    public ResponseEntity<List<CanchaDTO>> listAll() {
-        return ResponseEntity.ok(canchaService.listAll());
+    public ResponseEntity<List<CanchaDTO>> listAll(@RequestParam(required = false) Long cursor,
+                                              @RequestParam(defaultValue = "" + PaginaDTO.TAMANO_DEFECTO) int size) {
+        return Paginas.respuesta(canchaService.listAll(cursor, size));
+    }
+
+    /*
+     * Busqueda de canchas para las listas desplegables: devuelve las primeras size canchas (por nombre) cuyo
+     * nombre empieza con el query param nombre, sin recorrer todo el listado, con un HttpStatus.Ok (200)*/
+    @GetMapping("/search")
+    public ResponseEntity<List<CanchaDTO>> search(@RequestParam(defaultValue = "") String nombre,
+                                                  @RequestParam(defaultValue = "" + PaginaDTO.TAMANO_BUSQUEDA) int size) {
+        return ResponseEntity.ok(canchaService.buscar(nombre, size));
+    }
+
+    /*
+     * Disponibilidad de todas las canchas: por cada cancha se devuelven las franjas libres entre from y to (ISO)
+     * en las que entra un partido de duration minutos (por defecto la diferencia minima entre partidos de una
+     * misma cancha), con un HttpStatus.Ok (200)*/
+    @GetMapping("/availability")
+    public ResponseEntity<List<DisponibilidadCanchaDTO>> disponibilidad(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+            @RequestParam(defaultValue = DURACION_DEFECTO) int duration) {
+        return ResponseEntity.ok(canchaService.disponibilidad(from, to, duration));
     }
 
     /*
      * En este caso se devuelve un cancha particular, como se vera en el GetMapping se le indica
      * que se le agrega al path el /id y por medio de @PathVariable se indica que se obtiene dicho parametro
      * por el path de la llamada request, de la misma forma se llama al service y se devuelve el ResponseEntity
-     * con el cancha adentro (body) del response*/
+     * con el cancha adentro (body) del response. Si el header If-None-Match trae la version actual se responde 304
+     * sin leer el cancha*/
     @GetMapping("/{id}")
-    public ResponseEntity<CanchaDTO> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(canchaService.getById(id));
+    public ResponseEntity<CanchaDTO> getById(@PathVariable Long id,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = Condicionales.etag(canchaService.getVersion(id));
+        return Condicionales.respuesta(ifNoneMatch, etag, () -> ResponseEntity.ok(canchaService.getById(id)));
     }
 
     /*
@@ -69,6 +112,16 @@ public class CanchaController {
         return new ResponseEntity<>(savedCancha, HttpStatus.CREATED);
     }
 
+    /*
+     * Importacion masiva de canchas desde un archivo CSV (text/csv, con encabezado) o NDJSON (application/x-ndjson)
+     * enviado como body. El archivo se procesa a medida que se lee y se guarda en lotes; se devuelve la cantidad de
+     * registros insertados, actualizados y omitidos y el detalle de los que tuvieron error, con un HttpStatus.OK (200)*/
+    @PostMapping(value = "/import", consumes = {"text/csv", PartidoController.APPLICATION_NDJSON})
+    public ResponseEntity<ResultadoImportacionDTO> importar(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                            InputStream entrada) throws IOException {
+        return ResponseEntity.ok(importacionRegistros.importarCanchas(entrada, FormatoImportacion.de(contentType)));
+    }
+
     /*
      * Aca se ven ambos casos, se solicita un ID que se obtiene por PathVariable como parametro de entrada,
      * y un DTO de CanchaDto que se obtiene por medio de RequestBody como parametro, se utiliza para identificar
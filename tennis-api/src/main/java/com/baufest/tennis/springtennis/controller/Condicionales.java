@@ -0,0 +1,75 @@
+package com.baufest.tennis.springtennis.controller;
+
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * <p>GET condicionales</p>
+ * El ETag de un recurso se arma con las versiones de todo lo que aparece en su body, que el service obtiene
+ * con una consulta por clave primaria. Si coincide con el header If-None-Match del request se responde 304
+ * sin leer ni serializar el recurso, si no se arma la respuesta completa con el ETag.
+ */
+final class Condicionales {
+
+    private Condicionales() {
+    }
+
+    static String etag(long... versiones) {
+        return Arrays.stream(versiones).mapToObj(String::valueOf).collect(Collectors.joining("-"));
+    }
+
+    /*
+     * ETag del partido con las versiones de su body (el partido, sus jugadores y su cancha), igual al del GET del
+     * partido. Las versiones que faltan van como 0
+     */
+    static String etag(PartidoDTO partido) {
+        return etag(version(partido.getVersion()),
+                version(partido.getJugadorLocal() != null ? partido.getJugadorLocal().getVersion() : null),
+                version(partido.getJugadorVisitante() != null ? partido.getJugadorVisitante().getVersion() : null),
+                version(partido.getCancha() != null ? partido.getCancha().getVersion() : null));
+    }
+
+    private static long version(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    /*
+     * El ETag se calcula antes de leer el recurso: si cambia en el medio el body puede ser mas nuevo que el ETag,
+     * y el proximo request con ese ETag recibe de nuevo el recurso completo en lugar de un 304 desactualizado
+     */
+    static <T> ResponseEntity<T> respuesta(String ifNoneMatch, String etag, Supplier<ResponseEntity<T>> recurso) {
+        if (coincide(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity<T> respuesta = recurso.get();
+        return ResponseEntity.status(respuesta.getStatusCode()).headers(respuesta.getHeaders()).eTag(etag)
+                .body(respuesta.getBody());
+    }
+
+    /* If-None-Match usa la comparacion debil: se ignora el prefijo W/ de cada ETag de la lista */
+    static boolean coincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String esperado = "\"" + etag + "\"";
+        for (String valor : ifNoneMatch.split(",")) {
+            String candidato = valor.trim();
+            if (candidato.equals("*")) {
+                return true;
+            }
+            if (candidato.startsWith("W/")) {
+                candidato = candidato.substring(2);
+            }
+            if (candidato.equals(esperado)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,9 +1,17 @@
 package com.baufest.tennis.springtennis.controller;
 
+import com.baufest.tennis.springtennis.dto.ErrorDTO;
+import com.baufest.tennis.springtennis.exception.ConflictoVersionException;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.exception.ErrorDominio;
+import com.baufest.tennis.springtennis.exception.RecursoNoEncontradoException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestController;
@@ -11,32 +19,121 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>Exception handler customizado</p>
  * Este componente permite declarar excepciones personalizadas, con el HttpStatus particular para cada una de esas
  * excepciones, estas pueden ser arrojadas utilizando throw new NoSuchElementException("Mensaje"); por ej
+ * <p>
+ * El cuerpo de la respuesta es un ErrorDTO (codigo, mensaje y campo) y no la excepcion, que Jackson serializaba
+ * entera con su stack trace y sus causas. Los errores del cliente (4xx) son esperados: se loguean en DEBUG y, como
+ * maximo una vez cada springtennis.errores.log-intervalo-ms milisegundos, en INFO con la cantidad de errores que
+ * se omitieron desde el anterior. Los errores inesperados (500) se siguen logueando en ERROR con el stack trace.
  */
 @ControllerAdvice
 @RestController
 public class CustomizedResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(CustomizedResponseEntityExceptionHandler.class);
 
+    private static final String ERROR_INTERNO = "ERROR_INTERNO";
+    private static final String UNEXPECTED_ERROR = "Unexpected error.";
+
+    private final RegistroLimitado erroresCliente;
+
+    @Autowired
+    public CustomizedResponseEntityExceptionHandler(@Value("${springtennis.errores.log-intervalo-ms:10000}") long intervaloLog) {
+        this.erroresCliente = new RegistroLimitado(TimeUnit.MILLISECONDS.toNanos(intervaloLog));
+    }
+
     @ExceptionHandler(NoSuchElementException.class)
-    public final ResponseEntity<RuntimeException> handle(NoSuchElementException ex, WebRequest request) {
-        LOGGER.error(ex.getMessage(),ex);
-        return new ResponseEntity<>(ex, HttpStatus.NOT_FOUND);
+    public final ResponseEntity<ErrorDTO> handle(NoSuchElementException ex, WebRequest request) {
+        return this.errorCliente(HttpStatus.NOT_FOUND, ex, RecursoNoEncontradoException.NO_ENCONTRADO);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
-    public final ResponseEntity<RuntimeException> handle(IllegalArgumentException ex, WebRequest request) {
-        LOGGER.error(ex.getMessage(),ex);
-        return new ResponseEntity<>(ex, HttpStatus.BAD_REQUEST);
+    public final ResponseEntity<ErrorDTO> handle(IllegalArgumentException ex, WebRequest request) {
+        return this.errorCliente(HttpStatus.BAD_REQUEST, ex, DatoInvalidoException.DATO_INVALIDO);
+    }
+
+    @ExceptionHandler(DatoInvalidoException.class)
+    public final ResponseEntity<ErrorDTO> handle(DatoInvalidoException ex, WebRequest request) {
+        return this.errorCliente(HttpStatus.BAD_REQUEST, ex, DatoInvalidoException.DATO_INVALIDO);
+    }
+
+    /*
+     * Conflictos de concurrencia optimista: el partido fue modificado por otro cliente, se responde 409 con el
+     * partido actual y el mismo ETag que tendria su GET (las versiones del partido, sus jugadores y su cancha)
+     */
+    @ExceptionHandler(ConflictoVersionException.class)
+    public final ResponseEntity<ErrorDTO> handle(ConflictoVersionException ex, WebRequest request) {
+        this.registrar(HttpStatus.CONFLICT, ex);
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.status(HttpStatus.CONFLICT);
+        if (ex.getActual() != null) {
+            respuesta.eTag(Condicionales.etag(ex.getActual()));
+        }
+        ErrorDTO error = error(ex, ConflictoVersionException.CONFLICTO_VERSION);
+        error.setActual(ex.getActual());
+        return respuesta.body(error);
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public final ResponseEntity<ErrorDTO> handle(ObjectOptimisticLockingFailureException ex, WebRequest request) {
+        return this.errorCliente(HttpStatus.CONFLICT, ex, ConflictoVersionException.CONFLICTO_VERSION);
     }
 
     @ExceptionHandler(RuntimeException.class)
-    public final ResponseEntity<RuntimeException> handle(RuntimeException ex, WebRequest request) {
+    public final ResponseEntity<ErrorDTO> handle(RuntimeException ex, WebRequest request) {
         LOGGER.error(ex.getMessage(),ex);
-        return new ResponseEntity<>(ex, HttpStatus.INTERNAL_SERVER_ERROR);
+        return new ResponseEntity<>(new ErrorDTO(ERROR_INTERNO, UNEXPECTED_ERROR, null), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private ResponseEntity<ErrorDTO> errorCliente(HttpStatus status, RuntimeException ex, String codigoPorDefecto) {
+        this.registrar(status, ex);
+        return new ResponseEntity<>(error(ex, codigoPorDefecto), status);
+    }
+
+    private void registrar(HttpStatus status, RuntimeException ex) {
+        LOGGER.debug("{} {}", status.value(), ex.getMessage());
+        int omitidos = erroresCliente.permitir();
+        if (omitidos >= 0) {
+            LOGGER.info("{} {} ({} errores de cliente omitidos desde el ultimo registrado)", status.value(), ex.getMessage(), omitidos);
+        }
+    }
+
+    /* Las excepciones de dominio traen su codigo y campo, el resto (de Spring o del JDK) usa el codigo generico */
+    private static ErrorDTO error(RuntimeException ex, String codigoPorDefecto) {
+        if (ex instanceof ErrorDominio) {
+            ErrorDominio dominio = (ErrorDominio) ex;
+            return new ErrorDTO(dominio.getCodigo(), ex.getMessage(), dominio.getCampo());
+        }
+        return new ErrorDTO(codigoPorDefecto, ex.getMessage(), null);
+    }
+
+    /*
+     * Deja pasar un registro por intervalo: permitir devuelve cuantos se omitieron desde el ultimo que paso,
+     * o -1 si hay que omitir este
+     */
+    static final class RegistroLimitado {
+        private final long intervaloNanos;
+        private final AtomicLong ultimo;
+        private final AtomicInteger omitidos = new AtomicInteger();
+
+        RegistroLimitado(long intervaloNanos) {
+            this.intervaloNanos = intervaloNanos;
+            this.ultimo = new AtomicLong(System.nanoTime() - intervaloNanos);
+        }
+
+        int permitir() {
+            long ahora = System.nanoTime();
+            long anterior = ultimo.get();
+            if (ahora - anterior >= intervaloNanos && ultimo.compareAndSet(anterior, ahora)) {
+                return omitidos.getAndSet(0);
+            }
+            omitidos.incrementAndGet();
+            return -1;
+        }
     }
-}
\ No newline at end of file
+}
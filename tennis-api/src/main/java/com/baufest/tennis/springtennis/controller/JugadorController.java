@@ -1,12 +1,21 @@
 package com.baufest.tennis.springtennis.controller;
 
+import com.baufest.tennis.springtennis.config.RutaDatasource;
 import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.dto.PosicionRankingDTO;
+import com.baufest.tennis.springtennis.dto.ResultadoImportacionDTO;
+import com.baufest.tennis.springtennis.enums.FormatoImportacion;
 import com.baufest.tennis.springtennis.service.JugadorService;
+import com.baufest.tennis.springtennis.service.ImportacionRegistros;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -16,7 +25,7 @@ import java.util.List;
  * o postman
  */
 @RestController //Se indica por medio de Springboot Annotation que es un RestController
-@CrossOrigin //Esta anotacion permite llamadas desde cualquier origen, si no estuviera este deberia ser indicado en property
+@CrossOrigin(exposedHeaders = {Paginas.HEADER_SIGUIENTE, HttpHeaders.LINK, HttpHeaders.ETAG, RutaDatasource.HEADER_ESCRITURA}) //Esta anotacion permite llamadas desde cualquier origen, si no estuviera este deberia ser indicado en property
 @RequestMapping("springtennis/api/v1/jugadores") //El path por el cual se accede a este controller
 public class JugadorController {
 
@@ -24,6 +33,9 @@ public class JugadorController {
     //se pone final para que no pueda ser modificada una vez instanciada
     private final JugadorService jugadorService;
 
+    //Carga masiva de jugadores desde archivos CSV o NDJSON
+    private final ImportacionRegistros importacionRegistros;
+
     /*
     Aca se utiliza la anotacion Autowired, esta anotacion de springboot se encarga de enlazar todos los componentes,
     va ligada a la inyeccion de dependencias, en este caso como se usa por constructor se declara el Spring Prototype
@@ -33,30 +45,61 @@ public class JugadorController {
     of control, No nos llames; nosotros te llamaremos
      */
     @Autowired
-    public JugadorController(JugadorService jugadorService) {
+    public JugadorController(JugadorService jugadorService, ImportacionRegistros importacionRegistros) {
         this.jugadorService = jugadorService;
+        this.importacionRegistros = importacionRegistros;
     }
 
     /*
      * Aca se esta exponiendo por medio del controller un metodo del service, en este caso particular llamado
-     * listAll que devuelve todos los jugadores, se le indica por medio del annotation de springboot GetMapping
+     * listAll que devuelve una pagina de jugadores, se le indica por medio del annotation de springboot GetMapping
      * que se va a llamar por medio de un request del tipo Get al path definido en el componente RequestMapping,
-     * en este caso no tiene parametros de entrada ni por path (link) ni por body, de retorno indica que deberia dar
-     * un ResponseEntity que contiene una lista de jugadores, en cual se construye al momento del retorno del service
-     * por medio del ResponseEntity.ok() con un HttpStatus.Ok (200)*/
+     * recibe por query params el cursor (id del ultimo elemento de la pagina anterior) y el tamaño de pagina,
+     * de retorno indica que deberia dar un ResponseEntity que contiene la lista de jugadores de la pagina, el cursor
+     * de la pagina siguiente se devuelve en los headers X-Next-Cursor y Link, con un HttpStatus.Ok (200)*/
     @GetMapping
-    public ResponseEntity<List<JugadorDTO>> listAll() {
-        return ResponseEntity.ok(jugadorService.listAll());
+    public ResponseEntity<List<JugadorDTO>> listAll(@RequestParam(required = false) Long cursor,
+                                              @RequestParam(defaultValue = "" + PaginaDTO.TAMANO_DEFECTO) int size,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = Condicionales.etag(jugadorService.getVersionPagina(cursor, size));
+        return Condicionales.respuesta(ifNoneMatch, etag, () -> Paginas.respuesta(jugadorService.listAll(cursor, size)));
+    }
+
+    /*
+     * Busqueda de jugadores para las listas desplegables: devuelve los primeros size jugadores (por nombre) cuyo
+     * nombre empieza con el query param nombre, sin recorrer todo el listado, con un HttpStatus.Ok (200)*/
+    @GetMapping("/search")
+    public ResponseEntity<List<JugadorDTO>> search(@RequestParam(defaultValue = "") String nombre,
+                                                   @RequestParam(defaultValue = "" + PaginaDTO.TAMANO_BUSQUEDA) int size) {
+        return ResponseEntity.ok(jugadorService.buscar(nombre, size));
+    }
+
+    /*
+     * Ranking de jugadores por puntos: se devuelven size jugadores a partir de la posicion from (empezando en 0),
+     * cada uno con su posicion en el ranking, con un HttpStatus.Ok (200)*/
+    @GetMapping("/ranking")
+    public ResponseEntity<List<PosicionRankingDTO>> ranking(@RequestParam(defaultValue = "0") int from,
+                                                            @RequestParam(defaultValue = "" + PaginaDTO.TAMANO_DEFECTO) int size) {
+        return ResponseEntity.ok(jugadorService.ranking(from, size));
+    }
+
+    /* Posicion en el ranking del jugador de id recibido */
+    @GetMapping("/{id}/ranking")
+    public ResponseEntity<PosicionRankingDTO> posicion(@PathVariable Long id) {
+        return ResponseEntity.ok(jugadorService.posicion(id));
     }
 
     /*
      * En este caso se devuelve un jugador particular, como se vera en el GetMapping se le indica
      * que se le agrega al path el /id y por medio de @PathVariable se indica que se obtiene dicho parametro
      * por el path de la llamada request, de la misma forma se llama al service y se devuelve el ResponseEntity
-     * con el jugador adentro (body) del response*/
+     * con el jugador adentro (body) del response. Si el header If-None-Match trae la version actual se responde 304
+     * sin leer el jugador*/
     @GetMapping("/{id}")
-    public ResponseEntity<JugadorDTO> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(jugadorService.getById(id));
+    public ResponseEntity<JugadorDTO> getById(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = Condicionales.etag(jugadorService.getVersion(id));
+        return Condicionales.respuesta(ifNoneMatch, etag, () -> ResponseEntity.ok(jugadorService.getById(id)));
     }
 
     /*
@@ -69,6 +112,16 @@ public class JugadorController {
         return new ResponseEntity<>(savedJugador, HttpStatus.CREATED);
     }
 
+    /*
+     * Importacion masiva de jugadores desde un archivo CSV (text/csv, con encabezado) o NDJSON (application/x-ndjson)
+     * enviado como body. El archivo se procesa a medida que se lee y se guarda en lotes; se devuelve la cantidad de
+     * registros insertados, actualizados y omitidos y el detalle de los que tuvieron error, con un HttpStatus.OK (200)*/
+    @PostMapping(value = "/import", consumes = {"text/csv", PartidoController.APPLICATION_NDJSON})
+    public ResponseEntity<ResultadoImportacionDTO> importar(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                            InputStream entrada) throws IOException {
+        return ResponseEntity.ok(importacionRegistros.importarJugadores(entrada, FormatoImportacion.de(contentType)));
+    }
+
     /*
      * Aca se ven ambos casos, se solicita un ID que se obtiene por PathVariable como parametro de entrada,
      * y un DTO de JugadorDto que se obtiene por medio de RequestBody como parametro, se utiliza para identificar
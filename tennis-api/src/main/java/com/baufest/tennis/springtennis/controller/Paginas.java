@@ -0,0 +1,33 @@
+package com.baufest.tennis.springtennis.controller;
+
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+/**
+ * <p>Respuestas paginadas</p>
+ * El body de los listados sigue siendo un array con los elementos de la pagina, el cursor de la
+ * pagina siguiente viaja en el header X-Next-Cursor y en un header Link con rel="next".
+ */
+final class Paginas {
+
+    static final String HEADER_SIGUIENTE = "X-Next-Cursor";
+
+    private Paginas() {
+    }
+
+    static <T> ResponseEntity<List<T>> respuesta(PaginaDTO<T> pagina) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.getSiguiente() != null) {
+            String siguiente = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", pagina.getSiguiente())
+                    .toUriString();
+            respuesta.header(HEADER_SIGUIENTE, String.valueOf(pagina.getSiguiente()))
+                    .header(HttpHeaders.LINK, "<" + siguiente + ">; rel=\"next\"");
+        }
+        return respuesta.body(pagina.getItems());
+    }
+}
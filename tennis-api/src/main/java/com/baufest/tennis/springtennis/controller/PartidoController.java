@@ -1,14 +1,42 @@
 package com.baufest.tennis.springtennis.controller;
 
+import com.baufest.tennis.springtennis.config.RutaDatasource;
+import com.baufest.tennis.springtennis.dto.MarcadorCompactoDTO;
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.dto.PartidoArchivadoDTO;
 import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.ProgramacionDTO;
+import com.baufest.tennis.springtennis.dto.PuntoPartidoDTO;
+import com.baufest.tennis.springtennis.dto.ResultadoPuntoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
 import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.PoliticaConflicto;
+import com.baufest.tennis.springtennis.repository.VersionPartido;
+import com.baufest.tennis.springtennis.service.ArchivoPartidos;
+import com.baufest.tennis.springtennis.service.MarcadorPartido;
 import com.baufest.tennis.springtennis.service.PartidoService;
+import com.baufest.tennis.springtennis.service.ProgramacionTorneo;
+import com.baufest.tennis.springtennis.service.TransmisionMarcadores;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 
 /**
@@ -18,7 +46,8 @@ import java.util.List;
  * o postman
  */
 @RestController //Se indica por medio de Springboot Annotation que es un RestController
-@CrossOrigin //Esta anotacion permite llamadas desde cualquier origen, si no estuviera este deberia ser indicado en property
+@CrossOrigin(exposedHeaders = {Paginas.HEADER_SIGUIENTE, HttpHeaders.LINK, HttpHeaders.ETAG,
+        RutaDatasource.HEADER_ESCRITURA, PartidoController.HEADER_REINTENTOS, PartidoController.HEADER_POLITICA}) //Esta anotacion permite llamadas desde cualquier origen, si no estuviera este deberia ser indicado en property
 @RequestMapping("springtennis/api/v1/partidos") //El path por el cual se accede a este controller
 public class PartidoController {
 
@@ -26,6 +55,24 @@ public class PartidoController {
     //se pone final para que no pueda ser modificada una vez instanciada
     private final PartidoService partidoService;
 
+    //Conexiones de los clientes que siguen los partidos en vivo
+    private final TransmisionMarcadores transmisionMarcadores;
+
+    //Asignacion automatica de cancha y horario a los partidos de un torneo
+    private final ProgramacionTorneo programacionTorneo;
+
+    //Historial de los partidos finalizados que se movieron al archivo
+    private final ArchivoPartidos archivoPartidos;
+
+    //Writer de JSON para la exportacion, no hace flush despues de cada partido para aprovechar el buffer
+    private final ObjectWriter ndjsonWriter;
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    //Headers con los que se informa como se resolvio un punto concurrente
+    public static final String HEADER_REINTENTOS = "X-Reintentos";
+    public static final String HEADER_POLITICA = "X-Politica-Conflicto";
+
     /*
     Aca se utiliza la anotacion Autowired, esta anotacion de springboot se encarga de enlazar todos los componentes,
     va ligada a la inyeccion de dependencias, en este caso como se usa por constructor se declara el Spring Prototype
@@ -35,31 +82,95 @@ public class PartidoController {
     of control, No nos llames; nosotros te llamaremos
      */
     @Autowired
-    public PartidoController(PartidoService partidoService) {
+    public PartidoController(PartidoService partidoService, TransmisionMarcadores transmisionMarcadores,
+                             ProgramacionTorneo programacionTorneo, ArchivoPartidos archivoPartidos,
+                             ObjectMapper objectMapper) {
         this.partidoService = partidoService;
+        this.transmisionMarcadores = transmisionMarcadores;
+        this.programacionTorneo = programacionTorneo;
+        this.archivoPartidos = archivoPartidos;
+        this.ndjsonWriter = objectMapper.writerFor(PartidoDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     /*
      * Aca se esta exponiendo por medio del controller un metodo del service, en este caso particular llamado
-     * listAll que devuelve todos los partidos, se le indica por medio del annotation de springboot GetMapping
+     * listAll que devuelve una pagina de partidos, se le indica por medio del annotation de springboot GetMapping
      * que se va a llamar por medio de un request del tipo Get al path definido en el componente RequestMapping,
-     * en este caso no tiene parametros de entrada ni por path (link) ni por body, de retorno indica que deberia dar
-     * un ResponseEntity que contiene una lista de partidos, en cual se construye al momento del retorno del service
-     * por medio del ResponseEntity.ok() con un HttpStatus.Ok (200)*/
+     * recibe por query params el cursor (id del ultimo elemento de la pagina anterior) y el tamaño de pagina,
+     * opcionalmente se puede filtrar por estado y por id de cancha,
+     * de retorno indica que deberia dar un ResponseEntity que contiene la lista de partidos de la pagina, el cursor
+     * de la pagina siguiente se devuelve en los headers X-Next-Cursor y Link, con un HttpStatus.Ok (200)*/
     @GetMapping
-    public ResponseEntity<List<PartidoDTO>> listAll() {
-        return ResponseEntity.ok(partidoService.listAll());
+    public ResponseEntity<List<PartidoDTO>> listAll(@RequestParam(required = false) Long cursor,
+                                                    @RequestParam(defaultValue = "" + PaginaDTO.TAMANO_DEFECTO) int size,
+                                                    @RequestParam(required = false) Estado estado,
+                                                    @RequestParam(required = false) Long idCancha) {
+        return Paginas.respuesta(partidoService.listAll(cursor, size, estado, idCancha));
+    }
+
+    /*
+     * Exportacion del historial de partidos en formato NDJSON (un partido en JSON por linea). Se usa un
+     * StreamingResponseBody para escribir cada partido en la respuesta a medida que se lee de la base,
+     * sin armar la lista completa en memoria. Se puede acotar por rango de fechas (ISO) y por cancha*/
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date hasta,
+            @RequestParam(required = false) Long idCancha) {
+        StreamingResponseBody body = salida -> {
+            try (JsonGenerator generator = ndjsonWriter.getFactory().createGenerator(salida)) {
+                partidoService.exportar(desde, hasta, idCancha, partido -> {
+                    try {
+                        ndjsonWriter.writeValue(generator, partido);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
+    }
+
+    /*
+     * Historial de partidos archivados (finalizados hace mas de springtennis.archivo.antiguedad-dias dias, que ya no
+     * aparecen en el listado de partidos) con el resultado final. El rango de fechas (ISO) es obligatorio, se puede
+     * filtrar por jugador y por cancha y se pagina igual que el listado de partidos*/
+    @GetMapping("/historial")
+    public ResponseEntity<List<PartidoArchivadoDTO>> listHistorial(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date hasta,
+            @RequestParam(required = false) Long idJugador,
+            @RequestParam(required = false) Long idCancha,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "" + PaginaDTO.TAMANO_DEFECTO) int size) {
+        return Paginas.respuesta(archivoPartidos.listHistorial(cursor, size, desde, hasta, idJugador, idCancha));
+    }
+
+    @GetMapping("/historial/{id}")
+    public ResponseEntity<PartidoArchivadoDTO> getArchivado(@PathVariable Long id) {
+        return ResponseEntity.ok(archivoPartidos.getById(id));
+    }
+
+    /* Historial de puntos de un partido archivado */
+    @GetMapping("/historial/{id}/puntos")
+    public ResponseEntity<List<PuntoPartidoDTO>> listPuntosArchivado(@PathVariable Long id) {
+        return ResponseEntity.ok(archivoPartidos.listPuntos(id));
     }
 
     /*
      * En este caso se devuelve un partido particular, como se vera en el GetMapping se le indica
      * que se le agrega al path el /id y por medio de @PathVariable se indica que se obtiene dicho parametro
      * por el path de la llamada request, de la misma forma se llama al service y se devuelve el ResponseEntity
-     * con el partido adentro (body) del response*/
+     * con el partido adentro (body) del response. Si el header If-None-Match trae el ETag actual (versiones del
+     * partido, sus jugadores y su cancha) se responde 304 sin armar el partido*/
     @GetMapping("/{id}")
-    public ResponseEntity<PartidoDTO> getById(@PathVariable Long id) {
-        PartidoDTO partido = partidoService.getById(id);
-        return ResponseEntity.ok(partido);
+    public ResponseEntity<PartidoDTO> getById(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        VersionPartido version = partidoService.getVersion(id);
+        String etag = Condicionales.etag(version.getVersion(), version.getVersionLocal(), version.getVersionVisitante(),
+                version.getVersionCancha());
+        return Condicionales.respuesta(ifNoneMatch, etag, () -> ResponseEntity.ok(partidoService.getById(id)));
     }
 
     /*
@@ -74,6 +185,25 @@ public class PartidoController {
                 HttpStatus.CREATED);
     }
 
+    /*
+     * Alta de un lote de partidos (por ejemplo todos los de un cuadro) en una sola llamada. Se validan todos
+     * juntos, incluyendo los choques de horario entre partidos del mismo lote, y si alguno no es valido no se
+     * guarda ninguno. Devuelve los partidos guardados en el mismo orden con un HttpStatus.CREATED (201)*/
+    @PostMapping("/batch")
+    public ResponseEntity<List<PartidoDTO>> savePartidos(@RequestBody List<PartidoDTO> partidos) {
+        return new ResponseEntity<>(partidoService.saveAll(partidos), HttpStatus.CREATED);
+    }
+
+    /*
+     * Programacion automatica de una ronda de un torneo: recibe los emparejamientos y la ventana de tiempo, les
+     * asigna cancha y fecha de comienzo respetando la diferencia minima entre partidos de una misma cancha y el
+     * descanso de los jugadores, y los guarda como un lote. Devuelve los partidos guardados en el mismo orden que
+     * los emparejamientos con un HttpStatus.CREATED (201)*/
+    @PostMapping("/programacion")
+    public ResponseEntity<List<PartidoDTO>> programarPartidos(@RequestBody ProgramacionDTO programacion) {
+        return new ResponseEntity<>(programacionTorneo.programar(programacion), HttpStatus.CREATED);
+    }
+
     /*
      * Aca se ven ambos casos, se solicita un ID que se obtiene por PathVariable como parametro de entrada,
      * y un DTO de PartidoDTO que se obtiene por medio de RequestBody como parametro, se utiliza para identificar
@@ -96,10 +226,79 @@ public class PartidoController {
         return response;
     }
 
+    /*
+     * Suma un punto al jugador indicado. Opcionalmente se recibe la version del partido que tenia el cliente y la
+     * politica a aplicar si el partido cambio mientras tanto (REINTENTAR o RECHAZAR, por defecto la configurada).
+     * Si se rechaza el punto se responde 409 con el partido actual, si no se devuelve el partido con el mismo ETag
+     * que el GET del partido (su version nueva y las de sus jugadores y su cancha), la politica aplicada y la cantidad de reintentos que hubo en los headers X-Politica-Conflicto
+     * y X-Reintentos*/
     @PostMapping(value = "/{id}/actions/sumar-punto")
-    public ResponseEntity<PartidoDTO> sumarPuntos(@PathVariable Long id, @RequestParam ModoJugador modoJugador) {
-        PartidoDTO partido = partidoService.sumarPuntos(id, modoJugador);
-        return new ResponseEntity<>(partido, HttpStatus.OK);
+    public ResponseEntity<PartidoDTO> sumarPuntos(@PathVariable Long id, @RequestParam ModoJugador modoJugador,
+                                                  @RequestParam(required = false) Long version,
+                                                  @RequestParam(required = false) PoliticaConflicto politica) {
+        ResultadoPuntoDTO resultado = partidoService.sumarPuntos(id, modoJugador, version, politica);
+        PartidoDTO partido = resultado.getPartido();
+        return respuestaPunto(resultado, Condicionales.etag(partido)).body(partido);
+    }
+
+    /*
+     * Igual que el anterior pero con compacto=true se devuelve solo el marcador compacto en lugar del partido
+     * completo con sus jugadores y su cancha, para los tableros que suman puntos muy seguido. El ETag es solo la
+     * version del partido, como el de GET /{id}/marcador*/
+    @PostMapping(value = "/{id}/actions/sumar-punto", params = "compacto=true")
+    public ResponseEntity<MarcadorCompactoDTO> sumarPuntosCompacto(@PathVariable Long id, @RequestParam ModoJugador modoJugador,
+                                                                   @RequestParam(required = false) Long version,
+                                                                   @RequestParam(required = false) PoliticaConflicto politica) {
+        ResultadoPuntoDTO resultado = partidoService.sumarPuntos(id, modoJugador, version, politica);
+        String etag = Condicionales.etag(version(resultado.getPartido().getVersion()));
+        return respuestaPunto(resultado, etag).body(MarcadorPartido.compacto(MarcadorDTO.de(resultado.getPartido())));
+    }
+
+    private static ResponseEntity.BodyBuilder respuestaPunto(ResultadoPuntoDTO resultado, String etag) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .header(HEADER_POLITICA, resultado.getPolitica().name())
+                .header(HEADER_REINTENTOS, String.valueOf(resultado.getReintentos()));
+    }
+
+    private static long version(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    /*
+     * Historial de puntos del partido (quien gano cada punto y cuando), en el orden en que se jugaron,
+     * permite reproducir el partido punto a punto o auditar el marcador*/
+    @GetMapping("/{id}/puntos")
+    public ResponseEntity<List<PuntoPartidoDTO>> listPuntos(@PathVariable Long id) {
+        return ResponseEntity.ok(partidoService.listPuntos(id));
+    }
+
+    /*
+     * Marcador compacto del partido, en JSON o en CBOR segun el header Accept, para los tableros que lo consultan
+     * cada pocos segundos. El ETag es la version del partido (con el marcador en vivo): si el header If-None-Match
+     * la trae se responde 304 sin leer el marcador*/
+    @GetMapping("/{id}/marcador")
+    public ResponseEntity<MarcadorCompactoDTO> getMarcador(@PathVariable Long id,
+                                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = Condicionales.etag(partidoService.getVersion(id).getVersion());
+        return Condicionales.respuesta(ifNoneMatch, etag,
+                () -> ResponseEntity.ok(MarcadorPartido.compacto(partidoService.getMarcador(id))));
+    }
+
+    /*
+     * Marcador en vivo del partido por Server-Sent Events: al conectarse se recibe el marcador actual y despues
+     * un evento "marcador" cada vez que el partido se inicia o se suma un punto, en lugar de consultar el partido
+     * completo cada algunos segundos. La conexion se cierra cuando el partido finaliza*/
+    @GetMapping(value = "/{id}/marcador/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMarcador(@PathVariable Long id) {
+        MarcadorDTO marcador;
+        try {
+            marcador = partidoService.getMarcador(id);
+        } catch (NoSuchElementException e) {
+            //El cliente solo acepta text/event-stream y el exception handler responde JSON, se devuelve el 404 sin cuerpo
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(transmisionMarcadores.suscribir(marcador));
     }
 
     @PutMapping(value = "/{id}/actions/init")
@@ -0,0 +1,48 @@
+package com.baufest.tennis.springtennis.controller;
+
+import com.baufest.tennis.springtennis.config.RutaDatasource;
+import com.baufest.tennis.springtennis.dto.CuadroTorneoDTO;
+import com.baufest.tennis.springtennis.dto.TorneoDTO;
+import com.baufest.tennis.springtennis.service.TorneoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * <p>Controller de Torneo</p>
+ * Aca se exponen los metodos que seran accesibles via HttpRequest por medio de los path declarados,
+ * estos seran accesibles por dichas llamadas por medio de fetch (front), RestTemplate(Otras apis)
+ * o postman
+ */
+@RestController //Se indica por medio de Springboot Annotation que es un RestController
+@CrossOrigin(exposedHeaders = RutaDatasource.HEADER_ESCRITURA) //Esta anotacion permite llamadas desde cualquier origen, si no estuviera este deberia ser indicado en property
+@RequestMapping("springtennis/api/v1/torneos") //El path por el cual se accede a este controller
+public class TorneoController {
+
+    //Esta sera la property final en la cual se aloje la memoria instanciada del torneo service
+    //se pone final para que no pueda ser modificada una vez instanciada
+    private final TorneoService torneoService;
+
+    @Autowired
+    public TorneoController(TorneoService torneoService) {
+        this.torneoService = torneoService;
+    }
+
+    /*
+     * Alta de un torneo: recibe los jugadores ordenados por siembra y el tipo de torneo, arma el cuadro y programa
+     * los partidos que ya tienen a sus dos jugadores. Los partidos de las rondas siguientes se crean solos cuando
+     * terminan los anteriores. Devuelve el cuadro con un HttpStatus.CREATED (201)*/
+    @PostMapping
+    public ResponseEntity<CuadroTorneoDTO> saveTorneo(@RequestBody TorneoDTO torneo) {
+        return new ResponseEntity<>(torneoService.save(torneo), HttpStatus.CREATED);
+    }
+
+    /*
+     * Cuadro del torneo con todas sus llaves (jugadores, partido y ganador de cada una) y el campeon*/
+    @GetMapping("/{id}")
+    public ResponseEntity<CuadroTorneoDTO> getCuadro(@PathVariable Long id) {
+        return ResponseEntity.ok(torneoService.getCuadro(id));
+    }
+
+}
@@ -15,6 +15,9 @@ public class CanchaDTO {
 	private String nombre;
 	private String direccion;
 
+	//Version de la cancha, si se envia en un update y no es la actual se responde 409
+	private Long version;
+
 	/* Los constructores se utilizan al momento de instanciar nuesta clase y darle espacio en memoria,
 	 * los atributos de nuesta clase que no contengan instanciacion en el constructor quedaran con valor null
 	 * los constructores pueden ser overraideados y contener instanciaciones para varios atributos distStringos o
@@ -50,6 +53,14 @@ public class CanchaDTO {
 		this.id = id;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	public String getNombre() {
 		return nombre;
 	}
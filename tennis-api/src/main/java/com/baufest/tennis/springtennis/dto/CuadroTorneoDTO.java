@@ -0,0 +1,55 @@
+package com.baufest.tennis.springtennis.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Data transfer object del cuadro de un torneo (Clase)</p>
+ * Torneo y todas sus llaves ordenadas por ronda y posicion. En eliminacion directa el campeon es el ganador
+ * de la final, null mientras no se juega.
+ */
+public class CuadroTorneoDTO {
+
+	/*Atributos privados de la clase*/
+
+	private TorneoDTO torneo;
+
+	private List<LlaveTorneoDTO> llaves = new ArrayList<>();
+
+	private JugadorDTO campeon;
+
+	public CuadroTorneoDTO() {
+	}
+
+	public CuadroTorneoDTO(TorneoDTO torneo, List<LlaveTorneoDTO> llaves, JugadorDTO campeon) {
+		this.torneo = torneo;
+		this.llaves = llaves;
+		this.campeon = campeon;
+	}
+
+	/* Getters & Setters */
+
+	public TorneoDTO getTorneo() {
+		return torneo;
+	}
+
+	public void setTorneo(TorneoDTO torneo) {
+		this.torneo = torneo;
+	}
+
+	public List<LlaveTorneoDTO> getLlaves() {
+		return llaves;
+	}
+
+	public void setLlaves(List<LlaveTorneoDTO> llaves) {
+		this.llaves = llaves;
+	}
+
+	public JugadorDTO getCampeon() {
+		return campeon;
+	}
+
+	public void setCampeon(JugadorDTO campeon) {
+		this.campeon = campeon;
+	}
+}
@@ -0,0 +1,42 @@
+package com.baufest.tennis.springtennis.dto;
+
+import java.util.List;
+
+/**
+ * <p>Data transfer object de la disponibilidad de una cancha (Clase)</p>
+ * Cancha y franjas libres en las que entra un partido, ordenadas por inicio.
+ */
+public class DisponibilidadCanchaDTO {
+
+	/*Atributos privados de la clase*/
+
+	private CanchaDTO cancha;
+
+	private List<FranjaLibreDTO> libres;
+
+	public DisponibilidadCanchaDTO() {
+	}
+
+	public DisponibilidadCanchaDTO(CanchaDTO cancha, List<FranjaLibreDTO> libres) {
+		this.cancha = cancha;
+		this.libres = libres;
+	}
+
+	/* Getters & Setters */
+
+	public CanchaDTO getCancha() {
+		return cancha;
+	}
+
+	public void setCancha(CanchaDTO cancha) {
+		this.cancha = cancha;
+	}
+
+	public List<FranjaLibreDTO> getLibres() {
+		return libres;
+	}
+
+	public void setLibres(List<FranjaLibreDTO> libres) {
+		this.libres = libres;
+	}
+}
@@ -0,0 +1,40 @@
+package com.baufest.tennis.springtennis.dto;
+
+/**
+ * <p>Data transfer object de un emparejamiento a programar (Clase)</p>
+ * Ids del jugador local y del jugador visitante de un partido que todavia no tiene cancha ni horario.
+ */
+public class EmparejamientoDTO {
+
+	/*Atributos privados de la clase*/
+
+	private Long idLocal;
+
+	private Long idVisitante;
+
+	public EmparejamientoDTO() {
+	}
+
+	public EmparejamientoDTO(Long idLocal, Long idVisitante) {
+		this.idLocal = idLocal;
+		this.idVisitante = idVisitante;
+	}
+
+	/* Getters & Setters */
+
+	public Long getIdLocal() {
+		return idLocal;
+	}
+
+	public void setIdLocal(Long idLocal) {
+		this.idLocal = idLocal;
+	}
+
+	public Long getIdVisitante() {
+		return idVisitante;
+	}
+
+	public void setIdVisitante(Long idVisitante) {
+		this.idVisitante = idVisitante;
+	}
+}
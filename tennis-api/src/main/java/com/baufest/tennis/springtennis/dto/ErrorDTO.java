@@ -0,0 +1,65 @@
+package com.baufest.tennis.springtennis.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * <p>Data transfer object de una respuesta de error (Clase)</p>
+ * Codigo estable del error, mensaje y el campo del request que lo causo. En los conflictos de version
+ * lleva ademas el partido tal como esta ahora. Los atributos null no se serializan.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ErrorDTO {
+
+	/*Atributos privados de la clase*/
+
+	private String codigo;
+
+	private String mensaje;
+
+	private String campo;
+
+	private PartidoDTO actual;
+
+	public ErrorDTO() {
+	}
+
+	public ErrorDTO(String codigo, String mensaje, String campo) {
+		this.codigo = codigo;
+		this.mensaje = mensaje;
+		this.campo = campo;
+	}
+
+	/* Getters & Setters */
+
+	public String getCodigo() {
+		return codigo;
+	}
+
+	public void setCodigo(String codigo) {
+		this.codigo = codigo;
+	}
+
+	public String getMensaje() {
+		return mensaje;
+	}
+
+	public void setMensaje(String mensaje) {
+		this.mensaje = mensaje;
+	}
+
+	public String getCampo() {
+		return campo;
+	}
+
+	public void setCampo(String campo) {
+		this.campo = campo;
+	}
+
+	public PartidoDTO getActual() {
+		return actual;
+	}
+
+	public void setActual(PartidoDTO actual) {
+		this.actual = actual;
+	}
+}
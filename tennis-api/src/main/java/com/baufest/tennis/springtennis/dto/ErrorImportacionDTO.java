@@ -0,0 +1,40 @@
+package com.baufest.tennis.springtennis.dto;
+
+/**
+ * <p>Data transfer object de un registro que no se pudo importar (Clase)</p>
+ * Linea del archivo (empezando en 1) y motivo del error.
+ */
+public class ErrorImportacionDTO {
+
+	/*Atributos privados de la clase*/
+
+	private int linea;
+
+	private String mensaje;
+
+	public ErrorImportacionDTO() {
+	}
+
+	public ErrorImportacionDTO(int linea, String mensaje) {
+		this.linea = linea;
+		this.mensaje = mensaje;
+	}
+
+	/* Getters & Setters */
+
+	public int getLinea() {
+		return linea;
+	}
+
+	public void setLinea(int linea) {
+		this.linea = linea;
+	}
+
+	public String getMensaje() {
+		return mensaje;
+	}
+
+	public void setMensaje(String mensaje) {
+		this.mensaje = mensaje;
+	}
+}
@@ -0,0 +1,42 @@
+package com.baufest.tennis.springtennis.dto;
+
+import java.util.Date;
+
+/**
+ * <p>Data transfer object de una franja libre de una cancha (Clase)</p>
+ * La cancha no tiene reservas entre inicio (inclusive) y fin (exclusive).
+ */
+public class FranjaLibreDTO {
+
+	/*Atributos privados de la clase*/
+
+	private Date inicio;
+
+	private Date fin;
+
+	public FranjaLibreDTO() {
+	}
+
+	public FranjaLibreDTO(Date inicio, Date fin) {
+		this.inicio = inicio;
+		this.fin = fin;
+	}
+
+	/* Getters & Setters */
+
+	public Date getInicio() {
+		return inicio;
+	}
+
+	public void setInicio(Date inicio) {
+		this.inicio = inicio;
+	}
+
+	public Date getFin() {
+		return fin;
+	}
+
+	public void setFin(Date fin) {
+		this.fin = fin;
+	}
+}
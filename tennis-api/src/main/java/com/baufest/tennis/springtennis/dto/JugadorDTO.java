@@ -24,6 +24,9 @@ public class JugadorDTO {
 
 	private int puntos;
 
+	//Version del jugador, si se envia en un update y no es la actual se responde 409
+	private Long version;
+
 	/* Los constructores se utilizan al momento de instanciar nuesta clase y darle espacio en memoria,
 	 * los atributos de nuesta clase que no contengan instanciacion en el constructor quedaran con valor null
 	 * los constructores pueden ser overraideados y contener instanciaciones para varios atributos distintos o
@@ -59,6 +62,14 @@ public class JugadorDTO {
 		this.id = id;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	public String getNombre() {
 		return nombre;
 	}
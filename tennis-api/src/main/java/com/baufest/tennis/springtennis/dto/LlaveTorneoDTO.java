@@ -0,0 +1,96 @@
+package com.baufest.tennis.springtennis.dto;
+
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+
+/**
+ * <p>Data transfer object de una llave del torneo (Clase)</p>
+ * Ronda (empezando en 1), posicion dentro de la ronda (empezando en 0), jugadores (null si todavia no se definen),
+ * id del partido (null si todavia no se programo o si la llave es libre), ganador (null si no se jugo) y si la llave
+ * quedo para revisar a mano porque no se pudo registrar su ganador o programar su partido.
+ */
+public class LlaveTorneoDTO {
+
+	/*Atributos privados de la clase*/
+
+	private int ronda;
+
+	private int posicion;
+
+	private JugadorDTO jugadorLocal;
+
+	private JugadorDTO jugadorVisitante;
+
+	private Long idPartido;
+
+	private ModoJugador ganador;
+
+	private boolean revisar;
+
+	public LlaveTorneoDTO() {
+	}
+
+	public LlaveTorneoDTO(int ronda, int posicion, JugadorDTO jugadorLocal, JugadorDTO jugadorVisitante) {
+		this.ronda = ronda;
+		this.posicion = posicion;
+		this.jugadorLocal = jugadorLocal;
+		this.jugadorVisitante = jugadorVisitante;
+	}
+
+	/* Getters & Setters */
+
+	public int getRonda() {
+		return ronda;
+	}
+
+	public void setRonda(int ronda) {
+		this.ronda = ronda;
+	}
+
+	public int getPosicion() {
+		return posicion;
+	}
+
+	public void setPosicion(int posicion) {
+		this.posicion = posicion;
+	}
+
+	public JugadorDTO getJugadorLocal() {
+		return jugadorLocal;
+	}
+
+	public void setJugadorLocal(JugadorDTO jugadorLocal) {
+		this.jugadorLocal = jugadorLocal;
+	}
+
+	public JugadorDTO getJugadorVisitante() {
+		return jugadorVisitante;
+	}
+
+	public void setJugadorVisitante(JugadorDTO jugadorVisitante) {
+		this.jugadorVisitante = jugadorVisitante;
+	}
+
+	public Long getIdPartido() {
+		return idPartido;
+	}
+
+	public void setIdPartido(Long idPartido) {
+		this.idPartido = idPartido;
+	}
+
+	public ModoJugador getGanador() {
+		return ganador;
+	}
+
+	public void setGanador(ModoJugador ganador) {
+		this.ganador = ganador;
+	}
+
+	public boolean isRevisar() {
+		return revisar;
+	}
+
+	public void setRevisar(boolean revisar) {
+		this.revisar = revisar;
+	}
+}
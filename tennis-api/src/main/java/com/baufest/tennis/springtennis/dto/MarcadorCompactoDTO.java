@@ -0,0 +1,86 @@
+package com.baufest.tennis.springtennis.dto;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * <p>Data transfer object del marcador compacto de un partido (Clase)</p>
+ * Para los tableros que consultan el marcador muy seguido: el id, la version y el estado del partido, el marcador
+ * empaquetado en un long como lo guarda el marcador en vivo (puntos, games y sets de cada jugador, tiebreak, saque, estado,
+ * formato y ventaja) y el resultado de los sets terminados, 8 bits por set (4 del local y 4 del visitante).
+ * Lo arma MarcadorPartido.compacto. Las propiedades tienen nombres de una letra para achicar el JSON. Con Accept: application/cbor se envia en CBOR.
+ */
+@JsonPropertyOrder({"i", "v", "e", "m", "s"})
+public class MarcadorCompactoDTO {
+
+	/*Atributos privados de la clase*/
+
+	@JsonProperty("i")
+	private Long idPartido;
+
+	@JsonProperty("v")
+	private Long version;
+
+	@JsonProperty("e")
+	private Estado estado;
+
+	@JsonProperty("m")
+	private long marcador;
+
+	@JsonProperty("s")
+	private long sets;
+
+	public MarcadorCompactoDTO() {
+	}
+
+	public MarcadorCompactoDTO(Long idPartido, Long version, Estado estado, long marcador, long sets) {
+		this.idPartido = idPartido;
+		this.version = version;
+		this.estado = estado;
+		this.marcador = marcador;
+		this.sets = sets;
+	}
+
+	/* Getters & Setters */
+
+	public Long getIdPartido() {
+		return idPartido;
+	}
+
+	public void setIdPartido(Long idPartido) {
+		this.idPartido = idPartido;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public Estado getEstado() {
+		return estado;
+	}
+
+	public void setEstado(Estado estado) {
+		this.estado = estado;
+	}
+
+	public long getMarcador() {
+		return marcador;
+	}
+
+	public void setMarcador(long marcador) {
+		this.marcador = marcador;
+	}
+
+	public long getSets() {
+		return sets;
+	}
+
+	public void setSets(long sets) {
+		this.sets = sets;
+	}
+}
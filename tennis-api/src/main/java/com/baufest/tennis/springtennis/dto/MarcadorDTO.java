@@ -0,0 +1,213 @@
+package com.baufest.tennis.springtennis.dto;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+
+/**
+ * <p>Data transfer object del marcador de un partido (Clase)</p>
+ * Solo contiene lo que cambia con cada punto (estado, puntos, games y sets de cada jugador, saque) y la version,
+ * sin los jugadores ni la cancha. Es lo que se envia a los clientes que siguen un partido en vivo.
+ */
+public class MarcadorDTO {
+
+	/*Atributos privados de la clase*/
+
+	private Long idPartido;
+
+	private Long version;
+
+	private Estado estado;
+
+	private int scoreLocal;
+
+	private String puntosGameActualLocal;
+
+	private int cantidadGamesLocal;
+
+	private int scoreVisitante;
+
+	private String puntosGameActualVisitante;
+
+	private int cantidadGamesVisitante;
+
+	private FormatoPartido formato;
+
+	private boolean sinVentaja;
+
+	private int setsLocal;
+
+	private int setsVisitante;
+
+	private String resultadoSets;
+
+	private ModoJugador saca;
+
+	public MarcadorDTO() {
+	}
+
+	/* Usado por la proyeccion del marcador en PartidoRepository */
+	public MarcadorDTO(Long idPartido, Long version, Estado estado, int scoreLocal, String puntosGameActualLocal,
+					   int cantidadGamesLocal, int scoreVisitante, String puntosGameActualVisitante, int cantidadGamesVisitante,
+					   FormatoPartido formato, boolean sinVentaja, int setsLocal, int setsVisitante, String resultadoSets,
+					   ModoJugador saca) {
+		this.idPartido = idPartido;
+		this.version = version;
+		this.estado = estado;
+		this.scoreLocal = scoreLocal;
+		this.puntosGameActualLocal = puntosGameActualLocal;
+		this.cantidadGamesLocal = cantidadGamesLocal;
+		this.scoreVisitante = scoreVisitante;
+		this.puntosGameActualVisitante = puntosGameActualVisitante;
+		this.cantidadGamesVisitante = cantidadGamesVisitante;
+		this.formato = formato;
+		this.sinVentaja = sinVentaja;
+		this.setsLocal = setsLocal;
+		this.setsVisitante = setsVisitante;
+		this.resultadoSets = resultadoSets;
+		this.saca = saca;
+	}
+
+	/* Toma el marcador del partido recibido */
+	public static MarcadorDTO de(PartidoDTO partido) {
+		MarcadorDTO marcador = new MarcadorDTO();
+		marcador.setIdPartido(partido.getId());
+		marcador.setVersion(partido.getVersion());
+		marcador.setEstado(partido.getEstado());
+		marcador.setScoreLocal(partido.getScoreLocal());
+		marcador.setPuntosGameActualLocal(partido.getPuntosGameActualLocal());
+		marcador.setCantidadGamesLocal(partido.getCantidadGamesLocal());
+		marcador.setScoreVisitante(partido.getScoreVisitante());
+		marcador.setPuntosGameActualVisitante(partido.getPuntosGameActualVisitante());
+		marcador.setCantidadGamesVisitante(partido.getCantidadGamesVisitante());
+		marcador.setFormato(partido.getFormato());
+		marcador.setSinVentaja(partido.isSinVentaja());
+		marcador.setSetsLocal(partido.getSetsLocal());
+		marcador.setSetsVisitante(partido.getSetsVisitante());
+		marcador.setResultadoSets(partido.getResultadoSets());
+		marcador.setSaca(partido.getSaca());
+		return marcador;
+	}
+
+	/* Getters & Setters */
+
+	public Long getIdPartido() {
+		return idPartido;
+	}
+
+	public void setIdPartido(Long idPartido) {
+		this.idPartido = idPartido;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public Estado getEstado() {
+		return estado;
+	}
+
+	public void setEstado(Estado estado) {
+		this.estado = estado;
+	}
+
+	public int getScoreLocal() {
+		return scoreLocal;
+	}
+
+	public void setScoreLocal(int scoreLocal) {
+		this.scoreLocal = scoreLocal;
+	}
+
+	public String getPuntosGameActualLocal() {
+		return puntosGameActualLocal;
+	}
+
+	public void setPuntosGameActualLocal(String puntosGameActualLocal) {
+		this.puntosGameActualLocal = puntosGameActualLocal;
+	}
+
+	public int getCantidadGamesLocal() {
+		return cantidadGamesLocal;
+	}
+
+	public void setCantidadGamesLocal(int cantidadGamesLocal) {
+		this.cantidadGamesLocal = cantidadGamesLocal;
+	}
+
+	public int getScoreVisitante() {
+		return scoreVisitante;
+	}
+
+	public void setScoreVisitante(int scoreVisitante) {
+		this.scoreVisitante = scoreVisitante;
+	}
+
+	public String getPuntosGameActualVisitante() {
+		return puntosGameActualVisitante;
+	}
+
+	public void setPuntosGameActualVisitante(String puntosGameActualVisitante) {
+		this.puntosGameActualVisitante = puntosGameActualVisitante;
+	}
+
+	public int getCantidadGamesVisitante() {
+		return cantidadGamesVisitante;
+	}
+
+	public void setCantidadGamesVisitante(int cantidadGamesVisitante) {
+		this.cantidadGamesVisitante = cantidadGamesVisitante;
+	}
+
+	public FormatoPartido getFormato() {
+		return formato;
+	}
+
+	public void setFormato(FormatoPartido formato) {
+		this.formato = formato;
+	}
+
+	public boolean isSinVentaja() {
+		return sinVentaja;
+	}
+
+	public void setSinVentaja(boolean sinVentaja) {
+		this.sinVentaja = sinVentaja;
+	}
+
+	public int getSetsLocal() {
+		return setsLocal;
+	}
+
+	public void setSetsLocal(int setsLocal) {
+		this.setsLocal = setsLocal;
+	}
+
+	public int getSetsVisitante() {
+		return setsVisitante;
+	}
+
+	public void setSetsVisitante(int setsVisitante) {
+		this.setsVisitante = setsVisitante;
+	}
+
+	public String getResultadoSets() {
+		return resultadoSets;
+	}
+
+	public void setResultadoSets(String resultadoSets) {
+		this.resultadoSets = resultadoSets;
+	}
+
+	public ModoJugador getSaca() {
+		return saca;
+	}
+
+	public void setSaca(ModoJugador saca) {
+		this.saca = saca;
+	}
+}
@@ -0,0 +1,67 @@
+package com.baufest.tennis.springtennis.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Data transfer object de una pagina de resultados (Clase)</p>
+ * Contiene los elementos de la pagina y el cursor para pedir la siguiente. El cursor es el id
+ * del ultimo elemento devuelto (paginacion por keyset), si es null no hay mas paginas.
+ */
+public class PaginaDTO<T> {
+
+	//Tamaño de pagina por defecto y maximo permitido para los listados
+	public static final int TAMANO_DEFECTO = 50;
+	public static final int TAMANO_MAXIMO = 500;
+	//Cantidad de resultados por defecto de las busquedas por nombre (listas desplegables)
+	public static final int TAMANO_BUSQUEDA = 20;
+
+	/*Atributos privados de la clase*/
+
+	private List<T> items;
+
+	private Long siguiente;
+
+	public PaginaDTO() {
+	}
+
+	public PaginaDTO(List<T> items, Long siguiente) {
+		this.items = items;
+		this.siguiente = siguiente;
+	}
+
+	/*
+	 * Arma la pagina a partir de las filas leidas del repository. Se espera que se hayan pedido tamano + 1 filas:
+	 * si llego la fila extra significa que hay otra pagina y el cursor siguiente es el id de la ultima fila devuelta.
+	 */
+	public static <E, T> PaginaDTO<T> de(List<E> filas, int tamano, Function<E, Long> id, Function<E, T> mapper) {
+		boolean hayMas = filas.size() > tamano;
+		List<E> pagina = hayMas ? filas.subList(0, tamano) : filas;
+		Long siguiente = hayMas ? id.apply(pagina.get(tamano - 1)) : null;
+		return new PaginaDTO<>(pagina.stream().map(mapper).collect(Collectors.toList()), siguiente);
+	}
+
+	/* Acota el tamaño de pagina pedido entre 1 y TAMANO_MAXIMO */
+	public static int tamanoValido(int tamano) {
+		return Math.max(1, Math.min(tamano, TAMANO_MAXIMO));
+	}
+
+	/* Getters & Setters */
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public void setItems(List<T> items) {
+		this.items = items;
+	}
+
+	public Long getSiguiente() {
+		return siguiente;
+	}
+
+	public void setSiguiente(Long siguiente) {
+		this.siguiente = siguiente;
+	}
+}
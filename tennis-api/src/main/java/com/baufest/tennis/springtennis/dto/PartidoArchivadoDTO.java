@@ -0,0 +1,180 @@
+package com.baufest.tennis.springtennis.dto;
+
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+
+import java.util.Date;
+
+/**
+ * <p>Data transfer object de PartidoArchivado (Clase)</p>
+ * clase utilizada como DTO de los partidos del historial: el resultado final con los ids y nombres de los
+ * jugadores y de la cancha tal como estaban al archivarse el partido
+ */
+public class PartidoArchivadoDTO {
+
+	/*Atributos privados de la clase*/
+
+	private Long id;
+
+	private Date fechaComienzo;
+
+	private Long idLocal;
+
+	private String nombreLocal;
+
+	private Long idVisitante;
+
+	private String nombreVisitante;
+
+	private Long idCancha;
+
+	private String nombreCancha;
+
+	private int cantidadGamesLocal;
+
+	private int cantidadGamesVisitante;
+
+	private int setsLocal;
+
+	private int setsVisitante;
+
+	private String resultadoSets;
+
+	private FormatoPartido formato;
+
+	private boolean sinVentaja;
+
+	private Long version;
+
+	public PartidoArchivadoDTO() {
+	}
+
+	/* Getters & Setters */
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Date getFechaComienzo() {
+		return fechaComienzo;
+	}
+
+	public void setFechaComienzo(Date fechaComienzo) {
+		this.fechaComienzo = fechaComienzo;
+	}
+
+	public Long getIdLocal() {
+		return idLocal;
+	}
+
+	public void setIdLocal(Long idLocal) {
+		this.idLocal = idLocal;
+	}
+
+	public String getNombreLocal() {
+		return nombreLocal;
+	}
+
+	public void setNombreLocal(String nombreLocal) {
+		this.nombreLocal = nombreLocal;
+	}
+
+	public Long getIdVisitante() {
+		return idVisitante;
+	}
+
+	public void setIdVisitante(Long idVisitante) {
+		this.idVisitante = idVisitante;
+	}
+
+	public String getNombreVisitante() {
+		return nombreVisitante;
+	}
+
+	public void setNombreVisitante(String nombreVisitante) {
+		this.nombreVisitante = nombreVisitante;
+	}
+
+	public Long getIdCancha() {
+		return idCancha;
+	}
+
+	public void setIdCancha(Long idCancha) {
+		this.idCancha = idCancha;
+	}
+
+	public String getNombreCancha() {
+		return nombreCancha;
+	}
+
+	public void setNombreCancha(String nombreCancha) {
+		this.nombreCancha = nombreCancha;
+	}
+
+	public int getCantidadGamesLocal() {
+		return cantidadGamesLocal;
+	}
+
+	public void setCantidadGamesLocal(int cantidadGamesLocal) {
+		this.cantidadGamesLocal = cantidadGamesLocal;
+	}
+
+	public int getCantidadGamesVisitante() {
+		return cantidadGamesVisitante;
+	}
+
+	public void setCantidadGamesVisitante(int cantidadGamesVisitante) {
+		this.cantidadGamesVisitante = cantidadGamesVisitante;
+	}
+
+	public int getSetsLocal() {
+		return setsLocal;
+	}
+
+	public void setSetsLocal(int setsLocal) {
+		this.setsLocal = setsLocal;
+	}
+
+	public int getSetsVisitante() {
+		return setsVisitante;
+	}
+
+	public void setSetsVisitante(int setsVisitante) {
+		this.setsVisitante = setsVisitante;
+	}
+
+	public String getResultadoSets() {
+		return resultadoSets;
+	}
+
+	public void setResultadoSets(String resultadoSets) {
+		this.resultadoSets = resultadoSets;
+	}
+
+	public FormatoPartido getFormato() {
+		return formato;
+	}
+
+	public void setFormato(FormatoPartido formato) {
+		this.formato = formato;
+	}
+
+	public boolean isSinVentaja() {
+		return sinVentaja;
+	}
+
+	public void setSinVentaja(boolean sinVentaja) {
+		this.sinVentaja = sinVentaja;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+}
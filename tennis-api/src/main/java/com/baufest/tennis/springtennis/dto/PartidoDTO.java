@@ -1,6 +1,8 @@
 package com.baufest.tennis.springtennis.dto;
 
 import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
 import org.json.JSONObject;
 
 import java.util.Date;
@@ -43,6 +45,20 @@ public class PartidoDTO {
 
 	private int cantidadGamesVisitante;
 
+	private FormatoPartido formato;
+
+	private boolean sinVentaja;
+
+	private int setsLocal;
+
+	private int setsVisitante;
+
+	private String resultadoSets;
+
+	private ModoJugador saca;
+
+	private Long version;
+
 	/* Los constructores se utilizan al momento de instanciar nuesta clase y darle espacio en memoria,
 	 * los atributos de nuesta clase que no contengan instanciacion en el constructor quedaran con valor null
 	 * los constructores pueden ser overraideados y contener instanciaciones para varios atributos distintos o
@@ -188,6 +204,62 @@ public class PartidoDTO {
 		this.cantidadGamesVisitante = cantidadGamesVisitante;
 	}
 
+	public FormatoPartido getFormato() {
+		return formato;
+	}
+
+	public void setFormato(FormatoPartido formato) {
+		this.formato = formato;
+	}
+
+	public boolean isSinVentaja() {
+		return sinVentaja;
+	}
+
+	public void setSinVentaja(boolean sinVentaja) {
+		this.sinVentaja = sinVentaja;
+	}
+
+	public int getSetsLocal() {
+		return setsLocal;
+	}
+
+	public void setSetsLocal(int setsLocal) {
+		this.setsLocal = setsLocal;
+	}
+
+	public int getSetsVisitante() {
+		return setsVisitante;
+	}
+
+	public void setSetsVisitante(int setsVisitante) {
+		this.setsVisitante = setsVisitante;
+	}
+
+	public String getResultadoSets() {
+		return resultadoSets;
+	}
+
+	public void setResultadoSets(String resultadoSets) {
+		this.resultadoSets = resultadoSets;
+	}
+
+	public ModoJugador getSaca() {
+		return saca;
+	}
+
+	public void setSaca(ModoJugador saca) {
+		this.saca = saca;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	public CanchaDTO getCancha() {
 		return cancha;
 	}
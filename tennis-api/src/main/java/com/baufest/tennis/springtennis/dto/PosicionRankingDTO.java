@@ -0,0 +1,40 @@
+package com.baufest.tennis.springtennis.dto;
+
+/**
+ * <p>Data transfer object de una posicion del ranking (Clase)</p>
+ * Posicion (empezando en 1) y jugador. Los jugadores con los mismos puntos comparten la posicion.
+ */
+public class PosicionRankingDTO {
+
+	/*Atributos privados de la clase*/
+
+	private int posicion;
+
+	private JugadorDTO jugador;
+
+	public PosicionRankingDTO() {
+	}
+
+	public PosicionRankingDTO(int posicion, JugadorDTO jugador) {
+		this.posicion = posicion;
+		this.jugador = jugador;
+	}
+
+	/* Getters & Setters */
+
+	public int getPosicion() {
+		return posicion;
+	}
+
+	public void setPosicion(int posicion) {
+		this.posicion = posicion;
+	}
+
+	public JugadorDTO getJugador() {
+		return jugador;
+	}
+
+	public void setJugador(JugadorDTO jugador) {
+		this.jugador = jugador;
+	}
+}
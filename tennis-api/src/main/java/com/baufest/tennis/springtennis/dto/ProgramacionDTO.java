@@ -0,0 +1,99 @@
+package com.baufest.tennis.springtennis.dto;
+
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * <p>Data transfer object de un pedido de programacion de partidos (Clase)</p>
+ * Emparejamientos a programar, en el orden en que se tienen que jugar, y la ventana de tiempo en la que tienen que
+ * entrar. Opcionalmente se pueden acotar las canchas (null para usar todas), fijar el descanso minimo de un jugador
+ * entre el fin de un partido y el comienzo del siguiente, y el formato de los partidos.
+ */
+public class ProgramacionDTO {
+
+	/*Atributos privados de la clase*/
+
+	private Date desde;
+
+	private Date hasta;
+
+	private List<Long> canchas;
+
+	private int descansoMinutos;
+
+	private FormatoPartido formato;
+
+	private boolean sinVentaja;
+
+	private List<EmparejamientoDTO> emparejamientos = new ArrayList<>();
+
+	public ProgramacionDTO() {
+	}
+
+	public ProgramacionDTO(Date desde, Date hasta, List<EmparejamientoDTO> emparejamientos) {
+		this.desde = desde;
+		this.hasta = hasta;
+		this.emparejamientos = emparejamientos;
+	}
+
+	/* Getters & Setters */
+
+	public Date getDesde() {
+		return desde;
+	}
+
+	public void setDesde(Date desde) {
+		this.desde = desde;
+	}
+
+	public Date getHasta() {
+		return hasta;
+	}
+
+	public void setHasta(Date hasta) {
+		this.hasta = hasta;
+	}
+
+	public List<Long> getCanchas() {
+		return canchas;
+	}
+
+	public void setCanchas(List<Long> canchas) {
+		this.canchas = canchas;
+	}
+
+	public int getDescansoMinutos() {
+		return descansoMinutos;
+	}
+
+	public void setDescansoMinutos(int descansoMinutos) {
+		this.descansoMinutos = descansoMinutos;
+	}
+
+	public FormatoPartido getFormato() {
+		return formato;
+	}
+
+	public void setFormato(FormatoPartido formato) {
+		this.formato = formato;
+	}
+
+	public boolean isSinVentaja() {
+		return sinVentaja;
+	}
+
+	public void setSinVentaja(boolean sinVentaja) {
+		this.sinVentaja = sinVentaja;
+	}
+
+	public List<EmparejamientoDTO> getEmparejamientos() {
+		return emparejamientos;
+	}
+
+	public void setEmparejamientos(List<EmparejamientoDTO> emparejamientos) {
+		this.emparejamientos = emparejamientos;
+	}
+}
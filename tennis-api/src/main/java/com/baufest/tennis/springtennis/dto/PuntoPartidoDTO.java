@@ -0,0 +1,66 @@
+package com.baufest.tennis.springtennis.dto;
+
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+
+import java.util.Date;
+
+/**
+ * <p>Data transfer object de PuntoPartido (Clase)</p>
+ * clase utilizada como DTO de cada punto del historial de un partido
+ */
+public class PuntoPartidoDTO {
+
+	/*Atributos privados de la clase*/
+
+	private Long idPartido;
+
+	private long secuencia;
+
+	private ModoJugador modo;
+
+	private Date instante;
+
+	public PuntoPartidoDTO() {
+	}
+
+	public PuntoPartidoDTO(Long idPartido, long secuencia, ModoJugador modo, Date instante) {
+		this.idPartido = idPartido;
+		this.secuencia = secuencia;
+		this.modo = modo;
+		this.instante = instante;
+	}
+
+	/* Getters & Setters */
+
+	public Long getIdPartido() {
+		return idPartido;
+	}
+
+	public void setIdPartido(Long idPartido) {
+		this.idPartido = idPartido;
+	}
+
+	public long getSecuencia() {
+		return secuencia;
+	}
+
+	public void setSecuencia(long secuencia) {
+		this.secuencia = secuencia;
+	}
+
+	public ModoJugador getModo() {
+		return modo;
+	}
+
+	public void setModo(ModoJugador modo) {
+		this.modo = modo;
+	}
+
+	public Date getInstante() {
+		return instante;
+	}
+
+	public void setInstante(Date instante) {
+		this.instante = instante;
+	}
+}
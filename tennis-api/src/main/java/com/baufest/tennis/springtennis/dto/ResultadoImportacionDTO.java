@@ -0,0 +1,99 @@
+package com.baufest.tennis.springtennis.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Data transfer object del resultado de una importacion (Clase)</p>
+ * Cantidad de registros leidos, insertados, actualizados y omitidos por estar repetidos, y el detalle de los
+ * registros con error. Para que la respuesta no crezca con el archivo solo se detallan los primeros
+ * MAXIMO_ERRORES errores, el total se informa en cantidadErrores.
+ */
+public class ResultadoImportacionDTO {
+
+	public static final int MAXIMO_ERRORES = 1000;
+
+	/*Atributos privados de la clase*/
+
+	private int procesados;
+
+	private int insertados;
+
+	private int actualizados;
+
+	private int omitidos;
+
+	private int cantidadErrores;
+
+	private List<ErrorImportacionDTO> errores = new ArrayList<>();
+
+	public ResultadoImportacionDTO() {
+	}
+
+	public void agregarError(int linea, String mensaje) {
+		cantidadErrores++;
+		if (errores.size() < MAXIMO_ERRORES) {
+			errores.add(new ErrorImportacionDTO(linea, mensaje));
+		}
+	}
+
+	public void sumarProcesado() {
+		procesados++;
+	}
+
+	public void sumar(int insertados, int actualizados, int omitidos) {
+		this.insertados += insertados;
+		this.actualizados += actualizados;
+		this.omitidos += omitidos;
+	}
+
+	/* Getters & Setters */
+
+	public int getProcesados() {
+		return procesados;
+	}
+
+	public void setProcesados(int procesados) {
+		this.procesados = procesados;
+	}
+
+	public int getInsertados() {
+		return insertados;
+	}
+
+	public void setInsertados(int insertados) {
+		this.insertados = insertados;
+	}
+
+	public int getActualizados() {
+		return actualizados;
+	}
+
+	public void setActualizados(int actualizados) {
+		this.actualizados = actualizados;
+	}
+
+	public int getOmitidos() {
+		return omitidos;
+	}
+
+	public void setOmitidos(int omitidos) {
+		this.omitidos = omitidos;
+	}
+
+	public int getCantidadErrores() {
+		return cantidadErrores;
+	}
+
+	public void setCantidadErrores(int cantidadErrores) {
+		this.cantidadErrores = cantidadErrores;
+	}
+
+	public List<ErrorImportacionDTO> getErrores() {
+		return errores;
+	}
+
+	public void setErrores(List<ErrorImportacionDTO> errores) {
+		this.errores = errores;
+	}
+}
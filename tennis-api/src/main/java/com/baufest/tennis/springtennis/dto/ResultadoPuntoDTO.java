@@ -0,0 +1,54 @@
+package com.baufest.tennis.springtennis.dto;
+
+import com.baufest.tennis.springtennis.enums.PoliticaConflicto;
+
+/**
+ * <p>Data transfer object del resultado de sumar un punto (Clase)</p>
+ * Contiene el partido con el marcador actualizado, la politica de conflicto que se aplico
+ * y cuantas veces hubo que reintentar el punto por modificaciones concurrentes del mismo partido.
+ */
+public class ResultadoPuntoDTO {
+
+	/*Atributos privados de la clase*/
+
+	private PartidoDTO partido;
+
+	private PoliticaConflicto politica;
+
+	private int reintentos;
+
+	public ResultadoPuntoDTO() {
+	}
+
+	public ResultadoPuntoDTO(PartidoDTO partido, PoliticaConflicto politica, int reintentos) {
+		this.partido = partido;
+		this.politica = politica;
+		this.reintentos = reintentos;
+	}
+
+	/* Getters & Setters */
+
+	public PartidoDTO getPartido() {
+		return partido;
+	}
+
+	public void setPartido(PartidoDTO partido) {
+		this.partido = partido;
+	}
+
+	public PoliticaConflicto getPolitica() {
+		return politica;
+	}
+
+	public void setPolitica(PoliticaConflicto politica) {
+		this.politica = politica;
+	}
+
+	public int getReintentos() {
+		return reintentos;
+	}
+
+	public void setReintentos(int reintentos) {
+		this.reintentos = reintentos;
+	}
+}
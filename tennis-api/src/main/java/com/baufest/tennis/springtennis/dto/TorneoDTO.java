@@ -0,0 +1,119 @@
+package com.baufest.tennis.springtennis.dto;
+
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+import com.baufest.tennis.springtennis.enums.TipoTorneo;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * <p>Data transfer object de Torneo (Clase)</p>
+ * Datos del torneo. Los jugadores (ordenados por siembra, el primero es el cabeza de serie 1) y la fecha desde
+ * la que se programan los partidos solo se usan al crear el torneo.
+ */
+public class TorneoDTO {
+
+	/*Atributos privados de la clase*/
+
+	private Long id;
+
+	private String nombre;
+
+	private TipoTorneo tipo;
+
+	private FormatoPartido formato;
+
+	private boolean sinVentaja;
+
+	private int descansoMinutos;
+
+	private List<Long> canchas = new ArrayList<>();
+
+	private List<Long> jugadores = new ArrayList<>();
+
+	private Date desde;
+
+	public TorneoDTO() {
+	}
+
+	public TorneoDTO(String nombre, TipoTorneo tipo, List<Long> jugadores) {
+		this.nombre = nombre;
+		this.tipo = tipo;
+		this.jugadores = jugadores;
+	}
+
+	/* Getters & Setters */
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getNombre() {
+		return nombre;
+	}
+
+	public void setNombre(String nombre) {
+		this.nombre = nombre;
+	}
+
+	public TipoTorneo getTipo() {
+		return tipo;
+	}
+
+	public void setTipo(TipoTorneo tipo) {
+		this.tipo = tipo;
+	}
+
+	public FormatoPartido getFormato() {
+		return formato;
+	}
+
+	public void setFormato(FormatoPartido formato) {
+		this.formato = formato;
+	}
+
+	public boolean isSinVentaja() {
+		return sinVentaja;
+	}
+
+	public void setSinVentaja(boolean sinVentaja) {
+		this.sinVentaja = sinVentaja;
+	}
+
+	public int getDescansoMinutos() {
+		return descansoMinutos;
+	}
+
+	public void setDescansoMinutos(int descansoMinutos) {
+		this.descansoMinutos = descansoMinutos;
+	}
+
+	public List<Long> getCanchas() {
+		return canchas;
+	}
+
+	public void setCanchas(List<Long> canchas) {
+		this.canchas = canchas;
+	}
+
+	public List<Long> getJugadores() {
+		return jugadores;
+	}
+
+	public void setJugadores(List<Long> jugadores) {
+		this.jugadores = jugadores;
+	}
+
+	public Date getDesde() {
+		return desde;
+	}
+
+	public void setDesde(Date desde) {
+		this.desde = desde;
+	}
+}
@@ -0,0 +1,29 @@
+package com.baufest.tennis.springtennis.enums;
+
+public enum FormatoImportacion {
+
+	/* Definimos como enums los formatos de archivo que se pueden importar:
+	 * CSV: una fila de encabezado con los nombres de los campos y un registro por linea
+	 * NDJSON: un registro en JSON por linea */
+	CSV("text/csv"), NDJSON("application/x-ndjson");
+
+	private final String mediaType;
+
+	FormatoImportacion(String mediaType) {
+		this.mediaType = mediaType;
+	}
+
+	public String getMediaType() {
+		return mediaType;
+	}
+
+	/* Formato que corresponde al Content-Type recibido, si no es ninguno de los dos arroja IllegalArgumentException */
+	public static FormatoImportacion de(String contentType) {
+		for (FormatoImportacion formato : values()) {
+			if (contentType != null && contentType.toLowerCase().startsWith(formato.mediaType)) {
+				return formato;
+			}
+		}
+		throw new IllegalArgumentException("Formato de importacion no soportado: " + contentType);
+	}
+}
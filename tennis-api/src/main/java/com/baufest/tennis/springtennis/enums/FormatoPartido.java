@@ -0,0 +1,27 @@
+package com.baufest.tennis.springtennis.enums;
+
+public enum FormatoPartido {
+
+	/* Definimos como enums los formatos de partido:
+	 * SET_UNICO: un set que gana el primero en llegar a 6 games, sin diferencia ni tiebreak (formato original)
+	 * MEJOR_DE_3 y MEJOR_DE_5: sets a 6 games con diferencia de 2 y tiebreak a 7 puntos en 6-6
+	 * MEJOR_DE_3_SUPER_TIEBREAK: mejor de 3 sets, con el tercero reemplazado por un match tiebreak a 10 puntos */
+	SET_UNICO(1, false), MEJOR_DE_3(2, false), MEJOR_DE_5(3, false), MEJOR_DE_3_SUPER_TIEBREAK(2, true);
+
+	private final int setsParaGanar;
+	private final boolean superTiebreak;
+
+	FormatoPartido(int setsParaGanar, boolean superTiebreak) {
+		this.setsParaGanar = setsParaGanar;
+		this.superTiebreak = superTiebreak;
+	}
+
+	public int getSetsParaGanar() {
+		return setsParaGanar;
+	}
+
+	/* Si el ultimo set se reemplaza por un match tiebreak */
+	public boolean isSuperTiebreak() {
+		return superTiebreak;
+	}
+}
@@ -0,0 +1,9 @@
+package com.baufest.tennis.springtennis.enums;
+
+public enum PoliticaConflicto {
+
+	/* Definimos como enums las dos formas de resolver un punto que choca con
+	 * otra modificacion concurrente del mismo partido: volver a aplicarlo sobre
+	 * el marcador mas nuevo o rechazarlo */
+	REINTENTAR, RECHAZAR;
+}
@@ -0,0 +1,9 @@
+package com.baufest.tennis.springtennis.enums;
+
+public enum TipoTorneo {
+
+	/* Definimos como enums los tipos de torneo:
+	 * ELIMINACION_DIRECTA: cuadro por rondas, el ganador de cada partido pasa a la ronda siguiente
+	 * TODOS_CONTRA_TODOS: cada jugador juega una vez contra cada uno de los demas */
+	ELIMINACION_DIRECTA, TODOS_CONTRA_TODOS;
+}
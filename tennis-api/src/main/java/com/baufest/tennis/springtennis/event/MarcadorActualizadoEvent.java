@@ -0,0 +1,21 @@
+package com.baufest.tennis.springtennis.event;
+
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+
+/**
+ * <p>Evento de marcador actualizado</p>
+ * Se publica cada vez que cambia el marcador de un partido (se inicia, se suma un punto o se
+ * vuelven a aplicar puntos despues de un conflicto), con el marcador nuevo.
+ */
+public class MarcadorActualizadoEvent {
+
+    private final MarcadorDTO marcador;
+
+    public MarcadorActualizadoEvent(MarcadorDTO marcador) {
+        this.marcador = marcador;
+    }
+
+    public MarcadorDTO getMarcador() {
+        return marcador;
+    }
+}
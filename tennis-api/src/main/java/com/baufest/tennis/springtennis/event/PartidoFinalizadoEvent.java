@@ -0,0 +1,36 @@
+package com.baufest.tennis.springtennis.event;
+
+import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+
+/**
+ * <p>Evento de partido finalizado</p>
+ * Se publica cuando un punto deja a un partido FINALIZADO, con el id del jugador que lo gano
+ * (el que gano mas sets, o mas games si se jugo un solo set). Es null si el marcador final esta empatado.
+ */
+public class PartidoFinalizadoEvent {
+
+    private final Long idPartido;
+    private final Long idGanador;
+
+    public PartidoFinalizadoEvent(Long idPartido, Long idGanador) {
+        this.idPartido = idPartido;
+        this.idGanador = idGanador;
+    }
+
+    public static PartidoFinalizadoEvent de(PartidoDTO partido) {
+        int diferencia = partido.getSetsLocal() != partido.getSetsVisitante()
+                ? partido.getSetsLocal() - partido.getSetsVisitante()
+                : partido.getCantidadGamesLocal() - partido.getCantidadGamesVisitante();
+        JugadorDTO ganador = diferencia > 0 ? partido.getJugadorLocal() : diferencia < 0 ? partido.getJugadorVisitante() : null;
+        return new PartidoFinalizadoEvent(partido.getId(), ganador != null ? ganador.getId() : null);
+    }
+
+    public Long getIdPartido() {
+        return idPartido;
+    }
+
+    public Long getIdGanador() {
+        return idGanador;
+    }
+}
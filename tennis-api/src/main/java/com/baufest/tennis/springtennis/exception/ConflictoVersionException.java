@@ -0,0 +1,36 @@
+package com.baufest.tennis.springtennis.exception;
+
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+
+/**
+ * <p>Conflicto de version</p>
+ * Se arroja cuando una modificacion de un partido se hizo sobre una version que ya no es la actual
+ * y la politica de conflicto es RECHAZAR. Lleva el partido tal como esta ahora, para que el cliente
+ * pueda mostrar el marcador actual y reintentar con la version nueva. Es un error esperado, no guarda
+ * el stack trace.
+ */
+public class ConflictoVersionException extends RuntimeException implements ErrorDominio {
+
+    public static final String CONFLICTO_VERSION = "CONFLICTO_VERSION";
+
+    private final transient PartidoDTO actual;
+
+    public ConflictoVersionException(String message, PartidoDTO actual) {
+        super(message, null, false, false);
+        this.actual = actual;
+    }
+
+    public PartidoDTO getActual() {
+        return actual;
+    }
+
+    @Override
+    public String getCodigo() {
+        return CONFLICTO_VERSION;
+    }
+
+    @Override
+    public String getCampo() {
+        return "version";
+    }
+}
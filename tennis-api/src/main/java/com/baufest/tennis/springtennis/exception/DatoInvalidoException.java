@@ -0,0 +1,35 @@
+package com.baufest.tennis.springtennis.exception;
+
+/**
+ * <p>Dato invalido</p>
+ * Error de las validaciones de la api (se responde 400). No guarda el stack trace, que en un error esperado no se
+ * usa y es la parte cara de crear la excepcion, ni excepciones suprimidas; por eso las que tienen un mensaje fijo
+ * se crean una sola vez como constantes y se arrojan siempre la misma instancia sin que acumulen estado.
+ */
+public class DatoInvalidoException extends RuntimeException implements ErrorDominio {
+
+    public static final String DATO_INVALIDO = "DATO_INVALIDO";
+
+    private final String codigo;
+    private final String campo;
+
+    public DatoInvalidoException(String message) {
+        this(DATO_INVALIDO, null, message);
+    }
+
+    public DatoInvalidoException(String codigo, String campo, String message) {
+        super(message, null, false, false);
+        this.codigo = codigo;
+        this.campo = campo;
+    }
+
+    @Override
+    public String getCodigo() {
+        return codigo;
+    }
+
+    @Override
+    public String getCampo() {
+        return campo;
+    }
+}
@@ -0,0 +1,15 @@
+package com.baufest.tennis.springtennis.exception;
+
+/**
+ * <p>Error de dominio</p>
+ * Error esperado de la api (un dato invalido, un recurso que no existe, un conflicto de version), que el exception
+ * handler responde con un ErrorDTO armado con su codigo y el campo que lo causo, sin el stack trace.
+ */
+public interface ErrorDominio {
+
+    /* Codigo estable del error, para que el cliente no dependa del mensaje */
+    String getCodigo();
+
+    /* Campo del request que causo el error, null si no corresponde a un campo */
+    String getCampo();
+}
@@ -0,0 +1,39 @@
+package com.baufest.tennis.springtennis.exception;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Recurso no encontrado</p>
+ * NoSuchElementException de los ids que no existen (se responde 404). Igual que DatoInvalidoException no guarda
+ * el stack trace.
+ */
+public class RecursoNoEncontradoException extends NoSuchElementException implements ErrorDominio {
+
+    public static final String NO_ENCONTRADO = "NO_ENCONTRADO";
+
+    private final String codigo;
+
+    public RecursoNoEncontradoException(String message) {
+        this(NO_ENCONTRADO, message);
+    }
+
+    public RecursoNoEncontradoException(String codigo, String message) {
+        super(message);
+        this.codigo = codigo;
+    }
+
+    @Override
+    public String getCodigo() {
+        return codigo;
+    }
+
+    @Override
+    public String getCampo() {
+        return null;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -26,6 +26,7 @@ public class CanchaMapperImpl implements CanchaMapper {
         canchaDTO.setId( entity.getId() );
         canchaDTO.setNombre( entity.getNombre() );
         canchaDTO.setDireccion( entity.getDireccion() );
+        canchaDTO.setVersion( entity.getVersion() );
 
         return canchaDTO;
     }
@@ -43,6 +44,9 @@ public class CanchaMapperImpl implements CanchaMapper {
         cancha.setId( entity.getId() );
         cancha.setNombre( entity.getNombre() );
         cancha.setDireccion( entity.getDireccion() );
+        if ( entity.getVersion() != null ) {
+            cancha.setVersion( entity.getVersion() );
+        }
 
         return cancha;
     }
@@ -26,6 +26,7 @@ public class JugadorMapperImpl implements JugadorMapper {
         jugadorDTO.setId( entity.getId() );
         jugadorDTO.setNombre( entity.getNombre() );
         jugadorDTO.setPuntos( entity.getPuntos() );
+        jugadorDTO.setVersion( entity.getVersion() );
 
         return jugadorDTO;
     }
@@ -43,6 +44,9 @@ public class JugadorMapperImpl implements JugadorMapper {
         jugador.setId( entity.getId() );
         jugador.setNombre( entity.getNombre() );
         jugador.setPuntos( entity.getPuntos() );
+        if ( entity.getVersion() != null ) {
+            jugador.setVersion( entity.getVersion() );
+        }
 
         return jugador;
     }
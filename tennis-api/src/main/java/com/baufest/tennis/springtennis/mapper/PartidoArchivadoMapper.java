@@ -0,0 +1,15 @@
+package com.baufest.tennis.springtennis.mapper;
+
+import com.baufest.tennis.springtennis.dto.PartidoArchivadoDTO;
+import com.baufest.tennis.springtennis.model.PartidoArchivado;
+
+/**
+ * <p>Componente de Mapper</p>
+ * Este componente sirve para transformar los partidos archivados de entidad a DTO. El historial es de solo
+ * lectura, las filas las crea ArchivoPartidos a partir de los partidos finalizados
+ */
+public interface PartidoArchivadoMapper {
+
+    PartidoArchivadoDTO toDTO(PartidoArchivado entity);
+
+}
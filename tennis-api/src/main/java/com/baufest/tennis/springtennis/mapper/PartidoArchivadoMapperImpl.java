@@ -0,0 +1,40 @@
+package com.baufest.tennis.springtennis.mapper;
+
+import com.baufest.tennis.springtennis.dto.PartidoArchivadoDTO;
+import com.baufest.tennis.springtennis.model.PartidoArchivado;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PartidoArchivadoMapperImpl implements PartidoArchivadoMapper {
+
+    /* Esta funcion recibe como parametro un PartidoArchivado
+     * y en base a el parametro recibido genera una nueva instancia
+     * de partido archivado DTO.*/
+    @Override
+    public PartidoArchivadoDTO toDTO(PartidoArchivado entity) {
+        if ( entity == null ) {
+            return null;
+        }
+
+        PartidoArchivadoDTO partidoDTO = new PartidoArchivadoDTO();
+
+        partidoDTO.setId( entity.getId() );
+        partidoDTO.setFechaComienzo( entity.getFechaComienzo() );
+        partidoDTO.setIdLocal( entity.getIdLocal() );
+        partidoDTO.setNombreLocal( entity.getNombreLocal() );
+        partidoDTO.setIdVisitante( entity.getIdVisitante() );
+        partidoDTO.setNombreVisitante( entity.getNombreVisitante() );
+        partidoDTO.setIdCancha( entity.getIdCancha() );
+        partidoDTO.setNombreCancha( entity.getNombreCancha() );
+        partidoDTO.setCantidadGamesLocal( entity.getCantidadGamesLocal() );
+        partidoDTO.setCantidadGamesVisitante( entity.getCantidadGamesVisitante() );
+        partidoDTO.setSetsLocal( entity.getSetsLocal() );
+        partidoDTO.setSetsVisitante( entity.getSetsVisitante() );
+        partidoDTO.setResultadoSets( entity.getResultadoSets() );
+        partidoDTO.setFormato( entity.getFormato() );
+        partidoDTO.setSinVentaja( entity.isSinVentaja() );
+        partidoDTO.setVersion( entity.getVersion() );
+
+        return partidoDTO;
+    }
+}
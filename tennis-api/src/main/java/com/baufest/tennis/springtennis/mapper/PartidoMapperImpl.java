@@ -47,7 +47,14 @@ public class PartidoMapperImpl implements PartidoMapper {
         partidoDTO.setScoreVisitante( entity.getScoreVisitante() );
         partidoDTO.setPuntosGameActualVisitante( entity.getPuntosGameActualVisitante() );
         partidoDTO.setCantidadGamesVisitante( entity.getCantidadGamesVisitante() );
+        partidoDTO.setFormato( entity.getFormato() );
+        partidoDTO.setSinVentaja( entity.isSinVentaja() );
+        partidoDTO.setSetsLocal( entity.getSetsLocal() );
+        partidoDTO.setSetsVisitante( entity.getSetsVisitante() );
+        partidoDTO.setResultadoSets( entity.getResultadoSets() );
+        partidoDTO.setSaca( entity.getSaca() );
         partidoDTO.setCancha(canchaMapper.toDTO(entity.getCancha()));
+        partidoDTO.setVersion( entity.getVersion() );
 
         return partidoDTO;
     }
@@ -73,7 +80,14 @@ public class PartidoMapperImpl implements PartidoMapper {
         partido.setScoreVisitante( entity.getScoreVisitante() );
         partido.setPuntosGameActualVisitante( entity.getPuntosGameActualVisitante() );
         partido.setCantidadGamesVisitante( entity.getCantidadGamesVisitante() );
+        partido.setFormato( entity.getFormato() );
+        partido.setSinVentaja( entity.isSinVentaja() );
+        partido.setSetsLocal( entity.getSetsLocal() );
+        partido.setSetsVisitante( entity.getSetsVisitante() );
+        partido.setResultadoSets( entity.getResultadoSets() );
+        partido.setSaca( entity.getSaca() );
         partido.setCancha(canchaMapper.fromDTO(entity.getCancha()));
+        partido.setVersion( entity.getVersion() );
 
         return partido;
     }
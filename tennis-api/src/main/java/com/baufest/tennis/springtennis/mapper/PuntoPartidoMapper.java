@@ -0,0 +1,15 @@
+package com.baufest.tennis.springtennis.mapper;
+
+import com.baufest.tennis.springtennis.dto.PuntoPartidoDTO;
+import com.baufest.tennis.springtennis.model.PuntoPartido;
+
+/**
+ * <p>Componente de Mapper</p>
+ * Este componente sirve para transformar los puntos de un partido de entidad a DTO y viceversa
+ */
+public interface PuntoPartidoMapper {
+
+    PuntoPartidoDTO toDTO(PuntoPartido entity);
+    PuntoPartido fromDTO(PuntoPartidoDTO entity);
+
+}
@@ -0,0 +1,46 @@
+package com.baufest.tennis.springtennis.mapper;
+
+import com.baufest.tennis.springtennis.dto.PuntoPartidoDTO;
+import com.baufest.tennis.springtennis.model.PuntoPartido;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PuntoPartidoMapperImpl implements PuntoPartidoMapper {
+
+    /* Esta funcion recibe como parametro un PuntoPartido
+     * y en base a el parametro recibido genera una nueva instancia
+     * de punto partido DTO.*/
+    @Override
+    public PuntoPartidoDTO toDTO(PuntoPartido entity) {
+        if ( entity == null ) {
+            return null;
+        }
+
+        PuntoPartidoDTO puntoDTO = new PuntoPartidoDTO();
+
+        puntoDTO.setIdPartido( entity.getIdPartido() );
+        puntoDTO.setSecuencia( entity.getSecuencia() );
+        puntoDTO.setModo( entity.getModo() );
+        puntoDTO.setInstante( entity.getInstante() );
+
+        return puntoDTO;
+    }
+
+    /* Esta funcion recibe como parametro un PuntoPartidoDTO
+     * y genera una nueva instancia de PuntoPartido */
+    @Override
+    public PuntoPartido fromDTO(PuntoPartidoDTO entity) {
+        if ( entity == null ) {
+            return null;
+        }
+
+        PuntoPartido punto = new PuntoPartido();
+
+        punto.setIdPartido( entity.getIdPartido() );
+        punto.setSecuencia( entity.getSecuencia() );
+        punto.setModo( entity.getModo() );
+        punto.setInstante( entity.getInstante() );
+
+        return punto;
+    }
+}
@@ -0,0 +1,26 @@
+package com.baufest.tennis.springtennis.mapper;
+
+import com.baufest.tennis.springtennis.dto.LlaveTorneoDTO;
+import com.baufest.tennis.springtennis.dto.TorneoDTO;
+import com.baufest.tennis.springtennis.model.LlaveTorneo;
+import com.baufest.tennis.springtennis.model.Torneo;
+
+/**
+ * <p>Componente de Mapper</p>
+ * Este componente sirve para transformar un objeto de tipo entidad a un objeto de tipo DTO,
+ * los atributos deben coincidir en nombre, pero no es necesario que se contenga en el DTO todos
+ * los atributos de la entidad, los atributos que no contengan match (mismo nombre) o no existan
+ * se instanciaran como null por defecto
+ */
+public interface TorneoMapper {
+
+    /* Interfaz en donde definimos los metodos que seran
+     * obligatorios utilizar en nuestras clases. En este caso
+     * TorneoMapperImpl, en su declaracion incluimos:
+     * "implements TorneoMapper" */
+
+    TorneoDTO toDTO(Torneo entity);
+    Torneo fromDTO(TorneoDTO entity);
+    LlaveTorneoDTO toDTO(LlaveTorneo entity);
+
+}
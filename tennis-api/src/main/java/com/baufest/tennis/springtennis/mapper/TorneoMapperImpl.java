@@ -0,0 +1,91 @@
+package com.baufest.tennis.springtennis.mapper;
+
+import com.baufest.tennis.springtennis.dto.LlaveTorneoDTO;
+import com.baufest.tennis.springtennis.dto.TorneoDTO;
+import com.baufest.tennis.springtennis.model.LlaveTorneo;
+import com.baufest.tennis.springtennis.model.Torneo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+
+@Component
+public class TorneoMapperImpl implements TorneoMapper {
+
+    /* Utilizamos el Mapper para no acceder directamente a la base.
+    Lo implementamos en el TorneoServiceImpl a traves del @Autowired
+     */
+
+    private final JugadorMapper jugadorMapper;
+
+    @Autowired
+    public TorneoMapperImpl(JugadorMapper jugadorMapper) {
+        this.jugadorMapper = jugadorMapper;
+    }
+
+    /* Esta funcion recibe como parametro un Torneo
+     * y en base a el parametro recibido genera una nueva instancia
+     * de torneo DTO, sin los jugadores inscriptos (estan en las llaves).*/
+    @Override
+    public TorneoDTO toDTO(Torneo entity) {
+        if ( entity == null ) {
+            return null;
+        }
+
+        TorneoDTO torneoDTO = new TorneoDTO();
+
+        torneoDTO.setId( entity.getId() );
+        torneoDTO.setNombre( entity.getNombre() );
+        torneoDTO.setTipo( entity.getTipo() );
+        torneoDTO.setFormato( entity.getFormato() );
+        torneoDTO.setSinVentaja( entity.isSinVentaja() );
+        torneoDTO.setDescansoMinutos( entity.getDescansoMinutos() );
+        torneoDTO.setCanchas( new ArrayList<>( entity.getCanchas() ) );
+
+        return torneoDTO;
+    }
+
+    /* Esta funcion recibe como parametro un TorneoDTO
+     * y hacemos un generamos una nueva instancia de Torneo */
+    @Override
+    public Torneo fromDTO(TorneoDTO entity) {
+        if ( entity == null ) {
+            return null;
+        }
+
+        Torneo torneo = new Torneo();
+
+        torneo.setId( entity.getId() );
+        torneo.setNombre( entity.getNombre() );
+        torneo.setTipo( entity.getTipo() );
+        torneo.setFormato( entity.getFormato() );
+        torneo.setSinVentaja( entity.isSinVentaja() );
+        torneo.setDescansoMinutos( entity.getDescansoMinutos() );
+        if ( entity.getCanchas() != null ) {
+            torneo.setCanchas( new ArrayList<>( entity.getCanchas() ) );
+        }
+
+        return torneo;
+    }
+
+    /* Esta funcion recibe como parametro una LlaveTorneo
+     * y genera una nueva instancia de llave DTO con sus jugadores */
+    @Override
+    public LlaveTorneoDTO toDTO(LlaveTorneo entity) {
+        if ( entity == null ) {
+            return null;
+        }
+
+        LlaveTorneoDTO llaveDTO = new LlaveTorneoDTO();
+
+        llaveDTO.setRonda( entity.getRonda() );
+        llaveDTO.setPosicion( entity.getPosicion() );
+        llaveDTO.setJugadorLocal( jugadorMapper.toDTO( entity.getJugadorLocal() ) );
+        llaveDTO.setJugadorVisitante( jugadorMapper.toDTO( entity.getJugadorVisitante() ) );
+        llaveDTO.setIdPartido( entity.getIdPartido() );
+        llaveDTO.setGanador( entity.getGanador() );
+        llaveDTO.setRevisar( entity.isRevisar() );
+
+        return llaveDTO;
+    }
+}
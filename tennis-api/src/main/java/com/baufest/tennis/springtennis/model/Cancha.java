@@ -10,7 +10,9 @@ public class Cancha {
         /*Atributos privados de la clase*/
 
         @Id /* Sera el index de nuestra tabla */
-        @GeneratedValue(strategy = GenerationType.IDENTITY) /* Valor Auto-generado con la estategia: GenerationType.IDENTITY */
+        /* Valor Auto-generado con una secuencia (optimizador pooled), para que los inserts de una importacion se agrupen en batches JDBC */
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cancha_seq")
+        @SequenceGenerator(name = "cancha_seq", sequenceName = "cancha_seq", allocationSize = 50)
         private Long id;
 
         @Column(nullable = false) /* No podemos recibir este valor como nulo "null" */
@@ -19,6 +21,10 @@ public class Cancha {
     @Column(nullable = false) /* No podemos recibir este valor como nulo "null" */
     private String direccion;
 
+        /* Version de la fila, JPA la incrementa en cada update. Se usa como ETag de la cancha */
+        @Version
+        private long version;
+
         /* Construtores de nuestro modelo de dato */
 
         /* Los constructores se utilizan al momento de instanciar nuesta clase y darle espacio en memoria,
@@ -55,6 +61,14 @@ public class Cancha {
             this.id = id;
         }
 
+        public long getVersion() {
+            return version;
+        }
+
+        public void setVersion(long version) {
+            this.version = version;
+        }
+
         public String getNombre() {
             return nombre;
         }
@@ -29,7 +29,9 @@ public class Jugador{
 	/*Atributos privados de la clase*/
 
 	@Id /* Sera el index de nuestra tabla */
-	@GeneratedValue(strategy = GenerationType.IDENTITY) /* Valor Auto-generado con la estategia: GenerationType.IDENTITY */
+	/* Valor Auto-generado con una secuencia (optimizador pooled), para que los inserts de una importacion se agrupen en batches JDBC */
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "jugador_seq")
+	@SequenceGenerator(name = "jugador_seq", sequenceName = "jugador_seq", allocationSize = 50)
 	private Long id;
 
 	@Column(nullable = false) /* No podemos recibir este valor como nulo "null" */
@@ -38,6 +40,11 @@ public class Jugador{
 	@Column(nullable = false)
 	private int puntos;
 
+	/* Version de la fila, JPA la incrementa en cada update (y sumarPuntos en el update masivo). Se usa como ETag
+	 * del jugador, asi un GET condicional se responde con solo leer la version */
+	@Version
+	private long version;
+
 	/* Construtores de nuestro modelo de dato */
 
 	/* Los constructores se utilizan al momento de instanciar nuesta clase y darle espacio en memoria,
@@ -74,6 +81,14 @@ public class Jugador{
 		this.id = id;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 	public String getNombre() {
 		return nombre;
 	}
@@ -0,0 +1,155 @@
+package com.baufest.tennis.springtennis.model;
+
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+
+import javax.persistence.*;
+
+/**
+ * <p>Entidad LlaveTorneo</p>
+ * Cada fila es un cruce del torneo: una posicion de una ronda del cuadro (o un partido de una fecha si es todos
+ * contra todos). Los jugadores quedan en null hasta que se definen los cruces anteriores y el partido se crea
+ * cuando estan los dos. En eliminacion directa el ganador de la llave (ronda, posicion) pasa a la llave
+ * (ronda + 1, posicion / 2), como local si la posicion es par y como visitante si es impar.
+ */
+@Entity
+@Table(name = "llave_torneo", uniqueConstraints = {
+		/* Un torneo no puede tener dos llaves en la misma posicion de una ronda */
+		@UniqueConstraint(name = "uk_llave_torneo_posicion", columnNames = {"idTorneo", "ronda", "posicion"})
+}, indexes = {
+		/* Para encontrar la llave de un partido cuando finaliza */
+		@Index(name = "idx_llave_torneo_partido", columnList = "idPartido")
+})
+public class LlaveTorneo {
+
+	/*Atributos privados de la clase*/
+
+	@Id /* Sera el index de nuestra tabla */
+	/* Valor Auto-generado con una secuencia (optimizador pooled), para que los inserts del cuadro se agrupen en batches JDBC */
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "llave_torneo_seq")
+	@SequenceGenerator(name = "llave_torneo_seq", sequenceName = "llave_torneo_seq", allocationSize = 50)
+	private Long id;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "idTorneo", nullable = false)
+	private Torneo torneo;
+
+	/* Ronda (o fecha) empezando en 1 */
+	@Column(nullable = false)
+	private int ronda;
+
+	/* Posicion dentro de la ronda empezando en 0 */
+	@Column(nullable = false)
+	private int posicion;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "idLocal", nullable = true)
+	private Jugador jugadorLocal;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "idVisitante", nullable = true)
+	private Jugador jugadorVisitante;
+
+	/* Se guarda solo el id del partido y no la relacion, asi el cuadro se lee sin leer los partidos */
+	@Column(nullable = true)
+	private Long idPartido;
+
+	/* Jugador que gano la llave, null mientras no se juega. Las llaves con un solo jugador (libres) lo tienen como ganador */
+	@Column(nullable = true)
+	private ModoJugador ganador;
+
+	/* La llave no puede avanzar sola: su partido termino sin un ganador de la llave o no se encontro cancha libre
+	 * para programar su partido. Los barridos la saltean, queda para revisar a mano */
+	@Column(nullable = false)
+	private boolean revisar;
+
+	/* Construtores de nuestro modelo de dato */
+
+	public LlaveTorneo() {
+	}
+
+	public LlaveTorneo(Torneo torneo, int ronda, int posicion) {
+		this.torneo = torneo;
+		this.ronda = ronda;
+		this.posicion = posicion;
+	}
+
+	public LlaveTorneo(Torneo torneo, int ronda, int posicion, Jugador jugadorLocal, Jugador jugadorVisitante) {
+		this(torneo, ronda, posicion);
+		this.jugadorLocal = jugadorLocal;
+		this.jugadorVisitante = jugadorVisitante;
+	}
+
+	/* Getters & Setters */
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Torneo getTorneo() {
+		return torneo;
+	}
+
+	public void setTorneo(Torneo torneo) {
+		this.torneo = torneo;
+	}
+
+	public int getRonda() {
+		return ronda;
+	}
+
+	public void setRonda(int ronda) {
+		this.ronda = ronda;
+	}
+
+	public int getPosicion() {
+		return posicion;
+	}
+
+	public void setPosicion(int posicion) {
+		this.posicion = posicion;
+	}
+
+	public Jugador getJugadorLocal() {
+		return jugadorLocal;
+	}
+
+	public void setJugadorLocal(Jugador jugadorLocal) {
+		this.jugadorLocal = jugadorLocal;
+	}
+
+	public Jugador getJugadorVisitante() {
+		return jugadorVisitante;
+	}
+
+	public void setJugadorVisitante(Jugador jugadorVisitante) {
+		this.jugadorVisitante = jugadorVisitante;
+	}
+
+	public Long getIdPartido() {
+		return idPartido;
+	}
+
+	public void setIdPartido(Long idPartido) {
+		this.idPartido = idPartido;
+	}
+
+	public ModoJugador getGanador() {
+		return ganador;
+	}
+
+	public void setGanador(ModoJugador ganador) {
+		this.ganador = ganador;
+	}
+
+	public boolean isRevisar() {
+		return revisar;
+	}
+
+	public void setRevisar(boolean revisar) {
+		this.revisar = revisar;
+	}
+}
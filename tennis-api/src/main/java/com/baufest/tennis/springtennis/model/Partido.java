@@ -1,6 +1,8 @@
 package com.baufest.tennis.springtennis.model;
 
 import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
 import org.json.JSONObject;
 import javax.persistence.*;
 import java.util.Date;
@@ -10,9 +12,15 @@ import java.util.Date;
  * Esta entidad sera la que mapee el JPA para transformarlo en una tabla con sus respectivas columnas.
  */
 @Entity
-@Table(name = "partido")
+@Table(name = "partido", indexes = {
+		/* Indice compuesto para buscar los partidos de una cancha por rango de fecha */
+		@Index(name = "idx_partido_cancha_fecha", columnList = "idCancha, fechaComienzo")
+})
 public class Partido {
 
+	//Cantidad de ids que se reservan por cada lectura de la secuencia
+	public static final int ALLOCATION_SIZE = 50;
+
 	/**
 	 * <p>Clase Partido</p>
 	 * Declaramos los atributos que va tener nuestro objeto.
@@ -56,7 +64,11 @@ public class Partido {
 	/*Atributos privados de la clase*/
 
 	@Id /* Sera el index de nuestra tabla */
-	@GeneratedValue(strategy = GenerationType.IDENTITY) /* Valor Auto-generado con la estategia: GenerationType.IDENTITY */
+	/* Valor Auto-generado con una secuencia: Hibernate reserva los ids de a ALLOCATION_SIZE (optimizador pooled)
+	 * y los asigna sin ir a la base, asi los inserts de un lote de partidos se pueden agrupar en batches JDBC,
+	 * cosa que no pasa con GenerationType.IDENTITY */
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "partido_seq")
+	@SequenceGenerator(name = "partido_seq", sequenceName = "partido_seq", allocationSize = Partido.ALLOCATION_SIZE)
 	private Long id;
 
 	@Column(nullable = false)
@@ -71,16 +83,18 @@ public class Partido {
 	* entre dichas tablas estableciendo una relacion, en este caso particular al ser ManyToOne se informa al JPA
 	* encargado de construir las tablas que la tabla de Partido contiene un JugadorLocal de este modo se establece
 	* que varios Partidos pueden pertenecerle a un JugadorLocal, hay que tener cuidado utilizando estos tags ya que podrian
-	* producir la ruptura al momento de compilacion/run */
-	@ManyToOne(fetch = FetchType.EAGER)
+	* producir la ruptura al momento de compilacion/run.
+	* Las relaciones son LAZY: las consultas que devuelven el partido completo traen los jugadores y la cancha en el mismo
+	* select (join fetch o entity graph en PartidoRepository) y las que solo necesitan ids o puntajes no los leen */
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "idLocal", nullable = false)
 	private Jugador jugadorLocal;
 
-	@ManyToOne(fetch = FetchType.EAGER)
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "idVisitante", nullable = false)
 	private Jugador jugadorVisitante;
 
-	@ManyToOne(fetch = FetchType.EAGER)
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "idCancha", nullable = false)
 	private Cancha cancha;
 
@@ -102,6 +116,38 @@ public class Partido {
 	@Column(nullable = true)
 	private int cantidadGamesVisitante;
 
+	/* Formato del partido (sets y tiebreaks), null en los partidos anteriores se toma como SET_UNICO */
+	@Column(nullable = true)
+	private FormatoPartido formato;
+
+	/* Games sin ventaja: en 40-40 el siguiente punto gana el game */
+	@Column(nullable = true)
+	private boolean sinVentaja;
+
+	@Column(nullable = true)
+	private int setsLocal;
+
+	@Column(nullable = true)
+	private int setsVisitante;
+
+	/* Games de los sets terminados, con el formato "6-4 3-6" */
+	@Column(nullable = true)
+	private String resultadoSets;
+
+	/* Jugador que saca el game actual, null se toma como LOCAL */
+	@Column(nullable = true)
+	private ModoJugador saca;
+
+	/* Si ya se le sumaron al ganador los puntos del ranking por este partido. Solo se modifica con el update
+	 * de PartidoRepository.marcarPuntosAsignados, el save de la entidad no lo pisa */
+	@Column(nullable = false, updatable = false)
+	private boolean puntosAsignados;
+
+	/* Version de la fila, JPA la incrementa en cada update y rechaza los updates hechos sobre una version vieja
+	 * (control de concurrencia optimista). El marcador en vivo la incrementa con cada punto */
+	@Version
+	private Long version;
+
 	/* Construtores de nuestro modelo de dato */
 
 	/* Los constructores se utilizan al momento de instanciar nuesta clase y darle espacio en memoria,
@@ -259,6 +305,70 @@ public class Partido {
 		this.cantidadGamesVisitante = cantidadGamesVisitante;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public FormatoPartido getFormato() {
+		return formato;
+	}
+
+	public void setFormato(FormatoPartido formato) {
+		this.formato = formato;
+	}
+
+	public boolean isSinVentaja() {
+		return sinVentaja;
+	}
+
+	public void setSinVentaja(boolean sinVentaja) {
+		this.sinVentaja = sinVentaja;
+	}
+
+	public int getSetsLocal() {
+		return setsLocal;
+	}
+
+	public void setSetsLocal(int setsLocal) {
+		this.setsLocal = setsLocal;
+	}
+
+	public int getSetsVisitante() {
+		return setsVisitante;
+	}
+
+	public void setSetsVisitante(int setsVisitante) {
+		this.setsVisitante = setsVisitante;
+	}
+
+	public String getResultadoSets() {
+		return resultadoSets;
+	}
+
+	public void setResultadoSets(String resultadoSets) {
+		this.resultadoSets = resultadoSets;
+	}
+
+	public ModoJugador getSaca() {
+		return saca;
+	}
+
+	public void setSaca(ModoJugador saca) {
+		this.saca = saca;
+	}
+
+	public boolean isPuntosAsignados() {
+		return puntosAsignados;
+	}
+
+	public void setPuntosAsignados(boolean puntosAsignados) {
+		this.puntosAsignados = puntosAsignados;
+	}
+
 
 	/* Metodo para retornar nuestro modelo de datos en formato de String */
 	@Override
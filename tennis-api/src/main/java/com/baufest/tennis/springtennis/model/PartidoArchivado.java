@@ -0,0 +1,247 @@
+package com.baufest.tennis.springtennis.model;
+
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * <p>Entidad PartidoArchivado</p>
+ * Partidos finalizados hace mas de springtennis.archivo.antiguedad-dias que se movieron de la tabla partido (ver
+ * ArchivoPartidos). Se guarda el resultado final con los nombres de los jugadores y de la cancha, sin relaciones:
+ * la fila no depende de que el jugador o la cancha sigan existiendo y el historial se lee sin joins. Los puntos
+ * del partido quedan en punto_partido con el mismo id.
+ * <p>
+ * En postgres la tabla esta particionada por rango de fechaComienzo (ver ParticionesArchivo), por eso las consultas
+ * del historial siempre filtran por fecha.
+ */
+@Entity
+@Table(name = "partido_archivado", indexes = {
+		/* Las consultas del historial van por rango de fecha */
+		@Index(name = "idx_partido_archivado_fecha", columnList = "fechaComienzo")
+})
+public class PartidoArchivado implements Persistable<Long> {
+
+	/*Atributos privados de la clase*/
+
+	@Id /* Es el mismo id que tenia en la tabla partido */
+	private Long id;
+
+	@Column(nullable = false)
+	private Date fechaComienzo;
+
+	@Column(nullable = false)
+	private Long idLocal;
+
+	@Column(nullable = false)
+	private String nombreLocal;
+
+	@Column(nullable = false)
+	private Long idVisitante;
+
+	@Column(nullable = false)
+	private String nombreVisitante;
+
+	@Column(nullable = false)
+	private Long idCancha;
+
+	@Column(nullable = false)
+	private String nombreCancha;
+
+	@Column(nullable = false)
+	private int cantidadGamesLocal;
+
+	@Column(nullable = false)
+	private int cantidadGamesVisitante;
+
+	@Column(nullable = false)
+	private int setsLocal;
+
+	@Column(nullable = false)
+	private int setsVisitante;
+
+	@Column(nullable = true)
+	private String resultadoSets;
+
+	@Column(nullable = true)
+	private FormatoPartido formato;
+
+	@Column(nullable = false)
+	private boolean sinVentaja;
+
+	/* Version que tenia el partido al archivarse, es la secuencia de su ultimo punto */
+	@Column(nullable = true)
+	private Long version;
+
+	/* Las filas se crean con el id del partido: sin esta marca save() haria un select por fila antes del insert */
+	@Transient
+	private boolean nuevo = true;
+
+	public PartidoArchivado() {
+	}
+
+	/* Copia el resultado final del partido, que tiene que venir con sus jugadores y su cancha */
+	public static PartidoArchivado de(Partido partido) {
+		PartidoArchivado archivado = new PartidoArchivado();
+		archivado.setId(partido.getId());
+		archivado.setFechaComienzo(partido.getFechaComienzo());
+		archivado.setIdLocal(partido.getJugadorLocal().getId());
+		archivado.setNombreLocal(partido.getJugadorLocal().getNombre());
+		archivado.setIdVisitante(partido.getJugadorVisitante().getId());
+		archivado.setNombreVisitante(partido.getJugadorVisitante().getNombre());
+		archivado.setIdCancha(partido.getCancha().getId());
+		archivado.setNombreCancha(partido.getCancha().getNombre());
+		archivado.setCantidadGamesLocal(partido.getCantidadGamesLocal());
+		archivado.setCantidadGamesVisitante(partido.getCantidadGamesVisitante());
+		archivado.setSetsLocal(partido.getSetsLocal());
+		archivado.setSetsVisitante(partido.getSetsVisitante());
+		archivado.setResultadoSets(partido.getResultadoSets());
+		archivado.setFormato(partido.getFormato());
+		archivado.setSinVentaja(partido.isSinVentaja());
+		archivado.setVersion(partido.getVersion());
+		return archivado;
+	}
+
+	@PostLoad
+	@PostPersist
+	void marcarExistente() {
+		this.nuevo = false;
+	}
+
+	@Override
+	public boolean isNew() {
+		return nuevo;
+	}
+
+	/* Getters & Setters */
+
+	@Override
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Date getFechaComienzo() {
+		return fechaComienzo;
+	}
+
+	public void setFechaComienzo(Date fechaComienzo) {
+		this.fechaComienzo = fechaComienzo;
+	}
+
+	public Long getIdLocal() {
+		return idLocal;
+	}
+
+	public void setIdLocal(Long idLocal) {
+		this.idLocal = idLocal;
+	}
+
+	public String getNombreLocal() {
+		return nombreLocal;
+	}
+
+	public void setNombreLocal(String nombreLocal) {
+		this.nombreLocal = nombreLocal;
+	}
+
+	public Long getIdVisitante() {
+		return idVisitante;
+	}
+
+	public void setIdVisitante(Long idVisitante) {
+		this.idVisitante = idVisitante;
+	}
+
+	public String getNombreVisitante() {
+		return nombreVisitante;
+	}
+
+	public void setNombreVisitante(String nombreVisitante) {
+		this.nombreVisitante = nombreVisitante;
+	}
+
+	public Long getIdCancha() {
+		return idCancha;
+	}
+
+	public void setIdCancha(Long idCancha) {
+		this.idCancha = idCancha;
+	}
+
+	public String getNombreCancha() {
+		return nombreCancha;
+	}
+
+	public void setNombreCancha(String nombreCancha) {
+		this.nombreCancha = nombreCancha;
+	}
+
+	public int getCantidadGamesLocal() {
+		return cantidadGamesLocal;
+	}
+
+	public void setCantidadGamesLocal(int cantidadGamesLocal) {
+		this.cantidadGamesLocal = cantidadGamesLocal;
+	}
+
+	public int getCantidadGamesVisitante() {
+		return cantidadGamesVisitante;
+	}
+
+	public void setCantidadGamesVisitante(int cantidadGamesVisitante) {
+		this.cantidadGamesVisitante = cantidadGamesVisitante;
+	}
+
+	public int getSetsLocal() {
+		return setsLocal;
+	}
+
+	public void setSetsLocal(int setsLocal) {
+		this.setsLocal = setsLocal;
+	}
+
+	public int getSetsVisitante() {
+		return setsVisitante;
+	}
+
+	public void setSetsVisitante(int setsVisitante) {
+		this.setsVisitante = setsVisitante;
+	}
+
+	public String getResultadoSets() {
+		return resultadoSets;
+	}
+
+	public void setResultadoSets(String resultadoSets) {
+		this.resultadoSets = resultadoSets;
+	}
+
+	public FormatoPartido getFormato() {
+		return formato;
+	}
+
+	public void setFormato(FormatoPartido formato) {
+		this.formato = formato;
+	}
+
+	public boolean isSinVentaja() {
+		return sinVentaja;
+	}
+
+	public void setSinVentaja(boolean sinVentaja) {
+		this.sinVentaja = sinVentaja;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+}
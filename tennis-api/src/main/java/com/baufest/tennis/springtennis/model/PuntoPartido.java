@@ -0,0 +1,96 @@
+package com.baufest.tennis.springtennis.model;
+
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * <p>Entidad PuntoPartido</p>
+ * Cada fila es un punto sumado en un partido. La tabla solo recibe inserts (log de eventos), el marcador
+ * actual de un partido es la ultima foto guardada en la tabla partido mas los puntos con secuencia mayor
+ * a la version de esa foto. La secuencia es la version que tuvo el partido despues del punto.
+ */
+@Entity
+@Table(name = "punto_partido", uniqueConstraints = {
+		/* Un partido no puede tener dos puntos con la misma secuencia, asi dos escrituras concurrentes chocan */
+		@UniqueConstraint(name = "uk_punto_partido_secuencia", columnNames = {"idPartido", "secuencia"})
+})
+public class PuntoPartido {
+
+	/*Atributos privados de la clase*/
+
+	@Id /* Sera el index de nuestra tabla */
+	/* Valor Auto-generado con una secuencia, para que los puntos de todos los partidos de un flush se inserten
+	 * en batches JDBC (con GenerationType.IDENTITY Hibernate hace un insert por punto) */
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "punto_partido_seq")
+	@SequenceGenerator(name = "punto_partido_seq", sequenceName = "punto_partido_seq", allocationSize = 50)
+	private Long id;
+
+	/* Se guarda solo el id del partido y no la relacion, para insertar el punto sin leer el partido */
+	@Column(nullable = false)
+	private Long idPartido;
+
+	@Column(nullable = false)
+	private long secuencia;
+
+	@Column(nullable = false)
+	private ModoJugador modo;
+
+	@Column(nullable = false)
+	private Date instante;
+
+	/* Construtores de nuestro modelo de dato */
+
+	public PuntoPartido() {
+	}
+
+	public PuntoPartido(Long idPartido, long secuencia, ModoJugador modo, Date instante) {
+		this.idPartido = idPartido;
+		this.secuencia = secuencia;
+		this.modo = modo;
+		this.instante = instante;
+	}
+
+	/* Getters & Setters */
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getIdPartido() {
+		return idPartido;
+	}
+
+	public void setIdPartido(Long idPartido) {
+		this.idPartido = idPartido;
+	}
+
+	public long getSecuencia() {
+		return secuencia;
+	}
+
+	public void setSecuencia(long secuencia) {
+		this.secuencia = secuencia;
+	}
+
+	public ModoJugador getModo() {
+		return modo;
+	}
+
+	public void setModo(ModoJugador modo) {
+		this.modo = modo;
+	}
+
+	public Date getInstante() {
+		return instante;
+	}
+
+	public void setInstante(Date instante) {
+		this.instante = instante;
+	}
+}
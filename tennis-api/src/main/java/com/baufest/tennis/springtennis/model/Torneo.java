@@ -0,0 +1,115 @@
+package com.baufest.tennis.springtennis.model;
+
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+import com.baufest.tennis.springtennis.enums.TipoTorneo;
+
+import javax.persistence.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Entidad Torneo</p>
+ * Datos del torneo y de como se programan sus partidos. Los cruces del torneo son las filas de LlaveTorneo.
+ */
+@Entity
+@Table(name = "torneo")
+public class Torneo {
+
+	/*Atributos privados de la clase*/
+
+	@Id /* Sera el index de nuestra tabla */
+	@GeneratedValue(strategy = GenerationType.IDENTITY) /* Valor Auto-generado con la estategia: GenerationType.IDENTITY */
+	private Long id;
+
+	@Column(nullable = false)
+	private String nombre;
+
+	@Column(nullable = false)
+	private TipoTorneo tipo;
+
+	/* Formato de los partidos del torneo, null se toma como SET_UNICO */
+	@Column(nullable = true)
+	private FormatoPartido formato;
+
+	@Column(nullable = true)
+	private boolean sinVentaja;
+
+	/* Descanso minimo de un jugador entre el fin de un partido y el comienzo del siguiente */
+	@Column(nullable = false)
+	private int descansoMinutos;
+
+	/* Canchas en las que se programan los partidos, vacia para usar todas. Son pocas y se usan siempre que
+	 * se lee el torneo, por eso se cargan con el torneo */
+	@ElementCollection(fetch = FetchType.EAGER)
+	@CollectionTable(name = "torneo_cancha", joinColumns = @JoinColumn(name = "idTorneo"))
+	@Column(name = "idCancha", nullable = false)
+	private List<Long> canchas = new ArrayList<>();
+
+	/* Construtores de nuestro modelo de dato */
+
+	public Torneo() {
+	}
+
+	public Torneo(String nombre, TipoTorneo tipo) {
+		this.nombre = nombre;
+		this.tipo = tipo;
+	}
+
+	/* Getters & Setters */
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getNombre() {
+		return nombre;
+	}
+
+	public void setNombre(String nombre) {
+		this.nombre = nombre;
+	}
+
+	public TipoTorneo getTipo() {
+		return tipo;
+	}
+
+	public void setTipo(TipoTorneo tipo) {
+		this.tipo = tipo;
+	}
+
+	public FormatoPartido getFormato() {
+		return formato;
+	}
+
+	public void setFormato(FormatoPartido formato) {
+		this.formato = formato;
+	}
+
+	public boolean isSinVentaja() {
+		return sinVentaja;
+	}
+
+	public void setSinVentaja(boolean sinVentaja) {
+		this.sinVentaja = sinVentaja;
+	}
+
+	public int getDescansoMinutos() {
+		return descansoMinutos;
+	}
+
+	public void setDescansoMinutos(int descansoMinutos) {
+		this.descansoMinutos = descansoMinutos;
+	}
+
+	public List<Long> getCanchas() {
+		return canchas;
+	}
+
+	public void setCanchas(List<Long> canchas) {
+		this.canchas = canchas;
+	}
+}
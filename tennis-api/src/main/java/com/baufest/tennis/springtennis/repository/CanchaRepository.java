@@ -1,13 +1,39 @@
 package com.baufest.tennis.springtennis.repository;
 
 import com.baufest.tennis.springtennis.model.Cancha;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 //Aca va la anotacion Repository para indicar que es un repositorio y pueda ser detectado por el autowired
 @Repository
 public interface CanchaRepository extends JpaRepository<Cancha, Long> {
     Cancha findByNombreAndDireccion(String nombre, String direccion);
+
+    //Canchas con alguno de los nombres recibidos, para buscar las repetidas de un lote en una sola consulta
+    List<Cancha> findAllByNombreIn(Collection<String> nombres);
+
+    //Paginacion por keyset: canchas con id mayor al cursor, ordenadas por id
+    List<Cancha> findAllByIdGreaterThanOrderByIdAsc(Long cursor, Pageable pageable);
+
+    //Busqueda por comienzo del nombre (sin distinguir mayusculas), acotada al tamaño del Pageable
+    List<Cancha> findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc(String nombre, Pageable pageable);
+
+    //Canchas recibidas, bloqueadas en orden de id hasta el fin de la transaccion: los pedidos que reservan horario en
+    //la misma cancha (en esta u otra instancia) se validan y se guardan de a uno
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c.id from Cancha c where c.id in :ids order by c.id")
+    List<Long> bloquear(@Param("ids") Collection<Long> ids);
+
+    //Version de la cancha (ETag), por clave primaria y sin leer la entidad
+    @Query("select c.version from Cancha c where c.id = :id")
+    Optional<Long> findVersion(@Param("id") Long id);
 }
@@ -0,0 +1,27 @@
+package com.baufest.tennis.springtennis.repository;
+
+import java.util.Date;
+
+/**
+ * <p>Horario de un partido</p>
+ * Proyeccion con lo unico que necesita la agenda de canchas (id y fecha de comienzo), se obtiene con una
+ * expresion constructora en PartidoRepository sin leer la entidad ni sus jugadores y cancha.
+ */
+public final class HorarioPartido {
+
+    private final Long id;
+    private final Date fechaComienzo;
+
+    public HorarioPartido(Long id, Date fechaComienzo) {
+        this.id = id;
+        this.fechaComienzo = fechaComienzo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Date getFechaComienzo() {
+        return fechaComienzo;
+    }
+}
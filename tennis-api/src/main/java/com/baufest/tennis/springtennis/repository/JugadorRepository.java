@@ -1,10 +1,17 @@
 package com.baufest.tennis.springtennis.repository;
 
 import com.baufest.tennis.springtennis.model.Jugador;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 //Aca va la anotacion Repository para indicar que es un repositorio y pueda ser detectado por el autowired
 @Repository
@@ -12,4 +19,29 @@ public interface JugadorRepository extends JpaRepository<Jugador, Long> {
 
     List<Jugador> findAllByOrderByNombreAsc();
 
+    //Paginacion por keyset: jugadores con id mayor al cursor, ordenados por id
+    List<Jugador> findAllByIdGreaterThanOrderByIdAsc(Long cursor, Pageable pageable);
+
+    //Busqueda por comienzo del nombre (sin distinguir mayusculas), acotada al tamaño del Pageable
+    List<Jugador> findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc(String nombre, Pageable pageable);
+
+    //Id y puntos de todos los jugadores, para cargar el ranking sin leer las entidades
+    @Query("select new com.baufest.tennis.springtennis.repository.PuntajeJugador(j.id, j.puntos) from Jugador j")
+    List<PuntajeJugador> findPuntajes();
+
+    //Version del jugador (ETag), por clave primaria y sin leer la entidad
+    @Query("select j.version from Jugador j where j.id = :id")
+    Optional<Long> findVersion(@Param("id") Long id);
+
+    //Id y version de los jugadores de una pagina por keyset, para el ETag de la pagina
+    @Query("select new com.baufest.tennis.springtennis.repository.VersionFila(j.id, j.version) from Jugador j"
+            + " where j.id > :cursor order by j.id")
+    List<VersionFila> findVersiones(@Param("cursor") Long cursor, Pageable pageable);
+
+    //Suma los mismos puntos a varios jugadores en una sentencia (sin leer las filas), asi dos sumas concurrentes no se pisan
+    @Transactional
+    @Modifying
+    @Query("update Jugador j set j.puntos = j.puntos + :puntos, j.version = j.version + 1 where j.id in :ids")
+    int sumarPuntos(@Param("ids") Collection<Long> ids, @Param("puntos") int puntos);
+
 }
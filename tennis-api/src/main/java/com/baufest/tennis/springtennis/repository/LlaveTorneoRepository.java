@@ -0,0 +1,49 @@
+package com.baufest.tennis.springtennis.repository;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.model.LlaveTorneo;
+import com.baufest.tennis.springtennis.model.Partido;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+//Aca va la anotacion Repository para indicar que es un repositorio y pueda ser detectado por el autowired
+@Repository
+public interface LlaveTorneoRepository extends JpaRepository<LlaveTorneo, Long> {
+
+    //Cuadro completo del torneo con los jugadores de cada llave en un solo select, sin leer los partidos
+    @Query("select l from LlaveTorneo l left join fetch l.jugadorLocal left join fetch l.jugadorVisitante"
+            + " where l.torneo.id = :idTorneo order by l.ronda, l.posicion")
+    List<LlaveTorneo> findCuadro(@Param("idTorneo") Long idTorneo);
+
+    //Llave del partido, bloqueada hasta el fin de la transaccion para que el ganador se registre una sola vez
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from LlaveTorneo l where l.idPartido = :idPartido")
+    Optional<LlaveTorneo> bloquearPorPartido(@Param("idPartido") Long idPartido);
+
+    //Llave de una posicion del cuadro, bloqueada para que los ganadores de las dos llaves anteriores no se pisen
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from LlaveTorneo l where l.torneo.id = :idTorneo and l.ronda = :ronda and l.posicion = :posicion")
+    Optional<LlaveTorneo> bloquear(@Param("idTorneo") Long idTorneo, @Param("ronda") int ronda,
+                                   @Param("posicion") int posicion);
+
+    //Partidos de torneos que terminaron sin que se registre el ganador de su llave (su evento se perdio), con sus
+    //jugadores y su cancha porque el barrido los mapea fuera de una transaccion. Las llaves para revisar no se incluyen
+    @Query("select p from Partido p join fetch p.jugadorLocal join fetch p.jugadorVisitante join fetch p.cancha"
+            + " where p.estado = :estado and p.id in (select l.idPartido from LlaveTorneo l where l.ganador is null"
+            + " and l.revisar = false) order by p.id")
+    List<Partido> findPartidosSinGanador(@Param("estado") Estado estado, Pageable pageable);
+
+    //Llaves con sus dos jugadores cuyo partido todavia no se programo (se corto el avance despues de registrar el
+    //ganador de la llave anterior), sin las llaves para revisar
+    @Query("select l from LlaveTorneo l where l.jugadorLocal is not null and l.jugadorVisitante is not null"
+            + " and l.ganador is null and l.idPartido is null and l.revisar = false order by l.id")
+    List<LlaveTorneo> findPorProgramar(Pageable pageable);
+}
@@ -0,0 +1,27 @@
+package com.baufest.tennis.springtennis.repository;
+
+import com.baufest.tennis.springtennis.model.PartidoArchivado;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+//Aca va la anotacion Repository para indicar que es un repositorio y pueda ser detectado por el autowired
+@Repository
+public interface PartidoArchivadoRepository extends JpaRepository<PartidoArchivado, Long> {
+
+    //Paginacion por keyset del historial. El rango de fechas es obligatorio: en postgres solo se leen las
+    //particiones de ese rango. Opcionalmente se filtra por jugador (local o visitante) y por cancha
+    @Query("select p from PartidoArchivado p"
+            + " where p.fechaComienzo >= :desde and p.fechaComienzo < :hasta and p.id > :cursor"
+            + " and (:idJugador is null or p.idLocal = :idJugador or p.idVisitante = :idJugador)"
+            + " and (:idCancha is null or p.idCancha = :idCancha)"
+            + " order by p.id")
+    List<PartidoArchivado> findHistorial(@Param("cursor") Long cursor, @Param("desde") Date desde,
+                                         @Param("hasta") Date hasta, @Param("idJugador") Long idJugador,
+                                         @Param("idCancha") Long idCancha, Pageable pageable);
+}
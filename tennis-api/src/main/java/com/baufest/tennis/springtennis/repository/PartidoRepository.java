@@ -1,15 +1,152 @@
 package com.baufest.tennis.springtennis.repository;
 
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
 import com.baufest.tennis.springtennis.model.Cancha;
 import com.baufest.tennis.springtennis.model.Partido;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 //Aca va la anotacion Repository para indicar que es un repositorio y pueda ser detectado por el autowired
 @Repository
 public interface PartidoRepository extends JpaRepository<Partido, Long> {
+
+    //Cantidad de filas que se leen por viaje a la base al exportar
+    int EXPORTACION_FETCH_SIZE = 500;
+
     List<Partido> findAllByCanchaAndFechaComienzoBetween(Cancha cancha, Date fechaInicio, Date fechaFin);
+
+    //Partido completo con sus jugadores y su cancha en un solo select, es lo que se devuelve al cliente
+    @Override
+    @EntityGraph(attributePaths = {"jugadorLocal", "jugadorVisitante", "cancha"})
+    Optional<Partido> findById(Long id);
+
+    //Consulta por rango sobre el indice (idCancha, fechaComienzo), usada para cargar la agenda de una cancha.
+    //Solo se leen el id y la fecha de comienzo, sin jugadores ni cancha
+    @Query("select new com.baufest.tennis.springtennis.repository.HorarioPartido(p.id, p.fechaComienzo)"
+            + " from Partido p where p.cancha.id = :idCancha and p.fechaComienzo > :fecha")
+    List<HorarioPartido> findHorarios(@Param("idCancha") Long idCancha, @Param("fecha") Date fecha);
+
+    //Ids de los partidos de la cancha que empiezan entre desde y hasta (sin incluirlos), por el indice
+    //(idCancha, fechaComienzo). Confirma contra la base el horario de un partido antes de guardarlo
+    @Query("select p.id from Partido p where p.cancha.id = :idCancha and p.fechaComienzo > :desde"
+            + " and p.fechaComienzo < :hasta")
+    List<Long> findIdsEnRango(@Param("idCancha") Long idCancha, @Param("desde") Date desde, @Param("hasta") Date hasta);
+
+    //Ids de la lista recibida que ya existen, para validar un lote de partidos nuevos en una sola consulta
+    @Query("select p.id from Partido p where p.id in :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    //Marcador de un partido sin leer sus jugadores ni su cancha
+    @Query("select new com.baufest.tennis.springtennis.dto.MarcadorDTO(p.id, p.version, p.estado, p.scoreLocal,"
+            + " p.puntosGameActualLocal, p.cantidadGamesLocal, p.scoreVisitante, p.puntosGameActualVisitante,"
+            + " p.cantidadGamesVisitante, p.formato, p.sinVentaja, p.setsLocal, p.setsVisitante, p.resultadoSets, p.saca)"
+            + " from Partido p where p.id = :id")
+    Optional<MarcadorDTO> findMarcador(@Param("id") Long id);
+
+    //Version del partido, de sus jugadores y de su cancha (ETag), sin leer ni mapear las entidades
+    @Query("select new com.baufest.tennis.springtennis.repository.VersionPartido(p.version, p.estado, l.version,"
+            + " v.version, c.version) from Partido p join p.jugadorLocal l join p.jugadorVisitante v join p.cancha c"
+            + " where p.id = :id")
+    Optional<VersionPartido> findVersion(@Param("id") Long id);
+
+    //Partidos del lote que todavia no sumaron puntos al ranking. Las filas quedan bloqueadas hasta el fin de la
+    //transaccion, asi si otra instancia procesa el mismo partido espera y despues ya no lo encuentra
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p.id from Partido p where p.id in :ids and p.puntosAsignados = false")
+    List<Long> bloquearSinPuntosAsignados(@Param("ids") Collection<Long> ids);
+
+    //Marca que ya se asignaron los puntos de los partidos
+    @Transactional
+    @Modifying
+    @Query("update Partido p set p.puntosAsignados = true where p.id in :ids")
+    int marcarPuntosAsignados(@Param("ids") Collection<Long> ids);
+
+    //Partidos finalizados que no sumaron puntos al ranking (su evento se perdio), del mas viejo al mas nuevo.
+    //Se leen con sus jugadores y su cancha porque el barrido los mapea fuera de una transaccion
+    @EntityGraph(attributePaths = {"jugadorLocal", "jugadorVisitante", "cancha"})
+    List<Partido> findAllByEstadoAndPuntosAsignadosFalseOrderByIdAsc(Estado estado, Pageable pageable);
+
+    //Ids de los partidos finalizados antes de la fecha limite que se pueden archivar: ya sumaron los puntos al ranking
+    //y no estan en una llave de torneo sin ganador. Las filas de partido quedan bloqueadas hasta el fin de la
+    //transaccion para que otra instancia no archive el mismo partido; los jugadores y la cancha no se bloquean
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p.id from Partido p"
+            + " where p.estado = :estado and p.puntosAsignados = true and p.fechaComienzo < :limite"
+            + " and not exists (select l.id from LlaveTorneo l where l.idPartido = p.id and l.ganador is null)"
+            + " order by p.id")
+    List<Long> bloquearParaArchivar(@Param("estado") Estado estado, @Param("limite") Date limite, Pageable pageable);
+
+    //Partidos con sus jugadores y su cancha, que se copian al archivo, en un solo select y sin bloquear
+    @Query("select p from Partido p join fetch p.jugadorLocal join fetch p.jugadorVisitante join fetch p.cancha"
+            + " where p.id in :ids order by p.id")
+    List<Partido> findParaArchivar(@Param("ids") Collection<Long> ids);
+
+    //Fecha de comienzo del partido mas viejo anterior a la fecha limite, para crear las particiones del archivo
+    @Query("select min(p.fechaComienzo) from Partido p where p.estado = :estado and p.fechaComienzo < :limite")
+    Optional<Date> findFechaMasVieja(@Param("estado") Estado estado, @Param("limite") Date limite);
+
+    //Borra los partidos ya copiados al archivo, sin leerlos de nuevo
+    @Modifying
+    @Query("delete from Partido p where p.id in :ids")
+    int deleteArchivados(@Param("ids") Collection<Long> ids);
+
+    //Paginacion por keyset: partidos con id mayor al cursor, filtrando opcionalmente por estado y cancha.
+    //La pagina se devuelve completa, por eso los jugadores y la cancha se traen en el mismo select
+    @Query("select p from Partido p join fetch p.jugadorLocal join fetch p.jugadorVisitante join fetch p.cancha c"
+            + " where p.id > :cursor"
+            + " and (:estado is null or p.estado = :estado)"
+            + " and (:idCancha is null or c.id = :idCancha)"
+            + " order by p.id")
+    List<Partido> findPagina(@Param("cursor") Long cursor, @Param("estado") Estado estado,
+                             @Param("idCancha") Long idCancha, Pageable pageable);
+
+    //Lectura como stream para la exportacion: se traen los jugadores y la cancha en el mismo join
+    //y se leen las filas de a bloques (fetch size) en lugar de cargar el resultado completo
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORTACION_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select p from Partido p join fetch p.jugadorLocal join fetch p.jugadorVisitante join fetch p.cancha"
+            + " where p.fechaComienzo >= :desde and p.fechaComienzo < :hasta"
+            + " and (:idCancha is null or p.cancha.id = :idCancha)"
+            + " order by p.id")
+    Stream<Partido> streamExportacion(@Param("desde") Date desde, @Param("hasta") Date hasta,
+                                      @Param("idCancha") Long idCancha);
+
+    //Update puntual de las columnas del marcador, sin leer la entidad ni sus relaciones. Solo actualiza si la fila
+    //sigue en la version anterior (control optimista), si otra instancia la modifico devuelve 0 filas actualizadas
+    @Transactional
+    @Modifying
+    @Query("update Partido p set p.scoreLocal = :scoreLocal, p.puntosGameActualLocal = :puntosLocal,"
+            + " p.cantidadGamesLocal = :gamesLocal, p.scoreVisitante = :scoreVisitante,"
+            + " p.puntosGameActualVisitante = :puntosVisitante, p.cantidadGamesVisitante = :gamesVisitante,"
+            + " p.setsLocal = :setsLocal, p.setsVisitante = :setsVisitante, p.resultadoSets = :resultadoSets,"
+            + " p.saca = :saca, p.estado = :estado, p.version = :version"
+            + " where p.id = :id and p.version = :versionAnterior")
+    int actualizarMarcador(@Param("id") Long id, @Param("scoreLocal") int scoreLocal, @Param("puntosLocal") String puntosLocal,
+                           @Param("gamesLocal") int gamesLocal, @Param("scoreVisitante") int scoreVisitante,
+                           @Param("puntosVisitante") String puntosVisitante, @Param("gamesVisitante") int gamesVisitante,
+                           @Param("setsLocal") int setsLocal, @Param("setsVisitante") int setsVisitante,
+                           @Param("resultadoSets") String resultadoSets, @Param("saca") ModoJugador saca,
+                           @Param("estado") Estado estado, @Param("version") Long version,
+                           @Param("versionAnterior") Long versionAnterior);
 }
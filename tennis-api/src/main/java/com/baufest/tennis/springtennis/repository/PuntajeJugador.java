@@ -0,0 +1,25 @@
+package com.baufest.tennis.springtennis.repository;
+
+/**
+ * <p>Puntaje de un jugador</p>
+ * Proyeccion con lo unico que necesita el ranking (id y puntos), se obtiene con una expresion constructora
+ * en JugadorRepository sin leer el resto de la entidad.
+ */
+public final class PuntajeJugador {
+
+    private final Long id;
+    private final int puntos;
+
+    public PuntajeJugador(Long id, int puntos) {
+        this.id = id;
+        this.puntos = puntos;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getPuntos() {
+        return puntos;
+    }
+}
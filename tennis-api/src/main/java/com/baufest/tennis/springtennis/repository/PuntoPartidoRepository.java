@@ -0,0 +1,18 @@
+package com.baufest.tennis.springtennis.repository;
+
+import com.baufest.tennis.springtennis.model.PuntoPartido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+//Aca va la anotacion Repository para indicar que es un repositorio y pueda ser detectado por el autowired
+@Repository
+public interface PuntoPartidoRepository extends JpaRepository<PuntoPartido, Long> {
+
+    //Puntos de un partido posteriores a una secuencia (la cola que falta aplicar sobre la ultima foto), en orden
+    List<PuntoPartido> findAllByIdPartidoAndSecuenciaGreaterThanOrderBySecuenciaAsc(Long idPartido, long secuencia);
+
+    //Todos los puntos de un partido en el orden en que se jugaron
+    List<PuntoPartido> findAllByIdPartidoOrderBySecuenciaAsc(Long idPartido);
+}
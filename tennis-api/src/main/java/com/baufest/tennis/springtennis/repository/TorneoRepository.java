@@ -0,0 +1,10 @@
+package com.baufest.tennis.springtennis.repository;
+
+import com.baufest.tennis.springtennis.model.Torneo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+//Aca va la anotacion Repository para indicar que es un repositorio y pueda ser detectado por el autowired
+@Repository
+public interface TorneoRepository extends JpaRepository<Torneo, Long> {
+}
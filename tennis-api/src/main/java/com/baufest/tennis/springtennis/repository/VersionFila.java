@@ -0,0 +1,25 @@
+package com.baufest.tennis.springtennis.repository;
+
+/**
+ * <p>Version de una fila</p>
+ * Proyeccion con el id y la version de una entidad, para armar el ETag de una pagina sin leer el resto de las
+ * columnas ni mapear las entidades.
+ */
+public final class VersionFila {
+
+    private final Long id;
+    private final long version;
+
+    public VersionFila(Long id, long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,51 @@
+package com.baufest.tennis.springtennis.repository;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+
+/**
+ * <p>Version de un partido</p>
+ * Proyeccion con todo lo que cambia la representacion de un partido: su version, la de sus jugadores y la de su
+ * cancha (que van embebidos en el PartidoDTO). El estado se usa para saber si hay que mirar ademas el marcador
+ * en vivo. Se obtiene con una sola consulta por clave primaria, sin leer ni mapear las entidades.
+ */
+public final class VersionPartido {
+
+    private final long version;
+    private final Estado estado;
+    private final long versionLocal;
+    private final long versionVisitante;
+    private final long versionCancha;
+
+    public VersionPartido(Long version, Estado estado, long versionLocal, long versionVisitante, long versionCancha) {
+        this.version = version != null ? version : 0L;
+        this.estado = estado;
+        this.versionLocal = versionLocal;
+        this.versionVisitante = versionVisitante;
+        this.versionCancha = versionCancha;
+    }
+
+    /* Copia con la version del partido reemplazada, por ejemplo por la del marcador en vivo */
+    public VersionPartido conVersion(long version) {
+        return new VersionPartido(version, estado, versionLocal, versionVisitante, versionCancha);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public long getVersionLocal() {
+        return versionLocal;
+    }
+
+    public long getVersionVisitante() {
+        return versionVisitante;
+    }
+
+    public long getVersionCancha() {
+        return versionCancha;
+    }
+}
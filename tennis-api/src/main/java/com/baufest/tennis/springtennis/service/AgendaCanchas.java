@@ -0,0 +1,237 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.FranjaLibreDTO;
+import com.baufest.tennis.springtennis.repository.CanchaRepository;
+import com.baufest.tennis.springtennis.repository.HorarioPartido;
+import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Agenda de canchas</p>
+ * Indice en memoria con las reservas de cada cancha ordenadas por fecha de comienzo. Permite validar
+ * la diferencia minima entre partidos de una misma cancha, y buscar las franjas libres de un rango,
+ * mirando solo las reservas vecinas sin recorrer la tabla de partidos completa.
+ * <p>
+ * La agenda solo ve las reservas que registro esta instancia desde que la cargo, por eso es un filtro rapido y no
+ * la validacion final: antes de guardar un partido, dentro de la misma transaccion, se bloquea la fila de la cancha
+ * y se confirma el horario contra la base (bloquear y hayConflictoEnBase). Si la base tiene una reserva que la agenda
+ * no tenia la agenda de esa cancha se descarta, y cada agenda se vuelve a cargar de la base a los RECARGA_MS.
+ * <p>
+ * Si se registra o se quita una reserva dentro de una transaccion, la agenda recien cambia cuando la transaccion
+ * hace commit: los inserts con ids de secuencia (y sus errores) ocurren en el flush, y quien llama puede hacer
+ * rollback despues, en esos casos la agenda quedaria con reservas de partidos que no existen.
+ */
+@Component
+public class AgendaCanchas {
+
+    //Diferencia minima que debe haber entre dos partidos de una misma cancha
+    public static final long MARGEN_MS = TimeUnit.HOURS.toMillis(4);
+
+    //Cada cuanto se vuelve a cargar de la base la agenda de una cancha, para ver los partidos de otras instancias
+    static final long RECARGA_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final PartidoRepository partidoRepository;
+    private final CanchaRepository canchaRepository;
+
+    //Por cada id de cancha se guarda un set ordenado (skip list) con sus reservas y el momento en que se cargo
+    private final ConcurrentMap<Long, Agenda> agendas = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AgendaCanchas(PartidoRepository partidoRepository, CanchaRepository canchaRepository) {
+        this.partidoRepository = partidoRepository;
+        this.canchaRepository = canchaRepository;
+    }
+
+    /*
+     * Devuelve true si en la cancha hay alguna reserva a menos de MARGEN_MS de la fecha recibida,
+     * sin contar la del partido idExcluido (se usa al editar un partido para no chocar consigo mismo).
+     * Busca la primera reserva posterior a (fecha - margen) y avanza mientras este antes de (fecha + margen),
+     * de modo que el costo depende de las reservas cercanas y no del total de partidos.
+     */
+    public boolean hayConflicto(Long idCancha, Date fecha, Long idExcluido) {
+        long inicio = fecha.getTime();
+        Iterator<Reserva> vecinas = this.agendaDe(idCancha)
+                .tailSet(new Reserva(inicio - MARGEN_MS, Long.MAX_VALUE), false)
+                .iterator();
+        while (vecinas.hasNext()) {
+            Reserva reserva = vecinas.next();
+            if (reserva.inicio >= inicio + MARGEN_MS) {
+                return false;
+            }
+            if (idExcluido == null || reserva.idPartido != idExcluido) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Bloquea las filas de las canchas recibidas hasta el fin de la transaccion actual. Se llama antes de
+     * hayConflictoEnBase, asi dos pedidos que reservan la misma cancha a la vez no pueden validar los dos el mismo
+     * horario libre: el segundo espera al commit del primero y despues ve su partido
+     */
+    public void bloquear(Collection<Long> idsCancha) {
+        if (!idsCancha.isEmpty()) {
+            canchaRepository.bloquear(idsCancha);
+        }
+    }
+
+    /*
+     * Igual que hayConflicto pero contra la base, con una consulta por rango sobre (idCancha, fechaComienzo): ve los
+     * partidos guardados por otras instancias o fuera de la api. Si encuentra una reserva que la agenda no tenia,
+     * descarta la agenda de la cancha para que la proxima consulta la vuelva a cargar
+     */
+    public boolean hayConflictoEnBase(Long idCancha, Date fecha, Long idExcluido) {
+        long inicio = fecha.getTime();
+        List<Long> ids = partidoRepository.findIdsEnRango(idCancha, new Date(inicio - MARGEN_MS), new Date(inicio + MARGEN_MS));
+        boolean conflicto = ids.stream().anyMatch(id -> !id.equals(idExcluido));
+        if (conflicto && !this.hayConflicto(idCancha, fecha, idExcluido)) {
+            agendas.remove(idCancha);
+        }
+        return conflicto;
+    }
+
+    /*
+     * Franjas entre desde y hasta en las que la cancha no tiene reservas y que duran al menos minimoMs. Cada reserva
+     * ocupa la cancha MARGEN_MS desde su comienzo, asi un partido que empiece al inicio de una franja de al menos
+     * MARGEN_MS cumple con la diferencia minima. Igual que hayConflicto, solo recorre las reservas del rango
+     * (mas la que puede estar ocupando la cancha en desde), sin importar cuantas tenga la cancha en total.
+     */
+    public List<FranjaLibreDTO> franjasLibres(Long idCancha, long desde, long hasta, long minimoMs) {
+        List<FranjaLibreDTO> libres = new ArrayList<>();
+        long libreDesde = desde;
+        for (Reserva reserva : this.agendaDe(idCancha).tailSet(new Reserva(desde - MARGEN_MS, Long.MAX_VALUE), false)) {
+            if (reserva.inicio >= hasta) {
+                break;
+            }
+            if (reserva.inicio - libreDesde >= minimoMs) {
+                libres.add(new FranjaLibreDTO(new Date(libreDesde), new Date(reserva.inicio)));
+            }
+            libreDesde = Math.max(libreDesde, reserva.inicio + MARGEN_MS);
+        }
+        if (hasta - libreDesde >= minimoMs) {
+            libres.add(new FranjaLibreDTO(new Date(libreDesde), new Date(hasta)));
+        }
+        return libres;
+    }
+
+    /*
+     * Agrega la reserva del partido a la agenda de su cancha. Aprovecha para descartar las reservas
+     * que ya quedaron en el pasado, porque un partido nuevo nunca puede empezar antes de la hora actual.
+     */
+    public void registrar(Long idPartido, Long idCancha, Date fecha) {
+        if (idPartido == null || idCancha == null || fecha == null) {
+            return;
+        }
+        alConfirmar(() -> {
+            NavigableSet<Reserva> agenda = this.agendaDe(idCancha);
+            agenda.headSet(new Reserva(this.limiteVigencia(), Long.MIN_VALUE)).clear();
+            agenda.add(new Reserva(fecha.getTime(), idPartido));
+        });
+    }
+
+    public void quitar(Long idPartido, Long idCancha, Date fecha) {
+        if (idPartido == null || idCancha == null || fecha == null) {
+            return;
+        }
+        alConfirmar(() -> {
+            Agenda agenda = agendas.get(idCancha);
+            if (agenda != null) {
+                agenda.reservas.remove(new Reserva(fecha.getTime(), idPartido));
+            }
+        });
+    }
+
+    /* Aplica el cambio despues del commit de la transaccion actual, o en el momento si no hay transaccion */
+    private static void alConfirmar(Runnable cambio) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cambio.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                cambio.run();
+            }
+        });
+    }
+
+    /*
+     * La agenda de cada cancha se carga la primera vez que se la necesita, y de nuevo cuando pasaron RECARGA_MS, con
+     * una consulta por rango sobre (idCancha, fechaComienzo), trayendo solo el horario de las reservas que todavia
+     * pueden chocar con un partido nuevo.
+     */
+    private NavigableSet<Reserva> agendaDe(Long idCancha) {
+        long ahora = System.currentTimeMillis();
+        return agendas.compute(idCancha, (id, agenda) ->
+                agenda != null && ahora - agenda.cargada < RECARGA_MS ? agenda : this.cargar(id, ahora)).reservas;
+    }
+
+    private Agenda cargar(Long idCancha, long ahora) {
+        NavigableSet<Reserva> reservas = new ConcurrentSkipListSet<>();
+        for (HorarioPartido horario : partidoRepository.findHorarios(idCancha, new Date(this.limiteVigencia()))) {
+            reservas.add(new Reserva(horario.getFechaComienzo().getTime(), horario.getId()));
+        }
+        return new Agenda(reservas, ahora);
+    }
+
+    private long limiteVigencia() {
+        return System.currentTimeMillis() - MARGEN_MS;
+    }
+
+    /* Reservas de una cancha y el momento en que se cargaron de la base */
+    private static final class Agenda {
+        private final NavigableSet<Reserva> reservas;
+        private final long cargada;
+
+        private Agenda(NavigableSet<Reserva> reservas, long cargada) {
+            this.reservas = reservas;
+            this.cargada = cargada;
+        }
+    }
+
+    /* Reserva de una cancha, ordenada por fecha de comienzo y luego por id de partido */
+    private static final class Reserva implements Comparable<Reserva> {
+        private final long inicio;
+        private final long idPartido;
+
+        private Reserva(long inicio, long idPartido) {
+            this.inicio = inicio;
+            this.idPartido = idPartido;
+        }
+
+        @Override
+        public int compareTo(Reserva otra) {
+            int porInicio = Long.compare(inicio, otra.inicio);
+            return porInicio != 0 ? porInicio : Long.compare(idPartido, otra.idPartido);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Reserva)) {
+                return false;
+            }
+            Reserva otra = (Reserva) o;
+            return inicio == otra.inicio && idPartido == otra.idPartido;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(inicio) * 31 + Long.hashCode(idPartido);
+        }
+    }
+}
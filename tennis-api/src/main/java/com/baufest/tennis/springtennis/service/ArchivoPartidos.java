@@ -0,0 +1,163 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.dto.PartidoArchivadoDTO;
+import com.baufest.tennis.springtennis.dto.PuntoPartidoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.exception.RecursoNoEncontradoException;
+import com.baufest.tennis.springtennis.mapper.PartidoArchivadoMapper;
+import com.baufest.tennis.springtennis.mapper.PuntoPartidoMapper;
+import com.baufest.tennis.springtennis.model.Partido;
+import com.baufest.tennis.springtennis.model.PartidoArchivado;
+import com.baufest.tennis.springtennis.repository.PartidoArchivadoRepository;
+import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import com.baufest.tennis.springtennis.repository.PuntoPartidoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Archivo de partidos finalizados</p>
+ * La tabla partido solo guarda los partidos de los ultimos springtennis.archivo.antiguedad-dias dias: un barrido
+ * periodico mueve los partidos finalizados mas viejos a la tabla partido_archivado, asi los listados, la agenda de
+ * las canchas y las validaciones de horario trabajan sobre una tabla que no crece con los años. Se mueven de a lotes
+ * de springtennis.archivo.tamano-lote partidos, cada uno en su transaccion (se copian y se borran de partido), y como
+ * maximo springtennis.archivo.lotes-por-barrido lotes por barrido para no cargar la base; lo que queda se archiva en
+ * el barrido siguiente.
+ * <p>
+ * No se archivan los partidos que todavia no sumaron los puntos al ranking ni los de una llave de torneo sin ganador
+ * registrado, que los barridos de AsignacionPuntos y del torneo todavia tienen que procesar. El historial de puntos
+ * queda en punto_partido, con el mismo id de partido. Los partidos archivados se consultan en /partidos/historial.
+ */
+@Component
+public class ArchivoPartidos {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArchivoPartidos.class);
+
+    static final String PARTIDO_WITH_ID = "El partido archivado con id ";
+    static final String DOES_NOT_EXIST = " no existe.";
+    static final String INVALID_RANGE = "La fecha desde debe ser anterior a la fecha hasta.";
+
+    private final PartidoRepository partidoRepository;
+    private final PartidoArchivadoRepository partidoArchivadoRepository;
+    private final PuntoPartidoRepository puntoPartidoRepository;
+    private final PartidoArchivadoMapper partidoArchivadoMapper;
+    private final PuntoPartidoMapper puntoPartidoMapper;
+    private final ParticionesArchivo particionesArchivo;
+    private final TransactionTemplate transactionTemplate;
+    private final int antiguedadDias;
+    private final int tamanoLote;
+    private final int lotesPorBarrido;
+
+    @Autowired
+    public ArchivoPartidos(PartidoRepository partidoRepository, PartidoArchivadoRepository partidoArchivadoRepository,
+                           PuntoPartidoRepository puntoPartidoRepository, PartidoArchivadoMapper partidoArchivadoMapper,
+                           PuntoPartidoMapper puntoPartidoMapper, ParticionesArchivo particionesArchivo,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${springtennis.archivo.antiguedad-dias:365}") int antiguedadDias,
+                           @Value("${springtennis.archivo.tamano-lote:500}") int tamanoLote,
+                           @Value("${springtennis.archivo.lotes-por-barrido:20}") int lotesPorBarrido) {
+        this.partidoRepository = partidoRepository;
+        this.partidoArchivadoRepository = partidoArchivadoRepository;
+        this.puntoPartidoRepository = puntoPartidoRepository;
+        this.partidoArchivadoMapper = partidoArchivadoMapper;
+        this.puntoPartidoMapper = puntoPartidoMapper;
+        this.particionesArchivo = particionesArchivo;
+        this.transactionTemplate = transactionTemplate;
+        this.antiguedadDias = antiguedadDias;
+        this.tamanoLote = tamanoLote;
+        this.lotesPorBarrido = lotesPorBarrido;
+    }
+
+    /* Archiva los partidos finalizados que comenzaron hace mas de antiguedadDias dias */
+    @Scheduled(initialDelayString = "${springtennis.archivo.barrido-ms:3600000}", fixedDelayString = "${springtennis.archivo.barrido-ms:3600000}")
+    public void barrer() {
+        Date limite = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(antiguedadDias));
+        try {
+            int archivados = this.archivar(limite);
+            if (archivados > 0) {
+                LOGGER.info("Se archivaron {} partidos finalizados antes de {}", archivados, limite);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("No se pudieron archivar los partidos finalizados antes de {}, se reintenta en el proximo barrido", limite, e);
+        }
+    }
+
+    /* Archiva de a lotes hasta que no queden partidos o se llegue al maximo de lotes. Devuelve cuantos archivo */
+    public int archivar(Date limite) {
+        Date masVieja = partidoRepository.findFechaMasVieja(Estado.FINALIZADO, limite).orElse(null);
+        if (masVieja == null) {
+            return 0;
+        }
+        particionesArchivo.preparar(masVieja, limite);
+        int archivados = 0;
+        for (int lote = 0; lote < lotesPorBarrido; lote++) {
+            int cantidad = this.archivarLote(limite);
+            archivados += cantidad;
+            if (cantidad < tamanoLote) {
+                break;
+            }
+        }
+        return archivados;
+    }
+
+    /*
+     * En una transaccion bloquea las filas del lote de partidos, los lee con sus jugadores y su cancha, los copia a la
+     * tabla de archivados (inserts en batch) y los borra de partido con un solo delete. Si algo falla no se archiva
+     * ninguno del lote
+     */
+    int archivarLote(Date limite) {
+        Integer cantidad = transactionTemplate.execute(estado -> {
+            List<Long> ids = partidoRepository.bloquearParaArchivar(Estado.FINALIZADO, limite, PageRequest.of(0, tamanoLote));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            List<Partido> partidos = partidoRepository.findParaArchivar(ids);
+            partidoArchivadoRepository.saveAll(partidos.stream().map(PartidoArchivado::de).collect(Collectors.toList()));
+            partidoArchivadoRepository.flush();
+            partidoRepository.deleteArchivados(ids);
+            return ids.size();
+        });
+        return cantidad != null ? cantidad : 0;
+    }
+
+    /* Pagina del historial entre las dos fechas, filtrando opcionalmente por jugador y por cancha */
+    @Transactional(readOnly = true)
+    public PaginaDTO<PartidoArchivadoDTO> listHistorial(Long cursor, int tamano, Date desde, Date hasta,
+                                                        Long idJugador, Long idCancha) {
+        if (!desde.before(hasta)) {
+            throw new DatoInvalidoException(INVALID_RANGE);
+        }
+        int tamanoPagina = PaginaDTO.tamanoValido(tamano);
+        List<PartidoArchivado> filas = partidoArchivadoRepository.findHistorial(cursor != null ? cursor : 0L, desde, hasta,
+                idJugador, idCancha, PageRequest.of(0, tamanoPagina + 1));
+        return PaginaDTO.de(filas, tamanoPagina, PartidoArchivado::getId, partidoArchivadoMapper::toDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public PartidoArchivadoDTO getById(Long id) {
+        return partidoArchivadoRepository.findById(id).map(partidoArchivadoMapper::toDTO)
+                .orElseThrow(() -> new RecursoNoEncontradoException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST));
+    }
+
+    /* Historial de puntos de un partido archivado, que quedo en punto_partido */
+    @Transactional(readOnly = true)
+    public List<PuntoPartidoDTO> listPuntos(Long id) {
+        if (!partidoArchivadoRepository.existsById(id)) {
+            throw new RecursoNoEncontradoException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST);
+        }
+        return puntoPartidoRepository.findAllByIdPartidoOrderBySecuenciaAsc(id).stream()
+                .map(puntoPartidoMapper::toDTO).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,178 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.event.PartidoFinalizadoEvent;
+import com.baufest.tennis.springtennis.mapper.PartidoMapper;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Asignacion de puntos del ranking</p>
+ * Le suma springtennis.ranking.puntos-por-victoria puntos al ganador de cada partido finalizado, fuera del request
+ * que sumo el ultimo punto. El PartidoFinalizadoEvent solo se encola (en una cola acotada a
+ * springtennis.ranking.capacidad-cola partidos) y un unico hilo la vacia de a lotes de hasta TAMANO_LOTE partidos:
+ * cada lote se asigna en una transaccion, con un update por cada cantidad distinta de puntos a sumar (en general
+ * uno solo para todo el lote) en lugar de un update por partido.
+ * <p>
+ * Cada partido tiene la marca puntosAsignados, que se pone en la misma transaccion en que se suman sus puntos, asi
+ * nunca suma dos veces. Si la cola esta llena, o la api se detiene con partidos encolados, esos partidos quedan sin
+ * la marca y los vuelve a encolar el barrido periodico de partidos finalizados sin puntos.
+ */
+@Component
+public class AsignacionPuntos {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsignacionPuntos.class);
+
+    public static final int TAMANO_LOTE = 100;
+
+    private final JugadorRepository jugadorRepository;
+    private final PartidoRepository partidoRepository;
+    private final PartidoMapper partidoMapper;
+    private final RankingJugadores rankingJugadores;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final int puntosPorVictoria;
+
+    private final BlockingQueue<PartidoFinalizadoEvent> pendientes;
+
+    //Si ya hay una tarea que va a vaciar la cola, para no encolar una por partido
+    private final AtomicBoolean programada = new AtomicBoolean();
+
+    private final ExecutorService asignaciones = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "asignacion-puntos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @Autowired
+    public AsignacionPuntos(JugadorRepository jugadorRepository, PartidoRepository partidoRepository, PartidoMapper partidoMapper,
+                            RankingJugadores rankingJugadores, TransactionTemplate transactionTemplate, CacheManager cacheManager,
+                            @Value("${springtennis.ranking.puntos-por-victoria:10}") int puntosPorVictoria,
+                            @Value("${springtennis.ranking.capacidad-cola:10000}") int capacidadCola) {
+        this.jugadorRepository = jugadorRepository;
+        this.partidoRepository = partidoRepository;
+        this.partidoMapper = partidoMapper;
+        this.rankingJugadores = rankingJugadores;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.puntosPorVictoria = puntosPorVictoria;
+        this.pendientes = new ArrayBlockingQueue<>(capacidadCola);
+    }
+
+    /* Se ejecuta en el hilo que sumo el punto, por eso solo encola el partido */
+    @EventListener
+    public void partidoFinalizado(PartidoFinalizadoEvent evento) {
+        if (!pendientes.offer(evento)) {
+            LOGGER.warn("Cola de asignacion de puntos llena, el partido {} se asigna en el proximo barrido", evento.getIdPartido());
+            return;
+        }
+        this.programar();
+    }
+
+    /* Encola los partidos finalizados que no tienen los puntos asignados */
+    @Scheduled(initialDelayString = "${springtennis.ranking.barrido-ms:60000}", fixedDelayString = "${springtennis.ranking.barrido-ms:60000}")
+    public void barrer() {
+        partidoRepository.findAllByEstadoAndPuntosAsignadosFalseOrderByIdAsc(Estado.FINALIZADO, PageRequest.of(0, TAMANO_LOTE))
+                .forEach(partido -> this.partidoFinalizado(PartidoFinalizadoEvent.de(partidoMapper.toDTO(partido))));
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        asignaciones.shutdown();
+    }
+
+    private void programar() {
+        if (programada.compareAndSet(false, true)) {
+            try {
+                asignaciones.execute(this::procesar);
+            } catch (RejectedExecutionException e) {
+                //La api se esta deteniendo, los partidos encolados se asignan en el barrido del proximo arranque
+                programada.set(false);
+            }
+        }
+    }
+
+    /* Vacia la cola de a lotes. Si se encolo un partido justo despues del ultimo lote se vuelve a programar */
+    void procesar() {
+        List<PartidoFinalizadoEvent> lote = new ArrayList<>(TAMANO_LOTE);
+        try {
+            while (pendientes.drainTo(lote, TAMANO_LOTE) > 0) {
+                try {
+                    this.asignar(lote);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("No se pudieron asignar los puntos de {} partidos, se reintenta en el proximo barrido", lote.size(), e);
+                }
+                lote.clear();
+            }
+        } finally {
+            programada.set(false);
+        }
+        if (!pendientes.isEmpty()) {
+            this.programar();
+        }
+    }
+
+    /*
+     * Asigna en una transaccion los puntos de los partidos del lote que todavia no los tenian: bloquea sus filas,
+     * les pone la marca y suma los puntos agrupando a los ganadores por cantidad de puntos. Despues del commit
+     * se actualizan el cache de jugadores y el ranking en memoria
+     */
+    void asignar(List<PartidoFinalizadoEvent> lote) {
+        Set<Long> ids = lote.stream().map(PartidoFinalizadoEvent::getIdPartido).collect(Collectors.toSet());
+        Map<Long, Integer> puntosPorGanador = transactionTemplate.execute(estado -> {
+            Set<Long> sinAsignar = new HashSet<>(partidoRepository.bloquearSinPuntosAsignados(ids));
+            if (sinAsignar.isEmpty()) {
+                return Collections.<Long, Integer>emptyMap();
+            }
+            partidoRepository.marcarPuntosAsignados(sinAsignar);
+            Map<Long, Integer> puntos = new HashMap<>();
+            Set<Long> porSumar = new HashSet<>(sinAsignar);
+            for (PartidoFinalizadoEvent evento : lote) {
+                //remove: si el mismo partido vino dos veces en el lote suma una sola
+                if (porSumar.remove(evento.getIdPartido()) && evento.getIdGanador() != null) {
+                    puntos.merge(evento.getIdGanador(), puntosPorVictoria, Integer::sum);
+                }
+            }
+            puntos.entrySet().stream()
+                    .collect(Collectors.groupingBy(Map.Entry::getValue, Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+                    .forEach((cantidad, ganadores) -> jugadorRepository.sumarPuntos(ganadores, cantidad));
+            return puntos;
+        });
+        if (puntosPorGanador == null || puntosPorGanador.isEmpty()) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(JugadorServiceImpl.CACHE);
+        puntosPorGanador.forEach((ganador, puntos) -> {
+            if (cache != null) {
+                cache.evict(ganador);
+            }
+            rankingJugadores.sumar(ganador, puntos);
+        });
+    }
+}
@@ -1,9 +1,12 @@
 package com.baufest.tennis.springtennis.service;
 
-import com.baufest.tennis.springtennis.dto.CanchaDTO;
-
+import java.util.Date;
 import java.util.List;
 
+import com.baufest.tennis.springtennis.dto.CanchaDTO;
+import com.baufest.tennis.springtennis.dto.DisponibilidadCanchaDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+
 /**
  * <p>Service de Cancha</p>
  * Este componente sera el encargado de aplicar la logica de negocio a los jugadores antes de persistirlos en la base de datos
@@ -12,14 +15,52 @@ import java.util.List;
  */
 public interface CanchaService {
 
-	List<CanchaDTO> listAll();
+	//Cantidad maxima de dias que se pueden consultar en la disponibilidad de canchas
+	int MAXIMO_DIAS_DISPONIBILIDAD = 31;
+
+	PaginaDTO<CanchaDTO> listAll(Long cursor, int tamano);
+
+	/**
+	 * <p>
+	 *     Obtiene las primeras canchas, ordenadas por nombre, cuyo nombre empieza con el texto recibido
+	 *     (sin distinguir mayusculas). Se usa en las listas desplegables en lugar de leer todo el listado
+	 * </p>
+	 * @param nombre comienzo del nombre, vacio para las primeras canchas por nombre
+	 * @param tamano cantidad maxima de canchas
+	 * @return List<CanchaDTO>
+	 */
+	List<CanchaDTO> buscar(String nombre, int tamano);
 
 	CanchaDTO getById(Long id);
 
+	/**
+	 * <p>
+	 *     Obtiene la version de la cancha de id recibido (para el ETag), sin leer la cancha.
+	 *     Si no existe se hace throw de una exception "NoSuchElementException"
+	 * </p>
+	 * @param id
+	 * @return long
+	 */
+	long getVersion(Long id);
+
 	CanchaDTO save(CanchaDTO jugador);
 
 	CanchaDTO update(CanchaDTO jugador);
 
 	void delete(Long id);
 
+	/**
+	 * <p>
+	 *     Obtiene las franjas libres de todas las canchas entre desde y hasta en las que entra un partido
+	 *     de duracionMinutos minutos (como minimo la diferencia entre partidos de una misma cancha).
+	 *     Las fechas anteriores a la actual no se informan. Si el rango no es valido se hace throw de una
+	 *     exception "DatoInvalidoException"
+	 * </p>
+	 * @param desde
+	 * @param hasta
+	 * @param duracionMinutos
+	 * @return List<DisponibilidadCanchaDTO> una entrada por cancha, ordenadas por id
+	 */
+	List<DisponibilidadCanchaDTO> disponibilidad(Date desde, Date hasta, int duracionMinutos);
+
 }
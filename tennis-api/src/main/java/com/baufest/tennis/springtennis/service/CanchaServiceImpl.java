@@ -1,13 +1,24 @@
 package com.baufest.tennis.springtennis.service;
 
 import com.baufest.tennis.springtennis.dto.CanchaDTO;
+import com.baufest.tennis.springtennis.dto.DisponibilidadCanchaDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.exception.RecursoNoEncontradoException;
 import com.baufest.tennis.springtennis.mapper.CanchaMapper;
+import com.baufest.tennis.springtennis.model.Cancha;
 import com.baufest.tennis.springtennis.repository.CanchaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 //Aca va la anotacion @Service para declarar que es un servicio y pueda ser detectado por el autowired
@@ -18,11 +29,18 @@ public class CanchaServiceImpl implements CanchaService {
     public static final String CANCHA_WITH_ID = "Player with id = ";
     public static final String DOES_NOT_EXIST = " does not exist.";
     public static final String ALREADY_EXISTS = " already exists.";
+    private static final String INVALID_RANGE = "La fecha desde debe ser anterior a la fecha hasta.";
+    private static final String RANGE_TOO_LARGE = "Se pueden consultar como maximo " + CanchaService.MAXIMO_DIAS_DISPONIBILIDAD + " dias.";
+    private static final String INVALID_DURATION = "La duracion debe ser mayor a 0 minutos.";
+
+    //Nombre del cache de canchas por id, se configura en application.properties
+    public static final String CACHE = "canchas";
 
     //Estas son las variables donde se alojaran las instanciaciones del repository y el mapper al momento
     //de utilizarlas por medio de Autowired, son final para que no se puedan modificar una vez instanciadas
     private final CanchaRepository canchaRepository;
     private final CanchaMapper canchaMapper;
+    private final AgendaCanchas agendaCanchas;
 
     /*
     Aca se utiliza la anotacion Autowired, esta anotacion de springboot se encarga de enlazar todos los componentes,
@@ -34,23 +52,46 @@ public class CanchaServiceImpl implements CanchaService {
      */
     @Autowired
     public CanchaServiceImpl(CanchaRepository canchaRepository,
-                             CanchaMapper canchaMapper) {
+                             CanchaMapper canchaMapper, AgendaCanchas agendaCanchas) {
         this.canchaRepository = canchaRepository;
         this.canchaMapper = canchaMapper;
+        this.agendaCanchas = agendaCanchas;
     }
 
 
     @Override
-    public List<CanchaDTO> listAll() {
-        return canchaRepository.findAll().stream()
-                .map(this.canchaMapper::toDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public PaginaDTO<CanchaDTO> listAll(Long cursor, int tamano) {
+        int tamanoPagina = PaginaDTO.tamanoValido(tamano);
+        List<Cancha> filas = canchaRepository.findAllByIdGreaterThanOrderByIdAsc(cursor != null ? cursor : 0L,
+                PageRequest.of(0, tamanoPagina + 1));
+        return PaginaDTO.de(filas, tamanoPagina, Cancha::getId, this.canchaMapper::toDTO);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<CanchaDTO> buscar(String nombre, int tamano) {
+        return canchaRepository.findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc(nombre != null ? nombre.trim() : "",
+                PageRequest.of(0, PaginaDTO.tamanoValido(tamano))).stream().map(this.canchaMapper::toDTO).collect(Collectors.toList());
+    }
+
+    /*
+     * El resultado queda en el cache de canchas, las siguientes consultas del mismo id no van a la base.
+     * Los ids inexistentes no se cachean porque se arroja la excepcion*/
+    @Override
+    @Cacheable(CACHE)
+    @Transactional(readOnly = true)
     public CanchaDTO getById(Long id) {
         return canchaRepository.findById(id).map(this.canchaMapper::toDTO)
-                .orElseThrow(() -> new NoSuchElementException(CANCHA_WITH_ID + id + DOES_NOT_EXIST));
+                .orElseThrow(() -> new RecursoNoEncontradoException(CANCHA_WITH_ID + id + DOES_NOT_EXIST));
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getVersion(Long id) {
+        return canchaRepository.findVersion(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException(CANCHA_WITH_ID + id + DOES_NOT_EXIST));
     }
 
 
@@ -60,8 +101,8 @@ public class CanchaServiceImpl implements CanchaService {
          * instancia un booleano llamado exist, el cual lo iguala a la respuesta de getById del DTO entrante por parametro
          * get id, si es distinto de null y ademas el repository en metodo existById devuelve un ID se carga con True caso contrario false*/
         boolean exists = cancha.getId() != null && canchaRepository.existsById(cancha.getId());
-        if (exists) { //Si existe arroja una nueva excepcion del tipo IllegalArgumentException
-            throw new IllegalArgumentException(CANCHA_WITH_ID + cancha.getId() + ALREADY_EXISTS);
+        if (exists) { //Si existe arroja una nueva excepcion del tipo DatoInvalidoException
+            throw new DatoInvalidoException(CANCHA_WITH_ID + cancha.getId() + ALREADY_EXISTS);
         }
         //En caso de que la verificacion anterior no suceda, continua el flujo y guarda la entidad con el save
         //Tambien devuelve el cancha guardado ya que el repository lo devuelve....
@@ -69,22 +110,48 @@ public class CanchaServiceImpl implements CanchaService {
     }
 
     @Override
+    @CacheEvict(value = CACHE, key = "#cancha.id")
     public CanchaDTO update(CanchaDTO cancha) {
-        boolean exists = canchaRepository.existsById(cancha.getId());
-        if (!exists) {
-            throw new NoSuchElementException(CANCHA_WITH_ID + cancha.getId() + DOES_NOT_EXIST);
+        //Si la cancha recibida no trae version se edita sobre la version actual
+        long actual = canchaRepository.findVersion(cancha.getId())
+                .orElseThrow(() -> new RecursoNoEncontradoException(CANCHA_WITH_ID + cancha.getId() + DOES_NOT_EXIST));
+        if (cancha.getVersion() == null) {
+            cancha.setVersion(actual);
         }
         return this.canchaMapper.toDTO(canchaRepository.save(this.canchaMapper.fromDTO(cancha)));
     }
 
 
     @Override
+    @CacheEvict(CACHE)
     public void delete(Long id) {
         boolean exists = canchaRepository.existsById(id);
         if (!exists) {
-            throw new NoSuchElementException(CANCHA_WITH_ID + id + DOES_NOT_EXIST);
+            throw new RecursoNoEncontradoException(CANCHA_WITH_ID + id + DOES_NOT_EXIST);
         }
         canchaRepository.deleteById(id);
     }
 
-}
\ No newline at end of file
+    @Override
+    @Transactional(readOnly = true)
+    public List<DisponibilidadCanchaDTO> disponibilidad(Date desde, Date hasta, int duracionMinutos) {
+        if (desde == null || hasta == null || !desde.before(hasta)) {
+            throw new DatoInvalidoException(INVALID_RANGE);
+        }
+        if (hasta.getTime() - desde.getTime() > TimeUnit.DAYS.toMillis(MAXIMO_DIAS_DISPONIBILIDAD)) {
+            throw new DatoInvalidoException(RANGE_TOO_LARGE);
+        }
+        if (duracionMinutos <= 0) {
+            throw new DatoInvalidoException(INVALID_DURATION);
+        }
+        //La agenda de cada cancha ya tiene sus reservas ordenadas, solo se recorren las del rango pedido.
+        //Un partido ocupa la cancha al menos la diferencia minima entre partidos, aunque dure menos
+        long inicio = Math.max(desde.getTime(), System.currentTimeMillis());
+        long minimo = Math.max(TimeUnit.MINUTES.toMillis(duracionMinutos), AgendaCanchas.MARGEN_MS);
+        return canchaRepository.findAll(Sort.by("id")).stream()
+                .map(cancha -> new DisponibilidadCanchaDTO(this.canchaMapper.toDTO(cancha),
+                        agendaCanchas.franjasLibres(cancha.getId(), inicio, hasta.getTime(), minimo)))
+                .collect(Collectors.toList());
+    }
+
+}
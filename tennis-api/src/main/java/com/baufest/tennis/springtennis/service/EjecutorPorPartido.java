@@ -0,0 +1,93 @@
+package com.baufest.tennis.springtennis.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>Ejecutor por partido</p>
+ * Reparte los partidos por id entre springtennis.marcador.shards hilos (uno por procesador si es 0), cada uno con
+ * su propia cola de tareas. Todas las tareas de un mismo partido se ejecutan en orden en el mismo hilo, asi no
+ * compiten entre ellas, y los partidos de hilos distintos avanzan en paralelo. Una tarea no debe esperar a una
+ * tarea de otro hilo, porque ese hilo podria estar esperando a su vez a este.
+ */
+@Component
+public class EjecutorPorPartido {
+
+    private final ExecutorService[] shards;
+
+    //Shard del hilo actual, null si no es un hilo de este ejecutor
+    private final ThreadLocal<Integer> shardActual = new ThreadLocal<>();
+
+    @Autowired
+    public EjecutorPorPartido(@Value("${springtennis.marcador.shards:0}") int cantidad) {
+        this.shards = new ExecutorService[cantidad > 0 ? cantidad : Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < shards.length; i++) {
+            int shard = i;
+            shards[i] = Executors.newSingleThreadExecutor(tarea -> {
+                Thread hilo = new Thread(() -> {
+                    shardActual.set(shard);
+                    tarea.run();
+                }, "marcador-" + shard);
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+
+    public int cantidadShards() {
+        return shards.length;
+    }
+
+    /* Los ids de secuencia son consecutivos, con el resto de la division quedan repartidos en partes iguales */
+    public int shard(Long idPartido) {
+        return (int) Math.floorMod(idPartido, (long) shards.length);
+    }
+
+    /*
+     * Ejecuta la tarea en el shard del partido y espera el resultado. Las excepciones de la tarea se arrojan tal
+     * cual. Si ya se esta en ese shard se ejecuta directamente
+     */
+    public <T> T ejecutar(Long idPartido, Supplier<T> tarea) {
+        int shard = this.shard(idPartido);
+        Integer actual = shardActual.get();
+        if (actual != null && actual == shard) {
+            return tarea.get();
+        }
+        try {
+            return CompletableFuture.supplyAsync(tarea, shards[shard]).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /* Encola la tarea en el shard recibido sin esperarla */
+    public CompletableFuture<Void> enviar(int shard, Runnable tarea) {
+        return CompletableFuture.runAsync(tarea, shards[shard]);
+    }
+
+    /* Deja terminar las tareas encoladas (por ejemplo el ultimo flush de los marcadores) */
+    @PreDestroy
+    public void cerrar() throws InterruptedException {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        for (ExecutorService shard : shards) {
+            shard.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.exception.ConflictoVersionException;
+import com.baufest.tennis.springtennis.model.PuntoPartido;
+import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import com.baufest.tennis.springtennis.repository.PuntoPartidoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.baufest.tennis.springtennis.service.PartidoServiceImpl.PARTIDO_WITH_ID;
+
+/**
+ * <p>Historial de puntos</p>
+ * Escribe y lee el log de puntos de los partidos. Los puntos se agregan como filas nuevas en punto_partido
+ * y cada tanto se guarda una foto del marcador en la fila del partido; el marcador actual se reconstruye
+ * aplicando sobre la ultima foto los puntos posteriores a su version.
+ */
+@Component
+public class HistorialPuntos {
+
+    private static final String STALE_SNAPSHOT = " has a newer snapshot than version ";
+
+    private final PartidoRepository partidoRepository;
+    private final PuntoPartidoRepository puntoPartidoRepository;
+
+    @Autowired
+    public HistorialPuntos(PartidoRepository partidoRepository, PuntoPartidoRepository puntoPartidoRepository) {
+        this.partidoRepository = partidoRepository;
+        this.puntoPartidoRepository = puntoPartidoRepository;
+    }
+
+    /*
+     * Agrega los puntos recibidos al log y, si se recibe una foto, actualiza la fila del partido con ese marcador,
+     * todo en la misma transaccion. Si otra instancia ya agrego un punto con la misma secuencia el insert falla por
+     * la clave unica (DataIntegrityViolationException), y si la foto de la base no esta en versionFoto se arroja
+     * ConflictoVersionException; en ambos casos no se guarda nada
+     */
+    @Transactional
+    public void guardar(Long idPartido, List<PuntoPartido> puntos, MarcadorPartido foto, long versionFoto) {
+        this.guardarLote(Collections.singletonList(new Escritura(idPartido, puntos, foto, versionFoto)));
+    }
+
+    /*
+     * Igual que guardar pero para varios partidos en una sola transaccion: los puntos de todos se insertan juntos
+     * (en batches JDBC) y despues se actualizan las fotos. Si falla la escritura de un partido no se guarda la de
+     * ninguno
+     */
+    @Transactional
+    public void guardarLote(List<Escritura> escrituras) {
+        List<PuntoPartido> puntos = new ArrayList<>();
+        escrituras.forEach(escritura -> puntos.addAll(escritura.getPuntos()));
+        if (!puntos.isEmpty()) {
+            puntoPartidoRepository.saveAll(puntos);
+            puntoPartidoRepository.flush();
+        }
+        for (Escritura escritura : escrituras) {
+            MarcadorPartido foto = escritura.getFoto();
+            if (foto == null) {
+                continue;
+            }
+            int actualizadas = partidoRepository.actualizarMarcador(escritura.getIdPartido(), foto.getScoreLocal(),
+                    foto.getPuntosGameActualLocal(), foto.getCantidadGamesLocal(), foto.getScoreVisitante(),
+                    foto.getPuntosGameActualVisitante(), foto.getCantidadGamesVisitante(), foto.getSetsLocal(),
+                    foto.getSetsVisitante(), foto.getResultadoSets(), foto.getSaca(), foto.getEstado(), foto.getVersion(),
+                    escritura.getVersionFoto());
+            if (actualizadas == 0) {
+                throw new ConflictoVersionException(PARTIDO_WITH_ID + escritura.getIdPartido() + STALE_SNAPSHOT
+                        + escritura.getVersionFoto() + ".", null);
+            }
+        }
+    }
+
+    /* Marcador actual del partido: la foto guardada en la fila mas los puntos posteriores a ella */
+    public MarcadorPartido reconstruir(Long idPartido, MarcadorPartido foto) {
+        MarcadorPartido marcador = foto;
+        for (PuntoPartido punto : puntoPartidoRepository.findAllByIdPartidoAndSecuenciaGreaterThanOrderBySecuenciaAsc(
+                idPartido, foto.getVersion())) {
+            marcador = marcador.sumarPunto(punto.getModo());
+        }
+        return marcador;
+    }
+
+    public List<PuntoPartido> listar(Long idPartido) {
+        return puntoPartidoRepository.findAllByIdPartidoOrderBySecuenciaAsc(idPartido);
+    }
+
+    /* Puntos de un partido para agregar al log y, si no es null, la foto que reemplaza a la de version versionFoto */
+    public static final class Escritura {
+        private final Long idPartido;
+        private final List<PuntoPartido> puntos;
+        private final MarcadorPartido foto;
+        private final long versionFoto;
+
+        public Escritura(Long idPartido, List<PuntoPartido> puntos, MarcadorPartido foto, long versionFoto) {
+            this.idPartido = idPartido;
+            this.puntos = puntos;
+            this.foto = foto;
+            this.versionFoto = versionFoto;
+        }
+
+        public Long getIdPartido() {
+            return idPartido;
+        }
+
+        public List<PuntoPartido> getPuntos() {
+            return puntos;
+        }
+
+        public MarcadorPartido getFoto() {
+            return foto;
+        }
+
+        public long getVersionFoto() {
+            return versionFoto;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.CanchaDTO;
+import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.ResultadoImportacionDTO;
+import com.baufest.tennis.springtennis.enums.FormatoImportacion;
+import com.baufest.tennis.springtennis.mapper.CanchaMapper;
+import com.baufest.tennis.springtennis.mapper.JugadorMapper;
+import com.baufest.tennis.springtennis.model.Cancha;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.repository.CanchaRepository;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.baufest.tennis.springtennis.service.JugadorServiceImpl.DOES_NOT_EXIST;
+import static com.baufest.tennis.springtennis.service.JugadorServiceImpl.PLAYER_WITH_ID;
+
+/**
+ * <p>Importacion de jugadores y canchas</p>
+ * Carga masiva desde un archivo CSV o NDJSON. El archivo se lee de a un registro (LectorRegistros) y los registros
+ * validos se guardan en lotes de TAMANO_LOTE, cada lote en su propia transaccion: se busca con una sola consulta
+ * que registros del lote ya existen y se insertan los nuevos juntos, asi la memoria usada depende del tamaño del
+ * lote y no del archivo. Los jugadores con id se actualizan (el id debe existir) y los que no tienen id se insertan;
+ * las canchas se identifican por nombre y direccion y las que ya existen se omiten.
+ * Un lote que falla al guardarse no corta la importacion, sus registros se informan como errores.
+ */
+@Component
+public class ImportacionRegistros {
+
+    //Cantidad de registros que se guardan por transaccion
+    public static final int TAMANO_LOTE = 500;
+
+    private static final String NOMBRE_REQUERIDO = "El nombre es obligatorio.";
+    private static final String DIRECCION_REQUERIDA = "La direccion es obligatoria.";
+    private static final String PUNTOS_INVALIDOS = "Los puntos no pueden ser negativos.";
+
+    private final JugadorRepository jugadorRepository;
+    private final CanchaRepository canchaRepository;
+    private final JugadorMapper jugadorMapper;
+    private final CanchaMapper canchaMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final RankingJugadores rankingJugadores;
+
+    @Autowired
+    public ImportacionRegistros(JugadorRepository jugadorRepository, CanchaRepository canchaRepository,
+                                JugadorMapper jugadorMapper, CanchaMapper canchaMapper,
+                                TransactionTemplate transactionTemplate, ObjectMapper objectMapper, CacheManager cacheManager,
+                                RankingJugadores rankingJugadores) {
+        this.jugadorRepository = jugadorRepository;
+        this.canchaRepository = canchaRepository;
+        this.jugadorMapper = jugadorMapper;
+        this.canchaMapper = canchaMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.rankingJugadores = rankingJugadores;
+    }
+
+    public ResultadoImportacionDTO importarJugadores(InputStream entrada, FormatoImportacion formato) throws IOException {
+        return this.importar(entrada, formato, JugadorDTO.class, ImportacionRegistros::validar, this::guardarJugadores);
+    }
+
+    public ResultadoImportacionDTO importarCanchas(InputStream entrada, FormatoImportacion formato) throws IOException {
+        return this.importar(entrada, formato, CanchaDTO.class, ImportacionRegistros::validar, this::guardarCanchas);
+    }
+
+    private <T> ResultadoImportacionDTO importar(InputStream entrada, FormatoImportacion formato, Class<T> tipo,
+                                                 Function<T, String> validacion, GuardadoLote<T> guardado) throws IOException {
+        ResultadoImportacionDTO resultado = new ResultadoImportacionDTO();
+        List<Fila<T>> lote = new ArrayList<>(TAMANO_LOTE);
+        LectorRegistros.leer(entrada, formato, objectMapper, tipo, new LectorRegistros.Registro<T>() {
+            @Override
+            public void leido(int linea, T valor) {
+                resultado.sumarProcesado();
+                String error = validacion.apply(valor);
+                if (error != null) {
+                    resultado.agregarError(linea, error);
+                    return;
+                }
+                lote.add(new Fila<>(linea, valor));
+                if (lote.size() == TAMANO_LOTE) {
+                    guardar(lote, guardado, resultado);
+                }
+            }
+
+            @Override
+            public void invalido(int linea, String mensaje) {
+                resultado.sumarProcesado();
+                resultado.agregarError(linea, mensaje);
+            }
+        });
+        if (!lote.isEmpty()) {
+            this.guardar(lote, guardado, resultado);
+        }
+        return resultado;
+    }
+
+    private <T> void guardar(List<Fila<T>> lote, GuardadoLote<T> guardado, ResultadoImportacionDTO resultado) {
+        try {
+            guardado.guardar(lote, resultado);
+        } catch (DataAccessException e) {
+            for (Fila<T> fila : lote) {
+                resultado.agregarError(fila.linea, e.getMostSpecificCause().getMessage());
+            }
+        }
+        lote.clear();
+    }
+
+    /*
+     * Los jugadores existentes del lote se leen en una sola consulta y se modifican dentro de la transaccion
+     * (el update lo hace el dirty checking al commitear), los nuevos se insertan con saveAll
+     */
+    private void guardarJugadores(List<Fila<JugadorDTO>> lote, ResultadoImportacionDTO resultado) {
+        Set<Long> ids = new HashSet<>();
+        for (Fila<JugadorDTO> fila : lote) {
+            if (fila.valor.getId() != null) {
+                ids.add(fila.valor.getId());
+            }
+        }
+        List<Fila<JugadorDTO>> inexistentes = new ArrayList<>();
+        Set<Long> actualizados = new HashSet<>();
+        List<Jugador> guardados = new ArrayList<>();
+        int insertados = transactionTemplate.execute(estado -> {
+            Map<Long, Jugador> existentes = new HashMap<>();
+            if (!ids.isEmpty()) {
+                jugadorRepository.findAllById(ids).forEach(jugador -> existentes.put(jugador.getId(), jugador));
+            }
+            List<Jugador> nuevos = new ArrayList<>();
+            for (Fila<JugadorDTO> fila : lote) {
+                JugadorDTO jugador = fila.valor;
+                if (jugador.getId() == null) {
+                    nuevos.add(jugadorMapper.fromDTO(jugador));
+                } else if (existentes.containsKey(jugador.getId())) {
+                    Jugador existente = existentes.get(jugador.getId());
+                    existente.setNombre(jugador.getNombre());
+                    existente.setPuntos(jugador.getPuntos());
+                    actualizados.add(jugador.getId());
+                    guardados.add(existente);
+                } else {
+                    inexistentes.add(fila);
+                }
+            }
+            jugadorRepository.saveAll(nuevos);
+            guardados.addAll(nuevos);
+            return nuevos.size();
+        });
+        for (Fila<JugadorDTO> fila : inexistentes) {
+            resultado.agregarError(fila.linea, PLAYER_WITH_ID + fila.valor.getId() + DOES_NOT_EXIST);
+        }
+        //Los jugadores actualizados se sacan del cache de jugadores por id
+        Cache cache = cacheManager.getCache(JugadorServiceImpl.CACHE);
+        if (cache != null) {
+            actualizados.forEach(cache::evict);
+        }
+        guardados.forEach(jugador -> rankingJugadores.actualizar(jugador.getId(), jugador.getPuntos()));
+        resultado.sumar(insertados, lote.size() - insertados - inexistentes.size(), 0);
+    }
+
+    /* Las canchas del lote que ya existen (por nombre y direccion) o que se repiten dentro del lote se omiten */
+    private void guardarCanchas(List<Fila<CanchaDTO>> lote, ResultadoImportacionDTO resultado) {
+        Set<String> nombres = new HashSet<>();
+        for (Fila<CanchaDTO> fila : lote) {
+            nombres.add(fila.valor.getNombre());
+        }
+        int insertados = transactionTemplate.execute(estado -> {
+            Set<String> existentes = new HashSet<>();
+            for (Cancha cancha : canchaRepository.findAllByNombreIn(nombres)) {
+                existentes.add(clave(cancha.getNombre(), cancha.getDireccion()));
+            }
+            List<Cancha> nuevas = new ArrayList<>();
+            for (Fila<CanchaDTO> fila : lote) {
+                if (existentes.add(clave(fila.valor.getNombre(), fila.valor.getDireccion()))) {
+                    Cancha cancha = canchaMapper.fromDTO(fila.valor);
+                    cancha.setId(null);
+                    nuevas.add(cancha);
+                }
+            }
+            canchaRepository.saveAll(nuevas);
+            return nuevas.size();
+        });
+        resultado.sumar(insertados, 0, lote.size() - insertados);
+    }
+
+    private static String clave(String nombre, String direccion) {
+        return nombre + '\u0000' + direccion;
+    }
+
+    private static String validar(JugadorDTO jugador) {
+        if (jugador.getNombre() == null || jugador.getNombre().trim().isEmpty()) {
+            return NOMBRE_REQUERIDO;
+        }
+        return jugador.getPuntos() < 0 ? PUNTOS_INVALIDOS : null;
+    }
+
+    private static String validar(CanchaDTO cancha) {
+        if (cancha.getNombre() == null || cancha.getNombre().trim().isEmpty()) {
+            return NOMBRE_REQUERIDO;
+        }
+        return cancha.getDireccion() == null || cancha.getDireccion().trim().isEmpty() ? DIRECCION_REQUERIDA : null;
+    }
+
+    /* Registro valido leido del archivo, con su linea para informar errores al guardarlo */
+    private static final class Fila<T> {
+        private final int linea;
+        private final T valor;
+
+        private Fila(int linea, T valor) {
+            this.linea = linea;
+            this.valor = valor;
+        }
+    }
+
+    private interface GuardadoLote<T> {
+        void guardar(List<Fila<T>> lote, ResultadoImportacionDTO resultado);
+    }
+}
@@ -1,9 +1,11 @@
 package com.baufest.tennis.springtennis.service;
 
-import com.baufest.tennis.springtennis.dto.JugadorDTO;
-
 import java.util.List;
 
+import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.dto.PosicionRankingDTO;
+
 /**
  * <p>Service de Jugador</p>
  * Este componente sera el encargado de aplicar la logica de negocio a los jugadores antes de persistirlos en la base de datos
@@ -14,12 +16,26 @@ public interface JugadorService {
 
 	/**
 	 * <p>
-	 *     Obtiene el listado de todos los jugadores
+	 *     Obtiene una pagina del listado de jugadores ordenado por id, empezando despues del cursor recibido
+	 * </p>
+	 *
+	 * @param cursor id del ultimo jugador de la pagina anterior, null para la primera pagina
+	 * @param tamano cantidad maxima de jugadores de la pagina
+	 * @return PaginaDTO<JugadorDto>
+	 */
+	PaginaDTO<JugadorDTO> listAll(Long cursor, int tamano);
+
+	/**
+	 * <p>
+	 *     Obtiene los primeros jugadores, ordenados por nombre, cuyo nombre empieza con el texto recibido
+	 *     (sin distinguir mayusculas). Se usa en las listas desplegables en lugar de leer todo el listado
 	 * </p>
 	 *
-	 * @return List<JugadorDto>
+	 * @param nombre comienzo del nombre, vacio para los primeros jugadores por nombre
+	 * @param tamano cantidad maxima de jugadores
+	 * @return List<JugadorDTO>
 	 */
-	List<JugadorDTO> listAll();
+	List<JugadorDTO> buscar(String nombre, int tamano);
 
 	/**
 	 * <p>
@@ -31,10 +47,33 @@ public interface JugadorService {
 	 */
 	JugadorDTO getById(Long id);
 
+	/**
+	 * <p>
+	 *     Obtiene la version del jugador de id recibido (para el ETag), sin leer el jugador.
+	 *     Si no existe se hace throw de una exception "NoSuchElementException"
+	 * </p>
+	 *
+	 * @param id
+	 * @return long
+	 */
+	long getVersion(Long id);
+
+	/**
+	 * <p>
+	 *     Obtiene una version de la pagina de jugadores que devolveria listAll con los mismos parametros
+	 *     (para el ETag): cambia si cambia algun jugador de la pagina, o si se agrega o se borra alguno
+	 * </p>
+	 *
+	 * @param cursor
+	 * @param tamano
+	 * @return long
+	 */
+	long getVersionPagina(Long cursor, int tamano);
+
 	/**
 	 * <p>
 	 *     Guarda el jugador recibido. Si el id del jugador recibido ya existe en la
-	 *     base se hace throw de una exception "IllegalArgumentException"
+	 *     base se hace throw de una exception "DatoInvalidoException"
 	 * </p>
 	 * @param jugador
 	 * @return JugadorDto
@@ -62,4 +101,26 @@ public interface JugadorService {
 	 */
 	void delete(Long id);
 
+	/**
+	 * <p>
+	 *     Obtiene una pagina del ranking de jugadores ordenado por puntos de mayor a menor,
+	 *     a partir de la posicion desde (empezando en 0). Los jugadores con los mismos puntos comparten la posicion
+	 * </p>
+	 * @param desde
+	 * @param tamano cantidad maxima de jugadores de la pagina
+	 * @return List<PosicionRankingDTO>
+	 */
+	List<PosicionRankingDTO> ranking(int desde, int tamano);
+
+	/**
+	 * <p>
+	 *     Obtiene la posicion en el ranking del jugador de id recibido.
+	 *     Si no se encuentra ningun jugador con el id recibido se hace throw de
+	 *     una exception "NoSuchElementException"
+	 * </p>
+	 * @param id
+	 * @return PosicionRankingDTO
+	 */
+	PosicionRankingDTO posicion(Long id);
+
 }
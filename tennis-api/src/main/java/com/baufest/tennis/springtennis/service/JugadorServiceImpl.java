@@ -1,13 +1,22 @@
 package com.baufest.tennis.springtennis.service;
 
 import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.dto.PosicionRankingDTO;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.exception.RecursoNoEncontradoException;
 import com.baufest.tennis.springtennis.mapper.JugadorMapper;
+import com.baufest.tennis.springtennis.model.Jugador;
 import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import com.baufest.tennis.springtennis.repository.VersionFila;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
 //Aca va la anotacion @Service para declarar que es un servicio y pueda ser detectado por el autowired
@@ -19,10 +28,14 @@ public class JugadorServiceImpl implements JugadorService {
     public static final String DOES_NOT_EXIST = " does not exist.";
     public static final String ALREADY_EXISTS = " already exists.";
 
+    //Nombre del cache de jugadores por id, se configura en application.properties
+    public static final String CACHE = "jugadores";
+
     //Estas son las variables donde se alojaran las instanciaciones del repository y el mapper al momento
     //de utilizarlas por medio de Autowired, son final para que no se puedan modificar una vez instanciadas
     private final JugadorRepository jugadorRepository;
     private final JugadorMapper jugadorMapper;
+    private final RankingJugadores rankingJugadores;
 
     /*
     Aca se utiliza la anotacion Autowired, esta anotacion de springboot se encarga de enlazar todos los componentes,
@@ -34,29 +47,66 @@ public class JugadorServiceImpl implements JugadorService {
      */
     @Autowired
     public JugadorServiceImpl(JugadorRepository jugadorRepository,
-                              JugadorMapper jugadorMapper) {
+                              JugadorMapper jugadorMapper, RankingJugadores rankingJugadores) {
         this.jugadorRepository = jugadorRepository;
         this.jugadorMapper = jugadorMapper;
+        this.rankingJugadores = rankingJugadores;
     }
 
 
     @Override
-    public List<JugadorDTO> listAll() {
+    @Transactional(readOnly = true)
+    public PaginaDTO<JugadorDTO> listAll(Long cursor, int tamano) {
         /*
-         * Se obtiene una collection de jugadores (entidad) del repository,
-         * se transforma a una collection de jugadores (DTO) y luego
-         * se lo transforma en un ArrayList para devolverlo al controller*/
-        return jugadorRepository.findAllByOrderByNombreAsc().stream()
-                .map(this.jugadorMapper::toDTO)
-                .collect(Collectors.toList());
+         * Se obtiene del repository solo la pagina pedida (jugadores con id mayor al cursor), pidiendo una fila
+         * de mas para saber si existe una pagina siguiente, y se transforman los jugadores (entidad) a DTO*/
+        int tamanoPagina = PaginaDTO.tamanoValido(tamano);
+        List<Jugador> filas = jugadorRepository.findAllByIdGreaterThanOrderByIdAsc(cursor != null ? cursor : 0L,
+                PageRequest.of(0, tamanoPagina + 1));
+        return PaginaDTO.de(filas, tamanoPagina, Jugador::getId, this.jugadorMapper::toDTO);
     }
 
     @Override
+    public List<JugadorDTO> buscar(String nombre, int tamano) {
+        /*
+         * Se piden al repository solo los primeros tamano jugadores cuyo nombre empieza con el texto recibido*/
+        return jugadorRepository.findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc(nombre != null ? nombre.trim() : "",
+                PageRequest.of(0, PaginaDTO.tamanoValido(tamano))).stream().map(this.jugadorMapper::toDTO).collect(Collectors.toList());
+    }
+
+    /*
+     * El resultado queda en el cache de jugadores, las siguientes consultas del mismo id no van a la base.
+     * Los ids inexistentes no se cachean porque se arroja la excepcion*/
+    @Override
+    @Cacheable(CACHE)
+    @Transactional(readOnly = true)
     public JugadorDTO getById(Long id) {
         /*Llama al repository en el metodo findById, para obtener una entidad jugador, la cual la transforma
          * a DTO con el .map() en caso de que el .map arroje conjunto vacio arroja una excepcion de tipo NoSuchElementException*/
         return jugadorRepository.findById(id).map(this.jugadorMapper::toDTO)
-                .orElseThrow(() -> new NoSuchElementException(PLAYER_WITH_ID + id + DOES_NOT_EXIST));
+                .orElseThrow(() -> new RecursoNoEncontradoException(PLAYER_WITH_ID + id + DOES_NOT_EXIST));
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getVersion(Long id) {
+        return jugadorRepository.findVersion(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException(PLAYER_WITH_ID + id + DOES_NOT_EXIST));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getVersionPagina(Long cursor, int tamano) {
+        /*
+         * Se combinan id y version de las mismas filas que leeria listAll (incluida la fila de mas que decide si hay
+         * pagina siguiente), sin leer ni mapear los jugadores*/
+        long version = 1L;
+        for (VersionFila fila : jugadorRepository.findVersiones(cursor != null ? cursor : 0L,
+                PageRequest.of(0, PaginaDTO.tamanoValido(tamano) + 1))) {
+            version = 31 * (31 * version + fila.getId()) + fila.getVersion();
+        }
+        return version;
     }
 
 
@@ -66,31 +116,59 @@ public class JugadorServiceImpl implements JugadorService {
          * Instancia un booleano llamado exist, el cual lo iguala a la respuesta de getById del DTO entrante por parametro.
          * get id, si es distinto de null y ademas el repository en metodo existById devuelve un ID se carga con True caso contrario false*/
         boolean exists = jugador.getId() != null && jugadorRepository.existsById(jugador.getId());
-        if (exists) { //Si existe arroja una nueva excepcion del tipo IllegalArgumentException
-            throw new IllegalArgumentException(PLAYER_WITH_ID + jugador.getId() + ALREADY_EXISTS);
+        if (exists) { //Si existe arroja una nueva excepcion del tipo DatoInvalidoException
+            throw new DatoInvalidoException(PLAYER_WITH_ID + jugador.getId() + ALREADY_EXISTS);
         }
         //En caso de que la verificacion anterior no suceda, continua el flujo y guarda la entidad con el save
         //Tambien devuelve el jugador guardado ya que el repository lo devuelve....
-        return this.jugadorMapper.toDTO(jugadorRepository.save(this.jugadorMapper.fromDTO(jugador)));
+        return this.actualizarRanking(this.jugadorMapper.toDTO(jugadorRepository.save(this.jugadorMapper.fromDTO(jugador))));
     }
 
 
     @Override
+    @CacheEvict(value = CACHE, key = "#jugador.id")
     public JugadorDTO update(JugadorDTO jugador) {
-        boolean exists = jugadorRepository.existsById(jugador.getId());
-        if (!exists) {
-            throw new NoSuchElementException(PLAYER_WITH_ID + jugador.getId() + DOES_NOT_EXIST);
+        //Si el jugador recibido no trae version se edita sobre la version actual
+        long actual = jugadorRepository.findVersion(jugador.getId())
+                .orElseThrow(() -> new RecursoNoEncontradoException(PLAYER_WITH_ID + jugador.getId() + DOES_NOT_EXIST));
+        if (jugador.getVersion() == null) {
+            jugador.setVersion(actual);
         }
-        return this.jugadorMapper.toDTO(jugadorRepository.save(this.jugadorMapper.fromDTO(jugador)));
+        return this.actualizarRanking(this.jugadorMapper.toDTO(jugadorRepository.save(this.jugadorMapper.fromDTO(jugador))));
     }
 
     @Override
+    @CacheEvict(CACHE)
     public void delete(Long id) {
         boolean exists = jugadorRepository.existsById(id);
         if (!exists) {
-            throw new NoSuchElementException(PLAYER_WITH_ID + id + DOES_NOT_EXIST);
+            throw new RecursoNoEncontradoException(PLAYER_WITH_ID + id + DOES_NOT_EXIST);
         }
         jugadorRepository.deleteById(id);
+        rankingJugadores.quitar(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PosicionRankingDTO> ranking(int desde, int tamano) {
+        //El ranking se mantiene ordenado en memoria, solo se leen de la base los jugadores de la pagina
+        return rankingJugadores.pagina(desde, PaginaDTO.tamanoValido(tamano));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PosicionRankingDTO posicion(Long id) {
+        JugadorDTO jugador = this.getById(id);
+        int posicion = rankingJugadores.posicion(id);
+        if (posicion < 0) {
+            throw new RecursoNoEncontradoException(PLAYER_WITH_ID + id + DOES_NOT_EXIST);
+        }
+        return new PosicionRankingDTO(posicion, jugador);
+    }
+
+    private JugadorDTO actualizarRanking(JugadorDTO jugador) {
+        rankingJugadores.actualizar(jugador.getId(), jugador.getPuntos());
+        return jugador;
     }
 
 }
\ No newline at end of file
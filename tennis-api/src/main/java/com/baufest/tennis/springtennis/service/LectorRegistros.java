@@ -0,0 +1,114 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.enums.FormatoImportacion;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Lector de registros</p>
+ * Lee un archivo CSV o NDJSON linea por linea y entrega cada registro convertido al tipo pedido, sin cargar
+ * el archivo completo en memoria. Una linea que no se puede leer se informa como error y se sigue con la siguiente.
+ * En CSV la primera linea tiene los nombres de los campos; los valores pueden ir entre comillas dobles
+ * (con "" para una comilla) pero no pueden ocupar mas de una linea.
+ */
+final class LectorRegistros {
+
+    private static final String CAMPOS_INVALIDOS = "La cantidad de campos no coincide con el encabezado.";
+    private static final String COMILLAS_SIN_CERRAR = "Comillas sin cerrar.";
+
+    /* Recibe los registros leidos y los errores, con el numero de linea (empezando en 1) */
+    interface Registro<T> {
+        void leido(int linea, T valor);
+
+        void invalido(int linea, String mensaje);
+    }
+
+    private LectorRegistros() {
+    }
+
+    static <T> void leer(InputStream entrada, FormatoImportacion formato, ObjectMapper objectMapper, Class<T> tipo,
+                         Registro<T> registro) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(tipo);
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String[] encabezado = null;
+        int numero = 0;
+        String linea;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (linea.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                if (formato == FormatoImportacion.NDJSON) {
+                    registro.leido(numero, reader.readValue(linea));
+                } else if (encabezado == null) {
+                    encabezado = separar(linea).toArray(new String[0]);
+                } else {
+                    registro.leido(numero, objectMapper.convertValue(campos(encabezado, separar(linea)), tipo));
+                }
+            } catch (JsonProcessingException e) {
+                registro.invalido(numero, e.getOriginalMessage());
+            } catch (IllegalArgumentException | DatoInvalidoException e) {
+                registro.invalido(numero, e.getMessage());
+            }
+        }
+    }
+
+    /* Valores de una fila por nombre de campo, los vacios no se incluyen para que queden en null */
+    private static Map<String, String> campos(String[] encabezado, List<String> valores) {
+        if (valores.size() != encabezado.length) {
+            throw new DatoInvalidoException(CAMPOS_INVALIDOS);
+        }
+        Map<String, String> campos = new HashMap<>(encabezado.length * 2);
+        for (int i = 0; i < encabezado.length; i++) {
+            if (!valores.get(i).isEmpty()) {
+                campos.put(encabezado[i], valores.get(i));
+            }
+        }
+        return campos;
+    }
+
+    /* Separa una linea CSV por comas, respetando los valores entre comillas */
+    static List<String> separar(String linea) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder valor = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    valor.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    valor.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                valores.add(valor.toString().trim());
+                valor.setLength(0);
+            } else {
+                valor.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new DatoInvalidoException(COMILLAS_SIN_CERRAR);
+        }
+        valores.add(valor.toString().trim());
+        return valores;
+    }
+}
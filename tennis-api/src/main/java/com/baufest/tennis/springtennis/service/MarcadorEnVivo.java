@@ -0,0 +1,372 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.ResultadoPuntoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.PoliticaConflicto;
+import com.baufest.tennis.springtennis.event.MarcadorActualizadoEvent;
+import com.baufest.tennis.springtennis.exception.ConflictoVersionException;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.exception.RecursoNoEncontradoException;
+import com.baufest.tennis.springtennis.mapper.PartidoMapper;
+import com.baufest.tennis.springtennis.model.Partido;
+import com.baufest.tennis.springtennis.model.PuntoPartido;
+import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.baufest.tennis.springtennis.service.PartidoServiceImpl.*;
+
+/**
+ * <p>Marcador en vivo</p>
+ * Mantiene en memoria el marcador de los partidos EN_CURSO, para que sumar un punto no tenga que leer el partido ni
+ * reconstruir su marcador desde la base. Cada punto se agrega al historial de puntos antes de confirmarlo, y el
+ * marcador en memoria se reemplaza solo despues de guardarlo: lo que se le devuelve al cliente siempre esta en la base.
+ * La foto del marcador se guarda en la fila del partido en segundo plano cada springtennis.marcador.flush-ms
+ * milisegundos, de modo que la fila de un partido que no esta en memoria nunca queda mas atrasada que el ultimo flush,
+ * y al detener la api el flush final deja todas las filas al dia. El punto que termina un partido se guarda junto con
+ * su foto final, asi el partido solo se informa FINALIZADO cuando la base ya lo registra, y se lo saca de memoria.
+ * <p>
+ * Cada punto incrementa la version del partido y esa version es la secuencia del punto en el historial. Si otra
+ * instancia de la api ya agrego un punto con la misma secuencia el insert falla por la clave unica y el conflicto se
+ * resuelve en el mismo pedido, segun su politica de conflicto: se relee el partido de la base y se vuelve a aplicar el
+ * punto encima (REINTENTAR) o se responde con el conflicto (RECHAZAR).
+ * <p>
+ * Todo lo que modifica el marcador de un partido (sumar puntos y guardar su foto) se ejecuta en el hilo que le toca
+ * a su id en el EjecutorPorPartido, asi los puntos de un partido se aplican de a uno y en orden sin locks, y los
+ * partidos de distintos hilos avanzan en paralelo. El flush agrupa los partidos pendientes por hilo y cada hilo
+ * guarda las fotos de los suyos en una sola transaccion.
+ * <p>
+ * Cada vez que cambia el marcador de un partido se publica un MarcadorActualizadoEvent.
+ */
+@Component
+public class MarcadorEnVivo {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MarcadorEnVivo.class);
+
+    private static final String CONFLICT = " was modified concurrently, current version is ";
+
+    private final PartidoRepository partidoRepository;
+    private final PartidoMapper partidoMapper;
+    private final HistorialPuntos historialPuntos;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EjecutorPorPartido ejecutor;
+    private final PoliticaConflicto politicaPorDefecto;
+    private final int reintentosMaximos;
+
+    //Partidos en curso por id
+    private final ConcurrentMap<Long, PartidoEnVivo> partidos = new ConcurrentHashMap<>();
+
+    //Ids de los partidos cuya foto en la base esta atrasada respecto del marcador en memoria
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public MarcadorEnVivo(PartidoRepository partidoRepository, PartidoMapper partidoMapper, HistorialPuntos historialPuntos,
+                          ApplicationEventPublisher eventPublisher, EjecutorPorPartido ejecutor,
+                          @Value("${springtennis.marcador.politica-conflicto:REINTENTAR}") PoliticaConflicto politicaPorDefecto,
+                          @Value("${springtennis.marcador.reintentos-maximos:3}") int reintentosMaximos) {
+        this.partidoRepository = partidoRepository;
+        this.partidoMapper = partidoMapper;
+        this.historialPuntos = historialPuntos;
+        this.eventPublisher = eventPublisher;
+        this.ejecutor = ejecutor;
+        this.politicaPorDefecto = politicaPorDefecto;
+        this.reintentosMaximos = reintentosMaximos;
+    }
+
+    /* Registra un partido que se acaba de iniciar, para que el primer punto no tenga que leerlo de la base */
+    public void iniciar(Partido partido) {
+        MarcadorPartido marcador = MarcadorPartido.de(partido);
+        PartidoDTO datos = partidoMapper.toDTO(partido);
+        partidos.put(partido.getId(), new PartidoEnVivo(datos, marcador, marcador.getVersion()));
+        this.publicar(datos);
+    }
+
+    /*
+     * Suma un punto al jugador recibido y devuelve el partido con el marcador actualizado.
+     * Se ejecuta en el hilo del partido. Si el partido no esta en memoria se lo lee de la base una unica vez. El
+     * nuevo marcador se calcula a partir del actual y se agrega al historial antes de reemplazar el de memoria. Si el
+     * cliente mando la version que tenia del partido y no es la actual, o si otra instancia ya agrego un punto con la
+     * misma secuencia, con la politica RECHAZAR se arroja ConflictoVersionException con el partido actual y con
+     * REINTENTAR se vuelve a calcular el punto sobre el marcador mas reciente (releido de la base, hasta
+     * reintentosMaximos veces).
+     */
+    public ResultadoPuntoDTO sumarPunto(Long id, ModoJugador modo, Long versionEsperada, PoliticaConflicto politica) {
+        return ejecutor.ejecutar(id, () -> this.sumarPuntoEnShard(id, modo, versionEsperada, politica));
+    }
+
+    private ResultadoPuntoDTO sumarPuntoEnShard(Long id, ModoJugador modo, Long versionEsperada, PoliticaConflicto politica) {
+        PoliticaConflicto politicaAplicada = politica != null ? politica : politicaPorDefecto;
+        PartidoEnVivo partido = this.obtener(id, versionEsperada);
+        int reintentos = 0;
+        MarcadorPartido nuevo;
+        while (true) {
+            MarcadorPartido actual = partido.marcador.get();
+            if (!Estado.EN_CURSO.equals(actual.getEstado())) {
+                throw new DatoInvalidoException(PARTIDO_NO_EN_CURSO, null, PARTIDO_WITH_ID + id + NOT_IN_PROGRESS);
+            }
+            boolean desactualizado = versionEsperada != null && versionEsperada != actual.getVersion();
+            if (desactualizado && politicaAplicada == PoliticaConflicto.RECHAZAR) {
+                throw this.conflicto(id, partido, actual);
+            }
+            nuevo = actual.sumarPunto(modo);
+            if (this.guardar(id, partido, nuevo, modo)) {
+                if (desactualizado) {
+                    reintentos++;
+                }
+                break;
+            }
+            //Otra instancia agrego puntos al partido: se relee de la base y se decide en este mismo pedido
+            partido = this.recargar(id, partido);
+            if (politicaAplicada == PoliticaConflicto.RECHAZAR || reintentos >= reintentosMaximos) {
+                throw this.conflicto(id, partido, partido.marcador.get());
+            }
+            reintentos++;
+        }
+
+        PartidoDTO actualizado = nuevo.aplicarA(partido.copiarDatos());
+        this.publicar(actualizado);
+        return new ResultadoPuntoDTO(actualizado, politicaAplicada, reintentos);
+    }
+
+    /*
+     * Pisa el marcador del DTO recibido con el marcador en vivo, si el partido esta en memoria y la base no tiene una
+     * version mas nueva (la escribio otra instancia). Se usa en las lecturas (listados, exportacion, consulta por id),
+     * que corren fuera del hilo del partido: no agrega ni saca partidos de memoria ni lee el historial. Un partido en
+     * curso que no esta en memoria se devuelve con la foto de la base, que cada flush deja al dia, y se carga en su
+     * hilo con el proximo punto
+     */
+    public PartidoDTO actualizar(PartidoDTO partido) {
+        if (partido == null || partido.getId() == null) {
+            return partido;
+        }
+        PartidoEnVivo enVivo = partidos.get(partido.getId());
+        if (enVivo == null) {
+            return partido;
+        }
+        MarcadorPartido marcador = enVivo.marcador.get();
+        if (partido.getVersion() != null && partido.getVersion() > marcador.getVersion()) {
+            return partido;
+        }
+        return marcador.aplicarA(partido);
+    }
+
+    /*
+     * Igual que actualizar(PartidoDTO) pero sobre la proyeccion del marcador de un solo partido: si el partido esta
+     * en curso y no esta en memoria el marcador se reconstruye desde el historial, sin guardarlo en memoria
+     */
+    public MarcadorDTO actualizar(MarcadorDTO marcador) {
+        if (marcador == null || marcador.getIdPartido() == null) {
+            return marcador;
+        }
+        PartidoEnVivo enVivo = partidos.get(marcador.getIdPartido());
+        if (enVivo != null) {
+            MarcadorPartido actual = enVivo.marcador.get();
+            if (marcador.getVersion() == null || marcador.getVersion() <= actual.getVersion()) {
+                return actual.aplicarA(marcador);
+            }
+        }
+        if (!Estado.EN_CURSO.equals(marcador.getEstado())) {
+            return marcador;
+        }
+        return historialPuntos.reconstruir(marcador.getIdPartido(), MarcadorPartido.de(marcador)).aplicarA(marcador);
+    }
+
+    /*
+     * Version que tendria el partido despues de actualizar(PartidoDTO) a partir de la version de su fila, sin armar
+     * el DTO: la del marcador en memoria o, si no esta en memoria, la de la fila. Se usa para el ETag del partido y
+     * del marcador, asi nunca es mas nueva que el partido que se devuelve con ella (la proyeccion del marcador, que
+     * se reconstruye desde el historial, puede ser mas nueva que su ETag pero nunca mas vieja)
+     */
+    public long version(Long id, long versionFila) {
+        PartidoEnVivo enVivo = partidos.get(id);
+        if (enVivo != null) {
+            long version = enVivo.marcador.get().getVersion();
+            if (versionFila <= version) {
+                return version;
+            }
+        }
+        return versionFila;
+    }
+
+    /*
+     * Guarda la foto del marcador de los partidos que sumaron puntos desde el ultimo flush. Los partidos pendientes
+     * se reparten por hilo y cada hilo guarda las fotos de los suyos; se espera a que terminen todos
+     */
+    @Scheduled(fixedDelayString = "${springtennis.marcador.flush-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        Map<Integer, List<Long>> porShard = new HashMap<>();
+        for (Long id : pendientes) {
+            pendientes.remove(id);
+            porShard.computeIfAbsent(ejecutor.shard(id), shard -> new ArrayList<>()).add(id);
+        }
+        CompletableFuture.allOf(porShard.entrySet().stream()
+                .map(lote -> ejecutor.enviar(lote.getKey(), () -> this.guardarFotos(lote.getValue())))
+                .toArray(CompletableFuture[]::new)).join();
+    }
+
+    /*
+     * Guarda las fotos de los partidos de un mismo hilo en una sola transaccion. Si la transaccion falla se guarda la
+     * de cada partido por separado, para que el problema de un partido no demore a los demas. Si otra instancia ya
+     * guardo una foto mas nueva se saca el partido de memoria, sin perder nada: todos sus puntos estan en el
+     * historial y el proximo punto lo vuelve a leer de la base
+     */
+    private void guardarFotos(List<Long> ids) {
+        List<PartidoEnVivo> enLote = new ArrayList<>(ids.size());
+        List<HistorialPuntos.Escritura> escrituras = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PartidoEnVivo partido = partidos.get(id);
+            if (partido == null || partido.marcador.get().getVersion() == partido.versionFoto) {
+                continue;
+            }
+            enLote.add(partido);
+            escrituras.add(new HistorialPuntos.Escritura(id, Collections.emptyList(), partido.marcador.get(),
+                    partido.versionFoto));
+        }
+        if (escrituras.size() > 1) {
+            try {
+                historialPuntos.guardarLote(escrituras);
+                for (int i = 0; i < escrituras.size(); i++) {
+                    enLote.get(i).versionFoto = escrituras.get(i).getFoto().getVersion();
+                }
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.debug("No se pudieron guardar las fotos de {} partidos en un lote, se guardan de a una", escrituras.size(), e);
+            }
+        }
+        for (int i = 0; i < escrituras.size(); i++) {
+            HistorialPuntos.Escritura escritura = escrituras.get(i);
+            PartidoEnVivo partido = enLote.get(i);
+            try {
+                historialPuntos.guardar(escritura.getIdPartido(), escritura.getPuntos(), escritura.getFoto(), escritura.getVersionFoto());
+                partido.versionFoto = escritura.getFoto().getVersion();
+            } catch (ConflictoVersionException e) {
+                partidos.remove(escritura.getIdPartido(), partido);
+                LOGGER.debug(e.getMessage());
+            } catch (RuntimeException e) {
+                pendientes.add(escritura.getIdPartido());
+                LOGGER.warn("No se pudo guardar la foto del marcador del partido {}", escritura.getIdPartido(), e);
+            }
+        }
+    }
+
+    private PartidoEnVivo obtener(Long id, Long versionEsperada) {
+        PartidoEnVivo enMemoria = partidos.get(id);
+        //El cliente vio una version mas nueva que la de memoria: la escribio otra instancia, se vuelve a leer
+        if (enMemoria != null && versionEsperada != null && versionEsperada > enMemoria.marcador.get().getVersion()) {
+            return this.recargar(id, enMemoria);
+        }
+        return partidos.computeIfAbsent(id, this::cargar);
+    }
+
+    private PartidoEnVivo cargar(Long id) {
+        Partido partido = partidoRepository.findById(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST));
+        if (!Estado.EN_CURSO.equals(partido.getEstado())) {
+            throw new DatoInvalidoException(PARTIDO_NO_EN_CURSO, null, PARTIDO_WITH_ID + id + NOT_IN_PROGRESS);
+        }
+        MarcadorPartido foto = MarcadorPartido.de(partido);
+        return new PartidoEnVivo(partidoMapper.toDTO(partido), historialPuntos.reconstruir(id, foto), foto.getVersion());
+    }
+
+    /*
+     * Vuelve a leer el partido de la base (foto mas historial) y reemplaza al que estaba en memoria. Si ya no esta en
+     * curso (lo termino otra instancia) se lo saca de memoria, y el punto que se estaba sumando falla al validar el estado
+     */
+    private PartidoEnVivo recargar(Long id, PartidoEnVivo anterior) {
+        Partido enBase = partidoRepository.findById(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST));
+        MarcadorPartido foto = MarcadorPartido.de(enBase);
+        PartidoEnVivo partido = new PartidoEnVivo(partidoMapper.toDTO(enBase), historialPuntos.reconstruir(id, foto),
+                foto.getVersion());
+        if (Estado.EN_CURSO.equals(partido.marcador.get().getEstado())) {
+            partidos.put(id, partido);
+        } else {
+            partidos.remove(id, anterior);
+        }
+        return partido;
+    }
+
+    /*
+     * Agrega el punto al historial y, solo si se guardo, lo aplica al marcador en memoria. Si el punto termina el
+     * partido se guarda en la misma transaccion la foto final y se saca el partido de memoria. Se ejecuta en el hilo
+     * del partido. Devuelve false, sin cambiar nada, si otra instancia ya agrego un punto con la misma secuencia o
+     * cambio la foto
+     */
+    private boolean guardar(Long id, PartidoEnVivo partido, MarcadorPartido nuevo, ModoJugador modo) {
+        boolean finalizado = Estado.FINALIZADO.equals(nuevo.getEstado());
+        try {
+            historialPuntos.guardar(id, Collections.singletonList(new PuntoPartido(id, nuevo.getVersion(), modo, new Date())),
+                    finalizado ? nuevo : null, partido.versionFoto);
+        } catch (ConflictoVersionException | DataIntegrityViolationException e) {
+            LOGGER.debug("Conflicto al sumar el punto {} del partido {}", nuevo.getVersion(), id, e);
+            return false;
+        }
+        partido.marcador.set(nuevo);
+        if (finalizado) {
+            partido.versionFoto = nuevo.getVersion();
+            partidos.remove(id, partido);
+        } else {
+            pendientes.add(id);
+        }
+        return true;
+    }
+
+    private void publicar(PartidoDTO partido) {
+        eventPublisher.publishEvent(new MarcadorActualizadoEvent(MarcadorDTO.de(partido)));
+    }
+
+    private ConflictoVersionException conflicto(Long id, PartidoEnVivo partido, MarcadorPartido actual) {
+        return new ConflictoVersionException(PARTIDO_WITH_ID + id + CONFLICT + actual.getVersion() + ".",
+                actual.aplicarA(partido.copiarDatos()));
+    }
+
+    /* Partido en curso: datos fijos (jugadores, cancha, fecha), su marcador actual y la version de su ultima foto */
+    private static final class PartidoEnVivo {
+        private final PartidoDTO datos;
+        private final AtomicReference<MarcadorPartido> marcador;
+        //Solo se lee y se escribe en el hilo del partido
+        private long versionFoto;
+
+        private PartidoEnVivo(PartidoDTO datos, MarcadorPartido marcador, long versionFoto) {
+            this.datos = datos;
+            this.marcador = new AtomicReference<>(marcador);
+            this.versionFoto = versionFoto;
+        }
+
+        private static PartidoDTO copiar(PartidoDTO datos) {
+            PartidoDTO copia = new PartidoDTO();
+            copia.setId(datos.getId());
+            copia.setFechaComienzo(datos.getFechaComienzo());
+            copia.setJugadorLocal(datos.getJugadorLocal());
+            copia.setJugadorVisitante(datos.getJugadorVisitante());
+            copia.setCancha(datos.getCancha());
+            return copia;
+        }
+
+        private PartidoDTO copiarDatos() {
+            return copiar(datos);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.MarcadorCompactoDTO;
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.model.Partido;
+
+/**
+ * <p>Marcador de un partido</p>
+ * Valor inmutable con el puntaje de un partido (puntos del game actual, games, sets, saque y estado).
+ * Sumar un punto no modifica el marcador sino que devuelve uno nuevo, de esta forma el marcador
+ * en vivo se reemplaza de manera atomica y las lecturas de otros hilos nunca ven un marcador a medio armar.
+ * Cada punto incrementa la version del marcador, que es la misma que se guarda en la columna
+ * version del partido, asi los clientes y las otras instancias pueden detectar cambios concurrentes.
+ * El puntaje se guarda empaquetado en un long y lo calcula MotorMarcador, los games de los sets terminados
+ * se guardan en otro long que solo cambia cuando termina un set.
+ */
+public final class MarcadorPartido {
+
+    private final long puntaje;
+    private final long sets;
+    private final long version;
+
+    public MarcadorPartido(int scoreLocal, int scoreVisitante, int cantidadGamesLocal, int cantidadGamesVisitante, Estado estado,
+                           long version) {
+        this(MotorMarcador.empaquetar(scoreLocal, scoreVisitante, cantidadGamesLocal, cantidadGamesVisitante, estado), 0L, version);
+    }
+
+    private MarcadorPartido(long puntaje, long sets, long version) {
+        this.puntaje = puntaje;
+        this.sets = sets;
+        this.version = version;
+    }
+
+    public static MarcadorPartido de(Partido partido) {
+        return new MarcadorPartido(MotorMarcador.empaquetar(partido.getScoreLocal(), partido.getScoreVisitante(),
+                partido.getCantidadGamesLocal(), partido.getCantidadGamesVisitante(), partido.getSetsLocal(),
+                partido.getSetsVisitante(), partido.getSaca(), partido.getEstado(), partido.getFormato(), partido.isSinVentaja()),
+                MotorMarcador.leerSets(partido.getResultadoSets()),
+                partido.getVersion() != null ? partido.getVersion() : 0L);
+    }
+
+    public static MarcadorPartido de(PartidoDTO partido) {
+        return new MarcadorPartido(MotorMarcador.empaquetar(partido.getScoreLocal(), partido.getScoreVisitante(),
+                partido.getCantidadGamesLocal(), partido.getCantidadGamesVisitante(), partido.getSetsLocal(),
+                partido.getSetsVisitante(), partido.getSaca(), partido.getEstado(), partido.getFormato(), partido.isSinVentaja()),
+                MotorMarcador.leerSets(partido.getResultadoSets()), partido.getVersion() != null ? partido.getVersion() : 0L);
+    }
+
+    /* Marcador compacto para los tableros, empaquetado igual que el marcador en vivo */
+    public static MarcadorCompactoDTO compacto(MarcadorDTO marcador) {
+        long empaquetado = MotorMarcador.empaquetar(marcador.getScoreLocal(), marcador.getScoreVisitante(),
+                marcador.getCantidadGamesLocal(), marcador.getCantidadGamesVisitante(), marcador.getSetsLocal(),
+                marcador.getSetsVisitante(), marcador.getSaca(), marcador.getEstado(), marcador.getFormato(),
+                marcador.isSinVentaja());
+        return new MarcadorCompactoDTO(marcador.getIdPartido(), marcador.getVersion(), marcador.getEstado(), empaquetado,
+                MotorMarcador.leerSets(marcador.getResultadoSets()));
+    }
+
+    public static MarcadorPartido de(MarcadorDTO marcador) {
+        return new MarcadorPartido(MotorMarcador.empaquetar(marcador.getScoreLocal(), marcador.getScoreVisitante(),
+                marcador.getCantidadGamesLocal(), marcador.getCantidadGamesVisitante(), marcador.getSetsLocal(),
+                marcador.getSetsVisitante(), marcador.getSaca(), marcador.getEstado(), marcador.getFormato(), marcador.isSinVentaja()),
+                MotorMarcador.leerSets(marcador.getResultadoSets()), marcador.getVersion() != null ? marcador.getVersion() : 0L);
+    }
+
+    /*
+     * Devuelve el marcador que resulta de sumarle un punto al jugador recibido (ver MotorMarcador.sumarPunto).
+     * Si el puntaje de partida no es posible arroja DatoInvalidoException
+     */
+    public MarcadorPartido sumarPunto(ModoJugador modo) {
+        long siguiente = MotorMarcador.sumarPunto(puntaje, modo);
+        return new MarcadorPartido(siguiente, MotorMarcador.registrarSet(sets, puntaje, siguiente), version + 1);
+    }
+
+    /* Copia el marcador sobre el DTO recibido, incluyendo la descripcion de los puntos del game actual */
+    public PartidoDTO aplicarA(PartidoDTO partido) {
+        partido.setEstado(this.getEstado());
+        partido.setScoreLocal(this.getScoreLocal());
+        partido.setPuntosGameActualLocal(getPuntosGameActualLocal());
+        partido.setCantidadGamesLocal(this.getCantidadGamesLocal());
+        partido.setScoreVisitante(this.getScoreVisitante());
+        partido.setPuntosGameActualVisitante(getPuntosGameActualVisitante());
+        partido.setCantidadGamesVisitante(this.getCantidadGamesVisitante());
+        partido.setFormato(this.getFormato());
+        partido.setSinVentaja(this.isSinVentaja());
+        partido.setSetsLocal(this.getSetsLocal());
+        partido.setSetsVisitante(this.getSetsVisitante());
+        partido.setResultadoSets(this.getResultadoSets());
+        partido.setSaca(this.getSaca());
+        partido.setVersion(version);
+        return partido;
+    }
+
+    public MarcadorDTO aplicarA(MarcadorDTO marcador) {
+        marcador.setEstado(this.getEstado());
+        marcador.setScoreLocal(this.getScoreLocal());
+        marcador.setPuntosGameActualLocal(getPuntosGameActualLocal());
+        marcador.setCantidadGamesLocal(this.getCantidadGamesLocal());
+        marcador.setScoreVisitante(this.getScoreVisitante());
+        marcador.setPuntosGameActualVisitante(getPuntosGameActualVisitante());
+        marcador.setCantidadGamesVisitante(this.getCantidadGamesVisitante());
+        marcador.setFormato(this.getFormato());
+        marcador.setSinVentaja(this.isSinVentaja());
+        marcador.setSetsLocal(this.getSetsLocal());
+        marcador.setSetsVisitante(this.getSetsVisitante());
+        marcador.setResultadoSets(this.getResultadoSets());
+        marcador.setSaca(this.getSaca());
+        marcador.setVersion(version);
+        return marcador;
+    }
+
+    public static String traducir(int puntos) {
+        return MotorMarcador.traducir(puntos);
+    }
+
+    /* Getters */
+
+    public int getScoreLocal() {
+        return MotorMarcador.scoreLocal(puntaje);
+    }
+
+    public int getScoreVisitante() {
+        return MotorMarcador.scoreVisitante(puntaje);
+    }
+
+    public int getCantidadGamesLocal() {
+        return MotorMarcador.gamesLocal(puntaje);
+    }
+
+    public int getCantidadGamesVisitante() {
+        return MotorMarcador.gamesVisitante(puntaje);
+    }
+
+    public int getSetsLocal() {
+        return MotorMarcador.setsLocal(puntaje);
+    }
+
+    public int getSetsVisitante() {
+        return MotorMarcador.setsVisitante(puntaje);
+    }
+
+    /* Games de los sets terminados, con el formato "6-4 3-6" */
+    public String getResultadoSets() {
+        return MotorMarcador.describirSets(sets, getSetsLocal() + getSetsVisitante());
+    }
+
+    public boolean isEnTiebreak() {
+        return MotorMarcador.enTiebreak(puntaje);
+    }
+
+    public FormatoPartido getFormato() {
+        return MotorMarcador.formato(puntaje);
+    }
+
+    public boolean isSinVentaja() {
+        return MotorMarcador.sinVentaja(puntaje);
+    }
+
+    public Estado getEstado() {
+        return MotorMarcador.estado(puntaje);
+    }
+
+    public ModoJugador getSaca() {
+        return MotorMarcador.saca(puntaje);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getPuntosGameActualLocal() {
+        return MotorMarcador.describirPuntos(puntaje, this.getScoreLocal());
+    }
+
+    public String getPuntosGameActualVisitante() {
+        return MotorMarcador.describirPuntos(puntaje, this.getScoreVisitante());
+    }
+}
@@ -0,0 +1,381 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+
+import static com.baufest.tennis.springtennis.service.PartidoServiceImpl.*;
+
+/**
+ * <p>Motor de puntaje</p>
+ * Calcula los puntos de un partido sobre un marcador empaquetado en un long, sin crear objetos:
+ * <pre>
+ *  bits  0-7   puntos del game actual del local (SCORE_0 ... SCORE_ADV, o los puntos del tiebreak)
+ *  bits  8-15  puntos del game actual del visitante
+ *  bits 16-19  games del local en el set actual
+ *  bits 20-23  games del visitante en el set actual
+ *  bits 24-26  sets ganados por el local
+ *  bits 27-29  sets ganados por el visitante
+ *  bit  30     tiebreak en juego
+ *  bit  31     saca el visitante (0 saca el local)
+ *  bits 32-33  estado del partido (ordinal de Estado)
+ *  bits 34-35  formato del partido (ordinal de FormatoPartido)
+ *  bit  36     games sin ventaja (en 40-40 el siguiente punto gana el game)
+ * </pre>
+ * Las transiciones de un game se calculan una sola vez al cargar la clase en una tabla indexada por el puntaje
+ * de cada jugador y por quien gana el punto, asi sumar un punto es una lectura de la tabla y operaciones de bits.
+ * Los tiebreaks se cuentan punto a punto y el fin de game, set y partido se resuelve con los contadores del marcador,
+ * sin mirar los puntos anteriores.
+ * El resultado de los sets terminados se guarda aparte, en otro long con 8 bits por set (4 del local y 4 del
+ * visitante), que se actualiza con registrarSet.
+ * No depende de Spring, se usa desde MarcadorPartido y desde Partido.
+ */
+public final class MotorMarcador {
+
+    //Descripcion de cada puntaje, el indice es el puntaje (SCORE_0 ... SCORE_ADV)
+    private static final String[] DESCRIPCIONES = {"0", "15", "30", "40", "Adv"};
+
+    //Descripcion de los puntos de un tiebreak, para no crear el String en cada punto
+    private static final String[] NUMEROS = new String[32];
+
+    //Games que hay que ganar para llevarse un set y puntos para ganar un tiebreak y un match tiebreak
+    private static final int GAMES_POR_SET = 6;
+    private static final int PUNTOS_TIEBREAK = 7;
+    private static final int PUNTOS_SUPER_TIEBREAK = 10;
+
+    private static final int BITS_PUNTOS_VISITANTE = 8;
+    private static final int BITS_GAMES_LOCAL = 16;
+    private static final int BITS_GAMES_VISITANTE = 20;
+    private static final int BITS_SETS_LOCAL = 24;
+    private static final int BITS_SETS_VISITANTE = 27;
+    private static final int BITS_TIEBREAK = 30;
+    private static final int BITS_SAQUE = 31;
+    private static final int BITS_ESTADO = 32;
+    private static final int BITS_FORMATO = 34;
+    private static final int BITS_SIN_VENTAJA = 36;
+
+    private static final long MASCARA_BYTE = 0xFFL;
+    private static final long MASCARA_GAMES = 0xFL;
+    private static final long MASCARA_SETS = 0x7L;
+    private static final long MASCARA_ESTADO = 0x3L;
+    private static final long MASCARA_FORMATO = 0x3L;
+    private static final long MASCARA_PUNTOS = 0xFFFFL;
+    private static final long MASCARA_GAMES_DEL_SET = 0xFFL << BITS_GAMES_LOCAL;
+    private static final long UN_GAME_LOCAL = 1L << BITS_GAMES_LOCAL;
+    private static final long UN_GAME_VISITANTE = 1L << BITS_GAMES_VISITANTE;
+    private static final long UN_SET_LOCAL = 1L << BITS_SETS_LOCAL;
+    private static final long UN_SET_VISITANTE = 1L << BITS_SETS_VISITANTE;
+    private static final long TIEBREAK = 1L << BITS_TIEBREAK;
+    private static final long SAQUE = 1L << BITS_SAQUE;
+    private static final long SIN_VENTAJA = 1L << BITS_SIN_VENTAJA;
+
+    private static final Estado[] ESTADOS = Estado.values();
+    private static final FormatoPartido[] FORMATOS = FormatoPartido.values();
+    private static final long FINALIZADO = (long) Estado.FINALIZADO.ordinal() << BITS_ESTADO;
+
+    //Bits por set en el long con el resultado de los sets terminados
+    private static final int BITS_POR_SET = 8;
+
+    /*
+     * Tablas de transiciones de un game, con ventaja y sin ventaja: el indice es
+     * (puntosLocal * 5 + puntosVisitante) * 2 + ordinal del que gana el punto, el valor son los puntos resultantes
+     * (local en los bits 0-2, visitante en los bits 3-5), en los bits 6-7 quien gano el game (0 nadie, 1 el local,
+     * 2 el visitante) y -1 si el puntaje de partida no es posible
+     */
+    private static final int PUNTAJES = SCORE_ADV + 1;
+    private static final byte IMPOSIBLE = -1;
+    private static final int GANA_LOCAL = 1;
+    private static final int GANA_VISITANTE = 2;
+    private static final byte[] CON_VENTAJA = new byte[PUNTAJES * PUNTAJES * 2];
+    private static final byte[] SIN_VENTAJA_TABLA = new byte[PUNTAJES * PUNTAJES * 2];
+
+    //Se arroja siempre la misma instancia, rechazar un punto tampoco crea objetos
+    private static final DatoInvalidoException PUNTAJE_IMPOSIBLE = new DatoInvalidoException("PUNTAJE_IMPOSIBLE", "modoJugador", SCORE_IMPOSIBLE);
+
+    static {
+        for (int i = 0; i < NUMEROS.length; i++) {
+            NUMEROS[i] = String.valueOf(i);
+        }
+        for (int local = 0; local < PUNTAJES; local++) {
+            for (int visitante = 0; visitante < PUNTAJES; visitante++) {
+                cargar(CON_VENTAJA, local, visitante, transicion(local, visitante), transicion(visitante, local));
+                cargar(SIN_VENTAJA_TABLA, local, visitante, transicionSinVentaja(local, visitante),
+                        transicionSinVentaja(visitante, local));
+            }
+        }
+    }
+
+    private MotorMarcador() {
+    }
+
+    //El punto del visitante es el del local con los jugadores invertidos
+    private static void cargar(byte[] tabla, int local, int visitante, byte puntoLocal, byte puntoVisitante) {
+        tabla[indice(local, visitante, ModoJugador.LOCAL.ordinal())] = puntoLocal;
+        tabla[indice(local, visitante, ModoJugador.VISITANTE.ordinal())] = puntoVisitante == IMPOSIBLE ? IMPOSIBLE
+                : (byte) (((puntoVisitante >> 3) & 0x7) | ((puntoVisitante & 0x7) << 3)
+                | (invertirGanador((puntoVisitante >> 6) & 0x3) << 6));
+    }
+
+    /*
+     * Punto ganado por el jugador "ganador" contra "rival": si el rival tiene ventaja se la saca (vuelven a estar
+     * iguales en 40), si no se suma el punto. Con la ventaja y dos puntos de diferencia se gana el game
+     */
+    private static byte transicion(int ganador, int rival) {
+        if (rival == SCORE_ADV) {
+            return ganador != SCORE_40 ? IMPOSIBLE : (byte) (ganador | ((rival - 1) << 3));
+        }
+        if (ganador == SCORE_ADV && rival != SCORE_40) {
+            return IMPOSIBLE;
+        }
+        int puntos = ganador + 1;
+        if (puntos - rival >= 2 && puntos >= SCORE_ADV) {
+            return (byte) (GANA_LOCAL << 6);
+        }
+        return (byte) (puntos | (rival << 3));
+    }
+
+    /* Sin ventaja no existe el puntaje Adv, el punto ganado en 40 siempre gana el game */
+    private static byte transicionSinVentaja(int ganador, int rival) {
+        if (ganador == SCORE_ADV || rival == SCORE_ADV) {
+            return IMPOSIBLE;
+        }
+        return ganador == SCORE_40 ? (byte) (GANA_LOCAL << 6) : (byte) ((ganador + 1) | (rival << 3));
+    }
+
+    private static int invertirGanador(int ganador) {
+        return ganador == GANA_LOCAL ? GANA_VISITANTE : ganador == GANA_VISITANTE ? GANA_LOCAL : 0;
+    }
+
+    private static int indice(int local, int visitante, int modo) {
+        return (local * PUNTAJES + visitante) * 2 + modo;
+    }
+
+    /* Marcador de un partido a un solo set, sacando el local */
+    public static long empaquetar(int scoreLocal, int scoreVisitante, int gamesLocal, int gamesVisitante, Estado estado) {
+        return empaquetar(scoreLocal, scoreVisitante, gamesLocal, gamesVisitante, 0, 0, ModoJugador.LOCAL, estado,
+                FormatoPartido.SET_UNICO, false);
+    }
+
+    /*
+     * Empaqueta el marcador recibido. Si el formato es null se usa SET_UNICO, si saca es null saca el local.
+     * El tiebreak no se recibe porque se deduce de los games (6-6) y, en el match tiebreak, de los sets
+     */
+    public static long empaquetar(int scoreLocal, int scoreVisitante, int gamesLocal, int gamesVisitante, int setsLocal,
+                                  int setsVisitante, ModoJugador saca, Estado estado, FormatoPartido formato, boolean sinVentaja) {
+        FormatoPartido formatoPartido = formato != null ? formato : FormatoPartido.SET_UNICO;
+        long marcador = (scoreLocal & MASCARA_BYTE)
+                | (scoreVisitante & MASCARA_BYTE) << BITS_PUNTOS_VISITANTE
+                | (gamesLocal & MASCARA_GAMES) << BITS_GAMES_LOCAL
+                | (gamesVisitante & MASCARA_GAMES) << BITS_GAMES_VISITANTE
+                | (setsLocal & MASCARA_SETS) << BITS_SETS_LOCAL
+                | (setsVisitante & MASCARA_SETS) << BITS_SETS_VISITANTE
+                | (saca == ModoJugador.VISITANTE ? SAQUE : 0L)
+                | (long) (estado != null ? estado : Estado.NO_INICIADO).ordinal() << BITS_ESTADO
+                | (long) formatoPartido.ordinal() << BITS_FORMATO
+                | (sinVentaja ? SIN_VENTAJA : 0L);
+        boolean tiebreak = formatoPartido != FormatoPartido.SET_UNICO
+                && (gamesLocal == GAMES_POR_SET && gamesVisitante == GAMES_POR_SET || esSuperTiebreak(marcador));
+        return tiebreak ? marcador | TIEBREAK : marcador;
+    }
+
+    /*
+     * Devuelve el marcador que resulta de sumarle un punto al jugador recibido. Al ganar un game se suma el game,
+     * se vuelven los puntos a 0 y cambia el saque; en 6-6 se juega un tiebreak, y al ganar los sets del formato
+     * se finaliza el partido. Si el puntaje de partida no es posible arroja DatoInvalidoException
+     */
+    public static long sumarPunto(long marcador, ModoJugador modo) {
+        boolean local = modo == ModoJugador.LOCAL;
+        if (enTiebreak(marcador)) {
+            return puntoDeTiebreak(marcador, local);
+        }
+        int puntosLocal = scoreLocal(marcador);
+        int puntosVisitante = scoreVisitante(marcador);
+        if (puntosLocal >= PUNTAJES || puntosVisitante >= PUNTAJES) {
+            throw PUNTAJE_IMPOSIBLE;
+        }
+        byte[] tabla = sinVentaja(marcador) ? SIN_VENTAJA_TABLA : CON_VENTAJA;
+        byte transicion = tabla[indice(puntosLocal, puntosVisitante, modo.ordinal())];
+        if (transicion == IMPOSIBLE) {
+            throw PUNTAJE_IMPOSIBLE;
+        }
+        int ganador = (transicion >> 6) & 0x3;
+        long resto = marcador & ~MASCARA_PUNTOS;
+        if (ganador == 0) {
+            return resto | (transicion & 0x7) | (long) ((transicion >> 3) & 0x7) << BITS_PUNTOS_VISITANTE;
+        }
+        return ganarGame(resto, ganador == GANA_LOCAL);
+    }
+
+    /*
+     * En el tiebreak saca primero el que seguia en la rotacion, despues del primer punto el saque cambia cada dos
+     * puntos, y el set siguiente lo empieza a sacar el que recibio el primer punto del tiebreak
+     */
+    private static long puntoDeTiebreak(long marcador, boolean local) {
+        int jugadosAntes = scoreLocal(marcador) + scoreVisitante(marcador);
+        int puntosLocal = scoreLocal(marcador) + (local ? 1 : 0);
+        int puntosVisitante = scoreVisitante(marcador) + (local ? 0 : 1);
+        int ganados = local ? puntosLocal : puntosVisitante;
+        int perdidos = local ? puntosVisitante : puntosLocal;
+        int objetivo = esSuperTiebreak(marcador) ? PUNTOS_SUPER_TIEBREAK : PUNTOS_TIEBREAK;
+        if (ganados >= objetivo && ganados - perdidos >= 2) {
+            long primerSaque = (marcador & SAQUE) ^ (((jugadosAntes + 1) / 2) % 2 == 1 ? SAQUE : 0L);
+            long conGame = (marcador & ~MASCARA_PUNTOS) + (local ? UN_GAME_LOCAL : UN_GAME_VISITANTE);
+            return ganarSet(conGame, local, primerSaque ^ SAQUE);
+        }
+        //Un tiebreak muy largo se normaliza para que los puntos entren en 8 bits, sin cambiar la diferencia ni el saque
+        if (puntosLocal > 200 && puntosVisitante > 200) {
+            puntosLocal -= 100;
+            puntosVisitante -= 100;
+        }
+        long saque = (jugadosAntes + 1) % 2 == 1 ? SAQUE : 0L;
+        return ((marcador & ~MASCARA_PUNTOS) | puntosLocal | (long) puntosVisitante << BITS_PUNTOS_VISITANTE) ^ saque;
+    }
+
+    private static long ganarGame(long marcador, boolean local) {
+        long conGame = (marcador + (local ? UN_GAME_LOCAL : UN_GAME_VISITANTE)) ^ SAQUE;
+        int gamesLocal = gamesLocal(conGame);
+        int gamesVisitante = gamesVisitante(conGame);
+        int ganador = local ? gamesLocal : gamesVisitante;
+        int rival = local ? gamesVisitante : gamesLocal;
+        if (formato(conGame) == FormatoPartido.SET_UNICO) {
+            return ganador == GAMES_POR_SET ? ganarSet(conGame, local, conGame & SAQUE) : conGame;
+        }
+        if (ganador >= GAMES_POR_SET && ganador - rival >= 2) {
+            return ganarSet(conGame, local, conGame & SAQUE);
+        }
+        if (gamesLocal == GAMES_POR_SET && gamesVisitante == GAMES_POR_SET) {
+            return conGame | TIEBREAK;
+        }
+        return conGame;
+    }
+
+    /*
+     * Suma el set al ganador. Si llego a los sets del formato el partido finaliza y quedan los games del ultimo set,
+     * si no se empieza un set nuevo (con match tiebreak si corresponde) sacando el jugador recibido
+     */
+    private static long ganarSet(long marcador, boolean local, long saque) {
+        long conSet = (marcador & ~TIEBREAK) + (local ? UN_SET_LOCAL : UN_SET_VISITANTE);
+        int sets = local ? setsLocal(conSet) : setsVisitante(conSet);
+        if (sets == formato(conSet).getSetsParaGanar()) {
+            return (conSet & ~(MASCARA_ESTADO << BITS_ESTADO)) | FINALIZADO;
+        }
+        long nuevoSet = (conSet & ~MASCARA_GAMES_DEL_SET & ~SAQUE) | saque;
+        return esSuperTiebreak(nuevoSet) ? nuevoSet | TIEBREAK : nuevoSet;
+    }
+
+    /* En el formato con match tiebreak, el set decisivo (sets iguales a uno de ganar) es un tiebreak a 10 puntos */
+    private static boolean esSuperTiebreak(long marcador) {
+        FormatoPartido formato = formato(marcador);
+        int decisivo = formato.getSetsParaGanar() - 1;
+        return formato.isSuperTiebreak() && setsLocal(marcador) == decisivo && setsVisitante(marcador) == decisivo;
+    }
+
+    /*
+     * Si del marcador anterior al nuevo se termino un set, agrega su resultado (los games del set mas el game
+     * que lo cerro) a los sets terminados. Los sets se guardan en orden, 8 bits por set
+     */
+    public static long registrarSet(long sets, long anterior, long nuevo) {
+        int jugados = setsLocal(anterior) + setsVisitante(anterior);
+        if (setsLocal(nuevo) + setsVisitante(nuevo) == jugados) {
+            return sets;
+        }
+        boolean ganoLocal = setsLocal(nuevo) > setsLocal(anterior);
+        long gamesLocal = gamesLocal(anterior) + (ganoLocal ? 1 : 0);
+        long gamesVisitante = gamesVisitante(anterior) + (ganoLocal ? 0 : 1);
+        return sets | (gamesLocal | gamesVisitante << 4) << (jugados * BITS_POR_SET);
+    }
+
+    /* Resultado de los sets terminados con el formato "6-4 3-6" */
+    public static String describirSets(long sets, int cantidad) {
+        StringBuilder descripcion = new StringBuilder(cantidad * 4);
+        for (int i = 0; i < cantidad; i++) {
+            long set = sets >>> (i * BITS_POR_SET);
+            if (i > 0) {
+                descripcion.append(' ');
+            }
+            descripcion.append(set & MASCARA_GAMES).append('-').append(set >>> 4 & MASCARA_GAMES);
+        }
+        return descripcion.toString();
+    }
+
+    /* Lee el resultado de los sets con el formato de describirSets, si no es valido arroja DatoInvalidoException */
+    public static long leerSets(String descripcion) {
+        long sets = 0L;
+        if (descripcion == null || descripcion.trim().isEmpty()) {
+            return sets;
+        }
+        String[] resultados = descripcion.trim().split("\\s+");
+        for (int i = 0; i < resultados.length; i++) {
+            String[] games = resultados[i].split("-");
+            if (games.length != 2 || i * BITS_POR_SET >= Long.SIZE) {
+                throw PUNTAJE_IMPOSIBLE;
+            }
+            try {
+                long set = Long.parseLong(games[0]) & MASCARA_GAMES | (Long.parseLong(games[1]) & MASCARA_GAMES) << 4;
+                sets |= set << (i * BITS_POR_SET);
+            } catch (NumberFormatException e) {
+                throw PUNTAJE_IMPOSIBLE;
+            }
+        }
+        return sets;
+    }
+
+    public static String traducir(int puntos) {
+        return puntos >= 0 && puntos < DESCRIPCIONES.length ? DESCRIPCIONES[puntos] : null;
+    }
+
+    /* Descripcion de los puntos del game actual: 0, 15, 30, 40, Adv o, en un tiebreak, la cantidad de puntos */
+    public static String describirPuntos(long marcador, int puntos) {
+        if (!enTiebreak(marcador)) {
+            return traducir(puntos);
+        }
+        return puntos < NUMEROS.length ? NUMEROS[puntos] : String.valueOf(puntos);
+    }
+
+    /* Lectura de cada campo del marcador */
+
+    public static int scoreLocal(long marcador) {
+        return (int) (marcador & MASCARA_BYTE);
+    }
+
+    public static int scoreVisitante(long marcador) {
+        return (int) (marcador >>> BITS_PUNTOS_VISITANTE & MASCARA_BYTE);
+    }
+
+    public static int gamesLocal(long marcador) {
+        return (int) (marcador >>> BITS_GAMES_LOCAL & MASCARA_GAMES);
+    }
+
+    public static int gamesVisitante(long marcador) {
+        return (int) (marcador >>> BITS_GAMES_VISITANTE & MASCARA_GAMES);
+    }
+
+    public static int setsLocal(long marcador) {
+        return (int) (marcador >>> BITS_SETS_LOCAL & MASCARA_SETS);
+    }
+
+    public static int setsVisitante(long marcador) {
+        return (int) (marcador >>> BITS_SETS_VISITANTE & MASCARA_SETS);
+    }
+
+    public static boolean enTiebreak(long marcador) {
+        return (marcador & TIEBREAK) != 0L;
+    }
+
+    public static ModoJugador saca(long marcador) {
+        return (marcador & SAQUE) == 0L ? ModoJugador.LOCAL : ModoJugador.VISITANTE;
+    }
+
+    public static Estado estado(long marcador) {
+        return ESTADOS[(int) (marcador >>> BITS_ESTADO & MASCARA_ESTADO)];
+    }
+
+    public static FormatoPartido formato(long marcador) {
+        return FORMATOS[(int) (marcador >>> BITS_FORMATO & MASCARA_FORMATO)];
+    }
+
+    public static boolean sinVentaja(long marcador) {
+        return (marcador & SIN_VENTAJA) != 0L;
+    }
+}
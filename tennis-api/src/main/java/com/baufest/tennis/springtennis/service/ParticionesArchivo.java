@@ -0,0 +1,108 @@
+package com.baufest.tennis.springtennis.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Particiones de la tabla de partidos archivados</p>
+ * Con springtennis.archivo.particionado=true (postgres) la tabla partido_archivado se crea particionada por rango de
+ * fecha_comienzo, con una particion por año, y Hibernate no la administra (ver FiltroEsquemaArchivo). Las consultas
+ * del historial filtran por fecha y solo leen las particiones del rango, y un año viejo se puede separar o borrar
+ * entero (detach partition) sin un delete fila por fila. Antes de archivar cada lote se crean las particiones de
+ * los años que abarca; no hay particion por defecto, asi una fila sin particion hace fallar el lote en lugar de
+ * quedar donde despues impide crear la particion de su año.
+ * <p>
+ * La tabla sigue el mismo ciclo de vida que las que crea Hibernate segun spring.jpa.hibernate.ddl-auto: con create o
+ * create-drop se borra y se vuelve a crear al arrancar (y con create-drop tambien se borra al detener la api), porque
+ * partido y punto_partido se recrean y sus ids vuelven a empezar; un archivo que sobreviva tendria filas con los
+ * mismos ids que los partidos nuevos. Con update, validate o none la tabla se conserva junto con las demas.
+ * <p>
+ * Sin particionado (h2) la tabla es la comun que crea Hibernate y este componente no hace nada.
+ */
+@Component
+public class ParticionesArchivo {
+
+    private static final String TABLA = "partido_archivado";
+
+    //Mismas columnas que la entidad PartidoArchivado. La clave primaria tiene que incluir la columna de la particion
+    private static final String CREAR_TABLA = "create table if not exists " + TABLA + " ("
+            + " id int8 not null, fecha_comienzo timestamp not null,"
+            + " id_local int8 not null, nombre_local varchar(255) not null,"
+            + " id_visitante int8 not null, nombre_visitante varchar(255) not null,"
+            + " id_cancha int8 not null, nombre_cancha varchar(255) not null,"
+            + " cantidad_games_local int4 not null, cantidad_games_visitante int4 not null,"
+            + " sets_local int4 not null, sets_visitante int4 not null, resultado_sets varchar(255),"
+            + " formato int4, sin_ventaja boolean not null, version int8,"
+            + " primary key (id, fecha_comienzo)"
+            + ") partition by range (fecha_comienzo)";
+
+    private static final String CREAR_INDICE = "create index if not exists idx_partido_archivado_fecha on "
+            + TABLA + " (fecha_comienzo)";
+
+    private static final String BORRAR_TABLA = "drop table if exists " + TABLA + " cascade";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean particionado;
+    private final String ddlAuto;
+
+    //Años que ya tienen particion, para no repetir el DDL en cada lote
+    private final Set<Integer> creadas = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ParticionesArchivo(JdbcTemplate jdbcTemplate,
+                              @Value("${springtennis.archivo.particionado:false}") boolean particionado,
+                              @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.particionado = particionado;
+        this.ddlAuto = ddlAuto;
+    }
+
+    @PostConstruct
+    public void crearTabla() {
+        if (!particionado) {
+            return;
+        }
+        if ("create".equals(ddlAuto) || "create-drop".equals(ddlAuto)) {
+            jdbcTemplate.execute(BORRAR_TABLA);
+        }
+        jdbcTemplate.execute(CREAR_TABLA);
+        jdbcTemplate.execute(CREAR_INDICE);
+    }
+
+    @PreDestroy
+    public void borrarTabla() {
+        if (particionado && "create-drop".equals(ddlAuto)) {
+            jdbcTemplate.execute(BORRAR_TABLA);
+        }
+    }
+
+    /* Crea las particiones de los años entre las dos fechas, las dos incluidas */
+    public void preparar(Date desde, Date hasta) {
+        if (!particionado) {
+            return;
+        }
+        for (int anio = anio(desde); anio <= anio(hasta); anio++) {
+            if (!creadas.contains(anio)) {
+                jdbcTemplate.execute("create table if not exists " + TABLA + "_" + anio + " partition of " + TABLA
+                        + " for values from ('" + anio + "-01-01') to ('" + (anio + 1) + "-01-01')");
+                creadas.add(anio);
+            }
+        }
+    }
+
+    /* Las fechas se guardan en la zona horaria de la api (timestamp sin zona), el año se toma en la misma zona */
+    private static int anio(Date fecha) {
+        Calendar calendario = Calendar.getInstance();
+        calendario.setTime(fecha);
+        return calendario.get(Calendar.YEAR);
+    }
+}
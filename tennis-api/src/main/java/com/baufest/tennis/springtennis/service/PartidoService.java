@@ -1,10 +1,19 @@
 package com.baufest.tennis.springtennis.service;
 
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
 import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.PuntoPartidoDTO;
+import com.baufest.tennis.springtennis.dto.ResultadoPuntoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
 import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.PoliticaConflicto;
 import com.baufest.tennis.springtennis.model.Partido;
+import com.baufest.tennis.springtennis.repository.VersionPartido;
 
 /**
  * <p>Service de Partido</p>
@@ -13,14 +22,37 @@ import com.baufest.tennis.springtennis.model.Partido;
  * ya que es la forma de declarar al momento de la inyeccion de dependencias que se trata de un service
  */
 public interface PartidoService {
+
+	//Cantidad maxima de partidos que se pueden crear en un mismo lote
+	int MAXIMO_LOTE = 1000;
+
 	/**
 	 * <p>
-	 *     Obtiene el listado de todos los partidos
+	 *     Obtiene una pagina del listado de partidos ordenado por id, empezando despues del cursor recibido.
+	 *     Se puede filtrar por estado y por cancha (null para no filtrar)
 	 * </p>
 	 *
-	 * @return List<PartidoDto>
+	 * @param cursor id del ultimo partido de la pagina anterior, null para la primera pagina
+	 * @param tamano cantidad maxima de partidos de la pagina
+	 * @param estado
+	 * @param idCancha
+	 * @return PaginaDTO<PartidoDto>
 	 */
-	List<PartidoDTO> listAll();
+	PaginaDTO<PartidoDTO> listAll(Long cursor, int tamano, Estado estado, Long idCancha);
+
+	/**
+	 * <p>
+	 *     Recorre los partidos con fecha de comienzo entre desde (inclusive) y hasta (exclusive),
+	 *     opcionalmente de una sola cancha, y se los entrega de a uno al consumidor recibido sin
+	 *     armar la lista completa en memoria. Desde y hasta pueden ser null para no acotar el rango
+	 * </p>
+	 *
+	 * @param desde
+	 * @param hasta
+	 * @param idCancha
+	 * @param consumidor
+	 */
+	void exportar(Date desde, Date hasta, Long idCancha, Consumer<PartidoDTO> consumidor);
 
 	/**
 	 * <p>
@@ -32,6 +64,30 @@ public interface PartidoService {
 	 */
 	PartidoDTO getById(Long id);
 
+	/**
+	 * <p>
+	 *     Obtiene la version del partido de id recibido (para el ETag) sin armar el PartidoDTO: la del partido,
+	 *     con el marcador en vivo si esta en curso, y las de sus jugadores y su cancha. Si no se encuentra
+	 *     ningun partido con el id recibido se hace throw de una exception "NoSuchElementException"
+	 * </p>
+	 *
+	 * @param id
+	 * @return VersionPartido
+	 */
+	VersionPartido getVersion(Long id);
+
+	/**
+	 * <p>
+	 *     Obtiene solo el marcador del partido de id recibido, con el marcador en vivo si esta en curso.
+	 *     Si no se encuentra ningun partido con el id recibido se hace throw de
+	 *     una exception "NoSuchElementException"
+	 * </p>
+	 *
+	 * @param id
+	 * @return MarcadorDTO
+	 */
+	MarcadorDTO getMarcador(Long id);
+
 	/**
 	 * <p>
 	 *     Borra de la base de datos el partido que tiene el id recibido.
@@ -45,13 +101,25 @@ public interface PartidoService {
 	/**
 	 * <p>
 	 *     Guarda el partido recibido. Si el id del partido recibido ya existe en la
-	 *     base se hace throw de una exception "IllegalArgumentException"
+	 *     base se hace throw de una exception "DatoInvalidoException"
 	 * </p>
 	 * @param partido
 	 * @return PartidoDTO
 	 */
     PartidoDTO save(PartidoDTO partido);
 
+	/**
+	 * <p>
+	 *     Guarda todos los partidos recibidos en una sola transaccion. Se validan todos antes de guardar:
+	 *     si alguno no es valido, ya existe, choca con un partido guardado o con otro del mismo lote
+	 *     en la misma cancha, no se guarda ninguno y se hace throw de una exception "DatoInvalidoException"
+	 *     con la posicion y el motivo de cada error
+	 * </p>
+	 * @param partidos
+	 * @return List<PartidoDTO> los partidos guardados, en el mismo orden
+	 */
+	List<PartidoDTO> saveAll(List<PartidoDTO> partidos);
+
 	/**
 	 * <p>
 	 *     Actualiza la información del partido recibido.
@@ -80,4 +148,30 @@ public interface PartidoService {
 	 * @return PartidoDTO
 	 */
 	PartidoDTO sumarPuntos(Long id, ModoJugador modo);
-}
\ No newline at end of file
+
+	/**
+	 * <p>
+	 *     Suma puntos al modo de jugador recibido del partido del id recibido, controlando que el partido
+	 *     siga en la version recibida. Si otro cliente lo modifico antes, con la politica RECHAZAR se hace
+	 *     throw de una exception "ConflictoVersionException" y con REINTENTAR se aplica el punto sobre el
+	 *     marcador actual, informando la cantidad de reintentos
+	 * </p>
+	 * @param id
+	 * @param modo
+	 * @param version version del partido que vio el cliente, null para no controlarla
+	 * @param politica null para usar la politica configurada
+	 * @return ResultadoPuntoDTO
+	 */
+	ResultadoPuntoDTO sumarPuntos(Long id, ModoJugador modo, Long version, PoliticaConflicto politica);
+
+	/**
+	 * <p>
+	 *     Obtiene el historial de puntos del partido de id recibido, en el orden en que se jugaron.
+	 *     Si no se encuentra ningun partido con el id recibido se hace throw de
+	 *     una exception "NoSuchElementException"
+	 * </p>
+	 * @param id
+	 * @return List<PuntoPartidoDTO>
+	 */
+	List<PuntoPartidoDTO> listPuntos(Long id);
+}
@@ -2,18 +2,34 @@ package com.baufest.tennis.springtennis.service;
 
 import com.baufest.tennis.springtennis.dto.CanchaDTO;
 import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
 import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.PuntoPartidoDTO;
+import com.baufest.tennis.springtennis.dto.ResultadoPuntoDTO;
 import com.baufest.tennis.springtennis.enums.Estado;
 import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.PoliticaConflicto;
+import com.baufest.tennis.springtennis.event.PartidoFinalizadoEvent;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.exception.RecursoNoEncontradoException;
 import com.baufest.tennis.springtennis.mapper.PartidoMapper;
+import com.baufest.tennis.springtennis.mapper.PuntoPartidoMapper;
 import com.baufest.tennis.springtennis.model.Partido;
 import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import com.baufest.tennis.springtennis.repository.VersionPartido;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
 
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 //Aca va la anotacion @Service para declarar que es un servicio y pueda ser detectado por el autowired
 @Service
@@ -38,26 +54,36 @@ public class PartidoServiceImpl implements PartidoService {
     private static final String STADIUM_MISSING = "Se debe asignar una cancha.";
     private static final String INVALID_DATE = "La fecha/hora de inicio debe ser mayor o igual a la fecha/hora actual.";
     private static final String INVALID_RAGE = "Debe haber una diferencia de al menos 4 horas entre partidos en una misma cancha.";
+    private static final String BATCH_EMPTY = "Se debe enviar al menos un partido.";
+    private static final String BATCH_TOO_LARGE = "No se pueden crear mas de " + PartidoService.MAXIMO_LOTE + " partidos por lote.";
+    private static final String BATCH_POSITION = "Partido en la posicion ";
+
+    //Errores de validacion con mensaje fijo, se crean una sola vez (no tienen stack trace) y se reutilizan
+    private static final DatoInvalidoException JUGADOR_DUPLICADO = new DatoInvalidoException("JUGADOR_DUPLICADO", "jugadorVisitante", PLAYER_DUPLICATED);
+    private static final DatoInvalidoException JUGADOR_LOCAL_FALTANTE = new DatoInvalidoException("JUGADOR_FALTANTE", "jugadorLocal", PLAYER_MISSING);
+    private static final DatoInvalidoException JUGADOR_VISITANTE_FALTANTE = new DatoInvalidoException("JUGADOR_FALTANTE", "jugadorVisitante", PLAYER_MISSING);
+    private static final DatoInvalidoException CANCHA_FALTANTE = new DatoInvalidoException("CANCHA_FALTANTE", "cancha", STADIUM_MISSING);
+    private static final DatoInvalidoException HORARIO_OCUPADO = new DatoInvalidoException("HORARIO_OCUPADO", "fechaComienzo", INVALID_RAGE);
+    private static final DatoInvalidoException FECHA_PASADA = new DatoInvalidoException("FECHA_PASADA", "fechaComienzo", INVALID_DATE);
+    private static final DatoInvalidoException LOTE_VACIO = new DatoInvalidoException("LOTE_VACIO", null, BATCH_EMPTY);
+    private static final DatoInvalidoException LOTE_DEMASIADO_GRANDE = new DatoInvalidoException("LOTE_DEMASIADO_GRANDE", null, BATCH_TOO_LARGE);
+    static final String YA_EXISTE = "YA_EXISTE";
+    static final String PARTIDO_NO_EN_CURSO = "PARTIDO_NO_EN_CURSO";
+    private static final String PARTIDO_YA_INICIADO = "PARTIDO_YA_INICIADO";
+
+    //31/12/9999, se usa como fin de rango cuando no se recibe una fecha hasta (entra en el rango de timestamp de postgres)
+    private static final long FECHA_MAXIMA = 253402300799999L;
 
     //Estas son las variables donde se alojaran las instanciaciones del repository y el mapper al momento
     //de utilizarlas por medio de Autowired, son final para que no se puedan modificar una vez instanciadas
     private final PartidoRepository partidoRepository;
     private final PartidoMapper partidoMapper;
-
-    //Map utilizado para guardar las descripciones y los distintos puntajes
-    //Este es un hashmap, eso significa que tiene asociado un key y un valor
-    //Por ejemplo el key SCORE_ADV tiene asociado el String Adv
-    //El key SCORE_40 tiene asociado el string 40... etc
-    private static final Map<Integer, String> descriptions = new HashMap<>();
-
-    //Static utilizado para guardar en el map descriptions los valores de los distintos puntajes
-    static {
-        descriptions.put(SCORE_ADV, "Adv");
-        descriptions.put(SCORE_40, "40");
-        descriptions.put(SCORE_30, "30");
-        descriptions.put(SCORE_15, "15");
-        descriptions.put(SCORE_0, "0");
-    }
+    private final AgendaCanchas agendaCanchas;
+    private final EntityManager entityManager;
+    private final MarcadorEnVivo marcadorEnVivo;
+    private final HistorialPuntos historialPuntos;
+    private final PuntoPartidoMapper puntoPartidoMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     /*
     Aca se utiliza la anotacion Autowired, esta anotacion de springboot se encarga de enlazar todos los componentes,
@@ -68,71 +94,143 @@ public class PartidoServiceImpl implements PartidoService {
     of control, No nos llames; nosotros te llamaremos
      */
     @Autowired
-    public PartidoServiceImpl(PartidoRepository partidoRepository, PartidoMapper partidoMapper) {
+    public PartidoServiceImpl(PartidoRepository partidoRepository, PartidoMapper partidoMapper, AgendaCanchas agendaCanchas,
+                              EntityManager entityManager, MarcadorEnVivo marcadorEnVivo, HistorialPuntos historialPuntos,
+                              PuntoPartidoMapper puntoPartidoMapper, ApplicationEventPublisher eventPublisher) {
         this.partidoRepository = partidoRepository;
         this.partidoMapper = partidoMapper;
+        this.agendaCanchas = agendaCanchas;
+        this.entityManager = entityManager;
+        this.marcadorEnVivo = marcadorEnVivo;
+        this.historialPuntos = historialPuntos;
+        this.puntoPartidoMapper = puntoPartidoMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
-    public List<PartidoDTO> listAll() {
+    @Transactional(readOnly = true)
+    public PaginaDTO<PartidoDTO> listAll(Long cursor, int tamano, Estado estado, Long idCancha) {
         /*
-         * Se obtiene una collection de partidos (entidad) del repository,
-         * se transforma a una collection de partidos (DTO) y luego
-         * se lo transforma en un ArrayList para devolverlo al controller*/
-        return partidoRepository.findAll()
-                .stream()
-                .map(this.partidoMapper::toDTO)
-                .collect(Collectors.toList());
+         * Se obtiene del repository solo la pagina pedida (partidos con id mayor al cursor), pidiendo una fila
+         * de mas para saber si existe una pagina siguiente, y se transforman los partidos (entidad) a DTO*/
+        int tamanoPagina = PaginaDTO.tamanoValido(tamano);
+        List<Partido> filas = partidoRepository.findPagina(cursor != null ? cursor : 0L, estado, idCancha,
+                PageRequest.of(0, tamanoPagina + 1));
+        return PaginaDTO.de(filas, tamanoPagina, Partido::getId, this::toDTO);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportar(Date desde, Date hasta, Long idCancha, Consumer<PartidoDTO> consumidor) {
+        /*
+         * Se lee el repository como stream dentro de una transaccion de solo lectura (el stream necesita la conexion
+         * abierta mientras se recorre). Cada partido se transforma a DTO y se entrega al consumidor, y cada
+         * EXPORTACION_FETCH_SIZE filas se limpia el contexto de persistencia para que las entidades ya exportadas
+         * no queden retenidas en memoria, asi el consumo es constante sin importar la cantidad de partidos*/
+        Date inicio = desde != null ? desde : new Date(0L);
+        Date fin = hasta != null ? hasta : new Date(FECHA_MAXIMA);
+        try (Stream<Partido> partidos = partidoRepository.streamExportacion(inicio, fin, idCancha)) {
+            int leidos = 0;
+            Iterator<Partido> iterador = partidos.iterator();
+            while (iterador.hasNext()) {
+                consumidor.accept(this.toDTO(iterador.next()));
+                if (++leidos % PartidoRepository.EXPORTACION_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PartidoDTO getById(Long id) {
         /*Llama al repository en el metodo findById, para obtener una entidad partido, la cual la transforma
          * a DTO con el .map() en caso de que el .map arroje conjunto vacio arroja una excepcion de tipo NoSuchElementException*/
-        return partidoRepository.findById(id).map(this.partidoMapper::toDTO)
-                .orElseThrow(() -> new NoSuchElementException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST));
+        return partidoRepository.findById(id).map(this::toDTO)
+                .orElseThrow(() -> new RecursoNoEncontradoException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public VersionPartido getVersion(Long id) {
+        /*Proyeccion con las versiones del partido, sus jugadores y su cancha; la del partido se corrige con el marcador en vivo*/
+        VersionPartido version = partidoRepository.findVersion(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST));
+        return version.conVersion(this.marcadorEnVivo.version(id, version.getVersion()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MarcadorDTO getMarcador(Long id) {
+        /*Proyeccion con las columnas del marcador, sin leer los jugadores ni la cancha*/
+        return partidoRepository.findMarcador(id).map(this.marcadorEnVivo::actualizar)
+                .orElseThrow(() -> new RecursoNoEncontradoException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST));
+    }
+
+    private PartidoDTO toDTO(Partido partido) {
+        /*Transforma la entidad a DTO y, si el partido esta en curso, le aplica el marcador en vivo,
+        * ya que el marcador guardado en la base puede estar atrasado hasta el proximo flush*/
+        return this.marcadorEnVivo.actualizar(this.partidoMapper.toDTO(partido));
     }
 
     private void validarJugadores(PartidoDTO partido) {
         /*Este metodo sirve para validar que los jugadores del partido sean correctos,
         * primero carga en dos variables el jugador local y el jugador visitante,
-        * luego verifica que sean distinto de null, es decir, existan,
-        * luego verifica en dicho if que el id del jugador local sea diferente al del visitante,
-        * si es el caso arroja una excepcion del tipo IllegalArgumentException, si sale del if padre
-        * significa que el jugador local o el jugador visitante no existen por que son null,
-        * en ese caso arroja un IllegalArgumentException*/
+        * luego verifica que sean distinto de null, es decir, existan, si falta alguno arroja una
+        * DatoInvalidoException con el campo del que falta,
+        * luego verifica que el id del jugador local sea diferente al del visitante,
+        * si es el caso arroja una excepcion del tipo DatoInvalidoException*/
         JugadorDTO jugadorLocal = partido.getJugadorLocal();
         JugadorDTO jugadorVisitante = partido.getJugadorVisitante();
 
-        if (jugadorLocal != null && jugadorVisitante != null) {
-            if (jugadorLocal.getId().equals(jugadorVisitante.getId())) {
-                throw new IllegalArgumentException(PLAYER_DUPLICATED);
-            }
-        } else {
-            throw new IllegalArgumentException(PLAYER_MISSING);
+        if (jugadorLocal == null || jugadorLocal.getId() == null) {
+            throw JUGADOR_LOCAL_FALTANTE;
+        }
+        if (jugadorVisitante == null || jugadorVisitante.getId() == null) {
+            throw JUGADOR_VISITANTE_FALTANTE;
+        }
+        if (jugadorLocal.getId().equals(jugadorVisitante.getId())) {
+            throw JUGADOR_DUPLICADO;
         }
     }
     private void validarCancha(PartidoDTO partido) {
         CanchaDTO canchaDTO = partido.getCancha();
-        if (canchaDTO == null) {
-            throw new IllegalArgumentException(STADIUM_MISSING);
+        if (canchaDTO == null || canchaDTO.getId() == null) {
+            throw CANCHA_FALTANTE;
         }
     }
 
     private void validarHorario(PartidoDTO dto) {
-        Calendar fechaComienzo = Calendar.getInstance();
-        fechaComienzo.setTime(dto.getFechaComienzo());
-        Long idCancha = dto.getCancha().getId();
-
-        for (Partido partido: partidoRepository.findAll()) {
-            Calendar fechaIterador = Calendar.getInstance();
-            fechaIterador.setTime(partido.getFechaComienzo());
-            if(partido.getCancha().getId().equals(idCancha)){
-                if(ChronoUnit.HOURS.between(fechaIterador.toInstant(), fechaComienzo.toInstant())<4){
-                    throw  new IllegalArgumentException(INVALID_RAGE);
-                }
+        /*
+        * Este metodo valida que no haya otro partido en la misma cancha a menos de 4 horas (antes o despues)
+        * de la fecha de comienzo recibida. En lugar de recorrer todos los partidos se consulta la agenda de la cancha,
+        * que solo mira las reservas vecinas. Se excluye el propio partido para que al editarlo no choque consigo mismo*/
+        if (agendaCanchas.hayConflicto(dto.getCancha().getId(), dto.getFechaComienzo(), dto.getId())) {
+            throw HORARIO_OCUPADO;
+        }
+    }
+
+    private List<Integer> horariosOcupadosEnBase(List<PartidoDTO> partidos) {
+        /*
+        * La agenda de canchas es solo un filtro rapido: no ve los partidos que guardaron otras instancias o que se
+        * escribieron fuera de este service. Dentro de la transaccion que guarda los partidos se bloquean sus canchas,
+        * asi dos pedidos para la misma cancha se validan de a uno, y se confirma cada horario contra la base.
+        * Devuelve las posiciones de los partidos cuyo horario esta ocupado*/
+        this.agendaCanchas.bloquear(partidos.stream().map(partido -> partido.getCancha().getId()).collect(Collectors.toSet()));
+        List<Integer> ocupados = new ArrayList<>();
+        for (int i = 0; i < partidos.size(); i++) {
+            PartidoDTO partido = partidos.get(i);
+            if (this.agendaCanchas.hayConflictoEnBase(partido.getCancha().getId(), partido.getFechaComienzo(), partido.getId())) {
+                ocupados.add(i);
             }
         }
+        return ocupados;
+    }
+
+    private void confirmarHorario(PartidoDTO partido) {
+        if (!this.horariosOcupadosEnBase(Collections.singletonList(partido)).isEmpty()) {
+            throw HORARIO_OCUPADO;
+        }
     }
 
     private void validarFechaYHora(PartidoDTO partido) {
@@ -140,10 +238,10 @@ public class PartidoServiceImpl implements PartidoService {
         * Este metodo sirve para validar la fecha y la hora del partido que recibe como parametro,
         * en este caso carga en una variable el horario actual, y en un if compara la fecha de comienzo con
         * el horario actual, se fija que no sea el mismo o que no sea inferior a este, caso positivo arroja un
-        * IllegalArgumentException*/
+        * DatoInvalidoException*/
         Date now = new Date();
         if (partido.getFechaComienzo().compareTo(now) < 0) {
-            throw new IllegalArgumentException(INVALID_DATE);
+            throw FECHA_PASADA;
         }
     }
 
@@ -152,11 +250,11 @@ public class PartidoServiceImpl implements PartidoService {
         * En este metodo se valida el partido entrante por parametro,
         * primero se fija que el partido no exista, alojando la respuesta en una variable booleana,
         * se fija que en el partido entrante por parametro haya una Id distinta de null y verifica esa id
-        * en el repository por medio del metodo ExistById, si existe arroja una excepcion del tipo IllegalArgumentException
+        * en el repository por medio del metodo ExistById, si existe arroja una excepcion del tipo DatoInvalidoException
         * luego llamada a los metodos validarJugadores y validarFechaYHora */
         boolean exists = partido.getId() != null && partidoRepository.existsById(partido.getId());
         if (exists) {
-            throw new IllegalArgumentException(PARTIDO_WITH_ID + partido.getId() + ALREADY_EXISTS);
+            throw new DatoInvalidoException(YA_EXISTE, "id", PARTIDO_WITH_ID + partido.getId() + ALREADY_EXISTS);
         }
         this.validarJugadores(partido);
         this.validarCancha(partido);
@@ -165,98 +263,163 @@ public class PartidoServiceImpl implements PartidoService {
     }
 
     @Override
+    @Transactional
     public PartidoDTO save(PartidoDTO partido) {
         /*
         * En este metodo se guarda el partido recibido por parametro, primero se llama a la funcion
-        * validarNuevoPartido, luego se convierte el partidoDTO a entidad partido y se la envia al repository
-        * al metodo save*/
+        * validarNuevoPartido, se confirma el horario contra la base, luego se convierte el partidoDTO a entidad
+        * partido y se la envia al repository al metodo save*/
         this.validarNuevoPartido(partido);
-        return this.partidoMapper.toDTO(partidoRepository.save(this.partidoMapper.fromDTO(partido)));
+        this.confirmarHorario(partido);
+        PartidoDTO guardado = this.partidoMapper.toDTO(partidoRepository.save(this.partidoMapper.fromDTO(partido)));
+        this.agendaCanchas.registrar(guardado.getId(), partido.getCancha().getId(), partido.getFechaComienzo());
+        return guardado;
     }
 
-    private void validarPartidoNoIniciado(Long id) {
+    @Override
+    @Transactional
+    public List<PartidoDTO> saveAll(List<PartidoDTO> partidos) {
+        /*
+        * Se validan todos los partidos del lote antes de guardar ninguno: los datos de cada partido, los ids ya
+        * existentes (en una sola consulta), las reservas ya guardadas de cada cancha y los choques entre los partidos
+        * del mismo lote. Si alguno no es valido se arroja un DatoInvalidoException con todos los errores.
+        * Con el lote valido se confirman los horarios contra la base, con las canchas bloqueadas.
+        * Los partidos se guardan juntos en la misma transaccion, con ids de secuencia para que Hibernate
+        * agrupe los inserts en batches de jdbc.batch_size*/
+        this.validarLote(partidos);
+        List<Integer> ocupados = this.horariosOcupadosEnBase(partidos);
+        if (!ocupados.isEmpty()) {
+            throw new DatoInvalidoException(ocupados.stream().map(i -> BATCH_POSITION + i + ": " + INVALID_RAGE)
+                    .collect(Collectors.joining(" ")));
+        }
+        List<Partido> guardados = partidoRepository.saveAll(
+                partidos.stream().map(this.partidoMapper::fromDTO).collect(Collectors.toList()));
+        List<PartidoDTO> resultado = new ArrayList<>(guardados.size());
+        for (Partido guardado : guardados) {
+            this.agendaCanchas.registrar(guardado.getId(), guardado.getCancha().getId(), guardado.getFechaComienzo());
+            resultado.add(this.partidoMapper.toDTO(guardado));
+        }
+        return resultado;
+    }
+
+    private void validarLote(List<PartidoDTO> partidos) {
+        if (partidos == null || partidos.isEmpty()) {
+            throw LOTE_VACIO;
+        }
+        if (partidos.size() > MAXIMO_LOTE) {
+            throw LOTE_DEMASIADO_GRANDE;
+        }
+        List<String> errores = new ArrayList<>();
+        List<Long> ids = partidos.stream().map(PartidoDTO::getId).filter(Objects::nonNull).collect(Collectors.toList());
+        Set<Long> existentes = ids.isEmpty() ? Collections.emptySet() : new HashSet<>(partidoRepository.findIdsExistentes(ids));
+        //Posiciones de los partidos validos, para buscar despues los choques dentro del lote
+        List<Integer> validos = new ArrayList<>(partidos.size());
+        for (int i = 0; i < partidos.size(); i++) {
+            PartidoDTO partido = partidos.get(i);
+            try {
+                if (partido.getId() != null && existentes.contains(partido.getId())) {
+                    throw new DatoInvalidoException(YA_EXISTE, "id", PARTIDO_WITH_ID + partido.getId() + ALREADY_EXISTS);
+                }
+                this.validarJugadores(partido);
+                this.validarCancha(partido);
+                this.validarFechaYHora(partido);
+                this.validarHorario(partido);
+                validos.add(i);
+            } catch (IllegalArgumentException | DatoInvalidoException e) {
+                errores.add(BATCH_POSITION + i + ": " + e.getMessage());
+            }
+        }
+        //Ordenando por cancha y fecha alcanza con comparar cada partido con el anterior de su misma cancha
+        validos.sort(Comparator.comparing((Integer i) -> partidos.get(i).getCancha().getId())
+                .thenComparing(i -> partidos.get(i).getFechaComienzo()));
+        for (int j = 1; j < validos.size(); j++) {
+            PartidoDTO anterior = partidos.get(validos.get(j - 1));
+            PartidoDTO partido = partidos.get(validos.get(j));
+            if (anterior.getCancha().getId().equals(partido.getCancha().getId())
+                    && partido.getFechaComienzo().getTime() - anterior.getFechaComienzo().getTime() < AgendaCanchas.MARGEN_MS) {
+                errores.add(BATCH_POSITION + validos.get(j) + ": " + INVALID_RAGE);
+            }
+        }
+        if (!errores.isEmpty()) {
+            throw new DatoInvalidoException(String.join(" ", errores));
+        }
+    }
+
+    private PartidoDTO validarPartidoNoIniciado(Long id) {
         /*
         * En este metodo se valida el partido no iniciado, se obtiene el partido por el id recibido por parametro
         * y se lo aloja en una variable local, luego, en un if verifica que el estado del partido sea distinto a NO_INICIADO,
-        * en caso positivo arroja una excepcion del tipo IllegalArgumentException*/
+        * en caso positivo arroja una excepcion del tipo DatoInvalidoException, caso contrario devuelve el partido*/
         PartidoDTO partido = this.getById(id);
         if (!Estado.NO_INICIADO.equals(partido.getEstado())) {
-            throw new IllegalArgumentException(PARTIDO_WITH_ID + partido.getId() + ALREADY_IN_PROGRESS);
+            throw new DatoInvalidoException(PARTIDO_YA_INICIADO, null, PARTIDO_WITH_ID + partido.getId() + ALREADY_IN_PROGRESS);
         }
+        return partido;
     }
 
-    private void validarPartidoEditado(PartidoDTO partido) {
+    private PartidoDTO validarPartidoEditado(PartidoDTO partido) {
         /*
         * En este metodo se valida un partido recibido por parametro para poder editarlo,
         * primero se llama al repository buscando un partido que exista con la id de dicho partido,
         * si no existe, arroja una excepcion del tipo NoSuchElementException, caso contrario,
-        * llama al metodo validarPartidoNoIniciado, validarJugadores,validarFechaYHora*/
+        * llama al metodo validarPartidoNoIniciado, validarJugadores, validarCancha, validarFechaYHora y validarHorario.
+        * Devuelve el partido tal como esta guardado antes de la edicion*/
         boolean exists = partidoRepository.existsById(partido.getId());
         if (!exists) {
-            throw new NoSuchElementException(PARTIDO_WITH_ID + partido.getId() + DOES_NOT_EXIST);
+            throw new RecursoNoEncontradoException(PARTIDO_WITH_ID + partido.getId() + DOES_NOT_EXIST);
         }
-        this.validarPartidoNoIniciado(partido.getId());
+        PartidoDTO actual = this.validarPartidoNoIniciado(partido.getId());
         this.validarJugadores(partido);
+        this.validarCancha(partido);
         this.validarFechaYHora(partido);
+        this.validarHorario(partido);
+        return actual;
     }
 
     @Override
+    @Transactional
     public PartidoDTO update(PartidoDTO partido) {
         /*En este metodo se trata de editar el partido recibido por parametro, primero se llama al metodo
         * validarPartidoEditado, luego, se transforma el DTO del partido recibido por parametro a entidad
-        * partido y se lo envia al metodo del repository save*/
-        this.validarPartidoEditado(partido);
-        return this.partidoMapper.toDTO(partidoRepository.save(this.partidoMapper.fromDTO(partido)));
+        * partido y se lo envia al metodo del repository save, despues de confirmar el horario contra la base.
+        * Por ultimo se mueve la reserva en la agenda de canchas.
+        * Si el partido recibido no trae version se edita sobre la version actual, si la trae y otro cliente ya lo
+        * modifico, el save arroja ObjectOptimisticLockingFailureException*/
+        PartidoDTO actual = this.validarPartidoEditado(partido);
+        this.confirmarHorario(partido);
+        if (partido.getVersion() == null) {
+            partido.setVersion(actual.getVersion());
+        }
+        PartidoDTO actualizado = this.partidoMapper.toDTO(partidoRepository.save(this.partidoMapper.fromDTO(partido)));
+        this.agendaCanchas.quitar(actual.getId(), idCancha(actual), actual.getFechaComienzo());
+        this.agendaCanchas.registrar(partido.getId(), partido.getCancha().getId(), partido.getFechaComienzo());
+        return actualizado;
     }
 
-    private void validarPartidoEliminado(Long id) {
+    private PartidoDTO validarPartidoEliminado(Long id) {
         /*En este metodo se valida el partido a eliminar, se recibe una Id por parametro y luego
         * se verifica que existe llamando al metodo existById del repository mandando como parametro dicha id,
         * en caso de no existir entraria al if que arrojaria una excepcion del tipo NoSuchElementException, luego
-        * se llama al metodo validarPartidoNoIniciado*/
+        * se llama al metodo validarPartidoNoIniciado, devolviendo el partido a eliminar*/
         boolean exists = partidoRepository.existsById(id);
         if (!exists) {
-            throw new NoSuchElementException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST);
+            throw new RecursoNoEncontradoException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST);
         }
-        this.validarPartidoNoIniciado(id);
+        return this.validarPartidoNoIniciado(id);
     }
 
     @Override
     public void delete(Long id) {
         /*En este metodo se trata de eliminar un partido por el id recibido por parametro,
         * primero se llama a validarPartidoEliminado y luego, se llama al repository metodo
-        * deleteById para que lo elimine*/
-        this.validarPartidoEliminado(id);
+        * deleteById para que lo elimine, liberando la reserva de la cancha*/
+        PartidoDTO eliminado = this.validarPartidoEliminado(id);
         partidoRepository.deleteById(id);
+        this.agendaCanchas.quitar(id, idCancha(eliminado), eliminado.getFechaComienzo());
     }
 
-    private String translateScore(int puntos) {
-        /*Este metodo traduce el puntaje recibido por int a un key del hashmap descriptions*/
-        return descriptions.get(puntos);
-    }
-
-    private void gameLocal(Partido partido) {
-        partido.setScoreLocal(0); //Se setean los puntos del score local a 0
-        partido.setScoreVisitante(0); //se setean los puntos del score visitante a 0
-        partido.setPuntosGameActualLocal(this.translateScore(partido.getScoreLocal())); //Se le cargan puntos al game local actual traducidos
-        partido.setPuntosGameActualVisitante(this.translateScore(partido.getScoreVisitante()));//Se le cargan puntos al game visitante actual traducidos
-
-        partido.setCantidadGamesLocal(partido.getCantidadGamesLocal() + 1); //Se le aumenta un game al local (ya que anoto el maximo puntaje)
-        if (partido.getCantidadGamesLocal() == 6) { //Si llega a 6 rondas ganadas se finaliza el partido
-            partido.setEstado(Estado.FINALIZADO);
-        }
-    }
-
-    private void gameVisitante(Partido partido) {
-        partido.setScoreLocal(0); //Se setean los puntos del score local a 0
-        partido.setScoreVisitante(0); //se setean los puntos del score visitante a 0
-        partido.setPuntosGameActualLocal(this.translateScore(partido.getScoreLocal())); //Se le cargan puntos al game local actual traducidos
-        partido.setPuntosGameActualVisitante(this.translateScore(partido.getScoreVisitante())); //Se le cargan puntos al game visitante actual traducidos
-
-        partido.setCantidadGamesVisitante(partido.getCantidadGamesVisitante() + 1); //Se le aumenta un game al visitante (ya que anoto el maximo puntaje)
-        if (partido.getCantidadGamesVisitante() == 6) { //Si llega a 6 rondas ganadas se finaliza el partido
-            partido.setEstado(Estado.FINALIZADO);
-        }
+    private static Long idCancha(PartidoDTO partido) {
+        return partido.getCancha() != null ? partido.getCancha().getId() : null;
     }
 
     @Override
@@ -268,69 +431,41 @@ public class PartidoServiceImpl implements PartidoService {
             validarPartidoNoIniciado(id); //Se valida que el partido no este iniciado
             Partido partido = optPartido.get(); //Se obtiene el partido dentro de opcional y se lo guarda en una variable
             partido.setEstado(Estado.EN_CURSO); //Se le asigna el estado EN CURSO al partido
-            partidoRepository.save(partido); //Se guarda el partido
+            Partido iniciado = partidoRepository.save(partido); //Se guarda el partido
+            marcadorEnVivo.iniciar(iniciado); //Se registra el partido (con su version nueva) en el marcador en vivo
         } else {
-            throw new NoSuchElementException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST); //Si no habia partido presente se arroja excepcion
+            throw new RecursoNoEncontradoException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST); //Si no habia partido presente se arroja excepcion
         }
     }
 
     @Override
     public PartidoDTO sumarPuntos(Long id, ModoJugador modo) {
-        //En esta funcion se le suman puntos al jugador en el id de partido
-        Optional<Partido> optPartido = partidoRepository.findById(id); //Se busca un partido en el repository
-        if (optPartido.isPresent()) { //Verifica que el opcional el partido este presente
-            Partido partido = optPartido.get(); //Se obtiene el partido del opcional y lo guarda en una variable temporal de tipo Partido
-
-            if (!Estado.EN_CURSO.equals(partido.getEstado())) {  //Verifica que el partido este en curso
-                //Si el partido no esta en curso arroja una excepcion
-                throw new IllegalArgumentException(PARTIDO_WITH_ID + partido.getId() + NOT_IN_PROGRESS);
-            }
+        return this.sumarPuntos(id, modo, null, null).getPartido();
+    }
 
-            if (modo == ModoJugador.LOCAL) { //Si el que sumo puntos es el local
-                if (partido.getScoreVisitante() == SCORE_ADV) { //Si el visitante tiene el score maximo
-                    if (partido.getScoreLocal() != SCORE_40) { //Si el score es distinto de 40 arroja excepcion
-                        throw new IllegalArgumentException(SCORE_IMPOSIBLE);
-                    }
-                    partido.setScoreVisitante(partido.getScoreVisitante() - 1); //Setea el score del visitante al actual - 1
-                } else { //Mismas logicas de arriba pero para el local
-                    if (partido.getScoreLocal() == SCORE_ADV && partido.getScoreVisitante() != SCORE_40) {
-                        throw new IllegalArgumentException(SCORE_IMPOSIBLE);
-                    }
-                    partido.setScoreLocal(partido.getScoreLocal() + 1);
-                }
-            } else { //Mismas logicas de arriba pero para la suma de puntos del visitante
-                if (partido.getScoreLocal() == SCORE_ADV) {
-                    if (partido.getScoreVisitante() != SCORE_40) {
-                        throw new IllegalArgumentException(SCORE_IMPOSIBLE);
-                    }
-                    partido.setScoreLocal(partido.getScoreLocal() - 1);
-                } else {
-                    if (partido.getScoreVisitante() == SCORE_ADV && partido.getScoreLocal() != SCORE_40) {
-                        throw new IllegalArgumentException(SCORE_IMPOSIBLE);
-                    }
-                    partido.setScoreVisitante(partido.getScoreVisitante() + 1);
-                }
-            }
-            this.actualizarScore(partido); //se llama al metodo actualizar score
-            return this.partidoMapper.toDTO(partidoRepository.save(partido)); //se guarda la entidad en el repository y se transforma el return a dto para response
-        } else {
-            throw new NoSuchElementException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST);
+    @Override
+    public ResultadoPuntoDTO sumarPuntos(Long id, ModoJugador modo, Long version, PoliticaConflicto politica) {
+        /*En esta funcion se le suman puntos al jugador en el id de partido. El punto se aplica sobre el marcador
+        * en vivo que se mantiene en memoria, que es el encargado de validar que el partido este en curso y que
+        * el puntaje sea posible, de resolver los conflictos con otros puntos segun la politica recibida (null para
+        * la politica configurada) y de agregar el punto al historial antes de devolverlo.
+        * Si el punto termina el partido (y la base ya lo registra FINALIZADO) se publica un PartidoFinalizadoEvent;
+        * los puntos del ranking del ganador se asignan en segundo plano, fuera de este request*/
+        ResultadoPuntoDTO resultado = this.marcadorEnVivo.sumarPunto(id, modo, version, politica);
+        if (Estado.FINALIZADO.equals(resultado.getPartido().getEstado())) {
+            eventPublisher.publishEvent(PartidoFinalizadoEvent.de(resultado.getPartido()));
         }
+        return resultado;
     }
 
-    private void actualizarScore(Partido partido) {
-        partido.setPuntosGameActualLocal(this.translateScore(partido.getScoreLocal())); //Se traduce el puntaje del score local a puntos de game
-        partido.setPuntosGameActualVisitante(this.translateScore(partido.getScoreVisitante())); //lo mismo de arriba para visitante
-
-        //Math abs devuelve el valor absoluto, en el if verifica que sea mayor o igual a 2
-        if (Math.abs(partido.getScoreLocal() - partido.getScoreVisitante()) >= 2) {
-            if (partido.getScoreLocal() > partido.getScoreVisitante() && partido.getScoreLocal() >= SCORE_ADV) { //Si el score del local es mayor al visitante y tiene SCORE_ADV
-                this.gameLocal(partido); //se llama al a funcion gameLocal
-            } else if (partido.getScoreVisitante() > partido.getScoreLocal() && partido.getScoreVisitante() >= SCORE_ADV) { //Si el score del visitante es mayor al local y tiene SCORE_ADV
-                this.gameVisitante(partido); //se llama a la funcion gameVisitante
-            }
+    @Override
+    public List<PuntoPartidoDTO> listPuntos(Long id) {
+        /*Devuelve el historial de puntos del partido en el orden en que se jugaron. Cada punto se agrega al
+        * historial antes de confirmarlo, asi que el historial ya tiene todos los puntos del partido*/
+        if (!partidoRepository.existsById(id)) {
+            throw new RecursoNoEncontradoException(PARTIDO_WITH_ID + id + DOES_NOT_EXIST);
         }
-
+        return this.historialPuntos.listar(id).stream().map(this.puntoPartidoMapper::toDTO).collect(Collectors.toList());
     }
 
 }
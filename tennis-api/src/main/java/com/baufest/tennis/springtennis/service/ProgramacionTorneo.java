@@ -0,0 +1,268 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.CanchaDTO;
+import com.baufest.tennis.springtennis.dto.EmparejamientoDTO;
+import com.baufest.tennis.springtennis.dto.FranjaLibreDTO;
+import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.ProgramacionDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.mapper.CanchaMapper;
+import com.baufest.tennis.springtennis.mapper.JugadorMapper;
+import com.baufest.tennis.springtennis.model.Cancha;
+import com.baufest.tennis.springtennis.repository.CanchaRepository;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.baufest.tennis.springtennis.service.AgendaCanchas.MARGEN_MS;
+
+/**
+ * <p>Programacion de torneos</p>
+ * Asigna cancha y fecha de comienzo a una lista de emparejamientos y los guarda como un lote de partidos.
+ * Es una coloracion greedy del grafo de intervalos: cada partido ocupa su cancha MARGEN_MS (la diferencia minima
+ * entre partidos de una misma cancha) y se ubica, en el orden recibido, en la cancha donde puede empezar mas
+ * temprano, sin chocar con las reservas existentes ni con los partidos ya programados del lote, y despues de que
+ * sus dos jugadores terminen su partido anterior del lote y descansen. Las franjas libres de cada cancha se
+ * guardan ordenadas por inicio, asi ubicar un partido cuesta O(canchas * log franjas).
+ */
+@Component
+public class ProgramacionTorneo {
+
+    private static final String INVALID_RANGE = "La fecha desde debe ser anterior a la fecha hasta.";
+    private static final String INVALID_REST = "El descanso no puede ser negativo.";
+    private static final String NO_PAIRINGS = "Se debe enviar al menos un emparejamiento.";
+    private static final String TOO_MANY_PAIRINGS = "No se pueden programar mas de " + PartidoService.MAXIMO_LOTE + " partidos por vez.";
+    private static final String NO_STADIUMS = "No hay canchas para programar los partidos.";
+    private static final String STADIUM_NOT_FOUND = "No existe la cancha con id = ";
+    private static final String PLAYER_NOT_FOUND = "No existe el jugador con id = ";
+    private static final String PLAYER_MISSING = "Se deben indicar ambos jugadores.";
+    private static final String PLAYER_DUPLICATED = "Los jugadores deben ser distintos.";
+    private static final String NO_SLOT = "No hay cancha libre en la ventana recibida.";
+    private static final String PAIRING_POSITION = "Emparejamiento en la posicion ";
+
+    private final PartidoService partidoService;
+    private final AgendaCanchas agendaCanchas;
+    private final CanchaRepository canchaRepository;
+    private final JugadorRepository jugadorRepository;
+    private final CanchaMapper canchaMapper;
+    private final JugadorMapper jugadorMapper;
+
+    @Autowired
+    public ProgramacionTorneo(PartidoService partidoService, AgendaCanchas agendaCanchas, CanchaRepository canchaRepository,
+                              JugadorRepository jugadorRepository, CanchaMapper canchaMapper, JugadorMapper jugadorMapper) {
+        this.partidoService = partidoService;
+        this.agendaCanchas = agendaCanchas;
+        this.canchaRepository = canchaRepository;
+        this.jugadorRepository = jugadorRepository;
+        this.canchaMapper = canchaMapper;
+        this.jugadorMapper = jugadorMapper;
+    }
+
+    /*
+     * Programa los emparejamientos recibidos y los guarda con PartidoService.saveAll, en una sola transaccion
+     * que vuelve a validar todo el lote. Si algun emparejamiento no es valido o no entra en la ventana no se
+     * guarda ninguno y se arroja DatoInvalidoException con la posicion y el motivo de cada error
+     */
+    public List<PartidoDTO> programar(ProgramacionDTO programacion) {
+        List<EmparejamientoDTO> emparejamientos = programacion.getEmparejamientos();
+        if (emparejamientos == null || emparejamientos.isEmpty()) {
+            throw new DatoInvalidoException(NO_PAIRINGS);
+        }
+        if (emparejamientos.size() > PartidoService.MAXIMO_LOTE) {
+            throw new DatoInvalidoException(TOO_MANY_PAIRINGS);
+        }
+        if (programacion.getDesde() == null || programacion.getHasta() == null
+                || !programacion.getDesde().before(programacion.getHasta())) {
+            throw new DatoInvalidoException(INVALID_RANGE);
+        }
+        if (programacion.getDescansoMinutos() < 0) {
+            throw new DatoInvalidoException(INVALID_REST);
+        }
+        Map<Long, JugadorDTO> jugadores = this.jugadores(emparejamientos);
+        List<CanchaDTO> canchas = this.canchas(programacion.getCanchas());
+
+        //Los partidos no pueden empezar en el pasado, se arranca desde el minuto siguiente
+        long minuto = TimeUnit.MINUTES.toMillis(1);
+        long desde = Math.max(programacion.getDesde().getTime(), (System.currentTimeMillis() / minuto + 1) * minuto);
+        Calendario calendario = new Calendario(desde, TimeUnit.MINUTES.toMillis(programacion.getDescansoMinutos()));
+        for (CanchaDTO cancha : canchas) {
+            for (FranjaLibreDTO franja : agendaCanchas.franjasLibres(cancha.getId(), desde, programacion.getHasta().getTime(), MARGEN_MS)) {
+                calendario.agregarFranja(cancha.getId(), franja.getInicio().getTime(), franja.getFin().getTime());
+            }
+        }
+
+        Map<Long, CanchaDTO> canchasPorId = canchas.stream().collect(Collectors.toMap(CanchaDTO::getId, Function.identity()));
+        List<PartidoDTO> partidos = new ArrayList<>(emparejamientos.size());
+        List<String> errores = new ArrayList<>();
+        for (int i = 0; i < emparejamientos.size(); i++) {
+            EmparejamientoDTO emparejamiento = emparejamientos.get(i);
+            String error = this.validar(emparejamiento, jugadores);
+            Calendario.Asignacion asignacion = error == null
+                    ? calendario.asignar(emparejamiento.getIdLocal(), emparejamiento.getIdVisitante()) : null;
+            if (error == null && asignacion == null) {
+                error = NO_SLOT;
+            }
+            if (error != null) {
+                errores.add(PAIRING_POSITION + i + ": " + error);
+                continue;
+            }
+            PartidoDTO partido = new PartidoDTO(new Date(asignacion.inicio), Estado.NO_INICIADO,
+                    jugadores.get(emparejamiento.getIdLocal()), jugadores.get(emparejamiento.getIdVisitante()));
+            partido.setCancha(canchasPorId.get(asignacion.idCancha));
+            partido.setFormato(programacion.getFormato());
+            partido.setSinVentaja(programacion.isSinVentaja());
+            partidos.add(partido);
+        }
+        if (!errores.isEmpty()) {
+            throw new DatoInvalidoException(String.join(" ", errores));
+        }
+        return partidoService.saveAll(partidos);
+    }
+
+    private String validar(EmparejamientoDTO emparejamiento, Map<Long, JugadorDTO> jugadores) {
+        if (emparejamiento == null || emparejamiento.getIdLocal() == null || emparejamiento.getIdVisitante() == null) {
+            return PLAYER_MISSING;
+        }
+        if (emparejamiento.getIdLocal().equals(emparejamiento.getIdVisitante())) {
+            return PLAYER_DUPLICATED;
+        }
+        for (Long id : new Long[]{emparejamiento.getIdLocal(), emparejamiento.getIdVisitante()}) {
+            if (!jugadores.containsKey(id)) {
+                return PLAYER_NOT_FOUND + id + ".";
+            }
+        }
+        return null;
+    }
+
+    /* Jugadores de todos los emparejamientos, leidos en una sola consulta */
+    private Map<Long, JugadorDTO> jugadores(List<EmparejamientoDTO> emparejamientos) {
+        Set<Long> ids = new HashSet<>();
+        for (EmparejamientoDTO emparejamiento : emparejamientos) {
+            if (emparejamiento != null) {
+                ids.add(emparejamiento.getIdLocal());
+                ids.add(emparejamiento.getIdVisitante());
+            }
+        }
+        ids.remove(null);
+        return jugadorRepository.findAllById(ids).stream().map(jugadorMapper::toDTO)
+                .collect(Collectors.toMap(JugadorDTO::getId, Function.identity()));
+    }
+
+    /* Canchas pedidas (o todas), ordenadas por id para que el desempate entre canchas sea estable */
+    private List<CanchaDTO> canchas(List<Long> ids) {
+        List<Cancha> canchas;
+        if (ids == null || ids.isEmpty()) {
+            canchas = canchaRepository.findAll(Sort.by("id"));
+        } else {
+            canchas = canchaRepository.findAllById(ids);
+            Set<Long> encontradas = canchas.stream().map(Cancha::getId).collect(Collectors.toSet());
+            for (Long id : ids) {
+                if (!encontradas.contains(id)) {
+                    throw new DatoInvalidoException(STADIUM_NOT_FOUND + id + ".");
+                }
+            }
+            canchas.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        }
+        if (canchas.isEmpty()) {
+            throw new DatoInvalidoException(NO_STADIUMS);
+        }
+        return canchas.stream().map(canchaMapper::toDTO).collect(Collectors.toList());
+    }
+
+    /*
+     * Estado de la programacion: las franjas libres de cada cancha (inicio -> fin, todas de al menos MARGEN_MS)
+     * y desde cuando esta libre cada jugador
+     */
+    static final class Calendario {
+        private final long desde;
+        private final long descansoMs;
+        private final Map<Long, TreeMap<Long, Long>> libres = new LinkedHashMap<>();
+        private final Map<Long, Long> jugadoresLibres = new HashMap<>();
+
+        Calendario(long desde, long descansoMs) {
+            this.desde = desde;
+            this.descansoMs = descansoMs;
+        }
+
+        void agregarFranja(Long idCancha, long inicio, long fin) {
+            libres.computeIfAbsent(idCancha, id -> new TreeMap<>()).put(inicio, fin);
+        }
+
+        /* Ubica el partido en la cancha donde puede empezar mas temprano, o devuelve null si no entra en ninguna */
+        Asignacion asignar(Long idLocal, Long idVisitante) {
+            long minimo = Math.max(desde, Math.max(this.libreDesde(idLocal), this.libreDesde(idVisitante)));
+            Long mejorCancha = null;
+            long mejorInicio = Long.MAX_VALUE;
+            for (Map.Entry<Long, TreeMap<Long, Long>> cancha : libres.entrySet()) {
+                long inicio = primerInicio(cancha.getValue(), minimo);
+                if (inicio < mejorInicio) {
+                    mejorInicio = inicio;
+                    mejorCancha = cancha.getKey();
+                }
+            }
+            if (mejorCancha == null) {
+                return null;
+            }
+            this.ocupar(libres.get(mejorCancha), mejorInicio);
+            long libreDesde = mejorInicio + MARGEN_MS + descansoMs;
+            jugadoresLibres.put(idLocal, libreDesde);
+            jugadoresLibres.put(idVisitante, libreDesde);
+            return new Asignacion(mejorCancha, mejorInicio);
+        }
+
+        private long libreDesde(Long idJugador) {
+            return jugadoresLibres.getOrDefault(idJugador, desde);
+        }
+
+        /*
+         * Primer comienzo posible a partir de minimo. Como todas las franjas duran al menos MARGEN_MS, alcanza con
+         * mirar la franja que contiene a minimo y la siguiente
+         */
+        private static long primerInicio(TreeMap<Long, Long> franjas, long minimo) {
+            Map.Entry<Long, Long> franja = franjas.floorEntry(minimo);
+            if (franja != null && franja.getValue() - minimo >= MARGEN_MS) {
+                return minimo;
+            }
+            Map.Entry<Long, Long> siguiente = franjas.higherEntry(minimo);
+            return siguiente != null ? siguiente.getKey() : Long.MAX_VALUE;
+        }
+
+        /* Parte la franja que contiene al partido, descartando los restos donde ya no entra otro partido */
+        private void ocupar(TreeMap<Long, Long> franjas, long inicio) {
+            Map.Entry<Long, Long> franja = franjas.floorEntry(inicio);
+            franjas.remove(franja.getKey());
+            if (inicio - franja.getKey() >= MARGEN_MS) {
+                franjas.put(franja.getKey(), inicio);
+            }
+            if (franja.getValue() - (inicio + MARGEN_MS) >= MARGEN_MS) {
+                franjas.put(inicio + MARGEN_MS, franja.getValue());
+            }
+        }
+
+        static final class Asignacion {
+            final Long idCancha;
+            final long inicio;
+
+            private Asignacion(Long idCancha, long inicio) {
+                this.idCancha = idCancha;
+                this.inicio = inicio;
+            }
+        }
+    }
+}
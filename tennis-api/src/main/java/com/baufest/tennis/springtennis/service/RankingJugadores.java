@@ -0,0 +1,319 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.PosicionRankingDTO;
+import com.baufest.tennis.springtennis.mapper.JugadorMapper;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import com.baufest.tennis.springtennis.repository.PuntajeJugador;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Ranking de jugadores</p>
+ * Mantiene en memoria los jugadores ordenados por puntos (de mayor a menor, y por id entre los que tienen los mismos
+ * puntos) en un arbol de estadisticas de orden: un treap en el que cada nodo guarda el tamaño de su subarbol. Asi
+ * actualizar los puntos de un jugador, obtener su posicion y ubicar el inicio de una pagina del ranking cuestan
+ * O(log n), sin ordenar la tabla de jugadores en cada consulta.
+ * El arbol se carga la primera vez que se lo necesita con una proyeccion de id y puntos, y se actualiza con las
+ * altas, modificaciones y bajas de jugadores y con los puntos que AsignacionPuntos le suma al ganador de cada
+ * partido finalizado.
+ */
+@Component
+public class RankingJugadores {
+
+    private final JugadorRepository jugadorRepository;
+    private final JugadorMapper jugadorMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //Raiz del arbol y puntos actuales de cada jugador (para encontrar su nodo), protegidos por el lock
+    private Nodo raiz;
+    private final Map<Long, Integer> puntosPorJugador = new HashMap<>();
+    private boolean cargado;
+
+    @Autowired
+    public RankingJugadores(JugadorRepository jugadorRepository, JugadorMapper jugadorMapper) {
+        this.jugadorRepository = jugadorRepository;
+        this.jugadorMapper = jugadorMapper;
+    }
+
+    /* Pagina del ranking: tamano jugadores a partir de la posicion desde (empezando en 0) */
+    public List<PosicionRankingDTO> pagina(int desde, int tamano) {
+        List<PuntajeJugador> puntajes = new ArrayList<>(tamano);
+        int primeraPosicion;
+        this.cargar();
+        lock.readLock().lock();
+        try {
+            int total = tamano(raiz);
+            for (int i = Math.max(desde, 0); i < total && puntajes.size() < tamano; i++) {
+                Nodo nodo = kEsimo(raiz, i);
+                puntajes.add(new PuntajeJugador(nodo.id, nodo.puntos));
+            }
+            primeraPosicion = puntajes.isEmpty() ? 0 : menores(raiz, puntajes.get(0).getPuntos(), Long.MIN_VALUE) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (puntajes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        //Los datos de los jugadores de la pagina se leen en una sola consulta
+        Map<Long, Jugador> jugadores = jugadorRepository.findAllById(
+                puntajes.stream().map(PuntajeJugador::getId).collect(Collectors.toList()))
+                .stream().collect(Collectors.toMap(Jugador::getId, Function.identity()));
+        List<PosicionRankingDTO> pagina = new ArrayList<>(puntajes.size());
+        int posicion = primeraPosicion;
+        for (int i = 0; i < puntajes.size(); i++) {
+            PuntajeJugador puntaje = puntajes.get(i);
+            if (i > 0 && puntaje.getPuntos() != puntajes.get(i - 1).getPuntos()) {
+                posicion = Math.max(desde, 0) + i + 1;
+            }
+            Jugador jugador = jugadores.get(puntaje.getId());
+            if (jugador != null) {
+                JugadorDTO dto = jugadorMapper.toDTO(jugador);
+                dto.setPuntos(puntaje.getPuntos());
+                pagina.add(new PosicionRankingDTO(posicion, dto));
+            }
+        }
+        return pagina;
+    }
+
+    /* Posicion del jugador (1 mas la cantidad de jugadores con mas puntos), o -1 si no esta en el ranking */
+    public int posicion(Long idJugador) {
+        this.cargar();
+        lock.readLock().lock();
+        try {
+            Integer puntos = puntosPorJugador.get(idJugador);
+            return puntos == null ? -1 : menores(raiz, puntos, Long.MIN_VALUE) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int cantidadJugadores() {
+        this.cargar();
+        lock.readLock().lock();
+        try {
+            return tamano(raiz);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* Registra los puntos actuales del jugador, agregandolo al ranking si no estaba */
+    public void actualizar(Long idJugador, int puntos) {
+        if (idJugador == null || !this.estaCargado()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer anteriores = puntosPorJugador.put(idJugador, puntos);
+            if (anteriores != null) {
+                raiz = eliminar(raiz, anteriores, idJugador);
+            }
+            raiz = insertar(raiz, new Nodo(idJugador, puntos));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* Suma puntos al jugador en el ranking (los puntos en la base se actualizan aparte) */
+    public void sumar(Long idJugador, int puntos) {
+        if (!this.estaCargado()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer anteriores = puntosPorJugador.get(idJugador);
+            if (anteriores != null) {
+                raiz = eliminar(raiz, anteriores, idJugador);
+                puntosPorJugador.put(idJugador, anteriores + puntos);
+                raiz = insertar(raiz, new Nodo(idJugador, anteriores + puntos));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(Long idJugador) {
+        if (!this.estaCargado()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer anteriores = puntosPorJugador.remove(idJugador);
+            if (anteriores != null) {
+                raiz = eliminar(raiz, anteriores, idJugador);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean estaCargado() {
+        lock.readLock().lock();
+        try {
+            return cargado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void cargar() {
+        if (this.estaCargado()) {
+            return;
+        }
+        //Se lee dentro del lock para que ninguna actualizacion quede entre la lectura y la carga
+        lock.writeLock().lock();
+        try {
+            if (!cargado) {
+                for (PuntajeJugador puntaje : jugadorRepository.findPuntajes()) {
+                    puntosPorJugador.put(puntaje.getId(), puntaje.getPuntos());
+                    raiz = insertar(raiz, new Nodo(puntaje.getId(), puntaje.getPuntos()));
+                }
+                cargado = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* Treap de estadisticas de orden */
+
+    /* Orden del ranking: primero los de mas puntos, y entre los que tienen los mismos puntos por id */
+    private static int comparar(int puntos, long id, Nodo nodo) {
+        int porPuntos = Integer.compare(nodo.puntos, puntos);
+        return porPuntos != 0 ? porPuntos : Long.compare(id, nodo.id);
+    }
+
+    private static int tamano(Nodo nodo) {
+        return nodo == null ? 0 : nodo.tamano;
+    }
+
+    private static Nodo insertar(Nodo nodo, Nodo nuevo) {
+        if (nodo == null) {
+            return nuevo;
+        }
+        if (nuevo.prioridad > nodo.prioridad) {
+            Nodo[] partes = separar(nodo, nuevo.puntos, nuevo.id);
+            nuevo.izquierda = partes[0];
+            nuevo.derecha = partes[1];
+            return nuevo.recalcular();
+        }
+        if (comparar(nuevo.puntos, nuevo.id, nodo) < 0) {
+            nodo.izquierda = insertar(nodo.izquierda, nuevo);
+        } else {
+            nodo.derecha = insertar(nodo.derecha, nuevo);
+        }
+        return nodo.recalcular();
+    }
+
+    private static Nodo eliminar(Nodo nodo, int puntos, long id) {
+        if (nodo == null) {
+            return null;
+        }
+        int comparacion = comparar(puntos, id, nodo);
+        if (comparacion == 0) {
+            return unir(nodo.izquierda, nodo.derecha);
+        }
+        if (comparacion < 0) {
+            nodo.izquierda = eliminar(nodo.izquierda, puntos, id);
+        } else {
+            nodo.derecha = eliminar(nodo.derecha, puntos, id);
+        }
+        return nodo.recalcular();
+    }
+
+    /* Separa el arbol en los nodos anteriores a (puntos, id) y los demas */
+    private static Nodo[] separar(Nodo nodo, int puntos, long id) {
+        if (nodo == null) {
+            return new Nodo[2];
+        }
+        if (comparar(puntos, id, nodo) > 0) {
+            Nodo[] partes = separar(nodo.derecha, puntos, id);
+            nodo.derecha = partes[0];
+            partes[0] = nodo.recalcular();
+            return partes;
+        }
+        Nodo[] partes = separar(nodo.izquierda, puntos, id);
+        nodo.izquierda = partes[1];
+        partes[1] = nodo.recalcular();
+        return partes;
+    }
+
+    /* Une dos arboles en los que todos los nodos de a son anteriores a los de b */
+    private static Nodo unir(Nodo a, Nodo b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.prioridad > b.prioridad) {
+            a.derecha = unir(a.derecha, b);
+            return a.recalcular();
+        }
+        b.izquierda = unir(a, b.izquierda);
+        return b.recalcular();
+    }
+
+    /* Cantidad de nodos anteriores a (puntos, id) */
+    private static int menores(Nodo nodo, int puntos, long id) {
+        int cantidad = 0;
+        while (nodo != null) {
+            if (comparar(puntos, id, nodo) > 0) {
+                cantidad += tamano(nodo.izquierda) + 1;
+                nodo = nodo.derecha;
+            } else {
+                nodo = nodo.izquierda;
+            }
+        }
+        return cantidad;
+    }
+
+    /* Nodo en la posicion k del orden (empezando en 0) */
+    private static Nodo kEsimo(Nodo nodo, int k) {
+        while (nodo != null) {
+            int izquierda = tamano(nodo.izquierda);
+            if (k < izquierda) {
+                nodo = nodo.izquierda;
+            } else if (k == izquierda) {
+                return nodo;
+            } else {
+                k -= izquierda + 1;
+                nodo = nodo.derecha;
+            }
+        }
+        return null;
+    }
+
+    private static final class Nodo {
+        private final long id;
+        private final int puntos;
+        private final int prioridad = ThreadLocalRandom.current().nextInt();
+        private int tamano = 1;
+        private Nodo izquierda;
+        private Nodo derecha;
+
+        private Nodo(long id, int puntos) {
+            this.id = id;
+            this.puntos = puntos;
+        }
+
+        private Nodo recalcular() {
+            tamano = tamano(izquierda) + tamano(derecha) + 1;
+            return this;
+        }
+    }
+}
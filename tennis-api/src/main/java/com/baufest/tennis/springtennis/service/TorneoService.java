@@ -0,0 +1,37 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.CuadroTorneoDTO;
+import com.baufest.tennis.springtennis.dto.TorneoDTO;
+
+/**
+ * <p>Service de Torneo</p>
+ * Este componente sera el encargado de armar el cuadro de los torneos, programar sus partidos y hacer avanzar a
+ * los ganadores de cada ronda, es necesario que contenga el spring prototype @Service para su funcionamiento
+ * ya que es la forma de declarar al momento de la inyeccion de dependencias que se trata de un service
+ */
+public interface TorneoService {
+
+	/**
+	 * <p>
+	 *     Crea el torneo con sus llaves y programa los partidos que ya tienen a sus dos jugadores: la primera
+	 *     ronda en eliminacion directa (los mejores sembrados quedan libres si los jugadores no son potencia de 2)
+	 *     o todas las fechas en todos contra todos. Si los datos no son validos o los partidos no entran en las
+	 *     canchas no se guarda nada y se hace throw de una exception "DatoInvalidoException"
+	 * </p>
+	 * @param torneo
+	 * @return CuadroTorneoDTO
+	 */
+	CuadroTorneoDTO save(TorneoDTO torneo);
+
+	/**
+	 * <p>
+	 *     Obtiene el cuadro del torneo de id recibido con todas sus llaves.
+	 *     Si no se encuentra ningun torneo con el id recibido se hace throw de
+	 *     una exception "NoSuchElementException"
+	 * </p>
+	 * @param id
+	 * @return CuadroTorneoDTO
+	 */
+	CuadroTorneoDTO getCuadro(Long id);
+
+}
@@ -0,0 +1,455 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.CuadroTorneoDTO;
+import com.baufest.tennis.springtennis.dto.EmparejamientoDTO;
+import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.LlaveTorneoDTO;
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.ProgramacionDTO;
+import com.baufest.tennis.springtennis.dto.TorneoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.TipoTorneo;
+import com.baufest.tennis.springtennis.event.PartidoFinalizadoEvent;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.exception.RecursoNoEncontradoException;
+import com.baufest.tennis.springtennis.mapper.PartidoMapper;
+import com.baufest.tennis.springtennis.mapper.TorneoMapper;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.model.LlaveTorneo;
+import com.baufest.tennis.springtennis.model.Torneo;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import com.baufest.tennis.springtennis.repository.LlaveTorneoRepository;
+import com.baufest.tennis.springtennis.repository.TorneoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//Aca va la anotacion @Service para declarar que es un servicio y pueda ser detectado por el autowired
+@Service
+public class TorneoServiceImpl implements TorneoService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TorneoServiceImpl.class);
+
+    //String que se utilizan para las respuestas de los exception handler
+    public static final String TORNEO_WITH_ID = "Torneo with id = ";
+    public static final String DOES_NOT_EXIST = " does not exist.";
+    private static final String NAME_MISSING = "Se debe indicar el nombre del torneo.";
+    private static final String TYPE_MISSING = "Se debe indicar el tipo de torneo.";
+    private static final String PLAYERS_MISSING = "El torneo debe tener al menos 2 jugadores.";
+    private static final String PLAYER_DUPLICATED = "Los jugadores del torneo deben ser distintos.";
+    private static final String PLAYER_NOT_FOUND = "No existe el jugador con id = ";
+    private static final String INVALID_REST = "El descanso no puede ser negativo.";
+    private static final String TOO_MANY_MATCHES = "El torneo no puede tener mas de " + PartidoService.MAXIMO_LOTE
+            + " partidos para programar al crearlo.";
+
+    //Nombre del cache de cuadros por id de torneo, se configura en application.properties
+    public static final String CACHE = "torneos";
+
+    //Cantidad maxima de partidos que revisa cada barrido
+    public static final int TAMANO_BARRIDO = 100;
+
+    //Ventana en la que se buscan canchas libres para los partidos que se programan juntos
+    static final long VENTANA_MS = TimeUnit.DAYS.toMillis(CanchaService.MAXIMO_DIAS_DISPONIBILIDAD);
+
+    private final TorneoRepository torneoRepository;
+    private final LlaveTorneoRepository llaveTorneoRepository;
+    private final JugadorRepository jugadorRepository;
+    private final TorneoMapper torneoMapper;
+    private final PartidoMapper partidoMapper;
+    private final ProgramacionTorneo programacionTorneo;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+
+    //Partidos finalizados cuyo ganador todavia no se registro en el cuadro
+    private final BlockingQueue<PartidoFinalizadoEvent> pendientes;
+
+    //Si ya hay una tarea que va a vaciar la cola, para no encolar una por partido
+    private final AtomicBoolean programada = new AtomicBoolean();
+
+    private final ExecutorService avances = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "avance-torneos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @Autowired
+    public TorneoServiceImpl(TorneoRepository torneoRepository, LlaveTorneoRepository llaveTorneoRepository,
+                             JugadorRepository jugadorRepository, TorneoMapper torneoMapper,
+                             PartidoMapper partidoMapper, ProgramacionTorneo programacionTorneo,
+                             TransactionTemplate transactionTemplate, CacheManager cacheManager,
+                             @Value("${springtennis.torneos.capacidad-cola:10000}") int capacidadCola) {
+        this.torneoRepository = torneoRepository;
+        this.llaveTorneoRepository = llaveTorneoRepository;
+        this.jugadorRepository = jugadorRepository;
+        this.torneoMapper = torneoMapper;
+        this.partidoMapper = partidoMapper;
+        this.programacionTorneo = programacionTorneo;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.pendientes = new ArrayBlockingQueue<>(capacidadCola);
+    }
+
+    @Override
+    public CuadroTorneoDTO save(TorneoDTO torneo) {
+        /*
+         * Se arma el cuadro en memoria (incluyendo el avance de los jugadores libres) y despues, en una
+         * transaccion, se guardan el torneo, los partidos que ya se pueden programar y las llaves. Si la
+         * programacion falla no queda guardado nada*/
+        this.validar(torneo);
+        Map<Long, Jugador> jugadores = jugadorRepository.findAllById(new HashSet<>(torneo.getJugadores())).stream()
+                .collect(Collectors.toMap(Jugador::getId, Function.identity()));
+        List<Jugador> inscriptos = new ArrayList<>(torneo.getJugadores().size());
+        for (Long id : torneo.getJugadores()) {
+            if (!jugadores.containsKey(id)) {
+                throw new DatoInvalidoException(PLAYER_NOT_FOUND + id + ".");
+            }
+            inscriptos.add(jugadores.get(id));
+        }
+        Torneo nuevo = torneoMapper.fromDTO(torneo);
+        List<LlaveTorneo> llaves = TipoTorneo.ELIMINACION_DIRECTA.equals(torneo.getTipo())
+                ? cuadroEliminacion(nuevo, inscriptos) : cuadroTodosContraTodos(nuevo, inscriptos);
+        List<LlaveTorneo> porProgramar = llaves.stream().filter(TorneoServiceImpl::porProgramar).collect(Collectors.toList());
+        if (porProgramar.size() > PartidoService.MAXIMO_LOTE) {
+            throw new DatoInvalidoException(TOO_MANY_MATCHES);
+        }
+        Date desde = torneo.getDesde() != null ? torneo.getDesde() : new Date();
+        return transactionTemplate.execute(estado -> {
+            torneoRepository.save(nuevo);
+            this.programar(nuevo, porProgramar, desde);
+            llaveTorneoRepository.saveAll(llaves);
+            return this.cuadro(nuevo, llaves);
+        });
+    }
+
+    /*
+     * El cuadro queda en el cache de torneos: un cuadro de 128 jugadores se lee de la base una sola vez (las llaves con
+     * sus jugadores, sin los partidos) y solo se vuelve a leer cuando avanza un ganador*/
+    @Override
+    @Cacheable(CACHE)
+    public CuadroTorneoDTO getCuadro(Long id) {
+        Torneo torneo = torneoRepository.findById(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException(TORNEO_WITH_ID + id + DOES_NOT_EXIST));
+        return this.cuadro(torneo, llaveTorneoRepository.findCuadro(id));
+    }
+
+    /*
+     * Se ejecuta en el hilo que sumo el ultimo punto, por eso solo encola el partido: el ganador lo registra un unico
+     * hilo de fondo, igual que AsignacionPuntos. Si la cola esta llena, o el registro falla, lo retoma el barrido
+     */
+    @EventListener
+    public void partidoFinalizado(PartidoFinalizadoEvent evento) {
+        if (!pendientes.offer(evento)) {
+            LOGGER.warn("Cola de avance de torneos llena, el partido {} se registra en el proximo barrido", evento.getIdPartido());
+            return;
+        }
+        this.programarAvance();
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        avances.shutdown();
+    }
+
+    private void programarAvance() {
+        if (programada.compareAndSet(false, true)) {
+            try {
+                avances.execute(this::procesar);
+            } catch (RejectedExecutionException e) {
+                //La api se esta deteniendo, los partidos encolados se registran en el barrido del proximo arranque
+                programada.set(false);
+            }
+        }
+    }
+
+    /* Vacia la cola de a un partido. Si se encolo un partido justo despues del ultimo se vuelve a programar */
+    void procesar() {
+        try {
+            PartidoFinalizadoEvent evento;
+            while ((evento = pendientes.poll()) != null) {
+                try {
+                    this.registrarGanador(evento.getIdPartido(), evento.getIdGanador());
+                } catch (RuntimeException e) {
+                    LOGGER.warn("No se pudo registrar el ganador del partido {}, se reintenta en el proximo barrido", evento.getIdPartido(), e);
+                }
+            }
+        } finally {
+            programada.set(false);
+        }
+        if (!pendientes.isEmpty()) {
+            this.programarAvance();
+        }
+    }
+
+    /*
+     * Registra los ganadores de los partidos de torneo finalizados cuyo evento se perdio y programa los partidos de
+     * las llaves que quedaron completas sin programar. Las llaves marcadas para revisar no se vuelven a intentar
+     */
+    @Scheduled(initialDelayString = "${springtennis.torneos.barrido-ms:60000}", fixedDelayString = "${springtennis.torneos.barrido-ms:60000}")
+    public void barrer() {
+        llaveTorneoRepository.findPartidosSinGanador(Estado.FINALIZADO, PageRequest.of(0, TAMANO_BARRIDO))
+                .forEach(partido -> this.partidoFinalizado(PartidoFinalizadoEvent.de(partidoMapper.toDTO(partido))));
+        llaveTorneoRepository.findPorProgramar(PageRequest.of(0, TAMANO_BARRIDO))
+                .forEach(llave -> this.programarLlave(llave.getTorneo().getId(), llave.getRonda(), llave.getPosicion()));
+    }
+
+    /*
+     * Registra el ganador de la llave del partido (si el partido es de un torneo y no se registro antes) y en
+     * eliminacion directa lo pasa a la llave siguiente, en una transaccion con las dos llaves bloqueadas, asi los
+     * ganadores de dos llaves que terminan a la vez no se pisan. Si el ganador del partido no es ninguno de los
+     * jugadores de la llave, la llave se marca para revisar. Despues del commit se descarta el cuadro del cache y
+     * se programa aparte el partido de la llave siguiente: si no hay cancha libre el ganador ya quedo registrado
+     */
+    void registrarGanador(Long idPartido, Long idGanador) {
+        LlaveTorneo registrada = transactionTemplate.execute(estado -> {
+            LlaveTorneo llave = llaveTorneoRepository.bloquearPorPartido(idPartido).orElse(null);
+            if (llave == null || llave.getGanador() != null || llave.isRevisar()) {
+                return null;
+            }
+            ModoJugador ganador = lado(llave, idGanador);
+            if (ganador == null) {
+                LOGGER.warn("El partido {} termino sin un ganador de la llave, la llave queda para revisar", idPartido);
+                llave.setRevisar(true);
+                return llave;
+            }
+            llave.setGanador(ganador);
+            Torneo torneo = llave.getTorneo();
+            if (TipoTorneo.ELIMINACION_DIRECTA.equals(torneo.getTipo())) {
+                llaveTorneoRepository.bloquear(torneo.getId(), llave.getRonda() + 1, llave.getPosicion() / 2)
+                        .ifPresent(siguiente -> avanzar(llave, siguiente));
+            }
+            return llave;
+        });
+        if (registrada == null) {
+            return;
+        }
+        Torneo torneo = registrada.getTorneo();
+        this.descartarCuadro(torneo.getId());
+        if (registrada.getGanador() != null && TipoTorneo.ELIMINACION_DIRECTA.equals(torneo.getTipo())) {
+            this.programarLlave(torneo.getId(), registrada.getRonda() + 1, registrada.getPosicion() / 2);
+        }
+    }
+
+    /*
+     * Programa el partido de la llave despues del descanso del torneo, en su propia transaccion con la llave
+     * bloqueada (si le falta un jugador o ya se programo no hace nada). Si no se puede programar, por ejemplo porque
+     * no hay cancha libre en la ventana, la llave se marca para revisar en otra transaccion y el barrido no la reintenta
+     */
+    void programarLlave(Long idTorneo, int ronda, int posicion) {
+        try {
+            Boolean programada = transactionTemplate.execute(estado -> {
+                LlaveTorneo llave = llaveTorneoRepository.bloquear(idTorneo, ronda, posicion).orElse(null);
+                if (llave == null || !porProgramar(llave)) {
+                    return false;
+                }
+                Torneo torneo = llave.getTorneo();
+                long descanso = TimeUnit.MINUTES.toMillis(torneo.getDescansoMinutos());
+                this.programar(torneo, Collections.singletonList(llave), new Date(System.currentTimeMillis() + descanso));
+                return true;
+            });
+            if (Boolean.TRUE.equals(programada)) {
+                this.descartarCuadro(idTorneo);
+            }
+        } catch (DatoInvalidoException e) {
+            LOGGER.warn("No se pudo programar el partido de la llave {}-{} del torneo {}, la llave queda para revisar: {}",
+                    ronda, posicion, idTorneo, e.getMessage());
+            transactionTemplate.execute(estado -> {
+                llaveTorneoRepository.bloquear(idTorneo, ronda, posicion).filter(TorneoServiceImpl::porProgramar)
+                        .ifPresent(llave -> llave.setRevisar(true));
+                return null;
+            });
+            this.descartarCuadro(idTorneo);
+        }
+    }
+
+    private void descartarCuadro(Long idTorneo) {
+        Cache cache = cacheManager.getCache(CACHE);
+        if (cache != null) {
+            cache.evict(idTorneo);
+        }
+    }
+
+    private void validar(TorneoDTO torneo) {
+        if (torneo.getNombre() == null || torneo.getNombre().trim().isEmpty()) {
+            throw new DatoInvalidoException(NAME_MISSING);
+        }
+        if (torneo.getTipo() == null) {
+            throw new DatoInvalidoException(TYPE_MISSING);
+        }
+        if (torneo.getJugadores() == null || torneo.getJugadores().size() < 2) {
+            throw new DatoInvalidoException(PLAYERS_MISSING);
+        }
+        if (torneo.getJugadores().contains(null) || new HashSet<>(torneo.getJugadores()).size() != torneo.getJugadores().size()) {
+            throw new DatoInvalidoException(PLAYER_DUPLICATED);
+        }
+        if (torneo.getDescansoMinutos() < 0) {
+            throw new DatoInvalidoException(INVALID_REST);
+        }
+    }
+
+    /* Programa los partidos de las llaves en las canchas del torneo y les asigna el id de su partido */
+    private void programar(Torneo torneo, List<LlaveTorneo> llaves, Date desde) {
+        if (llaves.isEmpty()) {
+            return;
+        }
+        List<EmparejamientoDTO> emparejamientos = llaves.stream()
+                .map(llave -> new EmparejamientoDTO(llave.getJugadorLocal().getId(), llave.getJugadorVisitante().getId()))
+                .collect(Collectors.toList());
+        ProgramacionDTO programacion = new ProgramacionDTO(desde, new Date(desde.getTime() + VENTANA_MS), emparejamientos);
+        programacion.setCanchas(torneo.getCanchas());
+        programacion.setDescansoMinutos(torneo.getDescansoMinutos());
+        programacion.setFormato(torneo.getFormato());
+        programacion.setSinVentaja(torneo.isSinVentaja());
+        List<PartidoDTO> partidos = programacionTorneo.programar(programacion);
+        for (int i = 0; i < llaves.size(); i++) {
+            llaves.get(i).setIdPartido(partidos.get(i).getId());
+        }
+    }
+
+    private CuadroTorneoDTO cuadro(Torneo torneo, List<LlaveTorneo> llaves) {
+        List<LlaveTorneoDTO> dtos = llaves.stream().map(torneoMapper::toDTO).collect(Collectors.toList());
+        JugadorDTO campeon = null;
+        //Las llaves estan ordenadas por ronda, la ultima es la final
+        if (TipoTorneo.ELIMINACION_DIRECTA.equals(torneo.getTipo()) && !dtos.isEmpty()) {
+            LlaveTorneoDTO fin = dtos.get(dtos.size() - 1);
+            if (fin.getGanador() != null) {
+                campeon = ModoJugador.LOCAL.equals(fin.getGanador()) ? fin.getJugadorLocal() : fin.getJugadorVisitante();
+            }
+        }
+        return new CuadroTorneoDTO(torneoMapper.toDTO(torneo), dtos, campeon);
+    }
+
+    /*
+     * Cuadro de eliminacion directa para los jugadores ordenados por siembra: se completa hasta la potencia de 2
+     * siguiente con lugares libres, que les tocan a los mejores sembrados, y los que quedan libres pasan directo
+     * a la segunda ronda. Devuelve las llaves de todas las rondas ordenadas por ronda y posicion
+     */
+    static List<LlaveTorneo> cuadroEliminacion(Torneo torneo, List<Jugador> inscriptos) {
+        int tamano = Integer.highestOneBit(inscriptos.size() - 1) << 1;
+        int[] siembra = ordenSiembra(tamano);
+        List<List<LlaveTorneo>> rondas = new ArrayList<>();
+        for (int ronda = 1, cantidad = tamano / 2; cantidad >= 1; ronda++, cantidad /= 2) {
+            List<LlaveTorneo> llaves = new ArrayList<>(cantidad);
+            for (int posicion = 0; posicion < cantidad; posicion++) {
+                llaves.add(new LlaveTorneo(torneo, ronda, posicion));
+            }
+            rondas.add(llaves);
+        }
+        for (LlaveTorneo llave : rondas.get(0)) {
+            int local = siembra[2 * llave.getPosicion()];
+            int visitante = siembra[2 * llave.getPosicion() + 1];
+            llave.setJugadorLocal(local <= inscriptos.size() ? inscriptos.get(local - 1) : null);
+            llave.setJugadorVisitante(visitante <= inscriptos.size() ? inscriptos.get(visitante - 1) : null);
+            //Como el cuadro es la menor potencia de 2 que alcanza, no hay llaves con los dos lugares libres
+            if (llave.getJugadorVisitante() == null || llave.getJugadorLocal() == null) {
+                llave.setGanador(llave.getJugadorLocal() != null ? ModoJugador.LOCAL : ModoJugador.VISITANTE);
+                avanzar(llave, rondas.get(1).get(llave.getPosicion() / 2));
+            }
+        }
+        return rondas.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    /*
+     * Orden de los sembrados en la primera ronda de un cuadro de tamano lugares (potencia de 2), de forma que
+     * el 1 y el 2 solo se puedan cruzar en la final, el 1 y el 4 en semifinal, etc. Para 8: 1 8 4 5 2 7 3 6
+     */
+    static int[] ordenSiembra(int tamano) {
+        int[] orden = {1};
+        while (orden.length < tamano) {
+            int[] siguiente = new int[orden.length * 2];
+            for (int i = 0; i < orden.length; i++) {
+                siguiente[2 * i] = orden[i];
+                siguiente[2 * i + 1] = siguiente.length + 1 - orden[i];
+            }
+            orden = siguiente;
+        }
+        return orden;
+    }
+
+    /*
+     * Fechas de todos contra todos por el metodo del circulo: el primer jugador queda fijo y los demas rotan una
+     * posicion por fecha, asi en cada fecha cada jugador juega una sola vez. Con una cantidad impar se agrega un
+     * lugar libre y el que le toca descansa esa fecha
+     */
+    static List<LlaveTorneo> cuadroTodosContraTodos(Torneo torneo, List<Jugador> inscriptos) {
+        List<Jugador> circulo = new ArrayList<>(inscriptos);
+        if (circulo.size() % 2 != 0) {
+            circulo.add(null);
+        }
+        int cantidad = circulo.size();
+        List<LlaveTorneo> llaves = new ArrayList<>(cantidad * (cantidad - 1) / 2);
+        for (int ronda = 1; ronda < cantidad; ronda++) {
+            int posicion = 0;
+            for (int i = 0; i < cantidad / 2; i++) {
+                Jugador local = circulo.get(i);
+                Jugador visitante = circulo.get(cantidad - 1 - i);
+                if (local == null || visitante == null) {
+                    continue;
+                }
+                //El jugador fijo alterna entre local y visitante
+                if (i == 0 && ronda % 2 == 0) {
+                    Jugador aux = local;
+                    local = visitante;
+                    visitante = aux;
+                }
+                llaves.add(new LlaveTorneo(torneo, ronda, posicion++, local, visitante));
+            }
+            circulo.add(1, circulo.remove(cantidad - 1));
+        }
+        return llaves;
+    }
+
+    /* Pasa al ganador de la llave al lugar que le corresponde en la llave siguiente */
+    private static void avanzar(LlaveTorneo llave, LlaveTorneo siguiente) {
+        Jugador ganador = ModoJugador.LOCAL.equals(llave.getGanador()) ? llave.getJugadorLocal() : llave.getJugadorVisitante();
+        if (llave.getPosicion() % 2 == 0) {
+            siguiente.setJugadorLocal(ganador);
+        } else {
+            siguiente.setJugadorVisitante(ganador);
+        }
+    }
+
+    /* Lado de la llave del jugador que gano el partido, null si no es ninguno de los dos (o el partido empato) */
+    private static ModoJugador lado(LlaveTorneo llave, Long idGanador) {
+        if (idGanador == null) {
+            return null;
+        }
+        if (llave.getJugadorLocal() != null && idGanador.equals(llave.getJugadorLocal().getId())) {
+            return ModoJugador.LOCAL;
+        }
+        if (llave.getJugadorVisitante() != null && idGanador.equals(llave.getJugadorVisitante().getId())) {
+            return ModoJugador.VISITANTE;
+        }
+        return null;
+    }
+
+    private static boolean porProgramar(LlaveTorneo llave) {
+        return llave.getJugadorLocal() != null && llave.getJugadorVisitante() != null
+                && llave.getGanador() == null && llave.getIdPartido() == null && !llave.isRevisar();
+    }
+}
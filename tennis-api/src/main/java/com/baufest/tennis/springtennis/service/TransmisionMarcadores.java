@@ -0,0 +1,159 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.event.MarcadorActualizadoEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>Transmision de marcadores en vivo</p>
+ * Mantiene las conexiones Server-Sent Events de los clientes que siguen cada partido y les envia el marcador
+ * cada vez que cambia. El marcador se serializa una sola vez por cambio y el mismo JSON se escribe en todas
+ * las conexiones del partido; si el partido no tiene clientes conectados no se serializa nada.
+ * Los envios se hacen en un unico hilo aparte, para que un cliente lento no demore al que suma el punto
+ * y para que los marcadores de un partido lleguen en orden: si dos puntos simultaneos publican sus marcadores
+ * al reves, el de version mas vieja se descarta.
+ */
+@Component
+public class TransmisionMarcadores {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransmisionMarcadores.class);
+
+    public static final String EVENTO = "marcador";
+
+    private final ObjectWriter writer;
+    private final long timeout;
+
+    //Conexiones abiertas por id de partido
+    private final ConcurrentMap<Long, Set<SseEmitter>> suscriptores = new ConcurrentHashMap<>();
+
+    //Ultima version enviada de cada partido, solo se usa desde el hilo de envios
+    private final Map<Long, Long> versionesEnviadas = new HashMap<>();
+
+    private final ExecutorService envios = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "transmision-marcadores");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @Autowired
+    public TransmisionMarcadores(ObjectMapper objectMapper,
+                                 @Value("${springtennis.marcador.sse-timeout-ms:1800000}") long timeout) {
+        this.writer = objectMapper.writerFor(MarcadorDTO.class);
+        this.timeout = timeout;
+    }
+
+    /*
+     * Abre una conexion para seguir el partido del marcador recibido, enviando primero ese marcador. Si el partido ya
+     * finalizo no va a haber mas cambios: se envia el marcador y se cierra la conexion
+     */
+    public SseEmitter suscribir(MarcadorDTO actual) {
+        Long id = actual.getIdPartido();
+        SseEmitter emitter = new SseEmitter(timeout);
+        if (Estado.FINALIZADO.equals(actual.getEstado())) {
+            this.enviar(id, emitter, actual.getVersion(), this.serializar(actual));
+            emitter.complete();
+            return emitter;
+        }
+        suscriptores.compute(id, (clave, conexiones) -> {
+            Set<SseEmitter> abiertas = conexiones != null ? conexiones : new CopyOnWriteArraySet<>();
+            abiertas.add(emitter);
+            return abiertas;
+        });
+        emitter.onCompletion(() -> this.quitar(id, emitter));
+        emitter.onTimeout(() -> this.quitar(id, emitter));
+        emitter.onError(error -> this.quitar(id, emitter));
+        this.enviar(id, emitter, actual.getVersion(), this.serializar(actual));
+        return emitter;
+    }
+
+    public int cantidadSuscriptores(Long idPartido) {
+        Set<SseEmitter> conexiones = suscriptores.get(idPartido);
+        return conexiones != null ? conexiones.size() : 0;
+    }
+
+    /* Envia el marcador nuevo a todos los clientes del partido; cuando el partido finaliza cierra sus conexiones */
+    @EventListener
+    public void marcadorActualizado(MarcadorActualizadoEvent evento) {
+        MarcadorDTO marcador = evento.getMarcador();
+        Set<SseEmitter> conexiones = suscriptores.get(marcador.getIdPartido());
+        boolean finalizado = Estado.FINALIZADO.equals(marcador.getEstado());
+        if (conexiones == null || conexiones.isEmpty()) {
+            if (finalizado) {
+                envios.execute(() -> versionesEnviadas.remove(marcador.getIdPartido()));
+            }
+            return;
+        }
+        String json = this.serializar(marcador);
+        envios.execute(() -> {
+            Long enviada = versionesEnviadas.get(marcador.getIdPartido());
+            if (enviada != null && marcador.getVersion() != null && marcador.getVersion() <= enviada) {
+                return;
+            }
+            if (finalizado) {
+                versionesEnviadas.remove(marcador.getIdPartido());
+            } else {
+                versionesEnviadas.put(marcador.getIdPartido(), marcador.getVersion());
+            }
+            for (SseEmitter emitter : conexiones) {
+                this.enviar(marcador.getIdPartido(), emitter, marcador.getVersion(), json);
+                if (finalizado) {
+                    emitter.complete();
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        envios.shutdown();
+        suscriptores.values().forEach(conexiones -> conexiones.forEach(SseEmitter::complete));
+        suscriptores.clear();
+    }
+
+    private void enviar(Long id, SseEmitter emitter, Long version, String json) {
+        try {
+            emitter.send(SseEmitter.event().id(String.valueOf(version)).name(EVENTO).data(json, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            //El cliente cerro la conexion
+            LOGGER.debug("Se cerro una conexion del partido {}", id);
+            this.quitar(id, emitter);
+        }
+    }
+
+    private void quitar(Long id, SseEmitter emitter) {
+        suscriptores.computeIfPresent(id, (clave, conexiones) -> {
+            conexiones.remove(emitter);
+            return conexiones.isEmpty() ? null : conexiones;
+        });
+    }
+
+    private String serializar(MarcadorDTO marcador) {
+        try {
+            return writer.writeValueAsString(marcador);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.baufest.tennis.springtennis.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RutaDatasourceTest {
+
+    private static final String SERVICE = "com.baufest.tennis.springtennis.service.JugadorServiceImpl.listAll";
+
+    @Mock
+    DataSource primaria;
+
+    @Mock
+    DataSource replica;
+
+    @Mock
+    Connection conexionPrimaria;
+
+    @Mock
+    Connection conexionReplica;
+
+    AtomicLong reloj = new AtomicLong(10000L);
+
+    RutaDatasource ruta;
+
+    @BeforeEach
+    public void setUp() {
+        ruta = new RutaDatasource(primaria, Collections.singletonList(replica), 2000L, reloj::get);
+        ruta.afterPropertiesSet();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testLecturasDeLaApiVanALaReplica() throws Exception {
+        when(replica.getConnection()).thenReturn(conexionReplica);
+        this.transaccion(SERVICE, true);
+
+        assertSame(conexionReplica, ruta.getConnection());
+        verifyNoInteractions(primaria);
+    }
+
+    @Test
+    void testEscriturasYTransaccionesDeSpringDataVanALaPrimaria() throws Exception {
+        when(primaria.getConnection()).thenReturn(conexionPrimaria);
+
+        this.transaccion(SERVICE, false);
+        assertSame(conexionPrimaria, ruta.getConnection());
+        //Las lecturas por defecto de JpaRepository se usan antes de escribir, tienen que ver la primaria
+        this.transaccion("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById", true);
+        assertSame(conexionPrimaria, ruta.getConnection());
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void testDespuesDeEscribirEnUnRequestSeLeeDeLaPrimaria() throws Exception {
+        when(primaria.getConnection()).thenReturn(conexionPrimaria);
+        when(replica.getConnection()).thenReturn(conexionReplica);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+
+        this.escribir();
+        assertEquals("10000", response.getHeader(RutaDatasource.HEADER_ESCRITURA));
+
+        //El mismo request lee de la primaria
+        this.transaccion(SERVICE, true);
+        assertSame(conexionPrimaria, ruta.getConnection());
+
+        //Los requests siguientes del mismo cliente reenvian el header, hasta que pasa el lag
+        this.request("10000");
+        reloj.addAndGet(1999L);
+        assertSame(conexionPrimaria, ruta.getConnection());
+        reloj.addAndGet(1L);
+        assertSame(conexionReplica, ruta.getConnection());
+    }
+
+    @Test
+    void testLaEscrituraDeUnClienteNoDesviaLasLecturasDeLosDemas() throws Exception {
+        when(primaria.getConnection()).thenReturn(conexionPrimaria);
+        when(replica.getConnection()).thenReturn(conexionReplica);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(),
+                new MockHttpServletResponse()));
+        this.escribir();
+
+        this.transaccion(SERVICE, true);
+        this.request(null);
+        assertSame(conexionReplica, ruta.getConnection());
+        //Un valor invalido o demasiado en el futuro tampoco
+        this.request("ayer");
+        assertSame(conexionReplica, ruta.getConnection());
+        this.request("20000");
+        assertSame(conexionReplica, ruta.getConnection());
+    }
+
+    @Test
+    void testEscriturasFueraDeUnRequestNoDesviaLasLecturas() throws Exception {
+        when(primaria.getConnection()).thenReturn(conexionPrimaria);
+        when(replica.getConnection()).thenReturn(conexionReplica);
+
+        //Por ejemplo el flush de los marcadores
+        this.transaccion("com.baufest.tennis.springtennis.service.HistorialPuntos.guardarLote", false);
+        ruta.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        this.transaccion(SERVICE, true);
+        assertSame(conexionReplica, ruta.getConnection());
+    }
+
+    private void escribir() throws Exception {
+        this.transaccion(SERVICE, false);
+        ruta.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+
+    /* Un request nuevo, con el header de la ultima escritura del cliente si se indica */
+    private void request(String ultimaEscritura) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (ultimaEscritura != null) {
+            request.addHeader(RutaDatasource.HEADER_ESCRITURA, ultimaEscritura);
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+    }
+
+    private void transaccion(String nombre, boolean soloLectura) {
+        TransactionSynchronizationManager.setCurrentTransactionName(nombre);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(soloLectura);
+    }
+}
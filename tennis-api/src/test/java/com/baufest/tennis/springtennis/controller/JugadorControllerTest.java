@@ -1,6 +1,11 @@
 package com.baufest.tennis.springtennis.controller;
 
 import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.dto.PosicionRankingDTO;
+import com.baufest.tennis.springtennis.dto.ResultadoImportacionDTO;
+import com.baufest.tennis.springtennis.enums.FormatoImportacion;
+import com.baufest.tennis.springtennis.service.ImportacionRegistros;
 import com.baufest.tennis.springtennis.service.JugadorServiceImpl;
 import org.json.JSONArray;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +14,7 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -19,7 +25,9 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -40,6 +48,9 @@ class JugadorControllerTest {
     @MockBean
     JugadorServiceImpl jugadorService;
 
+    @MockBean
+    ImportacionRegistros importacionRegistros;
+
     @BeforeEach
     public void setUp() {
     	//Agregamos datos nuevos
@@ -63,16 +74,40 @@ class JugadorControllerTest {
     @Test
     void testListAll() throws Exception {
 
-        when(jugadorService.listAll()).thenReturn(jugadoresDePrueba);
+        when(jugadorService.listAll(null, PaginaDTO.TAMANO_DEFECTO)).thenReturn(new PaginaDTO<>(jugadoresDePrueba, null));
 
         mockMvc.perform(MockMvcRequestBuilders.get(basePath).accept(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("X-Next-Cursor"))
                 .andExpect(MockMvcResultMatchers.content().json(jugadoresDePruebaEnJSON.toString()));
 
-        verify(jugadorService).listAll();
+        verify(jugadorService).listAll(null, PaginaDTO.TAMANO_DEFECTO);
 
     }
 
+    @Test
+    void testListAllSinCambiosResponde304() throws Exception {
+        when(jugadorService.getVersionPagina(null, PaginaDTO.TAMANO_DEFECTO)).thenReturn(42L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath).header(HttpHeaders.IF_NONE_MATCH, "\"42\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"42\""));
+
+        verify(jugadorService, never()).listAll(any(), anyInt());
+    }
+
+    @Test
+    void testSearch() throws Exception {
+        when(jugadorService.buscar("fed", PaginaDTO.TAMANO_BUSQUEDA)).thenReturn(jugadoresDePrueba.subList(0, 1));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + "search?nombre=fed").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().json(new JSONArray().put(jugadoresDePrueba.get(0).toJSONObject()).toString()));
+
+        verify(jugadorService).buscar("fed", PaginaDTO.TAMANO_BUSQUEDA);
+        verify(jugadorService, never()).listAll(any(), anyInt());
+    }
+
     @Test
     void testGetByID() throws Exception {
         long idJugadorGet = 1L;
@@ -125,4 +160,52 @@ class JugadorControllerTest {
         verify(jugadorService).delete(eq(jugadoresDePrueba.get(0).getId()));
     }
 
+
+    @Test
+    void testImportarCsv() throws Exception {
+        ResultadoImportacionDTO resultado = new ResultadoImportacionDTO();
+        resultado.sumar(2, 0, 0);
+        when(importacionRegistros.importarJugadores(any(), eq(FormatoImportacion.CSV))).thenReturn(resultado);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(basePath + "import").contentType("text/csv")
+                .content("nombre,puntos\nfacu,20\nfer,15\n"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.insertados").value(2));
+
+        verify(importacionRegistros).importarJugadores(any(), eq(FormatoImportacion.CSV));
+    }
+
+    @Test
+    void testImportarFormatoNoSoportado() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post(basePath + "import").contentType(MediaType.APPLICATION_XML)
+                .content("<jugadores/>"))
+                .andExpect(MockMvcResultMatchers.status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void testRanking() throws Exception {
+        List<PosicionRankingDTO> ranking = new ArrayList<>();
+        ranking.add(new PosicionRankingDTO(1, jugadoresDePrueba.get(0)));
+        ranking.add(new PosicionRankingDTO(2, jugadoresDePrueba.get(1)));
+        when(jugadorService.ranking(0, 2)).thenReturn(ranking);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + "ranking?from=0&size=2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].posicion").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].jugador.nombre").value("fer"));
+
+        verify(jugadorService).ranking(0, 2);
+    }
+
+    @Test
+    void testPosicionEnRanking() throws Exception {
+        when(jugadorService.posicion(3L)).thenReturn(new PosicionRankingDTO(3, jugadoresDePrueba.get(2)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + "3/ranking").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.posicion").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.jugador.id").value(3));
+
+        verify(jugadorService).posicion(3L);
+    }
 }
@@ -1,25 +1,54 @@
 package com.baufest.tennis.springtennis.controller;
 
+import com.baufest.tennis.springtennis.dto.CanchaDTO;
+import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.MarcadorCompactoDTO;
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.dto.PartidoArchivadoDTO;
 import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.PuntoPartidoDTO;
+import com.baufest.tennis.springtennis.dto.ResultadoPuntoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
 import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.PoliticaConflicto;
+import com.baufest.tennis.springtennis.exception.ConflictoVersionException;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.model.Partido;
+import com.baufest.tennis.springtennis.repository.VersionPartido;
+import com.baufest.tennis.springtennis.service.ArchivoPartidos;
+import com.baufest.tennis.springtennis.service.MotorMarcador;
 import com.baufest.tennis.springtennis.service.PartidoServiceImpl;
+import com.baufest.tennis.springtennis.service.ProgramacionTorneo;
+import com.baufest.tennis.springtennis.service.TransmisionMarcadores;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -39,6 +68,15 @@ class PartidoControllerTest {
     @MockBean
     PartidoServiceImpl partidoService;
 
+    @MockBean
+    TransmisionMarcadores transmisionMarcadores;
+
+    @MockBean
+    ProgramacionTorneo programacionTorneo;
+
+    @MockBean
+    ArchivoPartidos archivoPartidos;
+
     @BeforeEach
     public void setUp() {
         partidosDePrueba.clear();
@@ -63,23 +101,87 @@ class PartidoControllerTest {
 
     @Test
     void testListAll() throws Exception {
-        when(partidoService.listAll()).thenReturn(partidosDePrueba);
+        when(partidoService.listAll(null, PaginaDTO.TAMANO_DEFECTO, null, null)).thenReturn(new PaginaDTO<>(partidosDePrueba, null));
 
         mockMvc.perform(MockMvcRequestBuilders.get(basePath).accept(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.content().json(partidosDePruebaEnJSON.toString()));
 
-        verify(partidoService).listAll();
+        verify(partidoService).listAll(null, PaginaDTO.TAMANO_DEFECTO, null, null);
+
+    }
+
+    @Test
+    void testListAllPaginado() throws Exception {
+        when(partidoService.listAll(2L, 3, Estado.EN_CURSO, 1L)).thenReturn(new PaginaDTO<>(partidosDePrueba.subList(2, 5), 5L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath).accept(MediaType.APPLICATION_JSON)
+                .param("cursor", "2").param("size", "3").param("estado", "EN_CURSO").param("idCancha", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("X-Next-Cursor", "5"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3));
+
+        verify(partidoService).listAll(2L, 3, Estado.EN_CURSO, 1L);
+    }
+
+    @Test
+    void testListHistorial() throws Exception {
+        PartidoArchivadoDTO archivado = new PartidoArchivadoDTO();
+        archivado.setId(7L);
+        archivado.setNombreLocal("Nadal");
+        when(archivoPartidos.listHistorial(isNull(), eq(PaginaDTO.TAMANO_DEFECTO), any(), any(), eq(2L), isNull()))
+                .thenReturn(new PaginaDTO<>(Collections.singletonList(archivado), 7L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + "historial").accept(MediaType.APPLICATION_JSON)
+                .param("desde", "2019-01-01T00:00:00.000Z").param("hasta", "2020-01-01T00:00:00.000Z")
+                .param("idJugador", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("X-Next-Cursor", "7"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(7))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].nombreLocal").value("Nadal"));
+
+        verify(partidoService, never()).listAll(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void testListHistorialSinFechasResponde400() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + "historial").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        verifyNoInteractions(archivoPartidos);
+    }
+
+    @Test
+    void testExportar() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<PartidoDTO> consumidor = invocation.getArgument(3);
+            partidosDePrueba.forEach(consumidor);
+            return null;
+        }).when(partidoService).exportar(isNull(), isNull(), eq(1L), any());
+
+        MvcResult resultado = mockMvc.perform(MockMvcRequestBuilders.get(basePath + "export").param("idCancha", "1"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        String cuerpo = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(PartidoController.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
 
+        String[] lineas = cuerpo.split("\n");
+        assertEquals(partidosDePrueba.size(), lineas.length);
+        assertEquals(partidosDePrueba.get(0).getId(), new JSONObject(lineas[0]).getLong("id"));
     }
 
     @Test
     void testGetByID() throws Exception {
         long idPartidoGet = 1L;
+        when(partidoService.getVersion(1L)).thenReturn(new VersionPartido(4L, Estado.NO_INICIADO, 1L, 2L, 3L));
         when(partidoService.getById(1L)).thenReturn(partidosDePrueba.get(0));
 
         mockMvc.perform(MockMvcRequestBuilders.get(basePath + idPartidoGet).accept(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4-1-2-3\""))
                 .andExpect(MockMvcResultMatchers.content().json(partidosDePrueba.get(0)
                         .toJSONObject().toString()));
 
@@ -88,6 +190,19 @@ class PartidoControllerTest {
 
     }
 
+    @Test
+    void testGetByIDSinCambiosResponde304() throws Exception {
+        when(partidoService.getVersion(1L)).thenReturn(new VersionPartido(4L, Estado.EN_CURSO, 1L, 2L, 3L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + 1L).header(HttpHeaders.IF_NONE_MATCH, "\"3-1-2-3\", W/\"4-1-2-3\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4-1-2-3\""))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        //El partido no se lee ni se arma
+        verify(partidoService, never()).getById(any());
+    }
+
     @Test
     void testSavePartido() throws Exception {
         ArgumentCaptor<PartidoDTO> argumentCaptor = ArgumentCaptor.forClass(PartidoDTO.class);
@@ -101,6 +216,47 @@ class PartidoControllerTest {
         verify(partidoService).save(any());
     }
 
+    @Test
+    void testSavePartidosEnLote() throws Exception {
+        when(partidoService.saveAll(any())).thenReturn(partidosDePrueba.subList(0, 2));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(basePath + "batch").contentType(MediaType.APPLICATION_JSON)
+                .content(new JSONArray().put(partidoParaAgregar.toJSONObject()).put(partidoParaAgregar.toJSONObject()).toString()))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2));
+
+        verify(partidoService).saveAll(argThat(partidos -> partidos.size() == 2));
+    }
+
+    @Test
+    void testSavePartidosEnLoteInvalido() throws Exception {
+        when(partidoService.saveAll(any())).thenThrow(new IllegalArgumentException());
+
+        mockMvc.perform(MockMvcRequestBuilders.post(basePath + "batch").contentType(MediaType.APPLICATION_JSON)
+                .content(new JSONArray().put(partidoParaAgregar.toJSONObject()).toString()))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void testProgramarPartidos() throws Exception {
+        when(programacionTorneo.programar(any())).thenReturn(partidosDePrueba.subList(0, 2));
+        JSONObject programacion = new JSONObject()
+                .put("desde", "2030-01-01T10:00:00.000+0000")
+                .put("hasta", "2030-01-02T10:00:00.000+0000")
+                .put("descansoMinutos", 60)
+                .put("emparejamientos", new JSONArray()
+                        .put(new JSONObject().put("idLocal", 1).put("idVisitante", 2))
+                        .put(new JSONObject().put("idLocal", 3).put("idVisitante", 4)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(basePath + "programacion").contentType(MediaType.APPLICATION_JSON)
+                .content(programacion.toString()))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2));
+
+        verify(programacionTorneo).programar(argThat(pedido -> pedido.getEmparejamientos().size() == 2
+                && pedido.getDescansoMinutos() == 60 && pedido.getEmparejamientos().get(1).getIdVisitante() == 4L));
+    }
+
     @Test
     void testUpdatePartido() throws Exception {
         ArgumentCaptor<PartidoDTO> argumentCaptor = ArgumentCaptor.forClass(PartidoDTO.class);
@@ -138,7 +294,8 @@ class PartidoControllerTest {
         doThrow(new NoSuchElementException()).when(partidoService).initGame(eq(partidosDePrueba.get(0).getId()));
 
         mockMvc.perform(MockMvcRequestBuilders.put(basePath + partidosDePrueba.get(0).getId() + "/actions/init"))
-                .andExpect(MockMvcResultMatchers.status().isNotFound());
+                .andExpect(MockMvcResultMatchers.status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.codigo").value("NO_ENCONTRADO"));
 
         verify(partidoService).initGame(eq(partidosDePrueba.get(0).getId()));
 
@@ -149,43 +306,196 @@ class PartidoControllerTest {
         doThrow(new RuntimeException()).when(partidoService).initGame(eq(partidosDePrueba.get(0).getId()));
 
         mockMvc.perform(MockMvcRequestBuilders.put(basePath + partidosDePrueba.get(0).getId() + "/actions/init"))
-                .andExpect(MockMvcResultMatchers.status().isInternalServerError());
+                .andExpect(MockMvcResultMatchers.status().isInternalServerError())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.codigo").value("ERROR_INTERNO"));
 
         verify(partidoService).initGame(eq(partidosDePrueba.get(0).getId()));
 
     }
 
+    @Test
+    void testSumarPuntosImposibleRespondeErrorCompacto() throws Exception {
+        doThrow(new DatoInvalidoException("PUNTAJE_IMPOSIBLE", "modoJugador", "Score imposible"))
+                .when(partidoService).sumarPuntos(any(), any(), any(), any());
+
+        mockMvc.perform(MockMvcRequestBuilders.post(basePath + partidosDePrueba.get(0).getId() + "/actions/sumar-punto")
+                .param("modoJugador", "LOCAL"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.codigo").value("PUNTAJE_IMPOSIBLE"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.mensaje").value("Score imposible"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.campo").value("modoJugador"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.stackTrace").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.actual").doesNotExist());
+    }
+
     @Test
     void testSumarPuntosLocalFailed() throws Exception {
-        doThrow(new IllegalArgumentException()).when(partidoService).sumarPuntos(any(), any());
+        doThrow(new IllegalArgumentException()).when(partidoService).sumarPuntos(any(), any(), any(), any());
 
         mockMvc.perform(MockMvcRequestBuilders.post(basePath + partidosDePrueba.get(0).getId() + "/actions/sumar-punto")
                 .param("modoJugador", "LOCAL"))
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
 
-        verify(partidoService).sumarPuntos(eq(partidosDePrueba.get(0).getId()),eq(ModoJugador.LOCAL));
+        verify(partidoService).sumarPuntos(eq(partidosDePrueba.get(0).getId()),eq(ModoJugador.LOCAL), isNull(), isNull());
 
     }
 
     @Test
     void testSumarPuntosLocal() throws Exception {
-        when(partidoService.sumarPuntos(any(), any())).thenReturn(partidosDePrueba.get(0));
+        //Mismo ETag que el GET del partido: versiones del partido, sus jugadores y su cancha
+        partidosDePrueba.get(0).setVersion(4L);
+        partidosDePrueba.get(0).setJugadorLocal(new JugadorDTO());
+        partidosDePrueba.get(0).getJugadorLocal().setVersion(1L);
+        partidosDePrueba.get(0).setJugadorVisitante(new JugadorDTO());
+        partidosDePrueba.get(0).getJugadorVisitante().setVersion(2L);
+        partidosDePrueba.get(0).setCancha(new CanchaDTO());
+        partidosDePrueba.get(0).getCancha().setVersion(3L);
+        when(partidoService.sumarPuntos(any(), any(), any(), any()))
+                .thenReturn(new ResultadoPuntoDTO(partidosDePrueba.get(0), PoliticaConflicto.REINTENTAR, 1));
 
         mockMvc.perform(MockMvcRequestBuilders.post(basePath + partidosDePrueba.get(0).getId() + "/actions/sumar-punto")
-                .param("modoJugador", "LOCAL"))
-                .andExpect(MockMvcResultMatchers.status().isOk());
+                .param("modoJugador", "LOCAL")
+                .param("version", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4-1-2-3\""))
+                .andExpect(MockMvcResultMatchers.header().string(PartidoController.HEADER_REINTENTOS, "1"))
+                .andExpect(MockMvcResultMatchers.header().string(PartidoController.HEADER_POLITICA, "REINTENTAR"));
 
-        verify(partidoService).sumarPuntos(eq(partidosDePrueba.get(0).getId()), eq(ModoJugador.LOCAL));
+        verify(partidoService).sumarPuntos(eq(partidosDePrueba.get(0).getId()), eq(ModoJugador.LOCAL), eq(2L), isNull());
+    }
+
+    @Test
+    void testSumarPuntosCompacto() throws Exception {
+        PartidoDTO partido = partidosDePrueba.get(0);
+        partido.setVersion(5L);
+        partido.setEstado(Estado.EN_CURSO);
+        partido.setScoreLocal(2);
+        partido.setCantidadGamesVisitante(3);
+        when(partidoService.sumarPuntos(any(), any(), any(), any()))
+                .thenReturn(new ResultadoPuntoDTO(partido, PoliticaConflicto.REINTENTAR, 0));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(basePath + partido.getId() + "/actions/sumar-punto")
+                .param("modoJugador", "LOCAL")
+                .param("compacto", "true"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"5\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.i").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.v").value(5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.e").value("EN_CURSO"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.m").value(MotorMarcador.empaquetar(2, 0, 0, 3, Estado.EN_CURSO)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.jugadorLocal").doesNotExist());
+    }
+
+    @Test
+    void testGetMarcadorCompactoEnCbor() throws Exception {
+        MarcadorDTO marcador = MarcadorDTO.de(partidosDePrueba.get(0));
+        marcador.setVersion(7L);
+        marcador.setEstado(Estado.EN_CURSO);
+        marcador.setSetsLocal(1);
+        marcador.setResultadoSets("6-4");
+        when(partidoService.getVersion(1L)).thenReturn(new VersionPartido(7L, Estado.EN_CURSO, 0L, 0L, 0L));
+        when(partidoService.getMarcador(1L)).thenReturn(marcador);
+
+        byte[] cuerpo = mockMvc.perform(MockMvcRequestBuilders.get(basePath + "1/marcador").accept("application/cbor"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/cbor"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"7\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        MarcadorCompactoDTO compacto = new ObjectMapper(new CBORFactory()).readValue(cuerpo, MarcadorCompactoDTO.class);
+        assertEquals(7L, compacto.getVersion());
+        assertEquals(1, MotorMarcador.setsLocal(compacto.getMarcador()));
+        assertEquals("6-4", MotorMarcador.describirSets(compacto.getSets(), 1));
+
+        //Con la misma version el tablero recibe 304 sin que se lea el marcador
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + "1/marcador").header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+        verify(partidoService, times(1)).getMarcador(1L);
     }
 
     @Test
     void testSumarPuntosVisitante() throws Exception {
-        when(partidoService.sumarPuntos(any(), any())).thenReturn(partidosDePrueba.get(0));
+        when(partidoService.sumarPuntos(any(), any(), any(), any()))
+                .thenReturn(new ResultadoPuntoDTO(partidosDePrueba.get(0), PoliticaConflicto.REINTENTAR, 0));
 
         mockMvc.perform(MockMvcRequestBuilders.post(basePath + partidosDePrueba.get(0).getId() + "/actions/sumar-punto")
                 .param("modoJugador", "VISITANTE"))
                 .andExpect(MockMvcResultMatchers.status().isOk());
 
-        verify(partidoService).sumarPuntos(eq(partidosDePrueba.get(0).getId()), eq(ModoJugador.VISITANTE));
+        verify(partidoService).sumarPuntos(eq(partidosDePrueba.get(0).getId()), eq(ModoJugador.VISITANTE), isNull(), isNull());
+    }
+
+    @Test
+    void testSumarPuntosRechazado() throws Exception {
+        //Partido sin cancha: su version va como 0 en el ETag
+        partidosDePrueba.get(0).setVersion(5L);
+        partidosDePrueba.get(0).setJugadorLocal(new JugadorDTO());
+        partidosDePrueba.get(0).getJugadorLocal().setVersion(1L);
+        partidosDePrueba.get(0).setJugadorVisitante(new JugadorDTO());
+        partidosDePrueba.get(0).getJugadorVisitante().setVersion(2L);
+        partidosDePrueba.get(0).setCancha(null);
+        doThrow(new ConflictoVersionException("conflicto", partidosDePrueba.get(0)))
+                .when(partidoService).sumarPuntos(any(), any(), any(), any());
+
+        mockMvc.perform(MockMvcRequestBuilders.post(basePath + partidosDePrueba.get(0).getId() + "/actions/sumar-punto")
+                .param("modoJugador", "LOCAL")
+                .param("version", "3")
+                .param("politica", "RECHAZAR"))
+                .andExpect(MockMvcResultMatchers.status().isConflict())
+                //Mismo ETag que el GET del partido, para reenviarlo en el If-None-Match
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"5-1-2-0\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.codigo").value("CONFLICTO_VERSION"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.actual.version").value(5));
+
+        verify(partidoService).sumarPuntos(eq(partidosDePrueba.get(0).getId()), eq(ModoJugador.LOCAL), eq(3L), eq(PoliticaConflicto.RECHAZAR));
+    }
+
+    @Test
+    void testUpdatePartidoVersionVieja() throws Exception {
+        when(partidoService.update(any())).thenThrow(new ObjectOptimisticLockingFailureException(Partido.class, 1L));
+
+        mockMvc.perform(MockMvcRequestBuilders.put(basePath + partidosDePrueba.get(0).getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(partidosDePrueba.get(0).toJSONObject().toString()))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    void testListPuntos() throws Exception {
+        when(partidoService.listPuntos(any()))
+                .thenReturn(Collections.singletonList(new PuntoPartidoDTO(1L, 1L, ModoJugador.LOCAL, new Date())));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + partidosDePrueba.get(0).getId() + "/puntos"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].secuencia").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].modo").value("LOCAL"));
+
+        verify(partidoService).listPuntos(eq(partidosDePrueba.get(0).getId()));
+    }
+
+    @Test
+    void testStreamMarcador() throws Exception {
+        PartidoDTO partido = partidosDePrueba.get(0);
+        partido.setVersion(3L);
+        MarcadorDTO marcador = MarcadorDTO.de(partido);
+        when(partidoService.getMarcador(partido.getId())).thenReturn(marcador);
+        when(transmisionMarcadores.suscribir(any())).thenReturn(new SseEmitter());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + partido.getId() + "/marcador/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted());
+
+        verify(transmisionMarcadores).suscribir(marcador);
+    }
+
+    @Test
+    void testStreamMarcadorPartidoInexistente() throws Exception {
+        when(partidoService.getMarcador(any())).thenThrow(new NoSuchElementException());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + 99 + "/marcador/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        verify(transmisionMarcadores, never()).suscribir(any());
     }
 }
@@ -0,0 +1,66 @@
+package com.baufest.tennis.springtennis.controller;
+
+import com.baufest.tennis.springtennis.dto.CuadroTorneoDTO;
+import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.LlaveTorneoDTO;
+import com.baufest.tennis.springtennis.dto.TorneoDTO;
+import com.baufest.tennis.springtennis.enums.TipoTorneo;
+import com.baufest.tennis.springtennis.service.TorneoServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebMvcTest(TorneoController.class)
+class TorneoControllerTest {
+    String basePath = "/springtennis/api/v1/torneos/";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    TorneoServiceImpl torneoService;
+
+    @Test
+    void testSaveTorneo() throws Exception {
+        TorneoDTO torneo = new TorneoDTO("Abierto", TipoTorneo.ELIMINACION_DIRECTA, Arrays.asList(1L, 2L));
+        torneo.setId(7L);
+        LlaveTorneoDTO fin = new LlaveTorneoDTO(1, 0, new JugadorDTO(1L, "facu", 20), new JugadorDTO(2L, "fer", 15));
+        fin.setIdPartido(50L);
+        when(torneoService.save(any())).thenReturn(new CuadroTorneoDTO(torneo, Collections.singletonList(fin), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(basePath).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"nombre\":\"Abierto\",\"tipo\":\"ELIMINACION_DIRECTA\",\"jugadores\":[1,2],\"descansoMinutos\":30}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.torneo.id").value(7))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.llaves[0].idPartido").value(50))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.llaves[0].jugadorVisitante.nombre").value("fer"));
+
+        ArgumentCaptor<TorneoDTO> captor = ArgumentCaptor.forClass(TorneoDTO.class);
+        verify(torneoService).save(captor.capture());
+        assertEquals(Arrays.asList(1L, 2L), captor.getValue().getJugadores());
+        assertEquals(30, captor.getValue().getDescansoMinutos());
+    }
+
+    @Test
+    void testGetCuadroInexistente() throws Exception {
+        when(torneoService.getCuadro(7L)).thenThrow(new NoSuchElementException("Torneo with id = 7 does not exist."));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(basePath + "7").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+}
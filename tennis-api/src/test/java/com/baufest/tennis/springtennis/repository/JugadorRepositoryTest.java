@@ -4,6 +4,7 @@ import com.baufest.tennis.springtennis.model.Jugador;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -36,4 +37,19 @@ public class JugadorRepositoryTest {
         assertEquals(jugadoresExpected,judadores);
     }
 
+    @Test
+    public void findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc() {
+        repository.save(new Jugador("Nadal", 1));
+        repository.save(new Jugador("nalbandian", 2));
+        repository.save(new Jugador("Federer", 3));
+        repository.save(new Jugador("Nishikori", 4));
+
+        List<Jugador> jugadores = repository.findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc("NA", PageRequest.of(0, 5));
+        assertEquals(2, jugadores.size());
+        assertEquals("Nadal", jugadores.get(0).getNombre());
+        assertEquals("nalbandian", jugadores.get(1).getNombre());
+        //El tamaño del Pageable acota la cantidad de resultados
+        assertEquals(1, repository.findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc("n", PageRequest.of(0, 1)).size());
+    }
+
 }
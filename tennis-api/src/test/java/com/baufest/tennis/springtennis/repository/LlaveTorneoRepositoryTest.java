@@ -0,0 +1,139 @@
+package com.baufest.tennis.springtennis.repository;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.TipoTorneo;
+import com.baufest.tennis.springtennis.model.Cancha;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.model.LlaveTorneo;
+import com.baufest.tennis.springtennis.model.Partido;
+import com.baufest.tennis.springtennis.model.Torneo;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+public class LlaveTorneoRepositoryTest {
+
+    @Autowired
+    private LlaveTorneoRepository repository;
+
+    @Autowired
+    private TorneoRepository torneoRepository;
+
+    @Autowired
+    private PartidoRepository partidoRepository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private CanchaRepository canchaRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Torneo torneo;
+    private Partido jugado;
+    private Partido pendiente;
+
+    @BeforeEach
+    public void setUp() {
+        Jugador federer = jugadorRepository.save(new Jugador("Federer", 10));
+        Jugador nadal = jugadorRepository.save(new Jugador("Nadal", 10));
+        Jugador djokovic = jugadorRepository.save(new Jugador("Djokovic", 10));
+        Cancha cancha = canchaRepository.save(new Cancha("Estadio Monumental", "Av. Rio de la Plata 521"));
+        torneo = new Torneo("Abierto", TipoTorneo.ELIMINACION_DIRECTA);
+        torneo.setCanchas(Collections.singletonList(cancha.getId()));
+        torneo = torneoRepository.save(torneo);
+
+        jugado = nuevoPartido(Estado.FINALIZADO, federer, nadal, cancha);
+        pendiente = nuevoPartido(Estado.EN_CURSO, djokovic, nadal, cancha);
+        LlaveTorneo semifinal1 = new LlaveTorneo(torneo, 1, 0, federer, nadal);
+        semifinal1.setIdPartido(jugado.getId());
+        LlaveTorneo semifinal2 = new LlaveTorneo(torneo, 1, 1, djokovic, null);
+        semifinal2.setGanador(ModoJugador.LOCAL);
+        LlaveTorneo fin = new LlaveTorneo(torneo, 2, 0, null, djokovic);
+        repository.saveAll(Arrays.asList(fin, semifinal2, semifinal1));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void cuadroOrdenadoConSusJugadores() {
+        List<LlaveTorneo> cuadro = repository.findCuadro(torneo.getId());
+
+        assertEquals(Arrays.asList("1-0", "1-1", "2-0"), cuadro.stream()
+                .map(llave -> llave.getRonda() + "-" + llave.getPosicion()).collect(Collectors.toList()));
+        assertTrue(Hibernate.isInitialized(cuadro.get(0).getJugadorLocal()));
+        assertEquals("Nadal", cuadro.get(0).getJugadorVisitante().getNombre());
+        assertEquals("Djokovic", cuadro.get(2).getJugadorVisitante().getNombre());
+        assertEquals(Collections.singletonList(torneo.getCanchas().get(0)),
+                torneoRepository.findById(torneo.getId()).get().getCanchas());
+    }
+
+    @Test
+    public void llavePorPartidoYPorPosicion() {
+        assertEquals(0, repository.bloquearPorPartido(jugado.getId()).get().getPosicion());
+        assertFalse(repository.bloquearPorPartido(pendiente.getId()).isPresent());
+        assertEquals(2, repository.bloquear(torneo.getId(), 2, 0).get().getRonda());
+        assertFalse(repository.bloquear(torneo.getId(), 3, 0).isPresent());
+    }
+
+    @Test
+    public void partidosFinalizadosSinGanador() {
+        List<Partido> sinGanador = repository.findPartidosSinGanador(Estado.FINALIZADO, PageRequest.of(0, 10));
+
+        assertEquals(Collections.singletonList(jugado.getId()), sinGanador.stream().map(Partido::getId).collect(Collectors.toList()));
+        assertTrue(Hibernate.isInitialized(sinGanador.get(0).getCancha()));
+
+        LlaveTorneo llave = repository.bloquearPorPartido(jugado.getId()).get();
+        llave.setGanador(ModoJugador.VISITANTE);
+        entityManager.flush();
+        assertTrue(repository.findPartidosSinGanador(Estado.FINALIZADO, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    public void llavesParaRevisarNoSeBarren() {
+        LlaveTorneo llave = repository.bloquearPorPartido(jugado.getId()).get();
+        llave.setRevisar(true);
+        entityManager.flush();
+
+        assertTrue(repository.findPartidosSinGanador(Estado.FINALIZADO, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    public void llavesCompletasSinProgramar() {
+        assertTrue(repository.findPorProgramar(PageRequest.of(0, 10)).isEmpty());
+
+        LlaveTorneo fin = repository.bloquear(torneo.getId(), 2, 0).get();
+        fin.setJugadorLocal(repository.bloquearPorPartido(jugado.getId()).get().getJugadorLocal());
+        entityManager.flush();
+        assertEquals(Collections.singletonList(fin.getId()), repository.findPorProgramar(PageRequest.of(0, 10)).stream()
+                .map(LlaveTorneo::getId).collect(Collectors.toList()));
+
+        fin.setRevisar(true);
+        entityManager.flush();
+        assertTrue(repository.findPorProgramar(PageRequest.of(0, 10)).isEmpty());
+    }
+
+    private Partido nuevoPartido(Estado estado, Jugador local, Jugador visitante, Cancha cancha) {
+        Partido partido = new Partido(new Date(), estado, local, visitante);
+        partido.setCancha(cancha);
+        return partidoRepository.save(partido);
+    }
+}
@@ -0,0 +1,163 @@
+package com.baufest.tennis.springtennis.repository;
+
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.dto.PartidoArchivadoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.TipoTorneo;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.exception.RecursoNoEncontradoException;
+import com.baufest.tennis.springtennis.mapper.PartidoArchivadoMapperImpl;
+import com.baufest.tennis.springtennis.mapper.PuntoPartidoMapperImpl;
+import com.baufest.tennis.springtennis.model.Cancha;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.model.LlaveTorneo;
+import com.baufest.tennis.springtennis.model.Partido;
+import com.baufest.tennis.springtennis.model.PuntoPartido;
+import com.baufest.tennis.springtennis.model.Torneo;
+import com.baufest.tennis.springtennis.service.ArchivoPartidos;
+import com.baufest.tennis.springtennis.service.ParticionesArchivo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+public class PartidoArchivadoRepositoryTest {
+
+    private static final long DIA = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    private PartidoArchivadoRepository repository;
+
+    @Autowired
+    private PartidoRepository partidoRepository;
+
+    @Autowired
+    private PuntoPartidoRepository puntoPartidoRepository;
+
+    @Autowired
+    private LlaveTorneoRepository llaveTorneoRepository;
+
+    @Autowired
+    private TorneoRepository torneoRepository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private CanchaRepository canchaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private ArchivoPartidos archivoPartidos;
+
+    private Jugador federer;
+    private Jugador nadal;
+    private Jugador djokovic;
+    private Cancha cancha;
+    private Date ahora = new Date();
+
+    @BeforeEach
+    public void setUp() {
+        federer = jugadorRepository.save(new Jugador("Federer", 10));
+        nadal = jugadorRepository.save(new Jugador("Nadal", 10));
+        djokovic = jugadorRepository.save(new Jugador("Djokovic", 10));
+        cancha = canchaRepository.save(new Cancha("Estadio Monumental", "Av. Rio de la Plata 521"));
+        //Lotes de un partido para que el archivo tenga que hacer mas de un lote
+        archivoPartidos = new ArchivoPartidos(partidoRepository, repository, puntoPartidoRepository,
+                new PartidoArchivadoMapperImpl(), new PuntoPartidoMapperImpl(), new ParticionesArchivo(null, false, "create-drop"),
+                new TransactionTemplate(transactionManager), 30, 1, 10);
+    }
+
+    @Test
+    public void archivaSoloLosFinalizadosViejosYaProcesados() {
+        Partido archivable1 = nuevoPartido(Estado.FINALIZADO, true, federer, nadal, 400);
+        Partido archivable2 = nuevoPartido(Estado.FINALIZADO, true, nadal, djokovic, 60);
+        Partido sinPuntos = nuevoPartido(Estado.FINALIZADO, false, federer, djokovic, 60);
+        Partido enTorneo = nuevoPartido(Estado.FINALIZADO, true, federer, djokovic, 60);
+        Partido reciente = nuevoPartido(Estado.FINALIZADO, true, federer, nadal, 1);
+        Partido sinTerminar = nuevoPartido(Estado.EN_CURSO, false, federer, nadal, 60);
+        Torneo torneo = torneoRepository.save(new Torneo("Abierto", TipoTorneo.ELIMINACION_DIRECTA));
+        LlaveTorneo llave = new LlaveTorneo(torneo, 1, 0, federer, djokovic);
+        llave.setIdPartido(enTorneo.getId());
+        llaveTorneoRepository.save(llave);
+        puntoPartidoRepository.save(new PuntoPartido(archivable1.getId(), 1L, ModoJugador.LOCAL, new Date()));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(2, archivoPartidos.archivar(new Date(ahora.getTime() - 30 * DIA)));
+        entityManager.clear();
+
+        assertEquals(Arrays.asList(sinPuntos.getId(), enTorneo.getId(), reciente.getId(), sinTerminar.getId()),
+                partidoRepository.findAll().stream().map(Partido::getId).sorted().collect(Collectors.toList()));
+        PartidoArchivadoDTO archivado = archivoPartidos.getById(archivable1.getId());
+        assertEquals("Federer", archivado.getNombreLocal());
+        assertEquals(nadal.getId(), archivado.getIdVisitante());
+        assertEquals("Estadio Monumental", archivado.getNombreCancha());
+        assertEquals(1, archivoPartidos.listPuntos(archivable1.getId()).size());
+        assertTrue(repository.existsById(archivable2.getId()));
+
+        //Cuando el torneo registra el ganador de la llave el partido se archiva en el barrido siguiente
+        llave = llaveTorneoRepository.bloquearPorPartido(enTorneo.getId()).get();
+        llave.setGanador(ModoJugador.LOCAL);
+        entityManager.flush();
+        assertEquals(1, archivoPartidos.archivar(new Date(ahora.getTime() - 30 * DIA)));
+        assertEquals(0, archivoPartidos.archivar(new Date(ahora.getTime() - 30 * DIA)));
+    }
+
+    @Test
+    public void historialPorRangoDeFechasYJugador() {
+        Partido viejo = nuevoPartido(Estado.FINALIZADO, true, federer, nadal, 400);
+        Partido medio = nuevoPartido(Estado.FINALIZADO, true, nadal, djokovic, 100);
+        Partido nuevo = nuevoPartido(Estado.FINALIZADO, true, federer, djokovic, 60);
+        archivoPartidos.archivar(new Date(ahora.getTime() - 30 * DIA));
+        entityManager.clear();
+        Date desde = new Date(ahora.getTime() - 365 * DIA);
+
+        PaginaDTO<PartidoArchivadoDTO> pagina = archivoPartidos.listHistorial(null, 1, desde, ahora, null, null);
+        assertEquals(Collections.singletonList(medio.getId()), ids(pagina));
+        assertEquals(medio.getId(), pagina.getSiguiente());
+        pagina = archivoPartidos.listHistorial(pagina.getSiguiente(), 1, desde, ahora, null, null);
+        assertEquals(Collections.singletonList(nuevo.getId()), ids(pagina));
+        assertNull(pagina.getSiguiente());
+
+        assertEquals(Arrays.asList(viejo.getId(), nuevo.getId()), ids(archivoPartidos.listHistorial(null, 10,
+                new Date(0), ahora, federer.getId(), null)));
+        assertFalse(archivoPartidos.listHistorial(null, 10, desde, ahora, null, cancha.getId()).getItems().isEmpty());
+        assertTrue(archivoPartidos.listHistorial(null, 10, desde, ahora, null, cancha.getId() + 1).getItems().isEmpty());
+        assertThrows(DatoInvalidoException.class, () -> archivoPartidos.listHistorial(null, 10, ahora, desde, null, null));
+        assertThrows(RecursoNoEncontradoException.class, () -> archivoPartidos.getById(viejo.getId() + 100));
+    }
+
+    private static List<Long> ids(PaginaDTO<PartidoArchivadoDTO> pagina) {
+        return pagina.getItems().stream().map(PartidoArchivadoDTO::getId).collect(Collectors.toList());
+    }
+
+    private Partido nuevoPartido(Estado estado, boolean puntosAsignados, Jugador local, Jugador visitante, int diasAtras) {
+        Partido partido = new Partido(new Date(ahora.getTime() - diasAtras * DIA), estado, local, visitante);
+        partido.setCancha(cancha);
+        partido.setPuntosAsignados(puntosAsignados);
+        return partidoRepository.save(partido);
+    }
+}
@@ -0,0 +1,245 @@
+package com.baufest.tennis.springtennis.repository;
+
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.model.Cancha;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.model.Partido;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Se habilitan las estadisticas de Hibernate para contar los selects de cada consulta
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class PartidoRepositoryTest {
+
+    @Autowired
+    private PartidoRepository repository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private CanchaRepository canchaRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Cancha cancha1;
+    private Cancha cancha2;
+    private Partido partido1;
+    private Partido partido2;
+    private Partido partido3;
+
+    @BeforeEach
+    public void setUp() {
+        Jugador local = jugadorRepository.save(new Jugador("Federer", 10));
+        Jugador visitante = jugadorRepository.save(new Jugador("Nadal", 10));
+        cancha1 = canchaRepository.save(new Cancha("Estadio Monumental", "Av. Rio de la Plata 521"));
+        cancha2 = canchaRepository.save(new Cancha("Movistar Arena", "Av Manuel Belgrano 564"));
+
+        partido1 = repository.save(nuevoPartido(Estado.NO_INICIADO, local, visitante, cancha1));
+        partido2 = repository.save(nuevoPartido(Estado.EN_CURSO, local, visitante, cancha2));
+        partido3 = repository.save(nuevoPartido(Estado.NO_INICIADO, local, visitante, cancha1));
+    }
+
+    @Test
+    public void findPaginaSinFiltros() {
+        List<Partido> pagina = repository.findPagina(0L, null, null, PageRequest.of(0, 2));
+        assertEquals(2, pagina.size());
+        assertEquals(partido1.getId(), pagina.get(0).getId());
+        assertEquals(partido2.getId(), pagina.get(1).getId());
+
+        List<Partido> siguiente = repository.findPagina(partido2.getId(), null, null, PageRequest.of(0, 2));
+        assertEquals(1, siguiente.size());
+        assertEquals(partido3.getId(), siguiente.get(0).getId());
+    }
+
+    @Test
+    public void findPaginaConFiltros() {
+        List<Partido> porCancha = repository.findPagina(0L, null, cancha1.getId(), PageRequest.of(0, 10));
+        assertEquals(2, porCancha.size());
+
+        List<Partido> porEstado = repository.findPagina(0L, Estado.EN_CURSO, null, PageRequest.of(0, 10));
+        assertEquals(1, porEstado.size());
+        assertEquals(partido2.getId(), porEstado.get(0).getId());
+
+        List<Partido> ambos = repository.findPagina(0L, Estado.EN_CURSO, cancha1.getId(), PageRequest.of(0, 10));
+        assertEquals(0, ambos.size());
+    }
+
+    @Test
+    public void findPaginaEnUnSoloSelect() {
+        Statistics estadisticas = this.estadisticasLimpias();
+
+        List<Partido> pagina = repository.findPagina(0L, null, null, PageRequest.of(0, 10));
+        pagina.forEach(partido -> {
+            partido.getJugadorLocal().getNombre();
+            partido.getJugadorVisitante().getNombre();
+            partido.getCancha().getNombre();
+        });
+
+        assertEquals(3, pagina.size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findByIdTraeJugadoresYCancha() {
+        Statistics estadisticas = this.estadisticasLimpias();
+
+        Partido partido = repository.findById(partido1.getId()).orElseThrow(AssertionError::new);
+
+        assertEquals("Federer", partido.getJugadorLocal().getNombre());
+        assertEquals("Estadio Monumental", partido.getCancha().getNombre());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findVersionSinLeerEntidades() {
+        Statistics estadisticas = this.estadisticasLimpias();
+
+        VersionPartido version = repository.findVersion(partido2.getId()).orElseThrow(AssertionError::new);
+
+        assertEquals(Estado.EN_CURSO, version.getEstado());
+        assertEquals(0L, version.getVersionLocal());
+        assertEquals(0L, version.getVersionCancha());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(0, estadisticas.getEntityLoadCount());
+        assertFalse(repository.findVersion(-1L).isPresent());
+    }
+
+    @Test
+    public void sumarPuntosCambiaLaVersionDelJugador() {
+        Long idLocal = partido1.getJugadorLocal().getId();
+        entityManager.flush();
+
+        jugadorRepository.sumarPuntos(Arrays.asList(idLocal), 10);
+        entityManager.clear();
+
+        assertEquals(1L, jugadorRepository.findVersion(idLocal).orElseThrow(AssertionError::new));
+        assertEquals(1L, repository.findVersion(partido1.getId()).orElseThrow(AssertionError::new).getVersionLocal());
+        assertEquals(0L, repository.findVersion(partido1.getId()).orElseThrow(AssertionError::new).getVersionVisitante());
+    }
+
+    @Test
+    public void findHorariosSinLeerJugadoresNiCancha() {
+        Statistics estadisticas = this.estadisticasLimpias();
+
+        List<HorarioPartido> horarios = repository.findHorarios(cancha1.getId(), new Date(0L));
+
+        assertEquals(Arrays.asList(partido1.getId(), partido3.getId()),
+                horarios.stream().map(HorarioPartido::getId).sorted().collect(Collectors.toList()));
+        assertEquals(partido1.getFechaComienzo().getTime(), horarios.stream()
+                .filter(horario -> horario.getId().equals(partido1.getId())).findFirst()
+                .orElseThrow(AssertionError::new).getFechaComienzo().getTime());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(0, estadisticas.getEntityLoadCount());
+    }
+
+    @Test
+    public void findMarcador() {
+        MarcadorDTO marcador = repository.findMarcador(partido2.getId()).orElseThrow(AssertionError::new);
+        assertEquals(partido2.getId(), marcador.getIdPartido());
+        assertEquals(Estado.EN_CURSO, marcador.getEstado());
+        assertEquals(partido2.getVersion(), marcador.getVersion());
+
+        assertFalse(repository.findMarcador(-1L).isPresent());
+    }
+
+    @Test
+    public void streamExportacion() {
+        Date desde = new Date(0L);
+        Date hasta = new Date(System.currentTimeMillis() + 60000L);
+        try (Stream<Partido> partidos = repository.streamExportacion(desde, hasta, cancha1.getId())) {
+            List<Long> ids = partidos.map(Partido::getId).collect(Collectors.toList());
+            assertEquals(Arrays.asList(partido1.getId(), partido3.getId()), ids);
+        }
+        try (Stream<Partido> partidos = repository.streamExportacion(hasta, new Date(hasta.getTime() + 60000L), null)) {
+            assertEquals(0, partidos.count());
+        }
+    }
+
+    @Test
+    public void actualizarMarcadorSoloConLaVersionAnterior() {
+        Long version = partido2.getVersion();
+        assertEquals(1, repository.actualizarMarcador(partido2.getId(), 1, "15", 0, 0, "0", 0, 0, 0, "", ModoJugador.LOCAL, Estado.EN_CURSO, version + 1, version));
+        //Otra escritura sobre la misma version anterior ya no encuentra la fila
+        assertEquals(0, repository.actualizarMarcador(partido2.getId(), 2, "30", 0, 0, "0", 0, 0, 0, "", ModoJugador.LOCAL, Estado.EN_CURSO, version + 1, version));
+    }
+
+    @Test
+    public void findIdsEnRangoSoloDeLaCanchaYDentroDelRango() {
+        Date fecha = partido1.getFechaComienzo();
+        List<Long> ids = repository.findIdsEnRango(cancha1.getId(), new Date(fecha.getTime() - 1000), new Date(fecha.getTime() + 60000));
+        assertTrue(ids.contains(partido1.getId()));
+        assertFalse(ids.contains(partido2.getId()));
+        //Los extremos del rango no se incluyen
+        assertTrue(repository.findIdsEnRango(cancha1.getId(), fecha, new Date(fecha.getTime() + 60000)).stream()
+                .noneMatch(id -> id.equals(partido1.getId())));
+    }
+
+    @Test
+    public void bloquearDevuelveLasCanchasBloqueadas() {
+        assertEquals(Arrays.asList(cancha1.getId(), cancha2.getId()),
+                canchaRepository.bloquear(Arrays.asList(cancha2.getId(), cancha1.getId())));
+    }
+
+    @Test
+    public void puntosAsignadosSoloUnaVez() {
+        partido2.setEstado(Estado.FINALIZADO);
+        repository.saveAndFlush(partido2);
+        entityManager.clear();
+        List<Long> ids = Arrays.asList(partido1.getId(), partido2.getId());
+        List<Partido> sinPuntos = repository.findAllByEstadoAndPuntosAsignadosFalseOrderByIdAsc(Estado.FINALIZADO, PageRequest.of(0, 10));
+        assertEquals(Arrays.asList(partido2.getId()), sinPuntos.stream().map(Partido::getId).collect(Collectors.toList()));
+        //El barrido los mapea fuera de una transaccion, los jugadores y la cancha tienen que venir cargados
+        assertTrue(Hibernate.isInitialized(sinPuntos.get(0).getJugadorLocal()));
+        assertTrue(Hibernate.isInitialized(sinPuntos.get(0).getCancha()));
+        assertEquals(2, repository.bloquearSinPuntosAsignados(ids).size());
+
+        assertEquals(1, repository.marcarPuntosAsignados(Arrays.asList(partido2.getId())));
+        entityManager.clear();
+
+        assertEquals(Arrays.asList(partido1.getId()), repository.bloquearSinPuntosAsignados(ids));
+        assertTrue(repository.findAllByEstadoAndPuntosAsignadosFalseOrderByIdAsc(Estado.FINALIZADO, PageRequest.of(0, 10)).isEmpty());
+        //El save de la entidad no borra la marca
+        Partido partido = repository.findById(partido2.getId()).get();
+        partido.setPuntosAsignados(false);
+        repository.saveAndFlush(partido);
+        entityManager.clear();
+        assertTrue(repository.findById(partido2.getId()).get().isPuntosAsignados());
+    }
+
+    //Escribe lo pendiente, vacia el contexto de persistencia y reinicia los contadores
+    private Statistics estadisticasLimpias() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics estadisticas = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        return estadisticas;
+    }
+
+    private static Partido nuevoPartido(Estado estado, Jugador local, Jugador visitante, Cancha cancha) {
+        Partido partido = new Partido(new Date(), estado, local, visitante);
+        partido.setCancha(cancha);
+        return partido;
+    }
+}
@@ -0,0 +1,47 @@
+package com.baufest.tennis.springtennis.repository;
+
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.model.PuntoPartido;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+public class PuntoPartidoRepositoryTest {
+
+    @Autowired
+    private PuntoPartidoRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository.saveAll(Arrays.asList(
+                new PuntoPartido(1L, 2L, ModoJugador.VISITANTE, new Date()),
+                new PuntoPartido(1L, 1L, ModoJugador.LOCAL, new Date()),
+                new PuntoPartido(1L, 3L, ModoJugador.LOCAL, new Date()),
+                new PuntoPartido(2L, 1L, ModoJugador.LOCAL, new Date())));
+    }
+
+    @Test
+    public void findColaDespuesDeLaFoto() {
+        List<Long> cola = repository.findAllByIdPartidoAndSecuenciaGreaterThanOrderBySecuenciaAsc(1L, 1L).stream()
+                .map(PuntoPartido::getSecuencia).collect(Collectors.toList());
+        assertEquals(Arrays.asList(2L, 3L), cola);
+        assertEquals(3, repository.findAllByIdPartidoOrderBySecuenciaAsc(1L).size());
+    }
+
+    @Test
+    public void secuenciaRepetidaFalla() {
+        assertThrows(DataIntegrityViolationException.class,
+                () -> repository.saveAndFlush(new PuntoPartido(1L, 3L, ModoJugador.VISITANTE, new Date())));
+    }
+}
@@ -0,0 +1,116 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.event.PartidoFinalizadoEvent;
+import com.baufest.tennis.springtennis.mapper.CanchaMapperImpl;
+import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
+import com.baufest.tennis.springtennis.mapper.PartidoMapperImpl;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.model.Partido;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsignacionPuntosTest {
+
+    @Mock
+    JugadorRepository jugadorRepository;
+
+    @Mock
+    PartidoRepository partidoRepository;
+
+    @Mock
+    RankingJugadores rankingJugadores;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    CacheManager cacheManager = new ConcurrentMapCacheManager(JugadorServiceImpl.CACHE);
+
+    AsignacionPuntos asignacion;
+
+    @BeforeEach
+    public void setUp() {
+        asignacion = new AsignacionPuntos(jugadorRepository, partidoRepository,
+                new PartidoMapperImpl(new JugadorMapperImpl(), new CanchaMapperImpl()), rankingJugadores,
+                new TransactionTemplate(transactionManager), cacheManager, 10, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        asignacion.cerrar();
+    }
+
+    @Test
+    void testAsignarAgrupaLosGanadoresDelLote() {
+        cacheManager.getCache(JugadorServiceImpl.CACHE).put(1L, new Jugador(1L, "facu", 20));
+        when(partidoRepository.bloquearSinPuntosAsignados(new HashSet<>(Arrays.asList(7L, 8L, 9L, 10L))))
+                .thenReturn(Arrays.asList(7L, 8L, 9L));
+
+        asignacion.asignar(Arrays.asList(new PartidoFinalizadoEvent(7L, 1L), new PartidoFinalizadoEvent(8L, 2L),
+                new PartidoFinalizadoEvent(9L, 1L), new PartidoFinalizadoEvent(10L, 3L)));
+
+        verify(partidoRepository).marcarPuntosAsignados(new HashSet<>(Arrays.asList(7L, 8L, 9L)));
+        //Un update por cantidad de puntos, el partido 10 ya tenia los puntos asignados
+        verify(jugadorRepository).sumarPuntos(Collections.singletonList(1L), 20);
+        verify(jugadorRepository).sumarPuntos(Collections.singletonList(2L), 10);
+        verifyNoMoreInteractions(jugadorRepository);
+        verify(rankingJugadores).sumar(1L, 20);
+        verify(rankingJugadores).sumar(2L, 10);
+        assertNull(cacheManager.getCache(JugadorServiceImpl.CACHE).get(1L));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testAsignarPartidoYaAsignado() {
+        when(partidoRepository.bloquearSinPuntosAsignados(Collections.singleton(7L))).thenReturn(Collections.emptyList());
+
+        asignacion.asignar(Arrays.asList(new PartidoFinalizadoEvent(7L, 1L), new PartidoFinalizadoEvent(7L, 1L)));
+
+        verify(partidoRepository, never()).marcarPuntosAsignados(any());
+        verify(jugadorRepository, never()).sumarPuntos(any(), anyInt());
+        verifyNoInteractions(rankingJugadores);
+    }
+
+    @Test
+    void testPartidoFinalizadoSeAsignaEnSegundoPlano() {
+        when(partidoRepository.bloquearSinPuntosAsignados(any())).thenReturn(Collections.singletonList(7L));
+
+        asignacion.partidoFinalizado(new PartidoFinalizadoEvent(7L, 4L));
+
+        verify(jugadorRepository, timeout(1000)).sumarPuntos(Collections.singletonList(4L), 10);
+        verify(rankingJugadores, timeout(1000)).sumar(4L, 10);
+    }
+
+    @Test
+    void testBarrerEncolaLosPartidosSinPuntos() {
+        Partido partido = new Partido(7L, new Date(), Estado.FINALIZADO, new Jugador(1L, "facu", 20), new Jugador(2L, "fer", 15), 0, 6, 0, 3);
+        when(partidoRepository.findAllByEstadoAndPuntosAsignadosFalseOrderByIdAsc(eq(Estado.FINALIZADO), any()))
+                .thenReturn(Collections.singletonList(partido));
+        when(partidoRepository.bloquearSinPuntosAsignados(any())).thenReturn(Collections.singletonList(7L));
+
+        asignacion.barrer();
+
+        verify(jugadorRepository, timeout(1000)).sumarPuntos(Collections.singletonList(1L), 10);
+    }
+}
@@ -0,0 +1,131 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.CanchaDTO;
+import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.mapper.CanchaMapperImpl;
+import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
+import com.baufest.tennis.springtennis.model.Cancha;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.repository.CanchaRepository;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/* Verifica el cache de jugadores y canchas con la configuracion de application.properties */
+@SpringBootTest(classes = {JugadorServiceImpl.class, JugadorMapperImpl.class, CanchaServiceImpl.class, CanchaMapperImpl.class})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@EnableCaching
+class CacheReferenciaTest {
+
+    @Autowired
+    JugadorService jugadorService;
+
+    @Autowired
+    CanchaService canchaService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockBean
+    JugadorRepository jugadorRepository;
+
+    @MockBean
+    CanchaRepository canchaRepository;
+
+    @MockBean
+    RankingJugadores rankingJugadores;
+
+    @MockBean
+    AgendaCanchas agendaCanchas;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCacheNames().forEach(nombre -> cacheManager.getCache(nombre).clear());
+    }
+
+    @Test
+    void testCacheConfigurado() {
+        assertTrue(cacheManager instanceof CaffeineCacheManager);
+        assertTrue(cacheManager.getCacheNames().contains(JugadorServiceImpl.CACHE));
+        assertTrue(cacheManager.getCacheNames().contains(CanchaServiceImpl.CACHE));
+    }
+
+    @Test
+    void testGetJugadorVaUnaSolaVezALaBase() {
+        when(jugadorRepository.findById(1L)).thenReturn(Optional.of(new Jugador(1L, "facu", 20)));
+
+        jugadorService.getById(1L);
+        JugadorDTO jugador = jugadorService.getById(1L);
+
+        assertEquals("facu", jugador.getNombre());
+        verify(jugadorRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testUpdateJugadorInvalidaElCache() {
+        when(jugadorRepository.findById(1L)).thenReturn(Optional.of(new Jugador(1L, "facu", 20)))
+                .thenReturn(Optional.of(new Jugador(1L, "facundo", 25)));
+        when(jugadorRepository.findVersion(1L)).thenReturn(Optional.of(0L));
+        when(jugadorRepository.save(any())).thenReturn(new Jugador(1L, "facundo", 25));
+
+        jugadorService.getById(1L);
+        jugadorService.update(new JugadorDTO(1L, "facundo", 25));
+
+        assertEquals("facundo", jugadorService.getById(1L).getNombre());
+        verify(jugadorRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testDeleteJugadorInvalidaElCache() {
+        when(jugadorRepository.findById(1L)).thenReturn(Optional.of(new Jugador(1L, "facu", 20)))
+                .thenReturn(Optional.empty());
+        when(jugadorRepository.existsById(1L)).thenReturn(true);
+
+        jugadorService.getById(1L);
+        jugadorService.delete(1L);
+
+        assertThrows(NoSuchElementException.class, () -> jugadorService.getById(1L));
+    }
+
+    @Test
+    void testGetJugadorInexistenteNoSeCachea() {
+        when(jugadorRepository.findById(1L)).thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new Jugador(1L, "facu", 20)));
+
+        assertThrows(NoSuchElementException.class, () -> jugadorService.getById(1L));
+        assertEquals("facu", jugadorService.getById(1L).getNombre());
+    }
+
+    @Test
+    void testUpdateCanchaInvalidaSoloSuId() {
+        when(canchaRepository.findById(1L)).thenReturn(Optional.of(new Cancha(1L, "Central", "Calle 1")));
+        when(canchaRepository.findById(2L)).thenReturn(Optional.of(new Cancha(2L, "Norte", "Calle 2")));
+        when(canchaRepository.findVersion(1L)).thenReturn(Optional.of(0L));
+        when(canchaRepository.save(any())).thenReturn(new Cancha(1L, "Central", "Calle 3"));
+
+        canchaService.getById(1L);
+        canchaService.getById(2L);
+        canchaService.update(new CanchaDTO(1L, "Central", "Calle 3"));
+        canchaService.getById(1L);
+        canchaService.getById(2L);
+
+        verify(canchaRepository, times(2)).findById(1L);
+        verify(canchaRepository, times(1)).findById(2L);
+    }
+}
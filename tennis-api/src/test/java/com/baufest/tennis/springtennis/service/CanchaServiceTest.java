@@ -1,20 +1,32 @@
 package com.baufest.tennis.springtennis.service;
 
 import com.baufest.tennis.springtennis.dto.CanchaDTO;
+import com.baufest.tennis.springtennis.dto.DisponibilidadCanchaDTO;
+import com.baufest.tennis.springtennis.dto.FranjaLibreDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
 import com.baufest.tennis.springtennis.mapper.CanchaMapperImpl;
 import com.baufest.tennis.springtennis.model.Cancha;
 import com.baufest.tennis.springtennis.repository.CanchaRepository;
+import com.baufest.tennis.springtennis.repository.HorarioPartido;
+import com.baufest.tennis.springtennis.repository.PartidoRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -32,6 +44,9 @@ class CanchaServiceTest {
     @Mock
     CanchaRepository canchaRepository;
 
+    @Mock
+    PartidoRepository partidoRepository;
+
     @BeforeEach
     public void setUp() {
         
@@ -65,15 +80,24 @@ class CanchaServiceTest {
         canchaParaAgregar.setNombre("Movistar Arena");
         canchaParaAgregar.setDireccion("Av Manuel Belgrano 564");
 
-        canchaService = new CanchaServiceImpl(canchaRepository, new CanchaMapperImpl());
+        canchaService = new CanchaServiceImpl(canchaRepository, new CanchaMapperImpl(), new AgendaCanchas(partidoRepository, canchaRepository));
     }
 
     @Test
     void testListCanchas() {
-        when(canchaRepository.findAll()).thenReturn(canchasDePrueba);
-        List<CanchaDTO> canchasConseguidos = canchaService.listAll();
-        assertEquals(canchasDTODePrueba.size(),canchasConseguidos.size());
-        verify(canchaRepository,times(1)).findAll();
+        when(canchaRepository.findAllByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(canchasDePrueba);
+        PaginaDTO<CanchaDTO> canchasConseguidos = canchaService.listAll(null, 10);
+        assertEquals(canchasDTODePrueba.size(),canchasConseguidos.getItems().size());
+        verify(canchaRepository,times(1)).findAllByIdGreaterThanOrderByIdAsc(eq(0L), any());
+    }
+
+    @Test
+    void testBuscarCanchas() {
+        when(canchaRepository.findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc(eq("mo"), any())).thenReturn(canchasDePrueba.subList(0, 1));
+        List<CanchaDTO> canchas = canchaService.buscar("mo", PaginaDTO.TAMANO_BUSQUEDA);
+        assertEquals(1, canchas.size());
+        assertEquals(canchasDTODePrueba.get(0).getId(), canchas.get(0).getId());
+        verify(canchaRepository).findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc("mo", PageRequest.of(0, PaginaDTO.TAMANO_BUSQUEDA));
     }
 
     @Test
@@ -119,30 +143,68 @@ class CanchaServiceTest {
     @Test
     void testInsertExistent() {
         when(canchaRepository.existsById(canchaDTOParaAgregar.getId())).thenReturn(true);
-        assertThrows(IllegalArgumentException.class, () ->  canchaService.save(canchaDTOParaAgregar));
+        assertThrows(DatoInvalidoException.class, () ->  canchaService.save(canchaDTOParaAgregar));
         verify(canchaRepository).existsById(eq(canchaDTOParaAgregar.getId()));
     }
 
     @Test
     void testUpdateExisting() {
         ArgumentCaptor<Cancha> argumentCaptor = ArgumentCaptor.forClass(Cancha.class);
-        when(canchaRepository.existsById(canchaDTOParaAgregar.getId())).thenReturn(true);
+        when(canchaRepository.findVersion(canchaDTOParaAgregar.getId())).thenReturn(Optional.of(3L));
         when(canchaRepository.save(argumentCaptor.capture())).thenReturn(canchaParaAgregar);
         CanchaDTO canchaDTO = canchaService.update(canchaDTOParaAgregar);
         assertEquals(canchaDTOParaAgregar.getId(),argumentCaptor.getValue().getId());
+        //Sin version en el DTO se edita sobre la version actual
+        assertEquals(3L, argumentCaptor.getValue().getVersion());
         assertEquals(canchaParaAgregar.getId(), canchaDTO.getId());
         assertEquals(canchaParaAgregar.getNombre(), canchaDTO.getNombre());
         verify(canchaRepository,times(1)).save(any(Cancha.class));
-        verify(canchaRepository).existsById(eq(canchaDTOParaAgregar.getId())); // times por defecto va 1
+        verify(canchaRepository).findVersion(eq(canchaDTOParaAgregar.getId())); // times por defecto va 1
     }
 
     @Test
     void testUpdateNotFound() {
-        when(canchaRepository.existsById(canchaDTOParaAgregar.getId())).thenReturn(false);
+        when(canchaRepository.findVersion(canchaDTOParaAgregar.getId())).thenReturn(Optional.empty());
         assertThrows(NoSuchElementException.class, () ->  canchaService.update(canchaDTOParaAgregar));
-        verify(canchaRepository,times(1)).existsById(eq((canchaDTOParaAgregar.getId())));
+        verify(canchaRepository,times(1)).findVersion(eq((canchaDTOParaAgregar.getId())));
         verify(canchaRepository,times(0)).save(any());
     }
 
+    @Test
+    void testDisponibilidad() {
+        long hora = TimeUnit.HOURS.toMillis(1);
+        //Se redondea a la hora siguiente para que desde no quede en el pasado
+        long desde = (System.currentTimeMillis() / hora + 1) * hora;
+        when(canchaRepository.findAll(any(Sort.class))).thenReturn(canchasDePrueba.subList(0, 2));
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Arrays.asList(
+                new HorarioPartido(10L, new Date(desde - 2 * hora)),
+                new HorarioPartido(11L, new Date(desde + 6 * hora)),
+                new HorarioPartido(12L, new Date(desde + 30 * hora))));
+        when(partidoRepository.findHorarios(eq(2L), any())).thenReturn(Collections.emptyList());
+
+        List<DisponibilidadCanchaDTO> disponibilidad = canchaService.disponibilidad(new Date(desde), new Date(desde + 24 * hora), 300);
+
+        assertEquals(2, disponibilidad.size());
+        //La reserva de las -2 ocupa la cancha hasta las 2, la de las 6 hasta las 10; entre 2 y 6 no entran 5 horas
+        List<FranjaLibreDTO> libres = disponibilidad.get(0).getLibres();
+        assertEquals(1, libres.size());
+        assertEquals(desde + 10 * hora, libres.get(0).getInicio().getTime());
+        assertEquals(desde + 24 * hora, libres.get(0).getFin().getTime());
+        assertEquals(1, disponibilidad.get(1).getLibres().size());
+        assertEquals(desde, disponibilidad.get(1).getLibres().get(0).getInicio().getTime());
+
+        //Con la duracion por defecto de 4 horas tambien entra la franja de 2 a 6
+        assertEquals(2, canchaService.disponibilidad(new Date(desde), new Date(desde + 24 * hora), 240).get(0).getLibres().size());
+    }
 
-}
\ No newline at end of file
+    @Test
+    void testDisponibilidadRangoInvalido() {
+        Date ahora = new Date();
+        assertThrows(DatoInvalidoException.class, () -> canchaService.disponibilidad(ahora, ahora, 60));
+        assertThrows(DatoInvalidoException.class, () -> canchaService.disponibilidad(ahora,
+                new Date(ahora.getTime() + TimeUnit.DAYS.toMillis(CanchaService.MAXIMO_DIAS_DISPONIBILIDAD + 1)), 60));
+        assertThrows(DatoInvalidoException.class, () -> canchaService.disponibilidad(ahora,
+                new Date(ahora.getTime() + 1000L), 0));
+        verify(canchaRepository, never()).findAll(any(Sort.class));
+    }
+}
@@ -0,0 +1,48 @@
+package com.baufest.tennis.springtennis.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EjecutorPorPartidoTest {
+
+    EjecutorPorPartido ejecutor = new EjecutorPorPartido(2);
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        ejecutor.cerrar();
+    }
+
+    @Test
+    void testCadaPartidoSiempreEnElMismoHilo() {
+        String hilo1 = ejecutor.ejecutar(1L, () -> Thread.currentThread().getName());
+        assertEquals(hilo1, ejecutor.ejecutar(1L, () -> Thread.currentThread().getName()));
+        assertEquals(hilo1, ejecutor.ejecutar(3L, () -> Thread.currentThread().getName()));
+        assertNotEquals(hilo1, ejecutor.ejecutar(2L, () -> Thread.currentThread().getName()));
+    }
+
+    @Test
+    void testEjecutarDesdeElMismoHiloNoSeBloquea() {
+        //Si la tarea anidada se encolara en el hilo que la espera no terminaria nunca
+        String hilo = ejecutor.ejecutar(1L, () -> ejecutor.ejecutar(3L, () -> Thread.currentThread().getName()));
+        assertEquals("marcador-1", hilo);
+    }
+
+    @Test
+    void testLaExcepcionDeLaTareaSeArrojaTalCual() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> ejecutor.ejecutar(1L, () -> {
+            throw new IllegalArgumentException("punto invalido");
+        }));
+        assertEquals("punto invalido", error.getMessage());
+    }
+
+    @Test
+    void testSinCantidadUsaUnHiloPorProcesador() throws InterruptedException {
+        EjecutorPorPartido porDefecto = new EjecutorPorPartido(0);
+        assertEquals(Runtime.getRuntime().availableProcessors(), porDefecto.cantidadShards());
+        porDefecto.cerrar();
+    }
+}
@@ -0,0 +1,137 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.ResultadoImportacionDTO;
+import com.baufest.tennis.springtennis.enums.FormatoImportacion;
+import com.baufest.tennis.springtennis.mapper.CanchaMapperImpl;
+import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
+import com.baufest.tennis.springtennis.model.Cancha;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.repository.CanchaRepository;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportacionRegistrosTest {
+
+    @Mock
+    JugadorRepository jugadorRepository;
+
+    @Mock
+    CanchaRepository canchaRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    RankingJugadores rankingJugadores;
+
+    CacheManager cacheManager = new ConcurrentMapCacheManager(JugadorServiceImpl.CACHE);
+
+    ImportacionRegistros importacion;
+
+    @BeforeEach
+    public void setUp() {
+        importacion = new ImportacionRegistros(jugadorRepository, canchaRepository, new JugadorMapperImpl(),
+                new CanchaMapperImpl(), new TransactionTemplate(transactionManager), new ObjectMapper(), cacheManager,
+                rankingJugadores);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testImportarJugadoresCsv() throws IOException {
+        Jugador existente = new Jugador(1L, "Federer", 10);
+        when(jugadorRepository.findAllById(any())).thenReturn(Collections.singletonList(existente));
+        cacheManager.getCache(JugadorServiceImpl.CACHE).put(1L, existente);
+
+        ResultadoImportacionDTO resultado = importacion.importarJugadores(archivo(
+                "id,nombre,puntos\n"
+                        + "1,Federer,30\n"
+                        + ",\"Del Potro, Juan Martin\",20\n"
+                        + "9,Nadie,5\n"
+                        + ",,5\n"
+                        + ",Nadal,muchos\n"
+                        + ",Nadal\n"), FormatoImportacion.CSV);
+
+        assertEquals(6, resultado.getProcesados());
+        assertEquals(1, resultado.getInsertados());
+        assertEquals(1, resultado.getActualizados());
+        assertEquals(4, resultado.getCantidadErrores());
+        assertEquals(Arrays.asList(5, 6, 7, 4), Arrays.asList(resultado.getErrores().get(0).getLinea(),
+                resultado.getErrores().get(1).getLinea(), resultado.getErrores().get(2).getLinea(),
+                resultado.getErrores().get(3).getLinea()));
+        //El existente se actualiza sobre la entidad leida y sale del cache
+        assertEquals(30, existente.getPuntos());
+        assertNull(cacheManager.getCache(JugadorServiceImpl.CACHE).get(1L));
+
+        ArgumentCaptor<List<Jugador>> nuevos = ArgumentCaptor.forClass(List.class);
+        verify(jugadorRepository).saveAll(nuevos.capture());
+        assertEquals("Del Potro, Juan Martin", nuevos.getValue().get(0).getNombre());
+        verify(jugadorRepository, times(1)).findAllById(any());
+        verify(jugadorRepository, never()).existsById(any());
+        verify(rankingJugadores).actualizar(1L, 30);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testImportarCanchasNdjsonOmiteRepetidas() throws IOException {
+        when(canchaRepository.findAllByNombreIn(any()))
+                .thenReturn(Collections.singletonList(new Cancha(1L, "Central", "Av. Libertador 1")));
+
+        ResultadoImportacionDTO resultado = importacion.importarCanchas(archivo(
+                "{\"nombre\":\"Central\",\"direccion\":\"Av. Libertador 1\"}\n"
+                        + "{\"nombre\":\"Central\",\"direccion\":\"Av. Libertador 2\"}\n"
+                        + "{\"nombre\":\"Central\",\"direccion\":\"Av. Libertador 2\"}\n"
+                        + "{\"nombre\":\"Sin direccion\"}\n"
+                        + "{no es json\n"), FormatoImportacion.NDJSON);
+
+        assertEquals(5, resultado.getProcesados());
+        assertEquals(1, resultado.getInsertados());
+        assertEquals(2, resultado.getOmitidos());
+        assertEquals(2, resultado.getCantidadErrores());
+        ArgumentCaptor<List<Cancha>> nuevas = ArgumentCaptor.forClass(List.class);
+        verify(canchaRepository).saveAll(nuevas.capture());
+        assertEquals("Av. Libertador 2", nuevas.getValue().get(0).getDireccion());
+        verify(canchaRepository, never()).findByNombreAndDireccion(any(), any());
+    }
+
+    @Test
+    void testImportarEnLotes() throws IOException {
+        StringBuilder csv = new StringBuilder("nombre,puntos\n");
+        for (int i = 0; i < ImportacionRegistros.TAMANO_LOTE * 2 + 1; i++) {
+            csv.append("Jugador ").append(i).append(',').append(i).append('\n');
+        }
+
+        ResultadoImportacionDTO resultado = importacion.importarJugadores(archivo(csv.toString()), FormatoImportacion.CSV);
+
+        assertEquals(ImportacionRegistros.TAMANO_LOTE * 2 + 1, resultado.getInsertados());
+        verify(jugadorRepository, times(3)).saveAll(any());
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    private static InputStream archivo(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,6 +1,8 @@
 package com.baufest.tennis.springtennis.service;
 
 import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
 import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
 import com.baufest.tennis.springtennis.model.Jugador;
 import com.baufest.tennis.springtennis.repository.JugadorRepository;
@@ -10,6 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +20,7 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -32,6 +36,9 @@ class JugadorServiceTest {
     @Mock
     JugadorRepository jugadorRepository;
 
+    @Mock
+    RankingJugadores rankingJugadores;
+
     @BeforeEach
     public void setUp() {
         
@@ -65,15 +72,35 @@ class JugadorServiceTest {
         jugadorParaAgregar.setNombre("lucas");
         jugadorParaAgregar.setPuntos(25);
 
-        jugadorService = new JugadorServiceImpl(jugadorRepository,new JugadorMapperImpl());
+        jugadorService = new JugadorServiceImpl(jugadorRepository,new JugadorMapperImpl(),rankingJugadores);
     }
 
     @Test
     void testListJugadores() {
-        when(jugadorRepository.findAllByOrderByNombreAsc()).thenReturn(jugadoresDePrueba);
-        List<JugadorDTO> jugadoresConseguidos = jugadorService.listAll();
-        assertEquals(jugadoresDTODePrueba.size(),jugadoresConseguidos.size());
-        verify(jugadorRepository,times(1)).findAllByOrderByNombreAsc();
+        when(jugadorRepository.findAllByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(jugadoresDePrueba);
+        PaginaDTO<JugadorDTO> jugadoresConseguidos = jugadorService.listAll(null, 10);
+        assertEquals(jugadoresDTODePrueba.size(),jugadoresConseguidos.getItems().size());
+        assertNull(jugadoresConseguidos.getSiguiente());
+        verify(jugadorRepository,times(1)).findAllByIdGreaterThanOrderByIdAsc(eq(0L), any());
+    }
+
+    @Test
+    void testListJugadoresPaginado() {
+        when(jugadorRepository.findAllByIdGreaterThanOrderByIdAsc(eq(1L), any())).thenReturn(jugadoresDePrueba.subList(1, 4));
+        PaginaDTO<JugadorDTO> jugadoresConseguidos = jugadorService.listAll(1L, 2);
+        assertEquals(2,jugadoresConseguidos.getItems().size());
+        assertEquals(3L,jugadoresConseguidos.getSiguiente());
+    }
+
+    @Test
+    void testBuscarJugadores() {
+        when(jugadorRepository.findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc(eq("fed"), any())).thenReturn(jugadoresDePrueba.subList(0, 1));
+        List<JugadorDTO> jugadores = jugadorService.buscar(" fed ", 10);
+        assertEquals(1, jugadores.size());
+        assertEquals(jugadoresDTODePrueba.get(0).getId(), jugadores.get(0).getId());
+        //El tamaño pedido se acota al maximo permitido
+        jugadorService.buscar(null, 100000);
+        verify(jugadorRepository).findAllByNombreStartingWithIgnoreCaseOrderByNombreAsc("", PageRequest.of(0, PaginaDTO.TAMANO_MAXIMO));
     }
 
     @Test
@@ -119,28 +146,30 @@ class JugadorServiceTest {
     @Test
     void testInsertExistent() {
         when(jugadorRepository.existsById(jugadorDTOParaAgregar.getId())).thenReturn(true);
-        assertThrows(IllegalArgumentException.class, () ->  jugadorService.save(jugadorDTOParaAgregar));
+        assertThrows(DatoInvalidoException.class, () ->  jugadorService.save(jugadorDTOParaAgregar));
         verify(jugadorRepository).existsById(eq(jugadorDTOParaAgregar.getId()));
     }
 
     @Test
     void testUpdateExisting() {
         ArgumentCaptor<Jugador> argumentCaptor = ArgumentCaptor.forClass(Jugador.class);
-        when(jugadorRepository.existsById(jugadorDTOParaAgregar.getId())).thenReturn(true);
+        when(jugadorRepository.findVersion(jugadorDTOParaAgregar.getId())).thenReturn(Optional.of(3L));
         when(jugadorRepository.save(argumentCaptor.capture())).thenReturn(jugadorParaAgregar);
         JugadorDTO jugadorDTO = jugadorService.update(jugadorDTOParaAgregar);
         assertEquals(jugadorDTOParaAgregar.getId(),argumentCaptor.getValue().getId());
+        //Sin version en el DTO se edita sobre la version actual
+        assertEquals(3L, argumentCaptor.getValue().getVersion());
         assertEquals(jugadorParaAgregar.getId(), jugadorDTO.getId());
         assertEquals(jugadorParaAgregar.getNombre(), jugadorDTO.getNombre());
         verify(jugadorRepository,times(1)).save(any(Jugador.class));
-        verify(jugadorRepository).existsById(eq(jugadorDTOParaAgregar.getId())); // times por defecto va 1
+        verify(jugadorRepository).findVersion(eq(jugadorDTOParaAgregar.getId())); // times por defecto va 1
     }
 
     @Test
     void testUpdateNotFound() {
-        when(jugadorRepository.existsById(jugadorDTOParaAgregar.getId())).thenReturn(false);
+        when(jugadorRepository.findVersion(jugadorDTOParaAgregar.getId())).thenReturn(Optional.empty());
         assertThrows(NoSuchElementException.class, () ->  jugadorService.update(jugadorDTOParaAgregar));
-        verify(jugadorRepository,times(1)).existsById(eq((jugadorDTOParaAgregar.getId())));
+        verify(jugadorRepository,times(1)).findVersion(eq((jugadorDTOParaAgregar.getId())));
         verify(jugadorRepository,times(0)).save(any());
     }
 
@@ -0,0 +1,407 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.ResultadoPuntoDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.PoliticaConflicto;
+import com.baufest.tennis.springtennis.event.MarcadorActualizadoEvent;
+import com.baufest.tennis.springtennis.exception.ConflictoVersionException;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.mapper.CanchaMapperImpl;
+import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
+import com.baufest.tennis.springtennis.mapper.PartidoMapper;
+import com.baufest.tennis.springtennis.mapper.PartidoMapperImpl;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.model.Partido;
+import com.baufest.tennis.springtennis.model.PuntoPartido;
+import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import com.baufest.tennis.springtennis.repository.PuntoPartidoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MarcadorEnVivoTest {
+
+    Jugador jugador1 = new Jugador(1L, "Federer", 10);
+    Jugador jugador2 = new Jugador(2L, "Nadal", 10);
+
+    @Mock()
+    PartidoRepository partidoRepository;
+
+    @Mock()
+    PuntoPartidoRepository puntoPartidoRepository;
+
+    PartidoMapper mapper = new PartidoMapperImpl(new JugadorMapperImpl(), new CanchaMapperImpl());
+
+    HistorialPuntos historialPuntos;
+
+    //Eventos publicados por el marcador en vivo
+    List<Object> eventos = Collections.synchronizedList(new ArrayList<>());
+
+    //Con dos hilos los partidos 1 y 3 comparten hilo
+    EjecutorPorPartido ejecutor = new EjecutorPorPartido(2);
+
+    MarcadorEnVivo marcadorEnVivo;
+
+    @BeforeEach
+    public void setUp() {
+        marcadorEnVivo = nuevoMarcador(PoliticaConflicto.REINTENTAR);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        ejecutor.cerrar();
+    }
+
+    @Test
+    void testPuntosConcurrentesNoSePierden() throws Exception {
+        marcadorEnVivo.iniciar(partidoEnCurso(0L, 0, 0));
+
+        //Cada jugador suma 2 puntos por game, 4 puntos alternados nunca cierran un game: 30 a 30
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<PartidoDTO>> resultados = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                ModoJugador modo = i % 2 == 0 ? ModoJugador.LOCAL : ModoJugador.VISITANTE;
+                resultados.add(executor.submit(() -> marcadorEnVivo.sumarPunto(1L, modo, null, null).getPartido()));
+            }
+            for (Future<PartidoDTO> resultado : resultados) {
+                resultado.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        PartidoDTO partido = marcadorEnVivo.actualizar(mapper.toDTO(partidoEnCurso(0L, 0, 0)));
+        assertEquals(2, partido.getScoreLocal());
+        assertEquals(2, partido.getScoreVisitante());
+        assertEquals("30", partido.getPuntosGameActualLocal());
+        assertEquals(4L, partido.getVersion());
+        verify(partidoRepository, never()).findById(any());
+    }
+
+    @Test
+    void testCadaPuntoPublicaElMarcador() {
+        marcadorEnVivo.iniciar(partidoEnCurso(0L, 0, 0));
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null);
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null);
+
+        assertEquals(3, eventos.size());
+        MarcadorDTO ultimo = ((MarcadorActualizadoEvent) eventos.get(2)).getMarcador();
+        assertEquals(1L, ultimo.getIdPartido());
+        assertEquals(2L, ultimo.getVersion());
+        assertEquals("30", ultimo.getPuntosGameActualLocal());
+        assertEquals(Estado.EN_CURSO, ultimo.getEstado());
+    }
+
+    @Test
+    void testActualizarProyeccionDelMarcador() {
+        marcadorEnVivo.iniciar(partidoEnCurso(0L, 0, 0));
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.VISITANTE, null, null);
+
+        //La base todavia tiene la foto inicial, se devuelve el marcador en memoria
+        MarcadorDTO marcador = marcadorEnVivo.actualizar(MarcadorDTO.de(mapper.toDTO(partidoEnCurso(0L, 0, 0))));
+        assertEquals(1L, marcador.getVersion());
+        assertEquals("15", marcador.getPuntosGameActualVisitante());
+
+        //Un partido en curso que no esta en memoria se reconstruye con el historial, sin quedar en memoria
+        Partido otro = partidoEnCurso(4L, 1, 0);
+        otro.setId(2L);
+        when(puntoPartidoRepository.findAllByIdPartidoAndSecuenciaGreaterThanOrderBySecuenciaAsc(2L, 4L))
+                .thenReturn(Collections.singletonList(new PuntoPartido(2L, 5L, ModoJugador.LOCAL, new Date())));
+        MarcadorDTO reconstruido = marcadorEnVivo.actualizar(MarcadorDTO.de(mapper.toDTO(otro)));
+        assertEquals(5L, reconstruido.getVersion());
+        assertEquals("30", reconstruido.getPuntosGameActualLocal());
+        verify(partidoRepository, never()).findById(any());
+    }
+
+    @Test
+    void testVersionSinArmarElPartido() {
+        marcadorEnVivo.iniciar(partidoEnCurso(0L, 0, 0));
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.VISITANTE, null, null);
+
+        //La fila todavia tiene la foto inicial, manda el marcador en memoria
+        assertEquals(1L, marcadorEnVivo.version(1L, 0L));
+        //Un partido que no esta en memoria usa la version de la fila, la misma del partido que se devuelve
+        assertEquals(4L, marcadorEnVivo.version(2L, 4L));
+        verify(puntoPartidoRepository, never()).findAllByIdPartidoAndSecuenciaGreaterThanOrderBySecuenciaAsc(any(), anyLong());
+    }
+
+    @Test
+    void testCadaPuntoSeGuardaAntesDeResponder() {
+        marcadorEnVivo.iniciar(partidoEnCurso(0L, 0, 0));
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null);
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.VISITANTE, null, null);
+
+        //Cada punto se agrego al historial con su secuencia, la foto se guarda recien en el flush
+        List<List<PuntoPartido>> guardados = puntosGuardados(2);
+        assertEquals(1, guardados.get(0).size());
+        assertEquals(1L, guardados.get(0).get(0).getSecuencia());
+        assertEquals(ModoJugador.LOCAL, guardados.get(0).get(0).getModo());
+        assertEquals(2L, guardados.get(1).get(0).getSecuencia());
+        assertEquals(ModoJugador.VISITANTE, guardados.get(1).get(0).getModo());
+        verify(partidoRepository, never()).actualizarMarcador(any(), anyInt(), any(), anyInt(), anyInt(), any(), anyInt(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+
+        cuandoSeActualizaElMarcador();
+        marcadorEnVivo.flush();
+        verify(partidoRepository).actualizarMarcador(eq(1L), eq(1), eq("15"), eq(0), eq(1), eq("15"), eq(0), eq(0), eq(0), eq(""), any(), eq(Estado.EN_CURSO), eq(2L), eq(0L));
+        verify(puntoPartidoRepository, times(2)).saveAll(any());
+    }
+
+    @Test
+    void testCadaFlushGuardaLaFoto() {
+        cuandoSeActualizaElMarcador();
+        marcadorEnVivo.iniciar(partidoEnCurso(0L, 0, 0));
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null);
+        marcadorEnVivo.flush();
+        verify(partidoRepository).actualizarMarcador(eq(1L), eq(1), eq("15"), eq(0), eq(0), eq("0"), eq(0), eq(0), eq(0), eq(""), eq(ModoJugador.LOCAL), eq(Estado.EN_CURSO), eq(1L), eq(0L));
+
+        //La foto siguiente reemplaza a la anterior, y un flush sin puntos nuevos no escribe nada
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null);
+        marcadorEnVivo.flush();
+        marcadorEnVivo.flush();
+        verify(partidoRepository).actualizarMarcador(eq(1L), eq(2), eq("30"), eq(0), eq(0), eq("0"), eq(0), eq(0), eq(0), eq(""), eq(ModoJugador.LOCAL), eq(Estado.EN_CURSO), eq(2L), eq(1L));
+        verify(puntoPartidoRepository, times(2)).saveAll(any());
+    }
+
+    @Test
+    void testFlushAgrupaLosPartidosDelMismoHilo() {
+        cuandoSeActualizaElMarcador();
+        marcadorEnVivo.iniciar(partidoEnCurso(1L, 0L, 0, 0));
+        marcadorEnVivo.iniciar(partidoEnCurso(3L, 0L, 0, 0));
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null);
+        marcadorEnVivo.sumarPunto(3L, ModoJugador.VISITANTE, null, null);
+
+        marcadorEnVivo.flush();
+        marcadorEnVivo.flush();
+        //Una sola transaccion para las fotos de los dos partidos, sin volver a insertar puntos
+        List<HistorialPuntos.Escritura> escrituras = lotesGuardados(3).get(2);
+        assertEquals(new HashSet<>(Arrays.asList(1L, 3L)), escrituras.stream().map(HistorialPuntos.Escritura::getIdPartido).collect(Collectors.toSet()));
+        assertTrue(escrituras.stream().allMatch(escritura -> escritura.getPuntos().isEmpty()));
+        verify(partidoRepository, times(2)).actualizarMarcador(any(), anyInt(), any(), anyInt(), anyInt(), any(), anyInt(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+        verify(puntoPartidoRepository, times(2)).saveAll(any());
+    }
+
+    @Test
+    void testFlushConLoteFallidoGuardaDeAUno() {
+        marcadorEnVivo.iniciar(partidoEnCurso(1L, 0L, 0, 0));
+        marcadorEnVivo.iniciar(partidoEnCurso(3L, 0L, 0, 0));
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null);
+        marcadorEnVivo.sumarPunto(3L, ModoJugador.VISITANTE, null, null);
+        when(partidoRepository.actualizarMarcador(any(), anyInt(), any(), anyInt(), anyInt(), any(), anyInt(), anyInt(), anyInt(), any(), any(), any(), any(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+
+        marcadorEnVivo.flush();
+        //El lote y despues una escritura por partido
+        List<List<HistorialPuntos.Escritura>> lotes = lotesGuardados(5);
+        assertEquals(2, lotes.get(2).size());
+        assertEquals(1, lotes.get(3).size());
+        assertEquals(1, lotes.get(4).size());
+        //Las dos fotos quedaron guardadas, el flush siguiente no tiene nada que escribir
+        marcadorEnVivo.flush();
+        lotesGuardados(5);
+        verify(partidoRepository, never()).findById(any());
+    }
+
+    @Test
+    void testFlushConFotoMasNuevaEnLaBaseSacaElPartidoDeMemoria() {
+        marcadorEnVivo.iniciar(partidoEnCurso(0L, 0, 0));
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null);
+
+        //Otra instancia guardo una foto mas nueva: el punto ya esta en el historial, no se pierde nada
+        marcadorEnVivo.flush();
+        PartidoDTO partido = marcadorEnVivo.actualizar(mapper.toDTO(partidoEnCurso(3L, 0, 2)));
+        assertEquals(3L, partido.getVersion());
+        assertEquals(2, partido.getScoreVisitante());
+        verify(puntoPartidoRepository, times(1)).saveAll(any());
+    }
+
+    @Test
+    void testPartidoNoEnCurso() {
+        when(partidoRepository.findById(1L)).thenReturn(Optional.of(new Partido(1L, new Date(), Estado.NO_INICIADO, jugador1, jugador2, 0, 0, 0, 0)));
+        assertThrows(DatoInvalidoException.class, () -> marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null));
+    }
+
+    @Test
+    void testCargaLaFotoYLaColaDelHistorial() {
+        //La foto del partido esta en la version 3 y en el historial hay un punto posterior del local
+        when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoEnCurso(3L, 0, 1)));
+        when(puntoPartidoRepository.findAllByIdPartidoAndSecuenciaGreaterThanOrderBySecuenciaAsc(1L, 3L))
+                .thenReturn(Collections.singletonList(new PuntoPartido(1L, 4L, ModoJugador.LOCAL, new Date())));
+
+        PartidoDTO partido = marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null).getPartido();
+        assertEquals(2, partido.getScoreLocal());
+        assertEquals(1, partido.getScoreVisitante());
+        assertEquals(5L, partido.getVersion());
+    }
+
+    @Test
+    void testActualizarNoCargaLosPartidosQueNoEstanEnMemoria() {
+        //Una lectura devuelve la foto de la base, sin leer el historial ni dejar el partido en memoria
+        PartidoDTO partido = marcadorEnVivo.actualizar(mapper.toDTO(partidoEnCurso(3L, 0, 0)));
+        assertEquals(0, partido.getScoreVisitante());
+        assertEquals(3L, partido.getVersion());
+        verifyNoInteractions(puntoPartidoRepository);
+
+        //El proximo punto carga el partido en su hilo, con los puntos del historial posteriores a la foto
+        when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoEnCurso(3L, 0, 0)));
+        when(puntoPartidoRepository.findAllByIdPartidoAndSecuenciaGreaterThanOrderBySecuenciaAsc(1L, 3L))
+                .thenReturn(Collections.singletonList(new PuntoPartido(1L, 4L, ModoJugador.VISITANTE, new Date())));
+        marcadorEnVivo.sumarPunto(1L, ModoJugador.VISITANTE, null, null);
+        partido = marcadorEnVivo.actualizar(mapper.toDTO(partidoEnCurso(3L, 0, 0)));
+        assertEquals(2, partido.getScoreVisitante());
+        assertEquals(5L, partido.getVersion());
+    }
+
+    @Test
+    void testActualizarNoDevuelveAMemoriaUnPartidoFinalizado() {
+        Partido finalizado = partidoEnCurso(9L, 4, 2);
+        finalizado.setEstado(Estado.FINALIZADO);
+
+        assertEquals(Estado.FINALIZADO, marcadorEnVivo.actualizar(mapper.toDTO(finalizado)).getEstado());
+        when(partidoRepository.findById(1L)).thenReturn(Optional.of(finalizado));
+        assertThrows(DatoInvalidoException.class, () -> marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null));
+    }
+
+    @Test
+    void testVersionViejaRechazada() {
+        marcadorEnVivo.iniciar(partidoEnCurso(3L, 0, 0));
+
+        ConflictoVersionException conflicto = assertThrows(ConflictoVersionException.class,
+                () -> marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, 2L, PoliticaConflicto.RECHAZAR));
+        assertEquals(3L, conflicto.getActual().getVersion());
+        assertEquals(0, conflicto.getActual().getScoreLocal());
+    }
+
+    @Test
+    void testVersionViejaReintentada() {
+        marcadorEnVivo.iniciar(partidoEnCurso(3L, 0, 0));
+
+        ResultadoPuntoDTO resultado = marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, 2L, PoliticaConflicto.REINTENTAR);
+        assertEquals(1, resultado.getReintentos());
+        assertEquals(PoliticaConflicto.REINTENTAR, resultado.getPolitica());
+        assertEquals(4L, resultado.getPartido().getVersion());
+        assertEquals(1, resultado.getPartido().getScoreLocal());
+    }
+
+    @Test
+    void testPuntoConConflictoSeReaplicaSobreLaBase() {
+        marcadorEnVivo.iniciar(partidoEnCurso(0L, 0, 0));
+
+        //Otra instancia ya agrego puntos: la foto quedo en la version 5 con un punto del visitante
+        when(puntoPartidoRepository.saveAll(any()))
+                .thenThrow(new DataIntegrityViolationException("uk_punto_partido_secuencia"))
+                .thenReturn(Collections.emptyList());
+        when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoEnCurso(5L, 0, 1)));
+        ResultadoPuntoDTO resultado = marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null);
+
+        //El punto se resolvio en el mismo pedido, sobre el marcador de la base
+        assertEquals(1, resultado.getReintentos());
+        assertEquals(6L, resultado.getPartido().getVersion());
+        assertEquals(1, resultado.getPartido().getScoreLocal());
+        assertEquals(1, resultado.getPartido().getScoreVisitante());
+        List<List<PuntoPartido>> guardados = puntosGuardados(2);
+        assertEquals(1L, guardados.get(0).get(0).getSecuencia());
+        assertEquals(6L, guardados.get(1).get(0).getSecuencia());
+        assertEquals(6L, marcadorEnVivo.actualizar(mapper.toDTO(partidoEnCurso(5L, 0, 1))).getVersion());
+    }
+
+    @Test
+    void testPuntoConConflictoRechazadoDevuelveElPartidoActual() {
+        marcadorEnVivo = nuevoMarcador(PoliticaConflicto.RECHAZAR);
+        marcadorEnVivo.iniciar(partidoEnCurso(0L, 0, 0));
+
+        when(puntoPartidoRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("uk_punto_partido_secuencia"));
+        when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoEnCurso(5L, 0, 1)));
+        ConflictoVersionException conflicto = assertThrows(ConflictoVersionException.class,
+                () -> marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, null));
+
+        //El cliente recibe el partido de la base y el punto no se confirmo ni se publico
+        assertEquals(5L, conflicto.getActual().getVersion());
+        assertEquals(0, conflicto.getActual().getScoreLocal());
+        assertEquals(1, conflicto.getActual().getScoreVisitante());
+        assertEquals(1, eventos.size());
+        PartidoDTO partido = marcadorEnVivo.actualizar(mapper.toDTO(partidoEnCurso(5L, 0, 1)));
+        assertEquals(5L, partido.getVersion());
+        assertEquals(0, partido.getScoreLocal());
+    }
+
+    @Test
+    void testPuntoConConflictoAgotaLosReintentos() {
+        marcadorEnVivo.iniciar(partidoEnCurso(0L, 0, 0));
+
+        when(puntoPartidoRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("uk_punto_partido_secuencia"));
+        when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoEnCurso(5L, 0, 1)));
+        ConflictoVersionException conflicto = assertThrows(ConflictoVersionException.class,
+                () -> marcadorEnVivo.sumarPunto(1L, ModoJugador.LOCAL, null, PoliticaConflicto.REINTENTAR));
+
+        assertEquals(5L, conflicto.getActual().getVersion());
+        //El intento original y los 3 reintentos
+        verify(puntoPartidoRepository, times(4)).saveAll(any());
+    }
+
+    private MarcadorEnVivo nuevoMarcador(PoliticaConflicto politica) {
+        historialPuntos = spy(new HistorialPuntos(partidoRepository, puntoPartidoRepository));
+        return new MarcadorEnVivo(partidoRepository, mapper, historialPuntos, eventos::add, ejecutor, politica, 3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<PuntoPartido>> puntosGuardados(int veces) {
+        ArgumentCaptor<List<PuntoPartido>> captor = ArgumentCaptor.forClass(List.class);
+        verify(puntoPartidoRepository, times(veces)).saveAll(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<HistorialPuntos.Escritura>> lotesGuardados(int veces) {
+        ArgumentCaptor<List<HistorialPuntos.Escritura>> captor = ArgumentCaptor.forClass(List.class);
+        verify(historialPuntos, times(veces)).guardarLote(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private void cuandoSeActualizaElMarcador() {
+        when(partidoRepository.actualizarMarcador(any(), anyInt(), any(), anyInt(), anyInt(), any(), anyInt(), anyInt(), anyInt(), any(), any(), any(), any(), any())).thenReturn(1);
+    }
+
+    private Partido partidoEnCurso(Long version, int scoreLocal, int scoreVisitante) {
+        return partidoEnCurso(1L, version, scoreLocal, scoreVisitante);
+    }
+
+    private Partido partidoEnCurso(Long id, Long version, int scoreLocal, int scoreVisitante) {
+        Partido partido = new Partido(id, new Date(), Estado.EN_CURSO, jugador1, jugador2, scoreLocal, 0, scoreVisitante, 0);
+        partido.setVersion(version);
+        return partido;
+    }
+}
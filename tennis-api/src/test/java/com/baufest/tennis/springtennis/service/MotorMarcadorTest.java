@@ -0,0 +1,224 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.enums.FormatoPartido;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import org.junit.jupiter.api.Test;
+
+import static com.baufest.tennis.springtennis.service.PartidoServiceImpl.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MotorMarcadorTest {
+
+    @Test
+    void testEmpaquetar() {
+        long marcador = MotorMarcador.empaquetar(SCORE_30, SCORE_ADV, 5, 4, Estado.EN_CURSO);
+        assertEquals(SCORE_30, MotorMarcador.scoreLocal(marcador));
+        assertEquals(SCORE_ADV, MotorMarcador.scoreVisitante(marcador));
+        assertEquals(5, MotorMarcador.gamesLocal(marcador));
+        assertEquals(4, MotorMarcador.gamesVisitante(marcador));
+        assertEquals(0, MotorMarcador.setsLocal(marcador));
+        assertEquals(0, MotorMarcador.setsVisitante(marcador));
+        assertFalse(MotorMarcador.enTiebreak(marcador));
+        assertEquals(ModoJugador.LOCAL, MotorMarcador.saca(marcador));
+        assertEquals(Estado.EN_CURSO, MotorMarcador.estado(marcador));
+    }
+
+    @Test
+    void testSumarPuntos() {
+        long marcador = MotorMarcador.empaquetar(SCORE_0, SCORE_0, 0, 0, Estado.EN_CURSO);
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.VISITANTE);
+        assertEquals(SCORE_30, MotorMarcador.scoreLocal(marcador));
+        assertEquals(SCORE_15, MotorMarcador.scoreVisitante(marcador));
+        assertEquals(0, MotorMarcador.gamesLocal(marcador));
+    }
+
+    @Test
+    void testVentajaEIguales() {
+        long iguales = MotorMarcador.empaquetar(SCORE_40, SCORE_40, 0, 0, Estado.EN_CURSO);
+        long ventaja = MotorMarcador.sumarPunto(iguales, ModoJugador.VISITANTE);
+        assertEquals(SCORE_40, MotorMarcador.scoreLocal(ventaja));
+        assertEquals(SCORE_ADV, MotorMarcador.scoreVisitante(ventaja));
+
+        //El local le saca la ventaja y vuelven a estar iguales
+        assertEquals(iguales, MotorMarcador.sumarPunto(ventaja, ModoJugador.LOCAL));
+    }
+
+    @Test
+    void testGameCambiaElSaque() {
+        long marcador = MotorMarcador.empaquetar(SCORE_ADV, SCORE_40, 2, 3, Estado.EN_CURSO);
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        assertEquals(SCORE_0, MotorMarcador.scoreLocal(marcador));
+        assertEquals(SCORE_0, MotorMarcador.scoreVisitante(marcador));
+        assertEquals(3, MotorMarcador.gamesLocal(marcador));
+        assertEquals(3, MotorMarcador.gamesVisitante(marcador));
+        assertEquals(ModoJugador.VISITANTE, MotorMarcador.saca(marcador));
+        assertEquals(Estado.EN_CURSO, MotorMarcador.estado(marcador));
+
+        marcador = MotorMarcador.empaquetar(SCORE_15, SCORE_40, 3, 3, 0, 0, ModoJugador.VISITANTE, Estado.EN_CURSO,
+                FormatoPartido.SET_UNICO, false);
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.VISITANTE);
+        assertEquals(4, MotorMarcador.gamesVisitante(marcador));
+        assertEquals(ModoJugador.LOCAL, MotorMarcador.saca(marcador));
+    }
+
+    @Test
+    void testSextoGameFinalizaElPartido() {
+        long marcador = MotorMarcador.empaquetar(SCORE_0, SCORE_40, 4, 5, Estado.EN_CURSO);
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.VISITANTE);
+        assertEquals(6, MotorMarcador.gamesVisitante(marcador));
+        assertEquals(Estado.FINALIZADO, MotorMarcador.estado(marcador));
+    }
+
+    @Test
+    void testPuntajeImposible() {
+        long ventajaSinCuarenta = MotorMarcador.empaquetar(SCORE_ADV, SCORE_15, 0, 0, Estado.EN_CURSO);
+        assertThrows(DatoInvalidoException.class, () -> MotorMarcador.sumarPunto(ventajaSinCuarenta, ModoJugador.LOCAL));
+        assertThrows(DatoInvalidoException.class, () -> MotorMarcador.sumarPunto(ventajaSinCuarenta, ModoJugador.VISITANTE));
+
+        long fueraDeRango = MotorMarcador.empaquetar(7, SCORE_0, 0, 0, Estado.EN_CURSO);
+        DatoInvalidoException error = assertThrows(DatoInvalidoException.class, () -> MotorMarcador.sumarPunto(fueraDeRango, ModoJugador.LOCAL));
+        //Siempre la misma instancia, sin stack trace
+        assertSame(error, assertThrows(DatoInvalidoException.class, () -> MotorMarcador.sumarPunto(ventajaSinCuarenta, ModoJugador.LOCAL)));
+        assertEquals(0, error.getStackTrace().length);
+        assertEquals("PUNTAJE_IMPOSIBLE", ((DatoInvalidoException) error).getCodigo());
+    }
+
+    @Test
+    void testSetConDiferenciaDeDos() {
+        long marcador = enCurso(SCORE_40, SCORE_0, 5, 5, 0, 0, FormatoPartido.MEJOR_DE_3, false);
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        //6-5 no alcanza para ganar el set
+        assertEquals(6, MotorMarcador.gamesLocal(marcador));
+        assertEquals(0, MotorMarcador.setsLocal(marcador));
+
+        long anterior = ganarGame(marcador, ModoJugador.LOCAL, 3);
+        marcador = MotorMarcador.sumarPunto(anterior, ModoJugador.LOCAL);
+        assertEquals(1, MotorMarcador.setsLocal(marcador));
+        assertEquals(0, MotorMarcador.gamesLocal(marcador));
+        assertEquals(0, MotorMarcador.gamesVisitante(marcador));
+        assertEquals(Estado.EN_CURSO, MotorMarcador.estado(marcador));
+        assertEquals("7-5", MotorMarcador.describirSets(MotorMarcador.registrarSet(0L, anterior, marcador), 1));
+    }
+
+    @Test
+    void testTiebreak() {
+        long marcador = enCurso(SCORE_0, SCORE_40, 6, 5, 0, 0, FormatoPartido.MEJOR_DE_3, false);
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.VISITANTE);
+        assertTrue(MotorMarcador.enTiebreak(marcador));
+        ModoJugador primerSaque = MotorMarcador.saca(marcador);
+
+        //El saque cambia despues del primer punto y luego cada dos puntos
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        assertEquals("1", MotorMarcador.describirPuntos(marcador, MotorMarcador.scoreLocal(marcador)));
+        assertEquals(otro(primerSaque), MotorMarcador.saca(marcador));
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        assertEquals(otro(primerSaque), MotorMarcador.saca(marcador));
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        assertEquals(primerSaque, MotorMarcador.saca(marcador));
+
+        //En 6-6 hay que seguir hasta sacar dos puntos de diferencia
+        for (int i = 0; i < 3; i++) {
+            marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        }
+        for (int i = 0; i < 6; i++) {
+            marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.VISITANTE);
+        }
+        assertEquals(6, MotorMarcador.scoreLocal(marcador));
+        assertEquals(6, MotorMarcador.scoreVisitante(marcador));
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        assertTrue(MotorMarcador.enTiebreak(marcador));
+        long anterior = marcador;
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+
+        assertFalse(MotorMarcador.enTiebreak(marcador));
+        assertEquals(1, MotorMarcador.setsLocal(marcador));
+        assertEquals(SCORE_0, MotorMarcador.scoreLocal(marcador));
+        //El set siguiente lo empieza a sacar el que recibio el primer punto del tiebreak
+        assertEquals(otro(primerSaque), MotorMarcador.saca(marcador));
+        assertEquals("7-6", MotorMarcador.describirSets(MotorMarcador.registrarSet(0L, anterior, marcador), 1));
+    }
+
+    @Test
+    void testSuperTiebreak() {
+        long marcador = enCurso(SCORE_0, SCORE_40, 4, 5, 1, 0, FormatoPartido.MEJOR_DE_3_SUPER_TIEBREAK, false);
+        marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.VISITANTE);
+        //Con un set cada uno el tercero es un match tiebreak
+        assertEquals(1, MotorMarcador.setsVisitante(marcador));
+        assertTrue(MotorMarcador.enTiebreak(marcador));
+
+        for (int i = 0; i < 7; i++) {
+            marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        }
+        assertEquals(Estado.EN_CURSO, MotorMarcador.estado(marcador));
+        for (int i = 0; i < 3; i++) {
+            marcador = MotorMarcador.sumarPunto(marcador, ModoJugador.LOCAL);
+        }
+        assertEquals(Estado.FINALIZADO, MotorMarcador.estado(marcador));
+        assertEquals(2, MotorMarcador.setsLocal(marcador));
+    }
+
+    @Test
+    void testSinVentaja() {
+        long iguales = enCurso(SCORE_40, SCORE_40, 0, 0, 0, 0, FormatoPartido.MEJOR_DE_3, true);
+        long marcador = MotorMarcador.sumarPunto(iguales, ModoJugador.VISITANTE);
+        assertEquals(1, MotorMarcador.gamesVisitante(marcador));
+        assertEquals(SCORE_0, MotorMarcador.scoreVisitante(marcador));
+
+        long ventaja = enCurso(SCORE_ADV, SCORE_40, 0, 0, 0, 0, FormatoPartido.MEJOR_DE_3, true);
+        assertThrows(DatoInvalidoException.class, () -> MotorMarcador.sumarPunto(ventaja, ModoJugador.LOCAL));
+    }
+
+    @Test
+    void testMejorDeCinco() {
+        long marcador = enCurso(SCORE_0, SCORE_0, 0, 0, 0, 0, FormatoPartido.MEJOR_DE_5, false);
+        long sets = 0L;
+        for (int game = 0; game < 18; game++) {
+            long anterior = marcador;
+            marcador = ganarGame(marcador, ModoJugador.VISITANTE, 4);
+            sets = MotorMarcador.registrarSet(sets, anterior, marcador);
+        }
+        assertEquals(3, MotorMarcador.setsVisitante(marcador));
+        assertEquals(Estado.FINALIZADO, MotorMarcador.estado(marcador));
+        assertEquals("0-6 0-6 0-6", MotorMarcador.describirSets(sets, 3));
+        assertEquals(sets, MotorMarcador.leerSets("0-6 0-6 0-6"));
+    }
+
+    @Test
+    void testLeerSetsInvalidos() {
+        assertEquals(0L, MotorMarcador.leerSets(null));
+        assertThrows(DatoInvalidoException.class, () -> MotorMarcador.leerSets("6-4 x"));
+    }
+
+    @Test
+    void testTraducir() {
+        assertEquals("0", MotorMarcador.traducir(SCORE_0));
+        assertEquals("40", MotorMarcador.traducir(SCORE_40));
+        assertEquals("Adv", MotorMarcador.traducir(SCORE_ADV));
+        assertEquals(null, MotorMarcador.traducir(5));
+    }
+
+    private static long enCurso(int scoreLocal, int scoreVisitante, int gamesLocal, int gamesVisitante, int setsLocal,
+                                int setsVisitante, FormatoPartido formato, boolean sinVentaja) {
+        return MotorMarcador.empaquetar(scoreLocal, scoreVisitante, gamesLocal, gamesVisitante, setsLocal, setsVisitante,
+                ModoJugador.LOCAL, Estado.EN_CURSO, formato, sinVentaja);
+    }
+
+    private static long ganarGame(long marcador, ModoJugador modo, int puntos) {
+        for (int i = 0; i < puntos; i++) {
+            marcador = MotorMarcador.sumarPunto(marcador, modo);
+        }
+        return marcador;
+    }
+
+    private static ModoJugador otro(ModoJugador modo) {
+        return modo == ModoJugador.LOCAL ? ModoJugador.VISITANTE : ModoJugador.LOCAL;
+    }
+}
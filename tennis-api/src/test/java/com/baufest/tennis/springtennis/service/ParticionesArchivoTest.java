@@ -0,0 +1,73 @@
+package com.baufest.tennis.springtennis.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticionesArchivoTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testConCreateDropLaTablaSeRecreaComoLasDeHibernate() {
+        ParticionesArchivo particiones = new ParticionesArchivo(jdbcTemplate, true, "create-drop");
+
+        particiones.crearTabla();
+        particiones.borrarTabla();
+
+        InOrder orden = inOrder(jdbcTemplate);
+        orden.verify(jdbcTemplate).execute(startsWith("drop table if exists partido_archivado"));
+        orden.verify(jdbcTemplate).execute(startsWith("create table if not exists partido_archivado ("));
+        orden.verify(jdbcTemplate).execute(startsWith("create index"));
+        orden.verify(jdbcTemplate).execute(startsWith("drop table if exists partido_archivado"));
+    }
+
+    @Test
+    void testConUpdateLaTablaSeConserva() {
+        ParticionesArchivo particiones = new ParticionesArchivo(jdbcTemplate, true, "update");
+
+        particiones.crearTabla();
+        particiones.borrarTabla();
+
+        verify(jdbcTemplate, never()).execute(startsWith("drop"));
+        verify(jdbcTemplate, times(2)).execute(startsWith("create"));
+    }
+
+    @Test
+    void testUnaParticionPorAnioSinRepetirElDdl() {
+        ParticionesArchivo particiones = new ParticionesArchivo(jdbcTemplate, true, "update");
+
+        particiones.preparar(new GregorianCalendar(2019, Calendar.MARCH, 1).getTime(),
+                new GregorianCalendar(2020, Calendar.JUNE, 1).getTime());
+        particiones.preparar(new GregorianCalendar(2020, Calendar.JANUARY, 1).getTime(),
+                new GregorianCalendar(2020, Calendar.DECEMBER, 1).getTime());
+
+        verify(jdbcTemplate).execute(startsWith("create table if not exists partido_archivado_2019 partition of"));
+        verify(jdbcTemplate).execute(startsWith("create table if not exists partido_archivado_2020 partition of"));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testSinParticionadoNoHaceNada() {
+        ParticionesArchivo particiones = new ParticionesArchivo(jdbcTemplate, false, "create-drop");
+
+        particiones.crearTabla();
+        particiones.preparar(new GregorianCalendar(2019, Calendar.MARCH, 1).getTime(),
+                new GregorianCalendar(2020, Calendar.JUNE, 1).getTime());
+        particiones.borrarTabla();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
@@ -1,16 +1,28 @@
 package com.baufest.tennis.springtennis.service;
 
+import com.baufest.tennis.springtennis.dto.CanchaDTO;
 import com.baufest.tennis.springtennis.dto.JugadorDTO;
+import com.baufest.tennis.springtennis.dto.PaginaDTO;
 import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.PuntoPartidoDTO;
 import com.baufest.tennis.springtennis.enums.Estado;
 import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.PoliticaConflicto;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
 import com.baufest.tennis.springtennis.mapper.CanchaMapperImpl;
 import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
 import com.baufest.tennis.springtennis.mapper.PartidoMapper;
 import com.baufest.tennis.springtennis.mapper.PartidoMapperImpl;
+import com.baufest.tennis.springtennis.mapper.PuntoPartidoMapperImpl;
+import com.baufest.tennis.springtennis.model.Cancha;
 import com.baufest.tennis.springtennis.model.Jugador;
 import com.baufest.tennis.springtennis.model.Partido;
+import com.baufest.tennis.springtennis.model.PuntoPartido;
+import com.baufest.tennis.springtennis.repository.CanchaRepository;
+import com.baufest.tennis.springtennis.repository.HorarioPartido;
 import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import com.baufest.tennis.springtennis.repository.PuntoPartidoRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,12 +31,21 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.Answer;
 
+import com.baufest.tennis.springtennis.event.PartidoFinalizadoEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
 import java.time.ZonedDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -46,6 +67,10 @@ class PartidoServiceTest {
     JugadorDTO jugadorDTO1 = new JugadorDTO(1L, "Federer", SCORE_30);
     JugadorDTO jugadorDTO2 = new JugadorDTO(2L, "Nadal", SCORE_30);
 
+    Cancha cancha1 = new Cancha(1L, "Estadio Monumental", "Av. Rio de la Plata 521");
+
+    CanchaDTO canchaDTO1 = new CanchaDTO(1L, "Estadio Monumental", "Av. Rio de la Plata 521");
+
     Partido partidoParaAgregar = new Partido(1L, new Date(2543447456000L), Estado.NO_INICIADO, jugador1, jugador2, 0, 0, 0, 0);
 
     PartidoDTO partidoDTOParaAgregar = new PartidoDTO(1L, new Date(2543447456000L), Estado.NO_INICIADO, jugadorDTO1, jugadorDTO2, 0, 0, 0, 0);
@@ -53,10 +78,31 @@ class PartidoServiceTest {
     @Mock()
     PartidoRepository partidoRepository;
 
+    @Mock()
+    CanchaRepository canchaRepository;
+
+    @Mock()
+    EntityManager entityManager;
+
+    @Mock()
+    PuntoPartidoRepository puntoPartidoRepository;
+
+    @Mock()
+    ApplicationEventPublisher eventPublisher;
+
     PartidoServiceImpl partidoService;
 
+    EjecutorPorPartido ejecutor = new EjecutorPorPartido(2);
+
+    MarcadorEnVivo marcadorEnVivo;
+
     PartidoMapper mapper = new PartidoMapperImpl(new JugadorMapperImpl(), new CanchaMapperImpl());
 
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        ejecutor.cerrar();
+    }
+
     @BeforeEach
     public void setUp() {
         partidosDePrueba.clear();
@@ -71,17 +117,37 @@ class PartidoServiceTest {
         partidosDTODePrueba.add(new PartidoDTO());
         partidosDTODePrueba.add(new PartidoDTO());
 
-        partidoService = new PartidoServiceImpl(partidoRepository,mapper);
+        partidoParaAgregar.setCancha(cancha1);
+        partidoDTOParaAgregar.setCancha(canchaDTO1);
+
+        HistorialPuntos historialPuntos = new HistorialPuntos(partidoRepository, puntoPartidoRepository);
+        //Se guarda la foto del marcador en cada flush, para poder verificar el update de la fila del partido
+        marcadorEnVivo = new MarcadorEnVivo(partidoRepository, mapper, historialPuntos, evento -> { }, ejecutor, PoliticaConflicto.REINTENTAR, 3);
+        partidoService = new PartidoServiceImpl(partidoRepository,mapper,new AgendaCanchas(partidoRepository, canchaRepository),entityManager,marcadorEnVivo,
+                historialPuntos, new PuntoPartidoMapperImpl(), eventPublisher);
     }
 
 
 
     @Test
     void testListPartidos() {
-        when(partidoRepository.findAll()).thenReturn(partidosDePrueba);
-        List<PartidoDTO> canchasConseguidos = partidoService.listAll();
-        assertEquals(partidosDePrueba.size(), canchasConseguidos.size());
-        verify(partidoRepository).findAll();
+        when(partidoRepository.findPagina(eq(0L), eq(Estado.NO_INICIADO), eq(1L), any())).thenReturn(partidosDePrueba);
+        PaginaDTO<PartidoDTO> partidosConseguidos = partidoService.listAll(null, 10, Estado.NO_INICIADO, 1L);
+        assertEquals(partidosDePrueba.size(), partidosConseguidos.getItems().size());
+        verify(partidoRepository).findPagina(eq(0L), eq(Estado.NO_INICIADO), eq(1L), any());
+        verify(partidoRepository,times(0)).findAll();
+    }
+
+    @Test
+    void testExportarPartidos() {
+        Date desde = new Date(0L);
+        Date hasta = new Date();
+        when(partidoRepository.streamExportacion(desde, hasta, 1L)).thenReturn(partidosDePrueba.stream());
+        List<PartidoDTO> exportados = new ArrayList<>();
+        partidoService.exportar(desde, hasta, 1L, exportados::add);
+        assertEquals(partidosDePrueba.size(), exportados.size());
+        verify(partidoRepository).streamExportacion(desde, hasta, 1L);
+        verify(partidoRepository,times(0)).findAll();
     }
 
     @Test
@@ -129,7 +195,7 @@ class PartidoServiceTest {
         partidoFinalizado.setId(1L);
         when(partidoRepository.existsById(1L)).thenReturn(true);
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoFinalizado));
-        assertThrows(IllegalArgumentException.class, () -> partidoService.delete(1L));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.delete(1L));
         verify(partidoRepository,times(0)).deleteById(any());
     }
 
@@ -139,7 +205,7 @@ class PartidoServiceTest {
         partidoEnCurso.setId(1L);
         when(partidoRepository.existsById(1L)).thenReturn(true);
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoEnCurso));
-        assertThrows(IllegalArgumentException.class, () -> partidoService.delete(1L));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.delete(1L));
         verify(partidoRepository,times(0)).deleteById(any());
     }
 
@@ -147,7 +213,7 @@ class PartidoServiceTest {
     void testInsertExisting() {
         partidoParaAgregar.setId(1L);
         when(partidoRepository.existsById(partidoParaAgregar.getId())).thenReturn(true);
-        assertThrows(IllegalArgumentException.class, () -> partidoService.save(partidoDTOParaAgregar));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.save(partidoDTOParaAgregar));
         verify(partidoRepository,times(0)).save(any());
         verify(partidoRepository,times(1)).existsById(eq(1L));
     }
@@ -155,7 +221,19 @@ class PartidoServiceTest {
     @Test
     void testInsertPartidoConJugadoresIgualesEntreSi() {
         PartidoDTO partido = new PartidoDTO(new Date(), Estado.NO_INICIADO, jugadorDTO1, jugadorDTO1);
-        assertThrows(IllegalArgumentException.class, () -> partidoService.save(partido));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.save(partido));
+        verify(partidoRepository,times(0)).save(any());
+    }
+
+    @Test
+    void testInsertPartidoSinJugadorInformaElCampoQueFalta() {
+        DatoInvalidoException error = assertThrows(DatoInvalidoException.class,
+                () -> partidoService.save(new PartidoDTO(new Date(), Estado.NO_INICIADO, null, jugadorDTO2)));
+        assertEquals("jugadorLocal", error.getCampo());
+        error = assertThrows(DatoInvalidoException.class,
+                () -> partidoService.save(new PartidoDTO(new Date(), Estado.NO_INICIADO, jugadorDTO1, null)));
+        assertEquals("jugadorVisitante", error.getCampo());
+        assertEquals("JUGADOR_FALTANTE", error.getCodigo());
         verify(partidoRepository,times(0)).save(any());
     }
 
@@ -163,10 +241,160 @@ class PartidoServiceTest {
     void testInsertPartidoConFechaMenorALaActual() {
         Date ayer = Date.from(ZonedDateTime.now().minusDays(1).toInstant());
         PartidoDTO partido = new PartidoDTO(ayer, Estado.NO_INICIADO, jugadorDTO1, jugadorDTO2);
-        assertThrows(IllegalArgumentException.class, () -> partidoService.save(partido));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.save(partido));
         verify(partidoRepository,times(0)).save(any());
     }
 
+    @Test
+    void testInsertPartidoConCanchaOcupada() {
+        Partido partidoExistente = new Partido(new Date(partidoDTOParaAgregar.getFechaComienzo().getTime() + 3600000L * 3), Estado.NO_INICIADO, jugador1, jugador2);
+        partidoExistente.setId(2L);
+        partidoExistente.setCancha(cancha1);
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Collections.singletonList(horario(partidoExistente)));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.save(partidoDTOParaAgregar));
+        verify(partidoRepository,times(0)).save(any());
+        verify(partidoRepository,times(0)).findAll();
+    }
+
+    @Test
+    void testInsertPartidoConCanchaOcupadaSoloEnLaBase() {
+        //La agenda no tiene el partido (lo guardo otra instancia), la consulta por rango dentro de la transaccion si
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Collections.emptyList());
+        when(partidoRepository.findIdsEnRango(eq(1L), any(), any())).thenReturn(Collections.singletonList(99L));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.save(partidoDTOParaAgregar));
+        verify(canchaRepository).bloquear(Collections.singleton(1L));
+        verify(partidoRepository,times(0)).save(any());
+        //La agenda de la cancha se descarta y se vuelve a cargar en la proxima consulta
+        assertThrows(DatoInvalidoException.class, () -> partidoService.save(partidoDTOParaAgregar));
+        verify(partidoRepository, times(2)).findHorarios(eq(1L), any());
+    }
+
+    @Test
+    void testInsertPartidoConCanchaLibre() {
+        Partido partidoAnterior = new Partido(new Date(partidoDTOParaAgregar.getFechaComienzo().getTime() - 3600000L * 4), Estado.NO_INICIADO, jugador1, jugador2);
+        partidoAnterior.setId(2L);
+        Partido partidoPosterior = new Partido(new Date(partidoDTOParaAgregar.getFechaComienzo().getTime() + 3600000L * 4), Estado.NO_INICIADO, jugador1, jugador2);
+        partidoPosterior.setId(3L);
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Arrays.asList(horario(partidoAnterior), horario(partidoPosterior)));
+        when(partidoRepository.save(any())).thenReturn(partidoParaAgregar);
+        PartidoDTO partidoDTO = partidoService.save(partidoDTOParaAgregar);
+        assertEquals(partidoParaAgregar.getId(), partidoDTO.getId());
+        verify(partidoRepository).save(any());
+    }
+
+    @Test
+    void testInsertLote() {
+        PartidoDTO primero = partidoNuevo(2543447456000L);
+        //Misma cancha, 4 horas despues
+        PartidoDTO segundo = partidoNuevo(2543447456000L + 3600000L * 4);
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Collections.emptyList());
+        when(partidoRepository.saveAll(any())).thenAnswer(invocacion -> {
+            List<Partido> partidos = invocacion.getArgument(0);
+            long id = 10L;
+            for (Partido partido : partidos) {
+                partido.setId(id++);
+            }
+            return partidos;
+        });
+
+        List<PartidoDTO> guardados = partidoService.saveAll(Arrays.asList(primero, segundo));
+
+        assertEquals(2, guardados.size());
+        assertEquals(10L, guardados.get(0).getId());
+        assertEquals(11L, guardados.get(1).getId());
+        verify(partidoRepository, times(1)).saveAll(any());
+        verify(partidoRepository, times(0)).findIdsExistentes(any());
+        verify(partidoRepository, times(0)).save(any());
+        //Los partidos del lote quedan en la agenda de la cancha
+        assertThrows(DatoInvalidoException.class, () -> partidoService.save(partidoNuevo(2543447456000L + 3600000L)));
+    }
+
+    @Test
+    void testInsertLoteSeAgregaALaAgendaRecienAlHacerCommit() {
+        AgendaCanchas agenda = new AgendaCanchas(partidoRepository, canchaRepository);
+        partidoService = new PartidoServiceImpl(partidoRepository, mapper, agenda, entityManager, marcadorEnVivo,
+                new HistorialPuntos(partidoRepository, puntoPartidoRepository), new PuntoPartidoMapperImpl(), eventPublisher);
+        Date fecha = new Date(2543447456000L);
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Collections.emptyList());
+        when(partidoRepository.saveAll(any())).thenAnswer(invocacion -> {
+            List<Partido> partidos = invocacion.getArgument(0);
+            partidos.get(0).setId(10L);
+            return partidos;
+        });
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            partidoService.saveAll(Collections.singletonList(partidoNuevo(fecha.getTime())));
+            //Hasta el commit la reserva no esta en la agenda: si la transaccion hace rollback no queda bloqueando la cancha
+            assertFalse(agenda.hayConflicto(1L, fecha, null));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(agenda.hayConflicto(1L, fecha, null));
+    }
+
+    @Test
+    void testInsertLoteConChoqueEntreSusPartidos() {
+        PartidoDTO primero = partidoNuevo(2543447456000L);
+        PartidoDTO segundo = partidoNuevo(2543447456000L + 3600000L * 8);
+        PartidoDTO tercero = partidoNuevo(2543447456000L + 3600000L * 2);
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Collections.emptyList());
+
+        DatoInvalidoException error = assertThrows(DatoInvalidoException.class,
+                () -> partidoService.saveAll(Arrays.asList(primero, segundo, tercero)));
+        assertEquals(true, error.getMessage().contains("posicion 2"));
+        verify(partidoRepository, times(0)).saveAll(any());
+    }
+
+    @Test
+    void testInsertLoteConHorarioOcupadoEnLaBase() {
+        PartidoDTO primero = partidoNuevo(2543447456000L);
+        PartidoDTO segundo = partidoNuevo(2543447456000L + 3600000L * 8);
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Collections.emptyList());
+        when(partidoRepository.findIdsEnRango(eq(1L), any(), any())).thenReturn(Collections.emptyList());
+        when(partidoRepository.findIdsEnRango(eq(1L), eq(new Date(segundo.getFechaComienzo().getTime() - AgendaCanchas.MARGEN_MS)), any()))
+                .thenReturn(Collections.singletonList(99L));
+
+        DatoInvalidoException error = assertThrows(DatoInvalidoException.class,
+                () -> partidoService.saveAll(Arrays.asList(primero, segundo)));
+        assertEquals(true, error.getMessage().contains("posicion 1"));
+        verify(partidoRepository, times(0)).saveAll(any());
+    }
+
+    @Test
+    void testInsertLoteConPartidoExistente() {
+        PartidoDTO existente = partidoNuevo(2543447456000L);
+        existente.setId(7L);
+        when(partidoRepository.findIdsExistentes(eq(Collections.singletonList(7L)))).thenReturn(Collections.singletonList(7L));
+
+        DatoInvalidoException error = assertThrows(DatoInvalidoException.class,
+                () -> partidoService.saveAll(Arrays.asList(partidoNuevo(2543447456000L + 3600000L * 8), existente)));
+        assertEquals(true, error.getMessage().contains("posicion 1"));
+        verify(partidoRepository, times(0)).saveAll(any());
+    }
+
+    @Test
+    void testInsertLoteConCanchaSinId() {
+        PartidoDTO sinCancha = partidoNuevo(2543447456000L + 3600000L * 8);
+        sinCancha.setCancha(new CanchaDTO());
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Collections.emptyList());
+
+        DatoInvalidoException error = assertThrows(DatoInvalidoException.class,
+                () -> partidoService.saveAll(Arrays.asList(partidoNuevo(2543447456000L), sinCancha)));
+        assertEquals(true, error.getMessage().contains("posicion 1"));
+        verify(partidoRepository, times(0)).saveAll(any());
+
+        DatoInvalidoException faltante = assertThrows(DatoInvalidoException.class, () -> partidoService.save(sinCancha));
+        assertEquals("CANCHA_FALTANTE", faltante.getCodigo());
+    }
+
+    @Test
+    void testInsertLoteVacio() {
+        assertThrows(DatoInvalidoException.class, () -> partidoService.saveAll(Collections.emptyList()));
+        verify(partidoRepository, times(0)).saveAll(any());
+    }
+
     @Test
     void testUpdateExisting() {
         ArgumentCaptor<Partido> argumentCaptor = ArgumentCaptor.forClass(Partido.class);
@@ -184,6 +412,16 @@ class PartidoServiceTest {
         verify(partidoRepository).save(any(Partido.class));
     }
 
+    @Test
+    void testUpdateNoChocaConSuPropiaReservaEnLaBase() {
+        when(partidoRepository.existsById(partidoParaAgregar.getId())).thenReturn(true);
+        when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoParaAgregar));
+        when(partidoRepository.findIdsEnRango(eq(1L), any(), any())).thenReturn(Collections.singletonList(1L));
+        when(partidoRepository.save(any())).thenReturn(partidoParaAgregar);
+        partidoService.update(partidoDTOParaAgregar);
+        verify(partidoRepository).save(any(Partido.class));
+    }
+
     @Test
     void testUpdateNotFound() {
         when(partidoRepository.existsById(partidoParaAgregar.getId())).thenReturn(false);
@@ -203,7 +441,7 @@ class PartidoServiceTest {
         when(partidoRepository.existsById(1L)).thenReturn(true);
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partido));
 
-        assertThrows(IllegalArgumentException.class, () -> partidoService.update(partidoDTO));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.update(partidoDTO));
         verify(partidoRepository).existsById(eq(1L));
         verify(partidoRepository).findById(eq(1L));
     }
@@ -217,7 +455,7 @@ class PartidoServiceTest {
         when(partidoRepository.existsById(1L)).thenReturn(true);
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partido));
 
-        assertThrows(IllegalArgumentException.class, () -> partidoService.update(partidoFinalizado));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.update(partidoFinalizado));
         verify(partidoRepository).existsById(eq(1L));
         verify(partidoRepository).findById(eq(1L));
     }
@@ -232,7 +470,7 @@ class PartidoServiceTest {
         when(partidoRepository.existsById(1L)).thenReturn(true);
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partido));
 
-        assertThrows(IllegalArgumentException.class, () -> partidoService.update(partidoEnCurso));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.update(partidoEnCurso));
         verify(partidoRepository).existsById(eq(1L));
         verify(partidoRepository).findById(eq(1L));
     }
@@ -250,7 +488,7 @@ class PartidoServiceTest {
         partidoAIniciar.setId(1L);
         ArgumentCaptor<Partido> argumentCaptor = ArgumentCaptor.forClass(Partido.class);
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoAIniciar));
-        when(partidoRepository.save(argumentCaptor.capture())).thenReturn(new Partido());
+        when(partidoRepository.save(argumentCaptor.capture())).thenAnswer(invocation -> invocation.getArgument(0));
         partidoService.initGame(1L);
         assertEquals(Estado.EN_CURSO, argumentCaptor.getValue().getEstado());
         verify(partidoRepository,times(2)).findById(eq(1L));
@@ -268,14 +506,14 @@ class PartidoServiceTest {
     void testSumarPuntosPartidoFinalizado() {
         Partido partidoFinalizado = new Partido(new Date(), Estado.FINALIZADO, jugador1, jugador1);
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoFinalizado));
-        assertThrows(IllegalArgumentException.class, () -> partidoService.sumarPuntos(1L, ModoJugador.LOCAL));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.sumarPuntos(1L, ModoJugador.LOCAL));
         verify(partidoRepository,times(1)).findById(eq(1L));
     }
 
     @Test
     void testSumarPuntosPartidoNoInicializado() {
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoParaAgregar));
-        assertThrows(IllegalArgumentException.class, () -> partidoService.sumarPuntos(1L, ModoJugador.LOCAL));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.sumarPuntos(1L, ModoJugador.LOCAL));
         verify(partidoRepository,times(1)).findById(eq(1L));
     }
 
@@ -474,76 +712,106 @@ class PartidoServiceTest {
         testSumarPuntosInconsistent(SCORE_ADV, SCORE_0, ModoJugador.VISITANTE);
     }
 
-    private void testSumarPuntos(int localScore, int visitanteScore, ModoJugador modoJugador, boolean deuce) {
-        ArgumentCaptor<Partido> argumentCaptor = ArgumentCaptor.forClass(Partido.class);
+    @Test
+    void listPuntosPartidoInexistente() {
+        when(partidoRepository.existsById(1L)).thenReturn(false);
+        assertThrows(NoSuchElementException.class, () -> partidoService.listPuntos(1L));
+        verify(puntoPartidoRepository, never()).findAllByIdPartidoOrderBySecuenciaAsc(any());
+    }
+
+    @Test
+    void listPuntosDevuelveLosPuntosConfirmados() {
+        Partido partido = new Partido(1L, new Date(), Estado.EN_CURSO, jugador1, jugador2, 0, 0, 0, 0);
+        partido.setVersion(0L);
+        marcadorEnVivo.iniciar(partido);
+        partidoService.sumarPuntos(1L, ModoJugador.LOCAL);
+
+        when(partidoRepository.existsById(1L)).thenReturn(true);
+        when(puntoPartidoRepository.findAllByIdPartidoOrderBySecuenciaAsc(1L))
+                .thenReturn(Collections.singletonList(new PuntoPartido(1L, 1L, ModoJugador.LOCAL, new Date())));
 
+        List<PuntoPartidoDTO> puntos = partidoService.listPuntos(1L);
+        assertEquals(1, puntos.size());
+        assertEquals(1L, puntos.get(0).getSecuencia());
+        assertEquals(ModoJugador.LOCAL, puntos.get(0).getModo());
+        //El punto se agrego al historial al sumarlo, listar no escribe nada
+        verify(puntoPartidoRepository).saveAll(any());
+        verify(partidoRepository, never()).actualizarMarcador(any(), anyInt(), any(), anyInt(), anyInt(), any(), anyInt(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    private void testSumarPuntos(int localScore, int visitanteScore, ModoJugador modoJugador, boolean deuce) {
         Partido partido = new Partido(1L, new Date(), Estado.EN_CURSO, jugador1, jugador1, localScore, 0, visitanteScore, 0);
         Partido partidoClon = new Partido(1L, new Date(), Estado.EN_CURSO, jugador1, jugador1, localScore, 0, visitanteScore, 0);
 
-        when(partidoRepository.save(argumentCaptor.capture())).thenAnswer((Answer<Partido>) invocation -> (Partido) invocation.getArguments()[0]);
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partido));
         PartidoDTO partidoResult = partidoService.sumarPuntos(1L, modoJugador);
-        assertEquals(partidoResult.getId(), argumentCaptor.getValue().getId());
-        assertEquals(argumentCaptor.getValue().getId(), partidoClon.getId());
-        assertEquals(argumentCaptor.getValue().getCantidadGamesLocal(), partidoClon.getCantidadGamesLocal());
-        assertEquals(argumentCaptor.getValue().getCantidadGamesVisitante(), partidoClon.getCantidadGamesVisitante());
-        assertEquals(argumentCaptor.getValue().getJugadorLocal(), partidoClon.getJugadorLocal());
-        assertEquals(argumentCaptor.getValue().getJugadorVisitante(), partidoClon.getJugadorVisitante());
-        assertEquals(argumentCaptor.getValue().getEstado(), partidoClon.getEstado());
-
+        assertEquals(partidoResult.getId(), partidoClon.getId());
+        assertEquals(partidoResult.getCantidadGamesLocal(), partidoClon.getCantidadGamesLocal());
+        assertEquals(partidoResult.getCantidadGamesVisitante(), partidoClon.getCantidadGamesVisitante());
+        assertEquals(partidoResult.getJugadorLocal().getId(), partidoClon.getJugadorLocal().getId());
+        assertEquals(partidoResult.getJugadorVisitante().getId(), partidoClon.getJugadorVisitante().getId());
+        assertEquals(partidoResult.getEstado(), partidoClon.getEstado());
+
+        int localEsperado = localScore;
+        int visitanteEsperado = visitanteScore;
         if (modoJugador.equals(ModoJugador.LOCAL)) {
             if (deuce) {
-                assertEquals(argumentCaptor.getValue().getScoreLocal(), localScore);
-                assertEquals(argumentCaptor.getValue().getScoreVisitante(), visitanteScore - 1);
+                visitanteEsperado = visitanteScore - 1;
             } else {
-                assertEquals(argumentCaptor.getValue().getScoreLocal(), localScore + 1);
-                assertEquals(argumentCaptor.getValue().getScoreVisitante(), visitanteScore);
+                localEsperado = localScore + 1;
             }
         } else {
             if (deuce) {
-                assertEquals(argumentCaptor.getValue().getScoreVisitante(), visitanteScore);
-                assertEquals(argumentCaptor.getValue().getScoreLocal(), localScore - 1);
+                localEsperado = localScore - 1;
             } else {
-                assertEquals(argumentCaptor.getValue().getScoreVisitante(), visitanteScore + 1);
-                assertEquals(argumentCaptor.getValue().getScoreLocal(), localScore);
+                visitanteEsperado = visitanteScore + 1;
             }
         }
-        verify(partidoRepository).save(any());
+        assertEquals(localEsperado, partidoResult.getScoreLocal());
+        assertEquals(visitanteEsperado, partidoResult.getScoreVisitante());
+
+        //El punto ya esta en el historial, la foto del marcador se guarda recien en el flush con un update de las columnas del puntaje
+        verify(puntoPartidoRepository).saveAll(any());
+        verify(partidoRepository,times(0)).actualizarMarcador(any(), anyInt(), any(), anyInt(), anyInt(), any(), anyInt(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+        cuandoSeActualizaElMarcador();
+        marcadorEnVivo.flush();
+        verify(partidoRepository).actualizarMarcador(eq(1L), eq(localEsperado), any(), eq(0), eq(visitanteEsperado), any(), eq(0), eq(0), eq(0), any(), any(), eq(Estado.EN_CURSO), eq(1L), eq(0L));
+        verify(partidoRepository,times(0)).save(any());
         verify(partidoRepository).findById(eq(1L));
 
     }
 
     private void testWinGamePoint(int localScore, int visitanteScore, ModoJugador modoJugador) {
-        ArgumentCaptor<Partido> argumentCaptor = ArgumentCaptor.forClass(Partido.class);
         Partido partido = new Partido(1L, new Date(), Estado.EN_CURSO, jugador1, jugador1, localScore, 0, visitanteScore, 0);
         Partido partidoClon = new Partido(1L, new Date(), Estado.EN_CURSO, jugador1, jugador1, localScore, 0, visitanteScore, 0);
 
-        when(partidoRepository.save(argumentCaptor.capture())).thenAnswer((Answer<Partido>) invocation -> (Partido) invocation.getArguments()[0]);
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partido));
 
         PartidoDTO partidoResult = partidoService.sumarPuntos(1L, modoJugador);
 
-        assertEquals(partidoResult.getId(), argumentCaptor.getValue().getId());
-        assertEquals(argumentCaptor.getValue().getId(), partidoClon.getId());
+        assertEquals(partidoResult.getId(), partidoClon.getId());
         if (modoJugador.equals(ModoJugador.LOCAL)) {
-            assertEquals(argumentCaptor.getValue().getCantidadGamesLocal(), partidoClon.getCantidadGamesLocal() + 1);
-            assertEquals(argumentCaptor.getValue().getCantidadGamesVisitante(), partidoClon.getCantidadGamesVisitante());
+            assertEquals(partidoResult.getCantidadGamesLocal(), partidoClon.getCantidadGamesLocal() + 1);
+            assertEquals(partidoResult.getCantidadGamesVisitante(), partidoClon.getCantidadGamesVisitante());
         } else {
-            assertEquals(argumentCaptor.getValue().getCantidadGamesLocal(), partidoClon.getCantidadGamesLocal());
-            assertEquals(argumentCaptor.getValue().getCantidadGamesVisitante(), partidoClon.getCantidadGamesVisitante() + 1);
+            assertEquals(partidoResult.getCantidadGamesLocal(), partidoClon.getCantidadGamesLocal());
+            assertEquals(partidoResult.getCantidadGamesVisitante(), partidoClon.getCantidadGamesVisitante() + 1);
         }
-        assertEquals(argumentCaptor.getValue().getJugadorLocal(), partidoClon.getJugadorLocal());
-        assertEquals(argumentCaptor.getValue().getJugadorVisitante(), partidoClon.getJugadorVisitante());
-        assertEquals(0, argumentCaptor.getValue().getScoreVisitante());
-        assertEquals(0, argumentCaptor.getValue().getScoreLocal());
-        assertEquals(argumentCaptor.getValue().getEstado(), partidoClon.getEstado());
-
-        verify(partidoRepository).save(any());
+        assertEquals(partidoResult.getJugadorLocal().getId(), partidoClon.getJugadorLocal().getId());
+        assertEquals(partidoResult.getJugadorVisitante().getId(), partidoClon.getJugadorVisitante().getId());
+        assertEquals(0, partidoResult.getScoreVisitante());
+        assertEquals(0, partidoResult.getScoreLocal());
+        assertEquals("0", partidoResult.getPuntosGameActualLocal());
+        assertEquals(partidoResult.getEstado(), partidoClon.getEstado());
+
+        cuandoSeActualizaElMarcador();
+        marcadorEnVivo.flush();
+        verify(partidoRepository).actualizarMarcador(eq(1L), eq(0), eq("0"), eq(partidoResult.getCantidadGamesLocal()), eq(0), eq("0"),
+                eq(partidoResult.getCantidadGamesVisitante()), anyInt(), anyInt(), any(), any(), eq(Estado.EN_CURSO), eq(1L), eq(0L));
         verify(partidoRepository).findById(eq(1L));
     }
 
     private void testWinMatchPoint(int localScore, int visitanteScore, ModoJugador modoJugador) {
-        ArgumentCaptor<Partido> argumentCaptor = ArgumentCaptor.forClass(Partido.class);
         Partido partido = new Partido(1L, new Date(), Estado.EN_CURSO, jugador1, jugador1, localScore, 0, visitanteScore, 0);
 
         if (modoJugador.equals(ModoJugador.LOCAL)) {
@@ -554,17 +822,26 @@ class PartidoServiceTest {
             partido.setCantidadGamesLocal(1);
             partido.setCantidadGamesVisitante(5);
         }
-        when(partidoRepository.save(argumentCaptor.capture())).thenAnswer((Answer<Partido>) invocation -> (Partido) invocation.getArguments()[0]);
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partido));
+        cuandoSeActualizaElMarcador();
 
         PartidoDTO partidoResult = partidoService.sumarPuntos(1L, modoJugador);
 
-        assertEquals(partidoResult.getId(), argumentCaptor.getValue().getId());
-        assertEquals(0, argumentCaptor.getValue().getScoreVisitante());
-        assertEquals(0, argumentCaptor.getValue().getScoreLocal());
-        assertEquals(Estado.FINALIZADO, argumentCaptor.getValue().getEstado());
-        verify(partidoRepository).save(any());
+        assertEquals(1L, partidoResult.getId());
+        assertEquals(0, partidoResult.getScoreVisitante());
+        assertEquals(0, partidoResult.getScoreLocal());
+        assertEquals(Estado.FINALIZADO, partidoResult.getEstado());
+        //El punto que finaliza el partido se guarda con la foto final antes de responder, sin esperar al flush
+        verify(partidoRepository).actualizarMarcador(eq(1L), eq(0), any(), anyInt(), eq(0), any(), anyInt(), anyInt(), anyInt(), any(), any(), eq(Estado.FINALIZADO), eq(1L), eq(0L));
         verify(partidoRepository).findById(eq(1L));
+        //Los puntos del ranking se asignan en segundo plano a partir del evento
+        verify(eventPublisher).publishEvent(argThat((Object evento) -> evento instanceof PartidoFinalizadoEvent
+                && ((PartidoFinalizadoEvent) evento).getIdPartido() == 1L
+                && ((PartidoFinalizadoEvent) evento).getIdGanador() == 1L));
+    }
+
+    private void cuandoSeActualizaElMarcador() {
+        when(partidoRepository.actualizarMarcador(any(), anyInt(), any(), anyInt(), anyInt(), any(), anyInt(), anyInt(), anyInt(), any(), any(), any(), any(), any())).thenReturn(1);
     }
 
     private void testSumarPuntosInconsistent(int localScore, int visitanteScore, ModoJugador modoJugador) {
@@ -575,9 +852,19 @@ class PartidoServiceTest {
 
         when(partidoRepository.findById(1L)).thenReturn(Optional.of(partidoAIniciar));
 
-        assertThrows(IllegalArgumentException.class, () -> partidoService.sumarPuntos(1L, modoJugador));
+        assertThrows(DatoInvalidoException.class, () -> partidoService.sumarPuntos(1L, modoJugador));
 
         verify(partidoRepository).findById(eq(1L));
 
     }
+
+    private HorarioPartido horario(Partido partido) {
+        return new HorarioPartido(partido.getId(), partido.getFechaComienzo());
+    }
+
+    private PartidoDTO partidoNuevo(long fecha) {
+        PartidoDTO partido = new PartidoDTO(new Date(fecha), Estado.NO_INICIADO, jugadorDTO1, jugadorDTO2);
+        partido.setCancha(canchaDTO1);
+        return partido;
+    }
 }
@@ -0,0 +1,180 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.EmparejamientoDTO;
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.ProgramacionDTO;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.mapper.CanchaMapperImpl;
+import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
+import com.baufest.tennis.springtennis.model.Cancha;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.repository.CanchaRepository;
+import com.baufest.tennis.springtennis.repository.HorarioPartido;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import com.baufest.tennis.springtennis.repository.PartidoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProgramacionTorneoTest {
+
+    private static final long HORA = TimeUnit.HOURS.toMillis(1);
+
+    @Mock
+    PartidoService partidoService;
+
+    @Mock
+    PartidoRepository partidoRepository;
+
+    @Mock
+    CanchaRepository canchaRepository;
+
+    @Mock
+    JugadorRepository jugadorRepository;
+
+    ProgramacionTorneo programacionTorneo;
+
+    //Mañana a una hora en punto, para no depender de la hora actual
+    long desde = (System.currentTimeMillis() / HORA + 24) * HORA;
+
+    @BeforeEach
+    public void setUp() {
+        programacionTorneo = new ProgramacionTorneo(partidoService, new AgendaCanchas(partidoRepository, canchaRepository), canchaRepository,
+                jugadorRepository, new CanchaMapperImpl(), new JugadorMapperImpl());
+    }
+
+    private void conJugadores(long cantidad) {
+        when(jugadorRepository.findAllById(any())).thenReturn(LongStream.rangeClosed(1, cantidad)
+                .mapToObj(id -> new Jugador(id, "jugador" + id, 0)).collect(Collectors.toList()));
+    }
+
+    private void conCanchas(long cantidad) {
+        when(canchaRepository.findAll(any(Sort.class))).thenReturn(LongStream.rangeClosed(1, cantidad)
+                .mapToObj(id -> new Cancha(id, "cancha" + id, "direccion" + id)).collect(Collectors.toList()));
+    }
+
+    private void devolverLoQueSeGuarda() {
+        when(partidoService.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private ProgramacionDTO programacion(long horas, EmparejamientoDTO... emparejamientos) {
+        return new ProgramacionDTO(new Date(desde), new Date(desde + horas * HORA), Arrays.asList(emparejamientos));
+    }
+
+    @Test
+    void testProgramarRespetaCanchasYDescanso() {
+        conJugadores(4);
+        conCanchas(2);
+        //La cancha 1 tiene un partido a la hora 1, recien queda libre a la hora 5
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Collections.singletonList(new HorarioPartido(10L, new Date(desde + HORA))));
+        when(partidoRepository.findHorarios(eq(2L), any())).thenReturn(Collections.emptyList());
+        devolverLoQueSeGuarda();
+        ProgramacionDTO programacion = programacion(24, new EmparejamientoDTO(1L, 2L), new EmparejamientoDTO(3L, 4L),
+                new EmparejamientoDTO(1L, 3L));
+        programacion.setDescansoMinutos(120);
+
+        List<PartidoDTO> partidos = programacionTorneo.programar(programacion);
+
+        assertEquals(3, partidos.size());
+        assertEquals(2L, partidos.get(0).getCancha().getId());
+        assertEquals(desde, partidos.get(0).getFechaComienzo().getTime());
+        //La cancha 2 se libera a la hora 4, antes que la cancha 1
+        assertEquals(2L, partidos.get(1).getCancha().getId());
+        assertEquals(desde + 4 * HORA, partidos.get(1).getFechaComienzo().getTime());
+        //Los jugadores 1 y 3 terminan a las 4 y a las 8, mas 2 horas de descanso; las dos canchas estan libres
+        //y se desempata por id
+        assertEquals(1L, partidos.get(2).getCancha().getId());
+        assertEquals(desde + 10 * HORA, partidos.get(2).getFechaComienzo().getTime());
+        assertEquals("jugador3", partidos.get(2).getJugadorVisitante().getNombre());
+        verify(partidoService, times(1)).saveAll(any());
+    }
+
+    @Test
+    void testProgramarSinLugarNoGuardaNada() {
+        conJugadores(4);
+        conCanchas(1);
+        when(partidoRepository.findHorarios(eq(1L), any())).thenReturn(Collections.emptyList());
+
+        DatoInvalidoException error = assertThrows(DatoInvalidoException.class, () -> programacionTorneo.programar(
+                programacion(6, new EmparejamientoDTO(1L, 2L), new EmparejamientoDTO(3L, 4L), new EmparejamientoDTO(1L, 9L))));
+
+        assertTrue(error.getMessage().contains("posicion 1"));
+        assertTrue(error.getMessage().contains("posicion 2"));
+        verify(partidoService, never()).saveAll(any());
+    }
+
+    @Test
+    void testProgramarRangoInvalido() {
+        ProgramacionDTO programacion = new ProgramacionDTO(new Date(desde), new Date(desde),
+                Collections.singletonList(new EmparejamientoDTO(1L, 2L)));
+        assertThrows(DatoInvalidoException.class, () -> programacionTorneo.programar(programacion));
+        assertThrows(DatoInvalidoException.class, () -> programacionTorneo.programar(programacion(1)));
+        verifyNoInteractions(jugadorRepository, canchaRepository, partidoService);
+    }
+
+    @Test
+    void testProgramarLoteGrande() {
+        int canchas = 20;
+        int jugadores = 400;
+        conJugadores(jugadores);
+        conCanchas(canchas);
+        when(partidoRepository.findHorarios(anyLong(), any())).thenReturn(Collections.emptyList());
+        devolverLoQueSeGuarda();
+        //Cinco rondas de 200 partidos, los jugadores se repiten entre rondas
+        List<EmparejamientoDTO> emparejamientos = new ArrayList<>();
+        for (int ronda = 0; ronda < 5; ronda++) {
+            for (int i = 0; i < jugadores / 2; i++) {
+                long local = (2 * i + ronda) % jugadores + 1;
+                long visitante = (2 * i + 1 + 3 * ronda) % jugadores + 1;
+                if (local != visitante) {
+                    emparejamientos.add(new EmparejamientoDTO(local, visitante));
+                }
+            }
+        }
+        ProgramacionDTO programacion = new ProgramacionDTO(new Date(desde), new Date(desde + 31 * 24 * HORA), emparejamientos);
+        programacion.setDescansoMinutos(60);
+
+        List<PartidoDTO> partidos = programacionTorneo.programar(programacion);
+
+        assertEquals(emparejamientos.size(), partidos.size());
+        Map<Long, List<Long>> porCancha = new HashMap<>();
+        Map<Long, List<Long>> porJugador = new HashMap<>();
+        for (PartidoDTO partido : partidos) {
+            long inicio = partido.getFechaComienzo().getTime();
+            porCancha.computeIfAbsent(partido.getCancha().getId(), id -> new ArrayList<>()).add(inicio);
+            porJugador.computeIfAbsent(partido.getJugadorLocal().getId(), id -> new ArrayList<>()).add(inicio);
+            porJugador.computeIfAbsent(partido.getJugadorVisitante().getId(), id -> new ArrayList<>()).add(inicio);
+        }
+        porCancha.values().forEach(inicios -> assertSeparados(inicios, AgendaCanchas.MARGEN_MS));
+        porJugador.values().forEach(inicios -> assertSeparados(inicios, AgendaCanchas.MARGEN_MS + HORA));
+    }
+
+    private static void assertSeparados(List<Long> inicios, long separacion) {
+        Collections.sort(inicios);
+        for (int i = 1; i < inicios.size(); i++) {
+            assertTrue(inicios.get(i) - inicios.get(i - 1) >= separacion);
+        }
+    }
+}
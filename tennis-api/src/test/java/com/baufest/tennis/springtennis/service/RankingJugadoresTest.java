@@ -0,0 +1,97 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.PosicionRankingDTO;
+import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import com.baufest.tennis.springtennis.repository.PuntajeJugador;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RankingJugadoresTest {
+
+    private final List<Jugador> jugadoresDePrueba = new ArrayList<>();
+
+    @Mock
+    JugadorRepository jugadorRepository;
+
+    RankingJugadores ranking;
+
+    @BeforeEach
+    public void setUp() {
+        jugadoresDePrueba.clear();
+        jugadoresDePrueba.add(new Jugador(1L, "facu", 20));
+        jugadoresDePrueba.add(new Jugador(2L, "fer", 15));
+        jugadoresDePrueba.add(new Jugador(3L, "juli", 15));
+        jugadoresDePrueba.add(new Jugador(4L, "axel", 5));
+
+        ranking = new RankingJugadores(jugadorRepository, new JugadorMapperImpl());
+    }
+
+    private void cargarJugadores() {
+        when(jugadorRepository.findPuntajes()).thenReturn(jugadoresDePrueba.stream()
+                .map(jugador -> new PuntajeJugador(jugador.getId(), jugador.getPuntos()))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void testPaginaConEmpates() {
+        cargarJugadores();
+        when(jugadorRepository.findAllById(Arrays.asList(2L, 3L, 4L))).thenReturn(jugadoresDePrueba.subList(1, 4));
+
+        List<PosicionRankingDTO> pagina = ranking.pagina(1, 10);
+
+        assertEquals(3, pagina.size());
+        assertEquals(Arrays.asList(2, 2, 4), pagina.stream().map(PosicionRankingDTO::getPosicion).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(2L, 3L, 4L), pagina.stream().map(posicion -> posicion.getJugador().getId())
+                .collect(Collectors.toList()));
+        verify(jugadorRepository, times(1)).findPuntajes();
+    }
+
+    @Test
+    void testPaginaFueraDeRango() {
+        cargarJugadores();
+
+        assertTrue(ranking.pagina(10, 10).isEmpty());
+        verify(jugadorRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void testActualizarYQuitar() {
+        cargarJugadores();
+        assertEquals(4, ranking.posicion(4L));
+
+        ranking.actualizar(4L, 30);
+        ranking.actualizar(5L, 15);
+        assertEquals(1, ranking.posicion(4L));
+        assertEquals(3, ranking.posicion(5L));
+        assertEquals(5, ranking.cantidadJugadores());
+
+        ranking.quitar(1L);
+        assertEquals(-1, ranking.posicion(1L));
+        assertEquals(2, ranking.posicion(2L));
+        assertEquals(4, ranking.cantidadJugadores());
+    }
+
+    @Test
+    void testActualizarSinCargarNoLeeLaBase() {
+        ranking.actualizar(1L, 30);
+        ranking.quitar(2L);
+
+        verify(jugadorRepository, never()).findPuntajes();
+    }
+}
@@ -0,0 +1,305 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.CuadroTorneoDTO;
+import com.baufest.tennis.springtennis.dto.EmparejamientoDTO;
+import com.baufest.tennis.springtennis.dto.LlaveTorneoDTO;
+import com.baufest.tennis.springtennis.dto.PartidoDTO;
+import com.baufest.tennis.springtennis.dto.ProgramacionDTO;
+import com.baufest.tennis.springtennis.dto.TorneoDTO;
+import com.baufest.tennis.springtennis.enums.ModoJugador;
+import com.baufest.tennis.springtennis.enums.TipoTorneo;
+import com.baufest.tennis.springtennis.event.PartidoFinalizadoEvent;
+import com.baufest.tennis.springtennis.exception.DatoInvalidoException;
+import com.baufest.tennis.springtennis.mapper.CanchaMapperImpl;
+import com.baufest.tennis.springtennis.mapper.JugadorMapperImpl;
+import com.baufest.tennis.springtennis.mapper.PartidoMapperImpl;
+import com.baufest.tennis.springtennis.mapper.TorneoMapperImpl;
+import com.baufest.tennis.springtennis.model.Jugador;
+import com.baufest.tennis.springtennis.model.LlaveTorneo;
+import com.baufest.tennis.springtennis.model.Torneo;
+import com.baufest.tennis.springtennis.repository.JugadorRepository;
+import com.baufest.tennis.springtennis.repository.LlaveTorneoRepository;
+import com.baufest.tennis.springtennis.repository.TorneoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TorneoServiceTest {
+
+    @Mock
+    TorneoRepository torneoRepository;
+
+    @Mock
+    LlaveTorneoRepository llaveTorneoRepository;
+
+    @Mock
+    JugadorRepository jugadorRepository;
+
+    @Mock
+    ProgramacionTorneo programacionTorneo;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    CacheManager cacheManager = new ConcurrentMapCacheManager(TorneoServiceImpl.CACHE);
+
+    TorneoServiceImpl torneoService;
+
+    @BeforeEach
+    public void setUp() {
+        JugadorMapperImpl jugadorMapper = new JugadorMapperImpl();
+        torneoService = new TorneoServiceImpl(torneoRepository, llaveTorneoRepository, jugadorRepository,
+                new TorneoMapperImpl(jugadorMapper), new PartidoMapperImpl(jugadorMapper, new CanchaMapperImpl()),
+                programacionTorneo, new TransactionTemplate(transactionManager), cacheManager, 100);
+    }
+
+    private static List<Jugador> jugadores(long cantidad) {
+        return LongStream.rangeClosed(1, cantidad).mapToObj(id -> new Jugador(id, "jugador" + id, 0)).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(long cantidad) {
+        return LongStream.rangeClosed(1, cantidad).boxed().collect(Collectors.toList());
+    }
+
+    //Devuelve un partido por emparejamiento, con ids desde 100
+    private void programarPartidos() {
+        when(programacionTorneo.programar(any())).thenAnswer(invocation -> {
+            ProgramacionDTO programacion = invocation.getArgument(0);
+            List<PartidoDTO> partidos = new ArrayList<>();
+            for (int i = 0; i < programacion.getEmparejamientos().size(); i++) {
+                PartidoDTO partido = new PartidoDTO();
+                partido.setId(100L + i);
+                partidos.add(partido);
+            }
+            return partidos;
+        });
+    }
+
+    private ProgramacionDTO programacion() {
+        ArgumentCaptor<ProgramacionDTO> captor = ArgumentCaptor.forClass(ProgramacionDTO.class);
+        verify(programacionTorneo).programar(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void testOrdenSiembra() {
+        assertArrayEquals(new int[]{1, 2}, TorneoServiceImpl.ordenSiembra(2));
+        assertArrayEquals(new int[]{1, 8, 4, 5, 2, 7, 3, 6}, TorneoServiceImpl.ordenSiembra(8));
+    }
+
+    @Test
+    void testSaveEliminacionConLibres() {
+        when(jugadorRepository.findAllById(any())).thenReturn(jugadores(5));
+        programarPartidos();
+        TorneoDTO torneo = new TorneoDTO("Abierto", TipoTorneo.ELIMINACION_DIRECTA, ids(5));
+        torneo.setDescansoMinutos(30);
+
+        CuadroTorneoDTO cuadro = torneoService.save(torneo);
+
+        //Cuadro de 8: los sembrados 1, 2 y 3 quedan libres, se juegan 4 contra 5 y la segunda ronda 2 contra 3
+        ProgramacionDTO programacion = programacion();
+        assertEquals(Arrays.asList("4-5", "2-3"), programacion.getEmparejamientos().stream()
+                .map(e -> e.getIdLocal() + "-" + e.getIdVisitante()).collect(Collectors.toList()));
+        assertEquals(30, programacion.getDescansoMinutos());
+        assertEquals(7, cuadro.getLlaves().size());
+        LlaveTorneoDTO libre = cuadro.getLlaves().get(0);
+        assertEquals(ModoJugador.LOCAL, libre.getGanador());
+        assertNull(libre.getIdPartido());
+        LlaveTorneoDTO segundaRonda = cuadro.getLlaves().get(4);
+        assertEquals(2, segundaRonda.getRonda());
+        assertEquals(1L, segundaRonda.getJugadorLocal().getId());
+        assertNull(segundaRonda.getJugadorVisitante());
+        assertEquals(100L, cuadro.getLlaves().get(1).getIdPartido());
+        assertEquals(101L, cuadro.getLlaves().get(5).getIdPartido());
+        assertNull(cuadro.getCampeon());
+        verify(torneoRepository).save(any());
+        verify(llaveTorneoRepository).saveAll(any());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testSaveTodosContraTodos() {
+        when(jugadorRepository.findAllById(any())).thenReturn(jugadores(5));
+        programarPartidos();
+
+        CuadroTorneoDTO cuadro = torneoService.save(new TorneoDTO("Liga", TipoTorneo.TODOS_CONTRA_TODOS, ids(5)));
+
+        //5 fechas de 2 partidos, cada uno descansa una fecha
+        assertEquals(10, cuadro.getLlaves().size());
+        assertEquals(10, programacion().getEmparejamientos().size());
+        Set<String> cruces = new HashSet<>();
+        for (int ronda = 1; ronda <= 5; ronda++) {
+            Set<Long> jugaron = new HashSet<>();
+            for (LlaveTorneoDTO llave : cuadro.getLlaves()) {
+                if (llave.getRonda() == ronda) {
+                    assertTrue(jugaron.add(llave.getJugadorLocal().getId()));
+                    assertTrue(jugaron.add(llave.getJugadorVisitante().getId()));
+                    long menor = Math.min(llave.getJugadorLocal().getId(), llave.getJugadorVisitante().getId());
+                    long mayor = Math.max(llave.getJugadorLocal().getId(), llave.getJugadorVisitante().getId());
+                    cruces.add(menor + "-" + mayor);
+                }
+            }
+            assertEquals(4, jugaron.size());
+        }
+        assertEquals(10, cruces.size());
+    }
+
+    @Test
+    void testSaveJugadorInexistente() {
+        when(jugadorRepository.findAllById(any())).thenReturn(jugadores(1));
+
+        assertThrows(DatoInvalidoException.class,
+                () -> torneoService.save(new TorneoDTO("Abierto", TipoTorneo.ELIMINACION_DIRECTA, ids(2))));
+        assertThrows(DatoInvalidoException.class,
+                () -> torneoService.save(new TorneoDTO("Abierto", TipoTorneo.ELIMINACION_DIRECTA, Arrays.asList(1L, 1L))));
+        verifyNoInteractions(torneoRepository, llaveTorneoRepository, programacionTorneo);
+    }
+
+    @Test
+    void testGanadorAvanzaYSeProgramaLaFinal() {
+        Torneo torneo = new Torneo("Abierto", TipoTorneo.ELIMINACION_DIRECTA);
+        torneo.setId(7L);
+        List<Jugador> jugadores = jugadores(3);
+        LlaveTorneo semifinal = new LlaveTorneo(torneo, 1, 1, jugadores.get(2), jugadores.get(1));
+        semifinal.setIdPartido(50L);
+        LlaveTorneo fin = new LlaveTorneo(torneo, 2, 0, jugadores.get(0), null);
+        when(llaveTorneoRepository.bloquearPorPartido(50L)).thenReturn(Optional.of(semifinal));
+        when(llaveTorneoRepository.bloquear(7L, 2, 0)).thenReturn(Optional.of(fin));
+        programarPartidos();
+        cacheManager.getCache(TorneoServiceImpl.CACHE).put(7L, new CuadroTorneoDTO());
+
+        torneoService.registrarGanador(50L, 2L);
+
+        assertEquals(ModoJugador.VISITANTE, semifinal.getGanador());
+        assertEquals(2L, fin.getJugadorVisitante().getId());
+        assertEquals(100L, fin.getIdPartido());
+        EmparejamientoDTO finalProgramada = programacion().getEmparejamientos().get(0);
+        assertEquals(1L, finalProgramada.getIdLocal());
+        assertEquals(2L, finalProgramada.getIdVisitante());
+        assertNull(cacheManager.getCache(TorneoServiceImpl.CACHE).get(7L));
+    }
+
+    @Test
+    void testGanadorSeRegistraAunqueNoHayaCanchaParaLaFinal() {
+        Torneo torneo = new Torneo("Abierto", TipoTorneo.ELIMINACION_DIRECTA);
+        torneo.setId(7L);
+        List<Jugador> jugadores = jugadores(3);
+        LlaveTorneo semifinal = new LlaveTorneo(torneo, 1, 1, jugadores.get(2), jugadores.get(1));
+        semifinal.setIdPartido(50L);
+        LlaveTorneo fin = new LlaveTorneo(torneo, 2, 0, jugadores.get(0), null);
+        when(llaveTorneoRepository.bloquearPorPartido(50L)).thenReturn(Optional.of(semifinal));
+        when(llaveTorneoRepository.bloquear(7L, 2, 0)).thenReturn(Optional.of(fin));
+        when(programacionTorneo.programar(any())).thenThrow(new DatoInvalidoException("No hay canchas libres."));
+
+        torneoService.registrarGanador(50L, 2L);
+
+        //El ganador queda registrado en una transaccion y la final, sin partido, queda para revisar
+        assertEquals(ModoJugador.VISITANTE, semifinal.getGanador());
+        assertEquals(2L, fin.getJugadorVisitante().getId());
+        assertNull(fin.getIdPartido());
+        assertTrue(fin.isRevisar());
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager).rollback(any());
+
+        //El barrido ya no la vuelve a programar
+        torneoService.programarLlave(7L, 2, 0);
+        verify(programacionTorneo, times(1)).programar(any());
+    }
+
+    @Test
+    void testGanadorQueNoEsDeLaLlaveLaMarcaParaRevisar() {
+        Torneo torneo = new Torneo("Abierto", TipoTorneo.ELIMINACION_DIRECTA);
+        torneo.setId(7L);
+        LlaveTorneo llave = new LlaveTorneo(torneo, 1, 0, new Jugador(1L, "facu", 20), new Jugador(2L, "fer", 15));
+        when(llaveTorneoRepository.bloquearPorPartido(50L)).thenReturn(Optional.of(llave));
+
+        torneoService.registrarGanador(50L, 3L);
+        torneoService.registrarGanador(50L, 3L);
+
+        assertTrue(llave.isRevisar());
+        assertNull(llave.getGanador());
+        verify(llaveTorneoRepository, never()).bloquear(anyLong(), anyInt(), anyInt());
+        verifyNoInteractions(programacionTorneo);
+    }
+
+    @Test
+    void testBarridoProgramaLasLlavesCompletas() {
+        Torneo torneo = new Torneo("Abierto", TipoTorneo.ELIMINACION_DIRECTA);
+        torneo.setId(7L);
+        List<Jugador> jugadores = jugadores(2);
+        LlaveTorneo fin = new LlaveTorneo(torneo, 2, 0, jugadores.get(0), jugadores.get(1));
+        when(llaveTorneoRepository.findPartidosSinGanador(any(), any())).thenReturn(Collections.emptyList());
+        when(llaveTorneoRepository.findPorProgramar(any())).thenReturn(Collections.singletonList(fin));
+        when(llaveTorneoRepository.bloquear(7L, 2, 0)).thenReturn(Optional.of(fin));
+        programarPartidos();
+
+        torneoService.barrer();
+
+        assertEquals(100L, fin.getIdPartido());
+    }
+
+    @Test
+    void testGanadorYaRegistrado() {
+        Torneo torneo = new Torneo("Abierto", TipoTorneo.ELIMINACION_DIRECTA);
+        LlaveTorneo llave = new LlaveTorneo(torneo, 1, 0, new Jugador(1L, "facu", 20), new Jugador(2L, "fer", 15));
+        llave.setGanador(ModoJugador.LOCAL);
+        when(llaveTorneoRepository.bloquearPorPartido(50L)).thenReturn(Optional.of(llave));
+        when(llaveTorneoRepository.bloquearPorPartido(51L)).thenReturn(Optional.empty());
+
+        torneoService.registrarGanador(50L, 2L);
+        //Partido que no es de un torneo
+        torneoService.registrarGanador(51L, 2L);
+
+        assertEquals(ModoJugador.LOCAL, llave.getGanador());
+        verify(llaveTorneoRepository, never()).bloquear(anyLong(), anyInt(), anyInt());
+        verifyNoInteractions(programacionTorneo);
+    }
+
+    @Test
+    void testPartidoFinalizadoSeRegistraEnSegundoPlano() {
+        Torneo torneo = new Torneo("Abierto", TipoTorneo.TODOS_CONTRA_TODOS);
+        torneo.setId(7L);
+        LlaveTorneo llave = new LlaveTorneo(torneo, 1, 0, new Jugador(1L, "facu", 20), new Jugador(2L, "fer", 15));
+        Thread hiloDelPunto = Thread.currentThread();
+        List<Thread> hilos = new CopyOnWriteArrayList<>();
+        when(llaveTorneoRepository.bloquearPorPartido(50L)).thenAnswer(invocation -> {
+            hilos.add(Thread.currentThread());
+            return Optional.of(llave);
+        });
+
+        torneoService.partidoFinalizado(new PartidoFinalizadoEvent(50L, 2L));
+
+        verify(llaveTorneoRepository, timeout(1000)).bloquearPorPartido(50L);
+        assertNotSame(hiloDelPunto, hilos.get(0));
+    }
+}
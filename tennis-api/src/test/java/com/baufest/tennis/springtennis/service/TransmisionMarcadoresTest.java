@@ -0,0 +1,69 @@
+package com.baufest.tennis.springtennis.service;
+
+import com.baufest.tennis.springtennis.dto.MarcadorDTO;
+import com.baufest.tennis.springtennis.enums.Estado;
+import com.baufest.tennis.springtennis.event.MarcadorActualizadoEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransmisionMarcadoresTest {
+
+    TransmisionMarcadores transmisionMarcadores;
+
+    @BeforeEach
+    public void setUp() {
+        transmisionMarcadores = new TransmisionMarcadores(new ObjectMapper(), 1000L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transmisionMarcadores.cerrar();
+    }
+
+    @Test
+    void testSuscribirPorPartido() {
+        SseEmitter emitter = transmisionMarcadores.suscribir(marcador(1L, 0L, Estado.EN_CURSO));
+        transmisionMarcadores.suscribir(marcador(1L, 0L, Estado.EN_CURSO));
+        transmisionMarcadores.suscribir(marcador(2L, 0L, Estado.EN_CURSO));
+
+        assertNotNull(emitter);
+        assertEquals(2, transmisionMarcadores.cantidadSuscriptores(1L));
+        assertEquals(1, transmisionMarcadores.cantidadSuscriptores(2L));
+        assertEquals(0, transmisionMarcadores.cantidadSuscriptores(3L));
+    }
+
+    @Test
+    void testSuscribirAUnPartidoFinalizadoCierraLaConexion() {
+        SseEmitter emitter = transmisionMarcadores.suscribir(marcador(1L, 9L, Estado.FINALIZADO));
+
+        assertNotNull(emitter);
+        assertEquals(0, transmisionMarcadores.cantidadSuscriptores(1L));
+        //Ya completado, no acepta mas eventos
+        assertThrows(IllegalStateException.class, () -> emitter.send("marcador"));
+    }
+
+    @Test
+    void testPartidoSinSuscriptores() {
+        //Sin clientes conectados no se serializa ni se envia nada
+        transmisionMarcadores.marcadorActualizado(new MarcadorActualizadoEvent(marcador(1L, 1L, Estado.EN_CURSO)));
+        transmisionMarcadores.marcadorActualizado(new MarcadorActualizadoEvent(marcador(1L, 2L, Estado.FINALIZADO)));
+        assertEquals(0, transmisionMarcadores.cantidadSuscriptores(1L));
+    }
+
+    private MarcadorDTO marcador(Long idPartido, Long version, Estado estado) {
+        MarcadorDTO marcador = new MarcadorDTO();
+        marcador.setIdPartido(idPartido);
+        marcador.setVersion(version);
+        marcador.setEstado(estado);
+        marcador.setPuntosGameActualLocal("0");
+        marcador.setPuntosGameActualVisitante("0");
+        return marcador;
+    }
+}
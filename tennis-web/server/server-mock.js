@@ -15,6 +15,13 @@ router.get('/jugadores', async (req, res) => {
   res.json(require('../mock/jugadores-list.json'));
 });
 
+router.get('/jugadores/search', async (req, res) => {
+  await delay(300);
+  const nombre = (req.query.nombre || '').toLowerCase();
+  res.status(200);
+  res.json(require('../mock/jugadores-list.json').filter((jugador) => jugador.nombre.toLowerCase().startsWith(nombre)));
+});
+
 router.post('/jugadores', async (req, res) => {
   await delay(3000);
   res.status(201);
@@ -1,19 +1,38 @@
-import React, { useRef } from 'react';
+import React, { useRef, useState } from 'react';
 import { Button, Form, Modal } from 'react-bootstrap';
 import FormRowInput from '../FormRow/FormRowInput';
 import FormRowSelect from '../FormRow/FormRowSelect';
 
 const PartidoModal = (props) => {
   const formRef = useRef(null);
-  const { show, onHide, isEdit, handleChange, partido, listaJugadores, listaCanchas, validated, handleSubmit, errorMsg } = props;
+  const { show, onHide, isEdit, handleChange, partido, listaJugadores, listaCanchas, validated, handleSubmit, errorMsg,
+    buscarJugadores, buscarCanchas } = props;
+  const [busquedaJugador, setBusquedaJugador] = useState('');
+  const [busquedaCancha, setBusquedaCancha] = useState('');
 
-  const jugadores = listaJugadores.map(jugador => {
+  // Las listas traen solo los resultados de la busqueda, se agregan los ya elegidos para que sigan visibles
+  const conElegidos = (lista, elegidos) => {
+    const faltantes = elegidos.filter((elegido) => elegido.id !== -1 && !lista.some((x) => x.id === elegido.id));
+    return [...faltantes, ...lista];
+  };
+
+  const jugadores = conElegidos(listaJugadores, [partido.jugadorLocal, partido.jugadorVisitante]).map(jugador => {
     return <option key={jugador.id} value={parseInt(jugador.id)}>{jugador.nombre}</option>
   })
-  const canchas = listaCanchas.map(cancha => {
+  const canchas = conElegidos(listaCanchas, [partido.cancha]).map(cancha => {
     return <option key={cancha.id} value={parseInt(cancha.id)}>{cancha.nombre}</option>
   })
 
+  const handleBusqueda = (property, value) => {
+    if (property === 'busquedaJugador') {
+      setBusquedaJugador(value);
+      buscarJugadores(value);
+    } else {
+      setBusquedaCancha(value);
+      buscarCanchas(value);
+    }
+  };
+
   return (
     <Modal
       show={show}
@@ -40,6 +59,16 @@ const PartidoModal = (props) => {
             property={'fechaComienzo'}
           />
 
+          <FormRowInput
+            label={'Buscar cancha'}
+            type={'text'}
+            required={false}
+            placeholder={'Comienzo del nombre'}
+            value={busquedaCancha}
+            handleChange={handleBusqueda}
+            property={'busquedaCancha'}
+          />
+
           <FormRowSelect
             label={"Cancha"}
             required={true}
@@ -50,6 +79,16 @@ const PartidoModal = (props) => {
             options={canchas}
           />
 
+          <FormRowInput
+            label={'Buscar jugador'}
+            type={'text'}
+            required={false}
+            placeholder={'Comienzo del nombre'}
+            value={busquedaJugador}
+            handleChange={handleBusqueda}
+            property={'busquedaJugador'}
+          />
+
           <FormRowSelect
             label={"Jugador Local"}
             required={true}
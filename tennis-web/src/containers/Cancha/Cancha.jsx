@@ -12,6 +12,7 @@ let canchaInit = {
 
 const Cancha = (props) => {
     const [canchasList, setCanchasList] = useState([]);
+    const [siguiente, setSiguiente] = useState(null);
     const [canchaData, setCanchaData] = useState(canchaInit);
     const [isEdit, setIsEdit] = useState(false);
     const [hasErrorInForm, setHasErrorInForm] = useState(false);
@@ -23,10 +24,12 @@ const Cancha = (props) => {
     }, []);
 
     //Verbos
-    const getCanchas = async () => {
+    //Trae una pagina de canchas: la primera reemplaza la lista, las siguientes se agregan al final
+    const getCanchas = async (cursor = null) => {
         try {
-            const data = await httpClient.get('/canchas');
-            setCanchasList(data);
+            const pagina = await httpClient.getPage('/canchas', cursor);
+            setCanchasList((lista) => (cursor === null ? pagina.items : [...lista, ...pagina.items]));
+            setSiguiente(pagina.siguiente);
         } catch (error) {
             console.log(error);
         }
@@ -127,6 +130,11 @@ const Cancha = (props) => {
                 edit={handleEdit}
                 delete={(id, event) => handleDelete(id, event)}
             />
+            {siguiente !== null && (
+                <div className="mb-2">
+                    <Button variant="secondary" onClick={() => getCanchas(siguiente)}>Cargar más</Button>
+                </div>
+            )}
             <CanchaModal
                 show={openModal}
                 onHide={handleCloseModal}
@@ -12,6 +12,7 @@ let jugadorInit = {
 
 const Jugador = (props) => {
   const [jugadoresList, setJugadoresList] = useState([]);
+  const [siguiente, setSiguiente] = useState(null);
   const [jugadorData, setJugadorData] = useState(jugadorInit);
   const [isEdit, setIsEdit] = useState(false);
   const [hasErrorInForm, setHasErrorInForm] = useState(false);
@@ -23,10 +24,12 @@ const Jugador = (props) => {
   }, []);
 
   //Verbos
-  const getJugadores = async () => {
+  //Trae una pagina de jugadores: la primera reemplaza la lista, las siguientes se agregan al final
+  const getJugadores = async (cursor = null) => {
     try {
-      const data = await httpClient.get('/jugadores');
-      setJugadoresList(data);
+      const pagina = await httpClient.getPage('/jugadores', cursor);
+      setJugadoresList((lista) => (cursor === null ? pagina.items : [...lista, ...pagina.items]));
+      setSiguiente(pagina.siguiente);
     } catch (error) {
       console.log(error);
     }
@@ -127,6 +130,11 @@ const Jugador = (props) => {
         edit={handleEdit}
         delete={(id, event) => handleDelete(id, event)}
       />
+      {siguiente !== null && (
+        <div className="mb-2">
+          <Button variant="secondary" onClick={() => getJugadores(siguiente)}>Cargar más</Button>
+        </div>
+      )}
       <JugadorModal
         show={openModal}
         onHide={handleCloseModal}
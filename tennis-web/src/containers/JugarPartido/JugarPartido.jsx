@@ -1,11 +1,25 @@
-import React, { useState } from 'react';
+import React, { useEffect, useState } from 'react';
 import Typography from '../../components/Typography/Typography';
 import Table from 'react-bootstrap/Table';
 import Button from 'react-bootstrap/Button';
-import httpClient from '../../lib/httpClient';
+import httpClient, { BASE_URL } from '../../lib/httpClient';
 
 const JugarPartido = (props) => {
   const [partido, setPartido] = useState(props.location.state.partido);
+
+  // Marcador en vivo: el servidor envia un evento cada vez que cambia, se ignoran los de version vieja
+  useEffect(() => {
+    const marcadores = new EventSource(`${BASE_URL}/partidos/${partido.id}/marcador/stream`);
+    marcadores.addEventListener('marcador', (evento) => {
+      const marcador = JSON.parse(evento.data);
+      setPartido((actual) => (actual.version != null && marcador.version < actual.version ? actual : { ...actual, ...marcador }));
+      if (marcador.estado === 'FINALIZADO') {
+        marcadores.close();
+      }
+    });
+    return () => marcadores.close();
+  }, [partido.id]);
+
   const sumarPunto = async (idPartido, modoJugador) => {
     try {
       let response = await httpClient.post(`/partidos/${idPartido}/actions/sumar-punto`, { params : {modoJugador} });
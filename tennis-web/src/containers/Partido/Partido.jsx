@@ -1,4 +1,4 @@
-import React, { useEffect, useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import Typography from '../../components/Typography/Typography';
 import TablePartido from '../../components/Tables/TablePartido';
 import PartidoModal from '../../components/Modals/PartidoModal';
@@ -31,6 +31,7 @@ const dateOptions = {
 
 const Partido = () => {
   const [partidosList, setPartidosList] = useState([]);
+  const [siguiente, setSiguiente] = useState(null);
   const [listaJugadores, setListaJugadores] = useState([]);
   const [listaCanchas, setListaCanchas] = useState([]);
   const [partidoData, setPartidoData] = useState(partidoInit);
@@ -41,41 +42,48 @@ const Partido = () => {
 
   useEffect(async () => {
     await getPartidos();
-    await getJugadores();
-    await getCanchas();
+    await buscarJugadores('');
+    await buscarCanchas('');
   }, []);
 
   // Functions
 
   //Verbos
 
-  const getPartidos = async () => {
+  //Trae una pagina de partidos: la primera reemplaza la lista, las siguientes se agregan al final
+  const getPartidos = async (cursor = null) => {
     try {
-      const data = await httpClient.get('/partidos');
-      data.map((partido) => {
+      const pagina = await httpClient.getPage('/partidos', cursor);
+      pagina.items.map((partido) => {
         partido.fechaComienzo = new Date(partido.fechaComienzo).toLocaleDateString('es-AR', dateOptions);
         return partido;
       });
-      setPartidosList(data);
+      setPartidosList((lista) => (cursor === null ? pagina.items : [...lista, ...pagina.items]));
+      setSiguiente(pagina.siguiente);
     } catch (error) {
       console.log(error);
     }
   };
 
-  const getJugadores = async () => {
+  //Las listas desplegables muestran solo los primeros resultados de la busqueda por nombre, no el listado completo.
+  //Se busca a medida que se escribe: solo se muestra la respuesta de la ultima busqueda, aunque otra llegue despues
+  const ultimaBusqueda = useRef({ jugadores: 0, canchas: 0 });
+
+  const buscarJugadores = async (nombre) => {
+    const busqueda = ++ultimaBusqueda.current.jugadores;
     try {
-      const data = await httpClient.get('/jugadores');
-      setListaJugadores(data);
+      const data = await httpClient.get('/jugadores/search', { params: { nombre } });
+      if (busqueda === ultimaBusqueda.current.jugadores) setListaJugadores(data);
     } catch (error) {
       console.log(error);
     }
   };
 
-  const getCanchas = async () => {
+  const buscarCanchas = async (nombre) => {
+    const busqueda = ++ultimaBusqueda.current.canchas;
     try {
-      const data = await httpClient.get('/canchas');
-      setListaCanchas(data);
-      console.log('canchas', data);
+      const data = await httpClient.get('/canchas/search', { params: { nombre } });
+      if (busqueda === ultimaBusqueda.current.canchas) setListaCanchas(data);
     } catch (error) {
       console.log(error);
     }
@@ -205,16 +213,19 @@ const Partido = () => {
     value === '' ? setHasErrorInForm(true) : setHasErrorInForm(false);
 
     const newData = { ...partidoData };
+    // Las opciones son el resultado de la busqueda mas los ya elegidos (que pueden no estar en la busqueda actual)
+    const jugadoresElegibles = [...listaJugadores, partidoData.jugadorLocal, partidoData.jugadorVisitante];
+    const buscarPorId = (lista, id, porDefecto) => lista.filter((x) => x.id === parseInt(id))[0] || porDefecto;
 
     switch (property) {
       case 'jugadorLocal':
-        newData.jugadorLocal = listaJugadores.filter((x) => x.id === parseInt(value))[0];
+        newData.jugadorLocal = buscarPorId(jugadoresElegibles, value, partidoInit.jugadorLocal);
         break;
       case 'jugadorVisitante':
-        newData.jugadorVisitante = listaJugadores.filter((x) => x.id === parseInt(value))[0];
+        newData.jugadorVisitante = buscarPorId(jugadoresElegibles, value, partidoInit.jugadorVisitante);
         break;
       case 'cancha':
-        newData.cancha = listaCanchas.filter((x) => x.id === parseInt(value))[0];
+        newData.cancha = buscarPorId([...listaCanchas, partidoData.cancha], value, partidoInit.cancha);
         break;
       case 'fechaComienzo':
         newData.fechaComienzo = value;
@@ -247,6 +258,11 @@ const Partido = () => {
         deletePartido={(id, event) => handleDeletePartido(id, event)}
         iniciarPartido={iniciarPartido}
       />
+      {siguiente !== null && (
+        <div className='mb-2'>
+          <Button variant='secondary' onClick={() => getPartidos(siguiente)}>Cargar más</Button>
+        </div>
+      )}
       <PartidoModal
         show={openModal}
         onHide={handleCloseModal}
@@ -258,6 +274,8 @@ const Partido = () => {
         partido={partidoData}
         listaJugadores={listaJugadores}
         listaCanchas={listaCanchas}
+        buscarJugadores={buscarJugadores}
+        buscarCanchas={buscarCanchas}
       />
     </>
   );
@@ -8,18 +8,31 @@ let headers = {
     Pragma: "no-cache"
 };
 
+export const BASE_URL = `http://localhost:8080/springtennis/api/v1`;
+
+// Los listados de la api devuelven una pagina por llamada, el cursor de la siguiente viaja en este header
+const HEADER_SIGUIENTE = "x-next-cursor";
+
+// Despues de escribir la api devuelve el momento de la escritura; reenviarlo hace que nuestras lecturas vayan a la
+// base primaria mientras las replicas pueden estar atrasadas
+const HEADER_ESCRITURA = "X-Ultima-Escritura";
+let ultimaEscritura = null;
+
 const filterOptions = ({method, ...rest}) => rest;
 
-const fetch = async (url, options = {}) => {
+const request = async (url, options = {}) => {
     try {
         const instance = axios.create({
-            baseURL: `http://localhost:8080/springtennis/api/v1`
+            baseURL: BASE_URL
         });
 
         // INTERCEPTOR REQUEST
         instance.interceptors.request.use(
             (conf) => {
                 //console.log('1 Interceptor request conf: ', conf);
+                if (ultimaEscritura !== null) {
+                    conf.headers[HEADER_ESCRITURA] = ultimaEscritura;
+                }
                 return conf;
             },
             (error) => {
@@ -31,6 +44,10 @@ const fetch = async (url, options = {}) => {
         instance.interceptors.response.use(
             (response) => {
                 //console.log('Interceptor response: ', response);
+                const escritura = response.headers[HEADER_ESCRITURA.toLowerCase()];
+                if (escritura) {
+                    ultimaEscritura = escritura;
+                }
                 return response;
             },
             (error) => {
@@ -39,7 +56,7 @@ const fetch = async (url, options = {}) => {
             }
         );
 
-        const {data} = await instance.request({
+        return await instance.request({
             url,
             data: options["data"],
             params: options["params"],
@@ -49,8 +66,6 @@ const fetch = async (url, options = {}) => {
                 ? new axios.CancelToken(options["cancelFn"])
                 : null
         });
-
-        return data;
     } catch (err) {
         if (axios.isCancel(err)) {
             throw new Error("request-cancelled");
@@ -60,6 +75,11 @@ const fetch = async (url, options = {}) => {
     }
 };
 
+const fetch = async (url, options = {}) => {
+    const {data} = await request(url, options);
+    return data;
+};
+
 const get = async (url, options = {}) => {
     return await fetch(url, {
         method: "GET",
@@ -67,6 +87,17 @@ const get = async (url, options = {}) => {
     });
 };
 
+// Lee una pagina de un listado a partir del cursor recibido (null para la primera). Devuelve los items y el cursor
+// de la pagina siguiente (X-Next-Cursor), que es null cuando no hay mas paginas
+const getPage = async (url, cursor = null, options = {}) => {
+    const params = {...options["params"]};
+    if (cursor !== null) {
+        params.cursor = cursor;
+    }
+    const response = await request(url, {...filterOptions(options), method: "GET", params});
+    return {items: response.data, siguiente: response.headers[HEADER_SIGUIENTE] || null};
+};
+
 const post = async (url, options = {}) => {
     return await fetch(url, {
         method: "POST",
@@ -90,6 +121,7 @@ const del = async (url, options = {}) => {
 
 export default {
     get,
+    getPage,
     post,
     put,
     delete: del